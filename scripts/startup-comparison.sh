@@ -0,0 +1,78 @@
+#!/usr/bin/env bash
+#
+# Confronto dei tempi di avvio e della prima richiesta tra le varianti di build:
+#   jar     - fat jar standard                     (mvn package)
+#   aot-cds - AOT di Spring + archivio AppCDS      (mvn -Paot package)
+#   native  - eseguibile GraalVM                   (mvn -Pnative native:compile)
+# Le varianti non compilate vengono saltate.
+#
+# Per ogni variante misura:
+#   ready      - dall'avvio del processo a /actuator/health/readiness UP (riscaldamento incluso)
+#   first-page - prima richiesta alla homepage (Thymeleaf)
+#   first-api  - prima creazione di un biglietto (JPA, validazione, ZXing)
+#
+# Uso: scripts/startup-comparison.sh [ripetizioni] (default 3)
+set -euo pipefail
+
+RUNS="${1:-3}"
+PORT="${PORT:-18080}"
+ROOT="$(cd "$(dirname "$0")/.." && pwd)"
+TARGET="$ROOT/target"
+JAR="$(ls "$TARGET"/qr-ticket-system-*.jar 2>/dev/null | grep -v '\.original$' | head -n 1 || true)"
+JAVA="${JAVA_HOME:+$JAVA_HOME/bin/}java"
+BASE_URL="http://localhost:$PORT"
+TICKET_JSON='{"eventName":"Prova avvio","userName":"Mario Rossi","userEmail":"mario.rossi@example.com"}'
+
+now_ms() {
+    date +%s%3N
+}
+
+wait_ready() {
+    local pid="$1"
+    until curl -sf -o /dev/null "$BASE_URL/actuator/health/readiness"; do
+        if ! kill -0 "$pid" 2>/dev/null; then
+            echo "processo terminato prima di essere pronto" >&2
+            return 1
+        fi
+        sleep 0.02
+    done
+}
+
+request_ms() {
+    curl -s -o /dev/null -w '%{time_total}' "$@" | awk '{ printf "%d", $1 * 1000 }'
+}
+
+measure() {
+    local name="$1"
+    shift
+    local run
+    for run in $(seq 1 "$RUNS"); do
+        local start ready page api pid
+        start="$(now_ms)"
+        SERVER_PORT="$PORT" "$@" > "$TARGET/startup-$name.log" 2>&1 &
+        pid=$!
+        wait_ready "$pid"
+        ready=$(( $(now_ms) - start ))
+        page="$(request_ms "$BASE_URL/")"
+        api="$(request_ms -X POST -H 'Content-Type: application/json' -d "$TICKET_JSON" "$BASE_URL/api/tickets")"
+        kill "$pid"
+        wait "$pid" 2>/dev/null || true
+        printf '%-8s %3d %10d %12d %11d\n' "$name" "$run" "$ready" "$page" "$api"
+    done
+}
+
+printf '%-8s %3s %10s %12s %11s\n' "variante" "run" "ready(ms)" "first-page" "first-api"
+
+if [[ -n "$JAR" ]]; then
+    measure jar "$JAVA" -jar "$JAR"
+fi
+
+if [[ -f "$TARGET/cds/application.jsa" ]]; then
+    CDS_JAR="$(ls "$TARGET"/cds/qr-ticket-system-*.jar | head -n 1)"
+    measure aot-cds "$JAVA" -XX:SharedArchiveFile="$TARGET/cds/application.jsa" -Dspring.aot.enabled=true \
+        -jar "$CDS_JAR"
+fi
+
+if [[ -x "$TARGET/qr-ticket-system" ]]; then
+    measure native "$TARGET/qr-ticket-system"
+fi
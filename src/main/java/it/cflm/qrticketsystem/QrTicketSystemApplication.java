@@ -2,8 +2,12 @@ package it.cflm.qrticketsystem; // Modificato il package
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.ImportRuntimeHints;
+
+import it.cflm.qrticketsystem.config.QrTicketRuntimeHints;
 
 @SpringBootApplication
+@ImportRuntimeHints(QrTicketRuntimeHints.class)
 public class QrTicketSystemApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,17 @@
+package it.cflm.qrticketsystem.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Data;
+
+/**
+ * Statistiche in tempo reale su ingressi e presenze, calcolate in memoria dagli esiti dei check-in.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "qrticket.analytics")
+@Data
+public class AnalyticsProperties {
+    /** Ampiezza in secondi della finestra mobile su cui si calcolano i ritmi di ingresso. */
+    private int windowSeconds = 60;
+}
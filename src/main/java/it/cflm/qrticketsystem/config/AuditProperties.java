@@ -0,0 +1,21 @@
+package it.cflm.qrticketsystem.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Data;
+
+/**
+ * Traccia di audit delle scansioni: coda limitata in memoria e scrittura JDBC in batch.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "qrticket.audit")
+@Data
+public class AuditProperties {
+    /** Scansioni in attesa di scrittura oltre le quali le nuove vengono scartate. */
+    private int capacity = 100_000;
+    /** Scansioni scritte per ogni batch JDBC; raggiunta questa soglia la scrittura parte subito. */
+    private int batchSize = 500;
+    /** Intervallo massimo tra due scritture, in millisecondi. */
+    private long flushIntervalMs = 1000;
+}
@@ -0,0 +1,13 @@
+package it.cflm.qrticketsystem.config;
+
+import lombok.Data;
+
+/**
+ * Connessione a un database aggiuntivo (replica o shard).
+ */
+@Data
+public class DatabaseNode {
+    private String url;
+    private String username;
+    private String password;
+}
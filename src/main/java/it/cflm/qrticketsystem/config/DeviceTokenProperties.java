@@ -0,0 +1,23 @@
+package it.cflm.qrticketsystem.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Data;
+
+/**
+ * Token firmati (HMAC) dei dispositivi di scansione.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "qrticket.device-token")
+@Data
+public class DeviceTokenProperties {
+    /** Chiave HMAC in Base64 (almeno 32 byte), uguale su tutte le istanze; se vuota ne viene generata una. */
+    private String secret;
+    /** Validità di default di un token, in secondi. */
+    private long ttlSeconds = 3600;
+    /** Validità massima richiedibile per un token, in secondi. */
+    private long maxTtlSeconds = 12 * 3600;
+    /** Intervallo di rilettura delle revoche condivise tra le istanze, in millisecondi. */
+    private long revocationRefreshMs = 5000;
+}
@@ -0,0 +1,21 @@
+package it.cflm.qrticketsystem.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Data;
+
+/**
+ * Anagrafica degli eventi: evento in evidenza e cache dei dati degli eventi.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "qrticket.events")
+@Data
+public class EventProperties {
+    /** Evento proposto nella pagina principale (creato al primo accesso se non esiste). */
+    private String featured = "Non succederà più! CFLM 2025 Party";
+    /** Secondi dopo i quali un evento in cache viene riletto (modifiche fatte da altre istanze). */
+    private long cacheTtlSeconds = 60;
+    /** Numero massimo di eventi in cache. */
+    private int cacheSize = 10_000;
+}
@@ -0,0 +1,23 @@
+package it.cflm.qrticketsystem.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Data;
+
+/**
+ * Modalità varco: check-in in memoria, journal locale e scrittura in batch (write-behind) sul database.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "qrticket.gate")
+@Data
+public class GateProperties {
+    /** Directory del journal locale dei check-in non ancora scritti sul database. */
+    private String journalDir = "./data/checkin-journal";
+    /** Intervallo tra due scritture in batch dei check-in sul database, in millisecondi. */
+    private long flushIntervalMs = 200;
+    /** Numero massimo di check-in scritti in una singola transazione. */
+    private int batchSize = 500;
+    /** Record per segmento del journal (32 byte ciascuno). */
+    private int segmentRecords = 1 << 20;
+}
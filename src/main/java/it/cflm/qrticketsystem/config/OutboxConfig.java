@@ -0,0 +1,23 @@
+package it.cflm.qrticketsystem.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import it.cflm.qrticketsystem.outbox.ApplicationEventOutboxSink;
+import it.cflm.qrticketsystem.outbox.OutboxSink;
+
+/**
+ * Destinazione degli eventi dell'outbox: senza un {@link OutboxSink} dichiarato (broker,
+ * webhook) i messaggi sono consegnati in-process ai listener dell'applicazione.
+ */
+@Configuration
+public class OutboxConfig {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public OutboxSink outboxSink(ApplicationEventPublisher eventPublisher) {
+        return new ApplicationEventOutboxSink(eventPublisher);
+    }
+}
@@ -0,0 +1,29 @@
+package it.cflm.qrticketsystem.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Data;
+
+/**
+ * Pubblicazione degli eventi di dominio dei biglietti tramite outbox (vedi {@link OutboxConfig}).
+ */
+@Configuration
+@ConfigurationProperties(prefix = "qrticket.outbox")
+@Data
+public class OutboxProperties {
+    /** Se false questa istanza scrive nell'outbox ma non pubblica (un solo relay garantisce l'ordine). */
+    private boolean relayEnabled = true;
+    /** Intervallo tra due letture dell'outbox, in millisecondi. */
+    private long pollIntervalMs = 500;
+    /** Messaggi pubblicati per batch. */
+    private int batchSize = 100;
+    /** Ore dopo le quali i messaggi pubblicati vengono eliminati. */
+    private long retentionHours = 24;
+    /** Tentativi dopo i quali un messaggio che non si riesce a pubblicare viene messo da parte. */
+    private int maxAttempts = 10;
+    /** Attesa prima del nuovo tentativo dopo un fallimento, raddoppiata a ogni fallimento. */
+    private long initialBackoffMs = 1000;
+    /** Attesa massima tra due tentativi. */
+    private long maxBackoffMs = 60_000;
+}
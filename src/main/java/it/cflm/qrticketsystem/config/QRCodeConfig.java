@@ -1,8 +1,16 @@
 package it.cflm.qrticketsystem.config;
 
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import com.google.zxing.EncodeHintType;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+
+import it.cflm.qrticketsystem.exception.InvalidQrCodeFormatException;
 import lombok.Data;
 
 /**
@@ -15,4 +23,123 @@ public class QRCodeConfig {
     private int width = 300;
     private int height = 300;
     private String format = "PNG";
+    /** Livello di correzione errori (L, M, Q, H). */
+    private ErrorCorrectionLevel errorCorrection = ErrorCorrectionLevel.L;
+    /** Zona di rispetto attorno al simbolo, in moduli. */
+    private int margin = 4;
+    /** Charset per la modalità byte; null lascia scegliere a ZXing. */
+    private String characterSet;
+    /** Formato del contenuto del QR Code (UUID testuale o compatto Base45). */
+    private PayloadEncoding payloadEncoding = PayloadEncoding.UUID;
+    /** Tagli disponibili tramite {@code ?size=}: nome del taglio e lato in pixel. */
+    private Map<String, Integer> sizes = defaultSizes();
+    private Export export = new Export();
+    private VariantCache variantCache = new VariantCache();
+    private Decoder decoder = new Decoder();
+    private Pipeline pipeline = new Pipeline();
+
+    /**
+     * Restituisce il lato in pixel di un taglio; senza taglio usa la larghezza di default.
+     *
+     * @param size Il nome del taglio (es. "small"), può essere null
+     * @return Il lato in pixel
+     * @throws InvalidQrCodeFormatException se il taglio non è configurato
+     */
+    public int resolveSize(String size) {
+        if (size == null || size.isBlank()) {
+            return width;
+        }
+        Integer pixels = sizes.get(size);
+        if (pixels == null) {
+            throw new InvalidQrCodeFormatException("Dimensione QR Code non supportata: " + size
+                    + ". Valori ammessi: " + sizes.keySet());
+        }
+        return pixels;
+    }
+
+    private static Map<String, Integer> defaultSizes() {
+        // Inserimento esplicito: l'ordine è quello mostrato nei messaggi di errore
+        Map<String, Integer> sizes = new LinkedHashMap<>();
+        sizes.put("small", 150);
+        sizes.put("medium", 300);
+        sizes.put("large", 600);
+        return sizes;
+    }
+
+    /**
+     * Costruisce gli hint di codifica ZXing a partire dalla configurazione.
+     *
+     * @return Gli hint da passare a {@code QRCodeWriter.encode}
+     */
+    public Map<EncodeHintType, Object> toEncodeHints() {
+        Map<EncodeHintType, Object> hints = new EnumMap<>(EncodeHintType.class);
+        hints.put(EncodeHintType.ERROR_CORRECTION, errorCorrection);
+        hints.put(EncodeHintType.MARGIN, margin);
+        if (characterSet != null && !characterSet.isBlank()) {
+            hints.put(EncodeHintType.CHARACTER_SET, characterSet);
+        }
+        return hints;
+    }
+
+    /**
+     * Formati del contenuto codificato nel QR Code.
+     */
+    public enum PayloadEncoding {
+        /** UUID canonico in minuscolo (36 caratteri, modalità byte). */
+        UUID,
+        /** UUID in Base45 (24 caratteri, modalità alfanumerica): simbolo più piccolo. */
+        COMPACT
+    }
+
+    /**
+     * Parametri dell'export massivo dei QR Code di un evento.
+     */
+    @Data
+    public static class Export {
+        /** Numero di thread dedicati al rendering parallelo. */
+        private int parallelism = Runtime.getRuntime().availableProcessors();
+        /** Numero massimo di immagini in volo (renderizzate ma non ancora scritte) per export. */
+        private int window = 64;
+        /** Numero di biglietti letti dal database per ogni pagina. */
+        private int pageSize = 500;
+    }
+
+    /**
+     * Parametri della cache delle varianti (formato/dimensione) dei QR Code.
+     */
+    @Data
+    public static class VariantCache {
+        /** Peso massimo della cache in byte (somma delle dimensioni delle immagini). */
+        private long maxWeightBytes = 32L * 1024 * 1024;
+        /** Secondi di inattività dopo i quali una variante viene rimossa. */
+        private long expireAfterAccessSeconds = 3600;
+    }
+
+    /**
+     * Parametri della decodifica lato server dei frame inviati dalle telecamere.
+     */
+    @Data
+    public static class Decoder {
+        /** Thread dedicati alla decodifica. */
+        private int threads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        /** Frame in attesa oltre i quali le nuove richieste vengono rifiutate (503). */
+        private int queueCapacity = 16;
+        /** Lato massimo in pixel a cui il frame viene ridotto prima della decodifica. */
+        private int maxDimension = 1024;
+        /** Tempo massimo di attesa (coda + decodifica) per un frame, in millisecondi. */
+        private long timeoutMs = 2000;
+        /** Dimensione massima del body di un frame, in byte: oltre, la richiesta è rifiutata (413). */
+        private int maxFrameBytes = 2 * 1024 * 1024;
+    }
+
+    /**
+     * Parametri della pipeline asincrona che renderizza i QR Code dopo l'acquisto.
+     */
+    @Data
+    public static class Pipeline {
+        /** Thread dedicati al rendering in background. */
+        private int threads = 2;
+        /** Biglietti in attesa di rendering; oltre questo limite il rendering avviene alla prima lettura. */
+        private int queueCapacity = 1000;
+    }
 }
@@ -0,0 +1,62 @@
+package it.cflm.qrticketsystem.config;
+
+import org.hibernate.cache.jcache.internal.JCacheRegionFactory;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.boot.logging.logback.StructuredLogEncoder;
+
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+
+import it.cflm.qrticketsystem.dto.EntryAnalyticsDTO;
+import it.cflm.qrticketsystem.dto.EventDTO;
+import it.cflm.qrticketsystem.dto.EventOccupancyDTO;
+import it.cflm.qrticketsystem.dto.GateRateDTO;
+import it.cflm.qrticketsystem.dto.GateStatusDTO;
+import it.cflm.qrticketsystem.dto.QrCodeEncodingReportDTO;
+import it.cflm.qrticketsystem.dto.ShardMoveDTO;
+import it.cflm.qrticketsystem.dto.ShardStatusDTO;
+import it.cflm.qrticketsystem.dto.TicketRequestDTO;
+import it.cflm.qrticketsystem.dto.TicketResponseDTO;
+import it.cflm.qrticketsystem.dto.TicketValidationResponseDTO;
+import it.cflm.qrticketsystem.logging.MeteredAsyncAppender;
+import it.cflm.qrticketsystem.model.ScanEvent;
+import it.cflm.qrticketsystem.model.Ticket;
+import it.cflm.qrticketsystem.model.TicketIdGenerator;
+
+/**
+ * Hint per l'eseguibile nativo GraalVM (profilo Maven "native") su ciò che l'elaborazione
+ * AOT di Spring non rileva da sola:
+ *
+ * <ul>
+ *   <li>Getter generati da Lombok letti per riflessione da Jackson e dai template Thymeleaf
+ *       (DTO, {@link Ticket} nella pagina del biglietto, {@link ScanEvent} nell'audit).</li>
+ *   <li>Generatore degli ID dei biglietti ({@link TicketIdGenerator}), istanziato da Hibernate.</li>
+ *   <li>Cache di secondo livello Hibernate: region factory "jcache" e provider Caffeine,
+ *       istanziati per nome, e la configurazione di default del provider (reference.conf).</li>
+ *   <li>Appender ed encoder dichiarati in logback-spring.xml, creati per riflessione da Logback.</li>
+ * </ul>
+ * ZXing non usa riflessione; ImageIO (PNG) e AWT sono coperti dal supporto headless di GraalVM.
+ */
+public class QrTicketRuntimeHints implements RuntimeHintsRegistrar {
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        new BindingReflectionHintsRegistrar().registerReflectionHints(hints.reflection(),
+                Ticket.class, ScanEvent.class,
+                TicketRequestDTO.class, TicketResponseDTO.class, TicketValidationResponseDTO.class,
+                GateStatusDTO.class, QrCodeEncodingReportDTO.class, ShardStatusDTO.class, ShardMoveDTO.class,
+                EventDTO.class, EntryAnalyticsDTO.class, EventOccupancyDTO.class, GateRateDTO.class);
+
+        hints.reflection()
+                .registerType(TicketIdGenerator.class, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS)
+                .registerType(JCacheRegionFactory.class, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS)
+                .registerType(CaffeineCachingProvider.class, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS)
+                .registerType(MeteredAsyncAppender.class,
+                        MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS, MemberCategory.INVOKE_PUBLIC_METHODS)
+                .registerType(StructuredLogEncoder.class,
+                        MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS, MemberCategory.INVOKE_PUBLIC_METHODS);
+        hints.resources().registerPattern("reference.conf");
+    }
+}
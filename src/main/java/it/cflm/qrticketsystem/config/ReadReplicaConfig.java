@@ -0,0 +1,77 @@
+package it.cflm.qrticketsystem.config;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import it.cflm.qrticketsystem.datasource.ReplicaAwareJpaDialect;
+import it.cflm.qrticketsystem.datasource.ReplicaRoutingDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Instradamento delle transazioni in sola lettura sulle repliche, attivo solo se è
+ * configurata almeno una replica ({@code qrticket.datasource.replicas.nodes}).
+ *
+ * Il {@link DataSource} dell'applicazione è un {@link LazyConnectionDataSourceProxy}: la
+ * connessione fisica viene presa solo alla prima istruzione, quando il transaction manager
+ * ha già marcato la connessione come read-only. Le transazioni {@code readOnly} vanno quindi
+ * a una replica ({@link ReplicaRoutingDataSource}), tutte le altre, check-in compresi, al
+ * primario. Le scritture non leggono mai dalle repliche, e le letture dalle repliche non
+ * entrano nella cache di secondo livello: un biglietto già usato non risulta mai valido al
+ * check-in a causa del ritardo di replica.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "qrticket.datasource.replicas", name = "nodes[0].url")
+public class ReadReplicaConfig {
+
+    /**
+     * Pool del database primario, configurato da {@code spring.datasource.*}.
+     */
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource replicaDataSource(HikariDataSource primaryDataSource,
+                                                      ReadReplicaProperties readReplicaProperties,
+                                                      MeterRegistry meterRegistry) {
+        return new ReplicaRoutingDataSource(primaryDataSource, readReplicaProperties, meterRegistry);
+    }
+
+    /**
+     * Le transazioni in sola lettura non popolano la cache di secondo livello
+     * (vedi {@link ReplicaAwareJpaDialect}).
+     */
+    @Bean
+    public static BeanPostProcessor replicaAwareJpaDialectPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof LocalContainerEntityManagerFactoryBean factory) {
+                    factory.setJpaDialect(new ReplicaAwareJpaDialect());
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, ReplicaRoutingDataSource replicaDataSource) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primaryDataSource);
+        dataSource.setReadOnlyDataSource(replicaDataSource);
+        return dataSource;
+    }
+}
@@ -0,0 +1,31 @@
+package it.cflm.qrticketsystem.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Data;
+
+/**
+ * Repliche in sola lettura per le transazioni {@code readOnly} (vedi {@link ReadReplicaConfig}).
+ * Senza nodi configurati tutte le richieste vanno al database primario.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "qrticket.datasource.replicas")
+@Data
+public class ReadReplicaProperties {
+    private List<DatabaseNode> nodes = new ArrayList<>();
+    /**
+     * Query che restituisce il ritardo di replica in secondi; se vuota il ritardo non è
+     * misurato e basta che la replica risponda.
+     */
+    private String lagQuery;
+    /** Ritardo oltre il quale una replica viene esclusa finché non si riallinea. */
+    private long maxLagMs = 5000;
+    /** Intervallo tra due controlli di ritardo e raggiungibilità. */
+    private long checkIntervalMs = 1000;
+    /** Connessioni massime del pool di ogni replica. */
+    private int maximumPoolSize = 10;
+}
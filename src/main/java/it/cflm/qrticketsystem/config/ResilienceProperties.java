@@ -0,0 +1,64 @@
+package it.cflm.qrticketsystem.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Protezione dal database lento o irraggiungibile: bulkhead per caso d'uso, timeout,
+ * circuit breaker e check-in degradato sulle liste dei biglietti validi in memoria.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "qrticket.resilience")
+@Data
+public class ResilienceProperties {
+    /** Se false le chiamate al database non sono limitate né interrotte dal circuit breaker. */
+    private boolean enabled = true;
+    /** Durata massima di una transazione protetta; le query oltre il limite vengono interrotte. */
+    private int transactionTimeoutSeconds = 5;
+    private Bulkhead purchase = new Bulkhead(3, 1000);
+    private Bulkhead checkIn = new Bulkhead(4, 500);
+    private Bulkhead read = new Bulkhead(3, 1000);
+    private CircuitBreaker circuitBreaker = new CircuitBreaker();
+    /** Se true, con il database non disponibile il check-in usa le liste dei biglietti validi in memoria. */
+    private boolean degradedCheckIn = true;
+    /** Secondi dopo i quali la lista dei biglietti validi di un evento viene riletta. */
+    private long allowListRefreshSeconds = 300;
+    /** Abilita l'iniezione di guasti da /admin/resilience/faults (solo per prove in locale). */
+    private boolean faultInjectionEnabled = false;
+
+    /**
+     * Chiamate concorrenti ammesse per un caso d'uso.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Bulkhead {
+        /** Chiamate al database in corso oltre le quali le nuove attendono. */
+        private int maxConcurrent;
+        /** Attesa massima di un posto libero, poi la richiesta è rifiutata (503). */
+        private long maxWaitMs;
+    }
+
+    /**
+     * Circuit breaker unico sulle chiamate al database.
+     */
+    @Data
+    public static class CircuitBreaker {
+        /** Ultime chiamate su cui si calcola la percentuale di fallimenti. */
+        private int windowSize = 20;
+        /** Chiamate minime nella finestra prima di poter aprire il circuito. */
+        private int minimumCalls = 10;
+        /** Percentuale di chiamate fallite o lente che apre il circuito. */
+        private int failureRatePercent = 50;
+        /** Durata oltre la quale una chiamata riuscita conta come fallita. */
+        private long slowCallMs = 3000;
+        /** Permanenza nello stato aperto prima delle chiamate di prova. */
+        private long openMs = 10_000;
+        /** Chiamate di prova che, se tutte riuscite, richiudono il circuito. */
+        private int halfOpenCalls = 3;
+    }
+}
@@ -2,8 +2,13 @@ package it.cflm.qrticketsystem.config;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -11,6 +16,14 @@ import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.provisioning.InMemoryUserDetailsManager;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
+import org.springframework.security.web.servlet.util.matcher.PathPatternRequestMatcher;
+import org.springframework.security.web.util.matcher.OrRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+
+import it.cflm.qrticketsystem.security.DeviceTokenAuthenticationFilter;
+import it.cflm.qrticketsystem.security.DeviceTokenEntryPoint;
+import it.cflm.qrticketsystem.security.DeviceTokenService;
 
 /**
  * Configurazione Spring Security per autenticazione e autorizzazione.
@@ -19,15 +32,87 @@ import org.springframework.security.web.SecurityFilterChain;
  * - ADMIN: accesso completo (gestione, reception, API)
  * - RECEPTION: accesso solo alla verifica biglietti
  * - USER: accesso solo alla creazione biglietti
+ * - DEVICE: dispositivi di scansione con token firmato, solo verifica biglietti
  */
 @Configuration
 @EnableWebSecurity
 public class SecurityConfig {
 
+    /**
+     * Catena per i dispositivi di scansione: si applica alle sole richieste di verifica con
+     * {@code Authorization: Bearer}. Senza sessione né CSRF, il token è verificato a ogni
+     * richiesta senza accedere al database.
+     */
+    @Bean
+    @Order(1)
+    public SecurityFilterChain deviceSecurityFilterChain(HttpSecurity http, DeviceTokenService deviceTokenService)
+            throws Exception {
+        PathPatternRequestMatcher.Builder post = PathPatternRequestMatcher.withDefaults();
+        RequestMatcher verifyEndpoints = new OrRequestMatcher(
+                post.matcher(HttpMethod.POST, "/reception/verify"),
+                post.matcher(HttpMethod.POST, "/reception/verify/*"),
+                post.matcher(HttpMethod.POST, "/reception/decode-and-verify"));
+        RequestMatcher bearer = request -> {
+            String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+            return header != null && header.regionMatches(true, 0, DeviceTokenAuthenticationFilter.BEARER_PREFIX, 0,
+                    DeviceTokenAuthenticationFilter.BEARER_PREFIX.length());
+        };
+        DeviceTokenEntryPoint entryPoint = new DeviceTokenEntryPoint();
+
+        http
+            .securityMatcher(request -> bearer.matches(request) && verifyEndpoints.matches(request))
+            .authorizeHttpRequests(authorize -> authorize.anyRequest().hasRole("DEVICE"))
+            .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+            .securityContext(context -> context.requireExplicitSave(true))
+            .requestCache(cache -> cache.disable())
+            .csrf(csrf -> csrf.disable())
+            .exceptionHandling(exceptions -> exceptions.authenticationEntryPoint(entryPoint))
+            .addFilterBefore(new DeviceTokenAuthenticationFilter(deviceTokenService, entryPoint),
+                    BasicAuthenticationFilter.class);
+
+        return http.build();
+    }
+
+    /**
+     * Catena HTTP Basic per i client senza browser: telecamere fisse e kiosk che inviano i frame,
+     * script di amministrazione (varchi, dispositivi, shard, eventi, email, resilienza) e raccolta
+     * delle metriche. Senza sessione; pagine e altre URL accettano solo il login da form.
+     *
+     * Il CSRF è saltato solo per le richieste con {@code Authorization} che non arrivano da un'altra
+     * origine: un browser con le credenziali Basic in cache le reinvia anche su un POST cross-site,
+     * ma vi aggiunge {@code Sec-Fetch-Site}. Le altre richieste devono inviare il token CSRF.
+     */
+    @Bean
+    @Order(2)
+    public SecurityFilterChain basicAuthSecurityFilterChain(HttpSecurity http) throws Exception {
+        RequestMatcher credentialsWithoutCrossSite = request -> {
+            String fetchSite = request.getHeader("Sec-Fetch-Site");
+            return request.getHeader(HttpHeaders.AUTHORIZATION) != null
+                    && (fetchSite == null || fetchSite.equals("same-origin"));
+        };
+
+        http
+            .securityMatcher("/reception/decode-and-verify", "/admin/gate/**", "/admin/devices/**",
+                    "/admin/shards/**", "/admin/events/**", "/admin/emails/**", "/admin/resilience/**",
+                    "/actuator/**")
+            .authorizeHttpRequests(authorize -> authorize
+                // Health check pubblico per i probe; le altre metriche solo per ADMIN
+                .requestMatchers("/actuator/health/**").permitAll()
+                .requestMatchers("/reception/**").hasAnyRole("RECEPTION", "ADMIN")
+                .anyRequest().hasRole("ADMIN")
+            )
+            .httpBasic(Customizer.withDefaults())
+            .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+            .csrf(csrf -> csrf.ignoringRequestMatchers(credentialsWithoutCrossSite));
+
+        return http.build();
+    }
+
     /**
      * Configurazione della catena di filtri di sicurezza.
      */
     @Bean
+    @Order(3)
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         http
             .authorizeHttpRequests(authorize -> authorize
@@ -47,6 +132,9 @@ public class SecurityConfig {
                 // Visualizzazione biglietto e QR code pubblici
                 .requestMatchers("/ticket/**", "/qrcode/**").permitAll()
                 
+                // Funzioni amministrative (export, report) solo per ADMIN
+                .requestMatchers("/admin/**").hasRole("ADMIN")
+                
                 // Reception richiede ruolo RECEPTION o ADMIN
                 .requestMatchers("/reception/**").hasAnyRole("RECEPTION", "ADMIN")
                 
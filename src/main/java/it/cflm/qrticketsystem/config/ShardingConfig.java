@@ -0,0 +1,141 @@
+package it.cflm.qrticketsystem.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+
+import it.cflm.qrticketsystem.datasource.DatabaseNodePools;
+import it.cflm.qrticketsystem.repository.TicketRepository;
+import it.cflm.qrticketsystem.sharding.ShardRoutingDataSource;
+import it.cflm.qrticketsystem.sharding.ShardSchemaInitializer;
+import it.cflm.qrticketsystem.sharding.ShardedTicketRepositoryInterceptor;
+import it.cflm.qrticketsystem.sharding.TicketShardDirectory;
+import it.cflm.qrticketsystem.sharding.TicketShardRebalancer;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Suddivisione dei biglietti su più database per evento, attiva solo se è configurato almeno
+ * uno shard aggiuntivo ({@code qrticket.sharding.nodes}).
+ *
+ * Il {@link DataSource} dell'applicazione è un {@link LazyConnectionDataSourceProxy} su uno
+ * {@link ShardRoutingDataSource}: la connessione fisica viene presa solo alla prima istruzione,
+ * quando il {@link TicketRepository} ha già scelto lo shard ({@link ShardedTicketRepositoryInterceptor}).
+ * Le altre tabelle (audit delle scansioni, mappa dei bucket) restano sullo shard 0.
+ * Non è combinabile con le repliche in sola lettura.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "qrticket.sharding", name = "nodes[0].url")
+public class ShardingConfig {
+
+    /**
+     * Pool dello shard 0, configurato da {@code spring.datasource.*}.
+     */
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource shardZeroDataSource(DataSourceProperties properties,
+                                                ReadReplicaProperties readReplicaProperties) {
+        if (!readReplicaProperties.getNodes().isEmpty()) {
+            throw new IllegalStateException("qrticket.sharding e qrticket.datasource.replicas non sono combinabili");
+        }
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public ShardRoutingDataSource shardRoutingDataSource(HikariDataSource shardZeroDataSource,
+                                                         ShardingProperties settings,
+                                                         MeterRegistry meterRegistry) {
+        MicrometerMetricsTrackerFactory metricsTracker = new MicrometerMetricsTrackerFactory(meterRegistry);
+        List<HikariDataSource> shards = new ArrayList<>();
+        shards.add(shardZeroDataSource);
+        for (DatabaseNode node : settings.getNodes()) {
+            shards.add(DatabaseNodePools.create("shard-" + shards.size(), node, settings.getMaximumPoolSize(),
+                    false, metricsTracker));
+        }
+        return new ShardRoutingDataSource(shards);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ShardRoutingDataSource shardRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(shardRoutingDataSource);
+    }
+
+    @Bean
+    public TicketShardDirectory ticketShardDirectory(ShardRoutingDataSource shardRoutingDataSource,
+                                                     ShardingProperties shardingProperties) {
+        return new TicketShardDirectory(shardRoutingDataSource.shard(0), shardRoutingDataSource.shardCount(),
+                shardingProperties.getRefreshIntervalMs());
+    }
+
+    @Bean
+    public ShardedTicketRepositoryInterceptor shardedTicketRepositoryInterceptor(
+            TicketShardDirectory ticketShardDirectory,
+            ObjectProvider<PlatformTransactionManager> transactionManager,
+            MeterRegistry meterRegistry) {
+        return new ShardedTicketRepositoryInterceptor(ticketShardDirectory, transactionManager, meterRegistry);
+    }
+
+    @Bean
+    public TicketShardRebalancer ticketShardRebalancer(TicketShardDirectory ticketShardDirectory,
+                                                       ShardRoutingDataSource shardRoutingDataSource,
+                                                       ShardedTicketRepositoryInterceptor repositoryInterceptor,
+                                                       ShardingProperties shardingProperties) {
+        return new TicketShardRebalancer(ticketShardDirectory, shardRoutingDataSource, repositoryInterceptor,
+                shardingProperties);
+    }
+
+    /**
+     * Schema degli shard aggiuntivi (vedi {@link ShardSchemaInitializer}).
+     */
+    @Bean
+    public ShardSchemaInitializer shardSchemaInitializer(ShardingProperties shardingProperties) {
+        return new ShardSchemaInitializer(shardingProperties.getNodes().size() + 1);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer shardSchemaIntegrator(ShardSchemaInitializer shardSchemaInitializer) {
+        return properties -> properties.put("hibernate.integrator_provider",
+                (IntegratorProvider) () -> List.of(shardSchemaInitializer));
+    }
+
+    /**
+     * Avvolge il {@link TicketRepository} con l'instradamento sugli shard.
+     */
+    @Bean
+    public static BeanPostProcessor shardedTicketRepositoryPostProcessor(
+            ObjectProvider<ShardedTicketRepositoryInterceptor> interceptor) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof TicketRepository repository)) {
+                    return bean;
+                }
+                ShardedTicketRepositoryInterceptor sharding = interceptor.getObject();
+                sharding.setTarget(repository);
+                ProxyFactory proxyFactory = new ProxyFactory();
+                proxyFactory.setTarget(repository);
+                proxyFactory.addInterface(TicketRepository.class);
+                proxyFactory.addAdvice(sharding);
+                return proxyFactory.getProxy(TicketRepository.class.getClassLoader());
+            }
+        };
+    }
+}
@@ -0,0 +1,27 @@
+package it.cflm.qrticketsystem.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Data;
+
+/**
+ * Suddivisione dei biglietti su più database per evento (vedi {@link ShardingConfig}). Lo shard 0
+ * è il database di {@code spring.datasource}; senza nodi aggiuntivi la suddivisione è disattivata.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "qrticket.sharding")
+@Data
+public class ShardingProperties {
+    /** Shard aggiuntivi (1, 2, ...), nell'ordine. */
+    private List<DatabaseNode> nodes = new ArrayList<>();
+    /** Intervallo di rilettura della mappa bucket-shard (modificata dal ribilanciamento). */
+    private long refreshIntervalMs = 5000;
+    /** Connessioni massime del pool di ogni shard aggiuntivo. */
+    private int maximumPoolSize = 10;
+    /** Biglietti copiati per pagina durante il ribilanciamento. */
+    private int rebalancePageSize = 500;
+}
@@ -0,0 +1,21 @@
+package it.cflm.qrticketsystem.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Data;
+
+/**
+ * Unione delle letture concorrenti dello stesso biglietto (una lettura per gruppo di richieste).
+ */
+@Configuration
+@ConfigurationProperties(prefix = "qrticket.single-flight")
+@Data
+public class SingleFlightProperties {
+    /** Se false ogni richiesta esegue la propria lettura. */
+    private boolean enabled = true;
+    /** Richieste in attesa della stessa lettura oltre le quali le nuove vengono rifiutate (503). */
+    private int maxWaiters = 500;
+    /** Attesa massima della lettura in corso, in millisecondi. */
+    private long timeoutMs = 5000;
+}
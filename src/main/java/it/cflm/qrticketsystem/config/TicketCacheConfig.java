@@ -0,0 +1,106 @@
+package it.cflm.qrticketsystem.config;
+
+import java.io.Serializable;
+import java.net.URI;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.configuration.Factory;
+
+import it.cflm.qrticketsystem.model.Ticket;
+
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.jcache.MissingCacheStrategy;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.cache.spi.entry.CacheEntry;
+import org.hibernate.cache.spi.support.AbstractReadWriteAccess;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.github.benmanes.caffeine.cache.Weigher;
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+
+/**
+ * Configurazione della cache di secondo livello Hibernate (JCache con provider Caffeine).
+ *
+ * <ul>
+ *   <li>{@value #TICKET_REGION}: stato dei biglietti, limitato per peso (l'immagine del QR Code
+ *       domina la dimensione) con scadenza per inattività. La strategia READ_WRITE aggiorna
+ *       l'entry al commit della validazione, quindi non sopravvive uno stato "valido" obsoleto.</li>
+ *   <li>Risultati delle query e timestamp delle tabelle per i lookup cacheable: i timestamp
+ *       non hanno limiti, altrimenti le query in cache potrebbero risultare aggiornate a torto.</li>
+ * </ul>
+ * Hit e miss per regione sono esposti da Actuator come {@code hibernate.second.level.cache.*}.
+ */
+@Configuration
+public class TicketCacheConfig {
+
+    /** Regione della cache di secondo livello dei biglietti. */
+    public static final String TICKET_REGION = Ticket.CACHE_REGION;
+
+    /** Peso fisso stimato per entry (chiave, wrapper e campi non stringa). */
+    private static final int ENTRY_OVERHEAD_BYTES = 256;
+
+    @Bean(destroyMethod = "close")
+    public CacheManager ticketCacheManager(TicketCacheProperties settings) {
+        // URI dedicato: ogni contesto applicativo ha le proprie regioni
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create("qrticket-l2-" + UUID.randomUUID()), getClass().getClassLoader());
+
+        Factory<Weigher<Object, Object>> weigher = (Factory<Weigher<Object, Object>> & Serializable)
+                () -> (key, value) -> weigh(value);
+        cacheManager.createCache(TICKET_REGION, new CaffeineConfiguration<Object, Object>()
+                .setStoreByValue(false)
+                .setMaximumWeight(OptionalLong.of(settings.getMaxWeightBytes()))
+                .setWeigherFactory(Optional.of(weigher))
+                .setExpireAfterAccess(OptionalLong.of(
+                        TimeUnit.SECONDS.toNanos(settings.getExpireAfterAccessSeconds()))));
+        cacheManager.createCache(RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME,
+                new CaffeineConfiguration<Object, Object>()
+                        .setStoreByValue(false)
+                        .setMaximumSize(OptionalLong.of(settings.getQueryResultsMaxSize())));
+        cacheManager.createCache(RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME,
+                new CaffeineConfiguration<Object, Object>()
+                        .setStoreByValue(false));
+        return cacheManager;
+    }
+
+    /**
+     * Passa a Hibernate il CacheManager configurato: una regione mancante è un errore
+     * di configurazione, non una cache creata con i default.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer ticketCacheHibernateCustomizer(CacheManager ticketCacheManager) {
+        return properties -> {
+            properties.put(ConfigSettings.CACHE_MANAGER, ticketCacheManager);
+            properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, MissingCacheStrategy.FAIL.getExternalRepresentation());
+        };
+    }
+
+    /**
+     * Stima il peso di un'entry: i byte dell'immagine e la lunghezza delle stringhe
+     * dello stato disassemblato, più un overhead fisso.
+     */
+    static int weigh(Object value) {
+        Object entry = value instanceof AbstractReadWriteAccess.Item item ? item.getValue() : value;
+        long weight = ENTRY_OVERHEAD_BYTES;
+        if (entry instanceof CacheEntry cacheEntry && cacheEntry.getDisassembledState() != null) {
+            for (Serializable field : cacheEntry.getDisassembledState()) {
+                if (field instanceof byte[] bytes) {
+                    weight += bytes.length;
+                } else if (field instanceof String text) {
+                    weight += text.length();
+                } else {
+                    weight += 16;
+                }
+            }
+        }
+        return (int) Math.min(Integer.MAX_VALUE, weight);
+    }
+}
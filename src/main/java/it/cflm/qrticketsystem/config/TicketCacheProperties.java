@@ -0,0 +1,21 @@
+package it.cflm.qrticketsystem.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Data;
+
+/**
+ * Dimensionamento della cache di secondo livello Hibernate per i biglietti (vedi {@link TicketCacheConfig}).
+ */
+@Configuration
+@ConfigurationProperties(prefix = "qrticket.ticket-cache")
+@Data
+public class TicketCacheProperties {
+    /** Peso massimo della regione dei biglietti in byte (stato del biglietto, immagine inclusa). */
+    private long maxWeightBytes = 64L * 1024 * 1024;
+    /** Secondi di inattività dopo i quali un biglietto viene rimosso dalla cache. */
+    private long expireAfterAccessSeconds = 1800;
+    /** Numero massimo di risultati di query in cache (lookup per contenuto del QR Code). */
+    private long queryResultsMaxSize = 10_000;
+}
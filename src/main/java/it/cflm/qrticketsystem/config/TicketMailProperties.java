@@ -0,0 +1,36 @@
+package it.cflm.qrticketsystem.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Data;
+
+/**
+ * Invio del biglietto per email all'acquirente. Il server SMTP è quello di {@code spring.mail.*};
+ * senza {@code spring.mail.host} l'invio è disattivato.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "qrticket.mail")
+@Data
+public class TicketMailProperties {
+    /** Se false gli acquisti non vengono messi in coda per l'invio. */
+    private boolean enabled = true;
+    /** Mittente delle email. */
+    private String from = "biglietti@cflm.it";
+    /** Indirizzo pubblico dell'applicazione, per il link al biglietto nell'email. */
+    private String publicBaseUrl = "http://localhost:8080";
+    /** Se true l'immagine del QR Code è allegata (inline) oltre che linkata. */
+    private boolean attachQrCode = true;
+    /** Intervallo tra due letture della coda, in millisecondi. */
+    private long pollIntervalMs = 2000;
+    /** Email inviate per connessione SMTP. */
+    private int batchSize = 20;
+    /** Tentativi dopo i quali l'email passa tra quelle non consegnate. */
+    private int maxAttempts = 6;
+    /** Attesa prima del primo nuovo tentativo, raddoppiata a ogni fallimento. */
+    private long initialBackoffMs = 30_000;
+    /** Attesa massima tra due tentativi. */
+    private long maxBackoffMs = 3_600_000;
+    /** Secondi per cui un'email presa in carico non è visibile alle altre istanze. */
+    private long leaseSeconds = 120;
+}
@@ -0,0 +1,30 @@
+package it.cflm.qrticketsystem.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Data;
+
+/**
+ * Biglietti pre-generati (ID, contenuto e immagine del QR Code) per le vendite a picco.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "qrticket.ticket-pool")
+@Data
+public class TicketPoolProperties {
+    /** Se false nessun biglietto viene pre-generato e gli acquisti creano sempre il biglietto. */
+    private boolean enabled = true;
+    /** Eventi per cui tenere biglietti pre-generati. */
+    private List<String> events = new ArrayList<>();
+    /** Biglietti pre-generati da tenere pronti per ogni evento. */
+    private int targetSize = 1000;
+    /** Biglietti generati per transazione. */
+    private int batchSize = 50;
+    /** Intervallo tra due controlli del minter, in millisecondi. */
+    private long pollIntervalMs = 1000;
+    /** Millisecondi senza acquisti dopo i quali il minter riprende a generare. */
+    private long idleMs = 2000;
+}
@@ -0,0 +1,28 @@
+package it.cflm.qrticketsystem.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Data;
+
+/**
+ * Riscaldamento all'avvio: finché non termina, il probe di readiness segnala l'istanza come non pronta.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "qrticket.warm-up")
+@Data
+public class WarmUpProperties {
+    /** Se false l'istanza è pronta subito dopo l'avvio. */
+    private boolean enabled = true;
+    /** Durata massima in millisecondi; scaduta, l'istanza diventa comunque pronta. */
+    private long budgetMs = 15_000;
+    /** Rendering e lookup di check-in sintetici su biglietti inesistenti. */
+    private int iterations = 500;
+    /** Eventi i cui biglietti vengono caricati nella cache di secondo livello. */
+    private List<String> events = new ArrayList<>();
+    /** Biglietti precaricati al massimo per ogni evento. */
+    private int maxPreloadedTickets = 5000;
+}
@@ -0,0 +1,104 @@
+package it.cflm.qrticketsystem.controller;
+
+import java.time.Duration;
+
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import it.cflm.qrticketsystem.dto.DeviceTokenDTO;
+import it.cflm.qrticketsystem.security.DeviceToken;
+import it.cflm.qrticketsystem.security.DeviceTokenService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Controller amministrativo per emettere e revocare i token dei dispositivi di scansione.
+ */
+@Controller
+@RequestMapping("/admin/devices")
+@Tag(name = "Device Token Controller", description = "Token dei dispositivi di scansione ai varchi")
+@RequiredArgsConstructor
+@Slf4j
+public class DeviceTokenController {
+
+    private final DeviceTokenService deviceTokenService;
+
+    /**
+     * Emette un token per un dispositivo assegnato a un varco di un evento.
+     *
+     * @param deviceId L'identificativo del dispositivo.
+     * @param eventName L'evento per cui il dispositivo può registrare ingressi.
+     * @param gate Il varco a cui è assegnato il dispositivo.
+     * @param ttlSeconds La validità del token in secondi (default da configurazione).
+     * @return Il token emesso.
+     */
+    @Operation(summary = "Emette un token per un dispositivo di scansione")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Token emesso"),
+            @ApiResponse(responseCode = "400", description = "Parametri non validi")
+    })
+    @PostMapping("/{deviceId}/tokens")
+    public ResponseEntity<DeviceTokenDTO> issue(
+            @Parameter(description = "Identificativo del dispositivo") @PathVariable String deviceId,
+            @Parameter(description = "Nome dell'evento") @RequestParam String eventName,
+            @Parameter(description = "Numero del varco") @RequestParam int gate,
+            @Parameter(description = "Validità in secondi") @RequestParam(required = false) Long ttlSeconds) {
+        DeviceTokenService.IssuedDeviceToken issued = deviceTokenService.issue(deviceId, eventName, gate,
+                ttlSeconds != null ? Duration.ofSeconds(ttlSeconds) : null);
+        DeviceToken token = issued.token();
+        log.info("Emesso il token {} per il dispositivo {} (evento {}, varco {})",
+                token.tokenId(), deviceId, eventName, gate);
+        return ResponseEntity.ok(DeviceTokenDTO.builder()
+                .token(issued.value())
+                .tokenId(token.tokenId())
+                .deviceId(token.deviceId())
+                .eventName(token.eventName())
+                .gate(token.gate())
+                .expiresAt(token.expiresAt())
+                .build());
+    }
+
+    /**
+     * Revoca un singolo token, ad esempio di un dispositivo smarrito.
+     *
+     * @param token Il token da revocare.
+     * @return 204 se il token è stato revocato.
+     */
+    @Operation(summary = "Revoca un token di dispositivo")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "Token revocato"),
+            @ApiResponse(responseCode = "400", description = "Token non valido, scaduto o già revocato")
+    })
+    @PostMapping(value = "/tokens/revoke", consumes = MediaType.TEXT_PLAIN_VALUE)
+    public ResponseEntity<Void> revokeToken(@RequestBody String token) {
+        deviceTokenService.revoke(token.trim());
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Revoca tutti i token emessi finora per un dispositivo.
+     *
+     * @param deviceId L'identificativo del dispositivo.
+     * @return 204.
+     */
+    @Operation(summary = "Revoca tutti i token di un dispositivo")
+    @ApiResponse(responseCode = "204", description = "Token del dispositivo revocati")
+    @DeleteMapping("/{deviceId}/tokens")
+    public ResponseEntity<Void> revokeDevice(
+            @Parameter(description = "Identificativo del dispositivo") @PathVariable String deviceId) {
+        deviceTokenService.revokeDevice(deviceId);
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -0,0 +1,36 @@
+package it.cflm.qrticketsystem.controller;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import it.cflm.qrticketsystem.dto.EntryAnalyticsDTO;
+import it.cflm.qrticketsystem.service.EntryAnalyticsService;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Controller delle statistiche in tempo reale per la sicurezza: presenze e ingressi al minuto.
+ */
+@Controller
+@RequestMapping("/reception/analytics")
+@Tag(name = "Entry Analytics Controller", description = "Presenze e ritmo degli ingressi per evento e varco")
+@RequiredArgsConstructor
+public class EntryAnalyticsController {
+
+    private final EntryAnalyticsService entryAnalyticsService;
+
+    /**
+     * Restituisce presenze per evento e ingressi al minuto per varco, calcolati in memoria
+     * sugli esiti dei check-in di questa istanza.
+     *
+     * @return Le statistiche correnti.
+     */
+    @Operation(summary = "Presenze e ingressi al minuto")
+    @GetMapping
+    public ResponseEntity<EntryAnalyticsDTO> snapshot() {
+        return ResponseEntity.ok(entryAnalyticsService.snapshot());
+    }
+}
@@ -0,0 +1,87 @@
+package it.cflm.qrticketsystem.controller;
+
+import java.util.List;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import it.cflm.qrticketsystem.dto.EventDTO;
+import it.cflm.qrticketsystem.service.EventService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Controller amministrativo dell'anagrafica degli eventi.
+ */
+@Controller
+@RequestMapping("/admin/events")
+@Tag(name = "Event Controller", description = "Anagrafica, impostazioni dei QR Code e contatori degli eventi")
+@RequiredArgsConstructor
+@Slf4j
+public class EventController {
+
+    private final EventService eventService;
+
+    /**
+     * Elenca gli eventi con i contatori di venduti ed entrati.
+     *
+     * @return Gli eventi.
+     */
+    @Operation(summary = "Elenco degli eventi")
+    @GetMapping
+    public ResponseEntity<List<EventDTO>> list() {
+        return ResponseEntity.ok(eventService.list());
+    }
+
+    /**
+     * Restituisce un evento.
+     *
+     * @param eventName Il nome dell'evento.
+     * @return L'evento.
+     */
+    @Operation(summary = "Dettaglio di un evento")
+    @GetMapping("/{eventName}")
+    public ResponseEntity<EventDTO> get(
+            @Parameter(description = "Nome dell'evento") @PathVariable String eventName) {
+        return ResponseEntity.ok(eventService.get(eventName));
+    }
+
+    /**
+     * Modifica titolo, inizio e impostazioni dei QR Code di un evento.
+     * Le impostazioni null tornano ai valori di {@code qrcode.*}.
+     *
+     * @param eventName Il nome dell'evento.
+     * @param changes I nuovi dati.
+     * @return L'evento modificato.
+     */
+    @Operation(summary = "Modifica un evento")
+    @PutMapping("/{eventName}")
+    public ResponseEntity<EventDTO> update(
+            @Parameter(description = "Nome dell'evento") @PathVariable String eventName,
+            @RequestBody EventDTO changes) {
+        return ResponseEntity.ok(eventService.update(eventName, changes));
+    }
+
+    /**
+     * Ricalcola i contatori di un evento contando i biglietti.
+     *
+     * @param eventName Il nome dell'evento.
+     * @return L'evento con i contatori ricalcolati.
+     */
+    @Operation(summary = "Ricalcola i contatori di un evento")
+    @PostMapping("/{eventName}/recount")
+    public ResponseEntity<EventDTO> recount(
+            @Parameter(description = "Nome dell'evento") @PathVariable String eventName) {
+        log.info("Richiesto il ricalcolo dei contatori dell'evento {}", eventName);
+        return ResponseEntity.ok(eventService.recount(eventName));
+    }
+}
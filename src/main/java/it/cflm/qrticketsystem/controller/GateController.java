@@ -0,0 +1,81 @@
+package it.cflm.qrticketsystem.controller;
+
+import java.util.List;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import it.cflm.qrticketsystem.dto.GateStatusDTO;
+import it.cflm.qrticketsystem.service.GateCheckInService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Controller amministrativo per aprire e chiudere i varchi in modalità check-in in memoria.
+ */
+@Controller
+@RequestMapping("/admin/gate")
+@Tag(name = "Gate Controller", description = "Modalità varco per l'apertura delle porte")
+@RequiredArgsConstructor
+@Slf4j
+public class GateController {
+
+    private final GateCheckInService gateCheckInService;
+
+    /**
+     * Precarica i biglietti dell'evento e apre il varco.
+     *
+     * @param eventName Il nome dell'evento.
+     * @return Lo stato del varco.
+     */
+    @Operation(summary = "Apre il varco di un evento precaricando i biglietti in memoria")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Varco aperto"),
+            @ApiResponse(responseCode = "404", description = "Nessun biglietto per l'evento"),
+            @ApiResponse(responseCode = "409", description = "Varco già aperto")
+    })
+    @PostMapping("/{eventName}/open")
+    public ResponseEntity<GateStatusDTO> openGate(
+            @Parameter(description = "Nome dell'evento") @PathVariable String eventName) {
+        log.info("Richiesta apertura varco per evento: {}", eventName);
+        return ResponseEntity.ok(gateCheckInService.openGate(eventName));
+    }
+
+    /**
+     * Chiude il varco dopo aver scritto sul database i check-in in attesa.
+     *
+     * @param eventName Il nome dell'evento.
+     * @return Lo stato finale del varco.
+     */
+    @Operation(summary = "Chiude il varco di un evento")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Varco chiuso"),
+            @ApiResponse(responseCode = "404", description = "Varco non aperto")
+    })
+    @PostMapping("/{eventName}/close")
+    public ResponseEntity<GateStatusDTO> closeGate(
+            @Parameter(description = "Nome dell'evento") @PathVariable String eventName) {
+        log.info("Richiesta chiusura varco per evento: {}", eventName);
+        return ResponseEntity.ok(gateCheckInService.closeGate(eventName));
+    }
+
+    /**
+     * Restituisce lo stato dei varchi aperti.
+     *
+     * @return L'elenco dei varchi aperti.
+     */
+    @Operation(summary = "Stato dei varchi aperti")
+    @GetMapping
+    public ResponseEntity<List<GateStatusDTO>> status() {
+        return ResponseEntity.ok(gateCheckInService.status());
+    }
+}
@@ -0,0 +1,49 @@
+package it.cflm.qrticketsystem.controller;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import it.cflm.qrticketsystem.config.QRCodeConfig.PayloadEncoding;
+import it.cflm.qrticketsystem.dto.QrCodeEncodingReportDTO;
+import it.cflm.qrticketsystem.service.QRCodeGenerator;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Controller amministrativo per analizzare le impostazioni di codifica dei QR Code.
+ */
+@Controller
+@RequestMapping("/admin/qrcode")
+@Tag(name = "QR Code Report", description = "Analisi di versione e densità dei QR Code")
+@RequiredArgsConstructor
+public class QRCodeReportController {
+
+    private final QRCodeGenerator qrCodeGenerator;
+
+    /**
+     * Restituisce, per ogni combinazione di formato del contenuto e livello di correzione,
+     * la versione del simbolo QR risultante e la dimensione del modulo in pixel.
+     * La combinazione attualmente configurata ha {@code active = true}.
+     *
+     * @return L'elenco delle combinazioni analizzate.
+     */
+    @Operation(summary = "Report di versione QR e dimensione del modulo per configurazione")
+    @GetMapping("/report")
+    public ResponseEntity<List<QrCodeEncodingReportDTO>> report() {
+        List<QrCodeEncodingReportDTO> rows = new ArrayList<>();
+        for (PayloadEncoding encoding : PayloadEncoding.values()) {
+            for (ErrorCorrectionLevel level : ErrorCorrectionLevel.values()) {
+                rows.add(qrCodeGenerator.describe(encoding, level));
+            }
+        }
+        return ResponseEntity.ok(rows);
+    }
+}
@@ -0,0 +1,90 @@
+package it.cflm.qrticketsystem.controller;
+
+import java.io.IOException;
+import java.security.Principal;
+
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import it.cflm.qrticketsystem.config.QRCodeConfig;
+import it.cflm.qrticketsystem.dto.TicketValidationResponseDTO;
+import it.cflm.qrticketsystem.exception.FrameTooLargeException;
+import it.cflm.qrticketsystem.service.CheckInOutcome;
+import it.cflm.qrticketsystem.service.QRCodeDecoder;
+import it.cflm.qrticketsystem.service.QRCodeDecoder.DecodedFrame;
+import it.cflm.qrticketsystem.service.TicketService;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Controller per le telecamere fisse e i kiosk che inviano frame invece del testo del QR Code.
+ */
+@Controller
+@Tag(name = "Reception Decode Controller", description = "Decodifica lato server dei QR Code")
+@RequiredArgsConstructor
+@Slf4j
+public class ReceptionDecodeController {
+
+    private static final String SERVER_TIMING = "Server-Timing";
+
+    private final QRCodeDecoder qrCodeDecoder;
+    private final TicketService ticketService;
+    private final QRCodeConfig qrCodeConfig;
+
+    /**
+     * Decodifica il QR Code contenuto nel frame (body JPEG o PNG) e valida il biglietto.
+     * Le latenze di coda e di decodifica sono restituite nell'header {@code Server-Timing}.
+     *
+     * @param request La richiesta, il cui body sono i byte dell'immagine catturata dalla telecamera.
+     * @param gateId Il numero del varco a cui è installata la telecamera.
+     * @return ResponseEntity contenente il risultato della validazione.
+     */
+    @Operation(summary = "Decodifica un frame JPEG/PNG e verifica il biglietto contenuto")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Biglietto valido e registrato"),
+            @ApiResponse(responseCode = "404", description = "QR Code non riconosciuto o biglietto non trovato"),
+            @ApiResponse(responseCode = "409", description = "Biglietto già utilizzato"),
+            @ApiResponse(responseCode = "413", description = "Frame oltre la dimensione massima"),
+            @ApiResponse(responseCode = "422", description = "Nessun QR Code leggibile nel frame"),
+            @ApiResponse(responseCode = "503", description = "Coda di decodifica piena, riprovare")
+    })
+    @PostMapping(value = "/reception/decode-and-verify",
+            consumes = {MediaType.IMAGE_JPEG_VALUE, MediaType.IMAGE_PNG_VALUE})
+    public ResponseEntity<TicketValidationResponseDTO> decodeAndVerify(
+            HttpServletRequest request,
+            @RequestHeader(value = TicketController.GATE_HEADER, defaultValue = "0") int gateId,
+            Principal principal) throws IOException {
+
+        DecodedFrame decoded = qrCodeDecoder.decode(readFrame(request));
+        log.debug("Frame decodificato ({})", decoded.serverTiming());
+
+        CheckInOutcome outcome = ticketService.checkIn(decoded.text(), TicketController.scanContext(gateId, principal));
+        return ResponseEntity.status(TicketController.statusOf(outcome))
+                .header(SERVER_TIMING, decoded.serverTiming())
+                .body(outcome.toResponse());
+    }
+
+    /**
+     * Legge il body del frame senza superare la dimensione massima, anche senza Content-Length.
+     */
+    private byte[] readFrame(HttpServletRequest request) throws IOException {
+        int maxBytes = qrCodeConfig.getDecoder().getMaxFrameBytes();
+        if (request.getContentLengthLong() > maxBytes) {
+            throw new FrameTooLargeException("Frame di " + request.getContentLengthLong()
+                    + " byte oltre il massimo di " + maxBytes);
+        }
+        byte[] frame = request.getInputStream().readNBytes(maxBytes + 1);
+        if (frame.length > maxBytes) {
+            throw new FrameTooLargeException("Frame oltre il massimo di " + maxBytes + " byte");
+        }
+        return frame;
+    }
+}
@@ -0,0 +1,89 @@
+package it.cflm.qrticketsystem.controller;
+
+import java.util.stream.Stream;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import it.cflm.qrticketsystem.dto.ResilienceStatusDTO;
+import it.cflm.qrticketsystem.service.DatabaseGuard;
+import it.cflm.qrticketsystem.service.GateCheckInService;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Controller amministrativo delle protezioni del database: stato di circuit breaker e bulkhead
+ * e guasti simulati per provare in locale il check-in degradato.
+ */
+@Controller
+@RequestMapping("/admin/resilience")
+@Tag(name = "Resilience Controller", description = "Circuit breaker, bulkhead e guasti simulati del database")
+@RequiredArgsConstructor
+public class ResilienceController {
+
+    private final DatabaseGuard databaseGuard;
+    private final GateCheckInService gateCheckInService;
+
+    /**
+     * Restituisce lo stato delle protezioni del database.
+     *
+     * @return Circuit breaker, bulkhead, guasti simulati e check-in degradati da riallineare.
+     */
+    @Operation(summary = "Stato delle protezioni del database")
+    @GetMapping
+    public ResponseEntity<ResilienceStatusDTO> status() {
+        DatabaseGuard.Faults faults = databaseGuard.faults();
+        return ResponseEntity.ok(ResilienceStatusDTO.builder()
+                .circuitState(databaseGuard.circuitState().name())
+                .bulkheads(Stream.of(databaseGuard.bulkheads())
+                        .map(bulkhead -> ResilienceStatusDTO.Bulkhead.builder()
+                                .useCase(bulkhead.getName())
+                                .maxConcurrent(bulkhead.getMaxConcurrent())
+                                .active(bulkhead.active())
+                                .rejected(bulkhead.rejected())
+                                .build())
+                        .toList())
+                .faultFailureRate(faults.failureRate())
+                .faultLatencyMs(faults.latencyMs())
+                .allowListTickets(gateCheckInService.allowListTickets())
+                .pendingWrites(gateCheckInService.pendingWrites())
+                .build());
+    }
+
+    /**
+     * Simula un database guasto o lento (richiede {@code qrticket.resilience.fault-injection-enabled}).
+     *
+     * @param failureRate Frazione delle chiamate che falliscono (0-1).
+     * @param latencyMs Ritardo aggiunto a ogni chiamata.
+     * @return 204 se i guasti sono attivi.
+     */
+    @Operation(summary = "Simula guasti del database")
+    @PutMapping("/faults")
+    public ResponseEntity<Void> injectFaults(
+            @Parameter(description = "Frazione delle chiamate che falliscono (0-1)")
+            @RequestParam(defaultValue = "1") double failureRate,
+            @Parameter(description = "Ritardo aggiunto a ogni chiamata in millisecondi")
+            @RequestParam(defaultValue = "0") long latencyMs) {
+        databaseGuard.injectFaults(failureRate, latencyMs);
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Rimuove i guasti simulati.
+     *
+     * @return 204.
+     */
+    @Operation(summary = "Rimuove i guasti simulati del database")
+    @DeleteMapping("/faults")
+    public ResponseEntity<Void> clearFaults() {
+        databaseGuard.clearFaults();
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -0,0 +1,68 @@
+package it.cflm.qrticketsystem.controller;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import it.cflm.qrticketsystem.model.ScanEvent;
+import it.cflm.qrticketsystem.repository.ScanRejectionSummary;
+import it.cflm.qrticketsystem.service.ScanAuditService;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Controller amministrativo per consultare la traccia di audit delle scansioni.
+ */
+@Controller
+@RequestMapping("/admin/scans")
+@Tag(name = "Scan Audit Controller", description = "Traccia di audit delle scansioni ai varchi")
+@RequiredArgsConstructor
+public class ScanAuditController {
+
+    private static final int MAX_LIMIT = 1000;
+
+    private final ScanAuditService scanAuditService;
+
+    /**
+     * Restituisce la cronologia delle scansioni di un biglietto.
+     *
+     * @param ticketId L'ID del biglietto.
+     * @return Le scansioni in ordine cronologico.
+     */
+    @Operation(summary = "Cronologia delle scansioni di un biglietto")
+    @GetMapping("/ticket/{ticketId}")
+    public ResponseEntity<List<ScanEvent>> history(
+            @Parameter(description = "ID del biglietto") @PathVariable UUID ticketId) {
+        return ResponseEntity.ok(scanAuditService.history(ticketId));
+    }
+
+    /**
+     * Restituisce i biglietti con scansioni rifiutate ripetute.
+     *
+     * @param since Istante da cui considerare le scansioni (default: ultime 24 ore).
+     * @param minRejections Numero minimo di rifiuti.
+     * @param limit Numero massimo di biglietti restituiti.
+     * @return Il riepilogo dei rifiuti per biglietto.
+     */
+    @Operation(summary = "Biglietti con scansioni rifiutate ripetute")
+    @GetMapping("/rejections")
+    public ResponseEntity<List<ScanRejectionSummary>> repeatedRejections(
+            @Parameter(description = "Istante di inizio (ISO-8601)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime since,
+            @Parameter(description = "Numero minimo di rifiuti") @RequestParam(defaultValue = "3") long minRejections,
+            @Parameter(description = "Numero massimo di risultati") @RequestParam(defaultValue = "50") int limit) {
+        LocalDateTime from = since != null ? since : LocalDateTime.now().minusDays(1);
+        int boundedLimit = Math.max(1, Math.min(limit, MAX_LIMIT));
+        return ResponseEntity.ok(scanAuditService.repeatedRejections(from, minRejections, boundedLimit));
+    }
+}
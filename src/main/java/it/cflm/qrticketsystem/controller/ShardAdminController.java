@@ -0,0 +1,64 @@
+package it.cflm.qrticketsystem.controller;
+
+import java.util.List;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import it.cflm.qrticketsystem.dto.ShardMoveDTO;
+import it.cflm.qrticketsystem.dto.ShardStatusDTO;
+import it.cflm.qrticketsystem.sharding.TicketShardRebalancer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Controller amministrativo degli shard dei biglietti, attivo solo con la suddivisione abilitata.
+ */
+@Controller
+@RequestMapping("/admin/shards")
+@ConditionalOnProperty(prefix = "qrticket.sharding", name = "nodes[0].url")
+@Tag(name = "Shard Admin Controller", description = "Stato e ribilanciamento degli shard dei biglietti")
+@RequiredArgsConstructor
+@Slf4j
+public class ShardAdminController {
+
+    private final TicketShardRebalancer rebalancer;
+
+    /**
+     * Restituisce bucket e biglietti di ogni shard.
+     *
+     * @return Lo stato degli shard.
+     */
+    @Operation(summary = "Stato degli shard dei biglietti")
+    @GetMapping
+    public ResponseEntity<List<ShardStatusDTO>> status() {
+        return ResponseEntity.ok(rebalancer.status());
+    }
+
+    /**
+     * Sposta i bucket fuori posto sullo shard di destinazione, oppure elenca soltanto
+     * gli spostamenti necessari.
+     *
+     * @param dryRun Se true non sposta nulla.
+     * @return Gli spostamenti eseguiti o da eseguire.
+     */
+    @Operation(summary = "Ribilancia i biglietti tra gli shard")
+    @PostMapping("/rebalance")
+    public ResponseEntity<List<ShardMoveDTO>> rebalance(
+            @Parameter(description = "Solo pianificazione, senza spostamenti")
+            @RequestParam(defaultValue = "false") boolean dryRun) {
+        if (dryRun) {
+            return ResponseEntity.ok(rebalancer.plan());
+        }
+        log.info("Richiesto il ribilanciamento degli shard");
+        return ResponseEntity.ok(rebalancer.rebalance());
+    }
+}
@@ -1,7 +1,9 @@
 package it.cflm.qrticketsystem.controller;
 
+import java.security.Principal;
 import java.util.UUID;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -11,6 +13,7 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 
@@ -22,7 +25,14 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import it.cflm.qrticketsystem.dto.TicketRequestDTO;
 import it.cflm.qrticketsystem.dto.TicketResponseDTO;
 import it.cflm.qrticketsystem.dto.TicketValidationResponseDTO;
+import it.cflm.qrticketsystem.exception.InvalidRequestParameterException;
 import it.cflm.qrticketsystem.model.Ticket;
+import it.cflm.qrticketsystem.security.DeviceAuthentication;
+import it.cflm.qrticketsystem.service.CheckInOutcome;
+import it.cflm.qrticketsystem.service.EventService;
+import it.cflm.qrticketsystem.service.EventSettings;
+import it.cflm.qrticketsystem.service.QrCodeFormat;
+import it.cflm.qrticketsystem.service.ScanContext;
 import it.cflm.qrticketsystem.service.TicketService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -38,7 +48,11 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class TicketController {
 
+    /** Header con il numero del varco da cui proviene la scansione. */
+    public static final String GATE_HEADER = "X-Gate-Id";
+
     private final TicketService ticketService;
+    private final EventService eventService;
 
     /**
      * Mappa la richiesta GET alla root ("/") per visualizzare la pagina principale dell'evento.
@@ -48,8 +62,9 @@ public class TicketController {
      */
     @GetMapping("/")
     public String index(Model model) {
-        // Puoi aggiungere qui dati dinamici per il poster dell'evento o altre informazioni
-        model.addAttribute("eventName", "Non succederà più! CFLM 2025 Party");
+        EventSettings event = eventService.featured();
+        model.addAttribute("eventName", event.name());
+        model.addAttribute("eventTitle", event.title());
         return "index"; // Riferimento a src/main/resources/templates/index.html
     }
 
@@ -84,7 +99,7 @@ public class TicketController {
             @RequestParam String userName,
             @RequestParam String userEmail) {
         
-        log.info("Richiesta creazione biglietto per evento: {}", eventName);
+        log.debug("Richiesta creazione biglietto per evento: {}", eventName);
         
         TicketRequestDTO requestDTO = new TicketRequestDTO(eventName, userName, userEmail);
         TicketResponseDTO newTicket = ticketService.createTicket(requestDTO);
@@ -108,7 +123,7 @@ public class TicketController {
     public ResponseEntity<TicketResponseDTO> createTicketApi(
             @Valid @RequestBody TicketRequestDTO requestDTO) {
         
-        log.info("Richiesta API creazione biglietto per evento: {}", requestDTO.getEventName());
+        log.debug("Richiesta API creazione biglietto per evento: {}", requestDTO.getEventName());
         
         TicketResponseDTO newTicket = ticketService.createTicket(requestDTO);
         
@@ -133,7 +148,10 @@ public class TicketController {
         model.addAttribute("ticket", ticket);
         
         // Converte l'array di byte dell'immagine QR in una stringa Base64 per l'embedding nell'HTML
-        String base64QrCode = java.util.Base64.getEncoder().encodeToString(ticket.getQrCodeImage());
+        byte[] qrCodeImage = ticket.getQrCodeImage() != null
+                ? ticket.getQrCodeImage()
+                : ticketService.getQrCodeImage(ticketId); // rendering ancora in corso
+        String base64QrCode = java.util.Base64.getEncoder().encodeToString(qrCodeImage);
         model.addAttribute("qrCodeBase64", base64QrCode);
         
         return "ticket_detail";
@@ -142,23 +160,40 @@ public class TicketController {
     /**
      * Mappa la richiesta GET a "/qrcode/{ticketId}" per recuperare l'immagine del QR Code direttamente.
      * Utile se si desidera visualizzare il QR Code come un'immagine stand-alone.
+     * Il taglio si sceglie con {@code ?size=} (es. small, medium, large); il formato SVG si ottiene
+     * con {@code Accept: image/svg+xml} (preferito a PNG) oppure con {@code ?format=svg}.
      *
      * @param ticketId L'UUID del biglietto.
-     * @return ResponseEntity contenente l'immagine PNG del QR Code.
+     * @param size Il taglio dell'immagine (opzionale).
+     * @param format Il formato esplicito dell'immagine (opzionale, prevale sull'header Accept).
+     * @param accept L'header Accept della richiesta.
+     * @return ResponseEntity contenente l'immagine PNG o SVG del QR Code.
      */
-    @Operation(summary = "Ottieni l'immagine PNG del QR Code di un biglietto")
+    @Operation(summary = "Ottieni l'immagine PNG o SVG del QR Code di un biglietto")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "QR Code trovato"),
+            @ApiResponse(responseCode = "400", description = "Dimensione o formato non supportati"),
             @ApiResponse(responseCode = "404", description = "Biglietto non trovato")
     })
-    @GetMapping(value = "/qrcode/{ticketId}", produces = MediaType.IMAGE_PNG_VALUE)
+    @GetMapping(value = "/qrcode/{ticketId}", produces = {MediaType.IMAGE_PNG_VALUE, "image/svg+xml"})
     public ResponseEntity<byte[]> getQrCodeImage(
-            @Parameter(description = "ID del biglietto") @PathVariable UUID ticketId) {
+            @Parameter(description = "ID del biglietto") @PathVariable UUID ticketId,
+            @Parameter(description = "Taglio dell'immagine") @RequestParam(required = false) String size,
+            @Parameter(description = "Formato dell'immagine (png, svg)") @RequestParam(required = false) String format,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
         
         log.debug("Richiesta QR Code per biglietto ID: {}", ticketId);
         
-        byte[] qrCodeImage = ticketService.getQrCodeImage(ticketId);
-        return new ResponseEntity<>(qrCodeImage, HttpStatus.OK);
+        QrCodeFormat qrCodeFormat = format != null
+                ? QrCodeFormat.fromName(format)
+                : QrCodeFormat.fromAcceptHeader(accept);
+        byte[] qrCodeImage = size == null && qrCodeFormat == QrCodeFormat.PNG
+                ? ticketService.getQrCodeImage(ticketId)
+                : ticketService.getQrCodeImage(ticketId, size, qrCodeFormat);
+        return ResponseEntity.ok()
+                .contentType(qrCodeFormat.getMediaType())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+                .body(qrCodeImage);
     }
 
     /**
@@ -178,6 +213,7 @@ public class TicketController {
      * Questa API verrà chiamata dal frontend (JavaScript) dopo la scansione di un QR Code.
      *
      * @param ticketId L'UUID del biglietto da verificare.
+     * @param gateId Il numero del varco da cui proviene la scansione.
      * @return ResponseEntity contenente il risultato della validazione.
      */
     @Operation(summary = "Verifica un biglietto tramite il suo ID")
@@ -188,11 +224,65 @@ public class TicketController {
     })
     @PostMapping("/reception/verify/{ticketId}")
     public ResponseEntity<TicketValidationResponseDTO> verifyTicket(
-            @Parameter(description = "ID del biglietto") @PathVariable UUID ticketId) {
+            @Parameter(description = "ID del biglietto") @PathVariable UUID ticketId,
+            @Parameter(description = "Numero del varco") @RequestHeader(value = GATE_HEADER, defaultValue = "0") int gateId,
+            Principal principal) {
         
-        log.info("Richiesta verifica biglietto ID: {}", ticketId);
+        log.debug("Richiesta verifica biglietto ID: {}", ticketId);
         
-        TicketValidationResponseDTO response = ticketService.validateTicket(ticketId);
-        return new ResponseEntity<>(response, HttpStatus.OK);
+        CheckInOutcome outcome = ticketService.checkIn(ticketId, scanContext(gateId, principal));
+        return ResponseEntity.status(statusOf(outcome)).body(outcome.toResponse());
+    }
+
+    /**
+     * Mappa la richiesta POST a "/reception/verify" per verificare un biglietto a partire dal
+     * contenuto grezzo del QR Code (UUID o formato compatto Base45), inviato come testo semplice.
+     *
+     * @param payload Il testo decodificato dal QR Code.
+     * @param gateId Il numero del varco da cui proviene la scansione.
+     * @return ResponseEntity contenente il risultato della validazione.
+     */
+    @Operation(summary = "Verifica un biglietto tramite il contenuto del QR Code")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Biglietto valido e registrato"),
+            @ApiResponse(responseCode = "404", description = "QR Code non riconosciuto o biglietto non trovato"),
+            @ApiResponse(responseCode = "409", description = "Biglietto già utilizzato")
+    })
+    @PostMapping(value = "/reception/verify", consumes = MediaType.TEXT_PLAIN_VALUE)
+    public ResponseEntity<TicketValidationResponseDTO> verifyTicketPayload(
+            @RequestBody String payload,
+            @Parameter(description = "Numero del varco") @RequestHeader(value = GATE_HEADER, defaultValue = "0") int gateId,
+            Principal principal) {
+        
+        log.debug("Richiesta verifica biglietto da contenuto QR Code");
+        
+        CheckInOutcome outcome = ticketService.checkIn(payload, scanContext(gateId, principal));
+        return ResponseEntity.status(statusOf(outcome)).body(outcome.toResponse());
+    }
+
+    /**
+     * Stato HTTP dell'esito di un check-in: 200 se l'ingresso è consentito,
+     * 409 se il biglietto è già stato usato, 404 se non è stato trovato.
+     */
+    static HttpStatus statusOf(CheckInOutcome outcome) {
+        return switch (outcome) {
+            case CheckInOutcome.Admitted admitted -> HttpStatus.OK;
+            case CheckInOutcome.AlreadyUsed alreadyUsed -> HttpStatus.CONFLICT;
+            case CheckInOutcome.NotFound notFound -> HttpStatus.NOT_FOUND;
+        };
+    }
+
+    /**
+     * Contesto della scansione. Per i dispositivi con token varco ed evento vengono dal token
+     * e l'header del varco è ignorato.
+     */
+    static ScanContext scanContext(int gateId, Principal principal) {
+        if (principal instanceof DeviceAuthentication device) {
+            return device.getPrincipal().scanContext();
+        }
+        if (gateId < 0 || gateId > ScanContext.MAX_GATE) {
+            throw new InvalidRequestParameterException("Numero del varco non valido: " + gateId);
+        }
+        return new ScanContext(gateId, principal != null ? principal.getName() : null);
     }
 }
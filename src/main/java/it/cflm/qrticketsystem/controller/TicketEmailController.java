@@ -0,0 +1,53 @@
+package it.cflm.qrticketsystem.controller;
+
+import java.util.List;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import it.cflm.qrticketsystem.mail.TicketMailer;
+import it.cflm.qrticketsystem.model.TicketEmailDeadLetter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Controller amministrativo delle email dei biglietti non consegnate.
+ */
+@Controller
+@RequestMapping("/admin/emails")
+@Tag(name = "Ticket Email Controller", description = "Email dei biglietti non consegnate dopo tutti i tentativi")
+@RequiredArgsConstructor
+public class TicketEmailController {
+
+    private final TicketMailer ticketMailer;
+
+    /**
+     * Elenca le email non consegnate.
+     *
+     * @return Le email non consegnate, dalla più vecchia.
+     */
+    @Operation(summary = "Email dei biglietti non consegnate")
+    @GetMapping("/dead-letters")
+    public ResponseEntity<List<TicketEmailDeadLetter>> deadLetters() {
+        return ResponseEntity.ok(ticketMailer.deadLetters());
+    }
+
+    /**
+     * Rimette in coda un'email non consegnata, con i tentativi azzerati.
+     *
+     * @param id L'ID della riga tra le email non consegnate.
+     * @return 204 se l'email è tornata in coda, 404 se la riga non esiste.
+     */
+    @Operation(summary = "Rimette in coda un'email non consegnata")
+    @PostMapping("/dead-letters/{id}/retry")
+    public ResponseEntity<Void> retry(
+            @Parameter(description = "ID dell'email non consegnata") @PathVariable long id) {
+        return ticketMailer.retry(id) ? ResponseEntity.noContent().build() : ResponseEntity.notFound().build();
+    }
+}
@@ -0,0 +1,67 @@
+package it.cflm.qrticketsystem.controller;
+
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import it.cflm.qrticketsystem.service.QrCodeFormat;
+import it.cflm.qrticketsystem.service.TicketExportService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Controller per l'export massivo dei QR Code di un evento.
+ * Accessibile solo agli amministratori.
+ */
+@Controller
+@RequestMapping("/admin/export")
+@Tag(name = "Export Controller", description = "Export massivo dei QR Code per la stampa")
+@RequiredArgsConstructor
+@Slf4j
+public class TicketExportController {
+
+    private final TicketExportService ticketExportService;
+
+    /**
+     * Restituisce in streaming un archivio ZIP con i QR Code di tutti i biglietti di un evento.
+     *
+     * @param eventName Il nome dell'evento.
+     * @param format Il formato delle immagini (png o svg).
+     * @return ResponseEntity con il corpo ZIP scritto in streaming.
+     */
+    @Operation(summary = "Esporta in un archivio ZIP (PNG o SVG) i QR Code di tutti i biglietti di un evento")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Archivio ZIP in streaming"),
+            @ApiResponse(responseCode = "404", description = "Nessun biglietto per l'evento")
+    })
+    @GetMapping(value = "/qrcodes", produces = "application/zip")
+    public ResponseEntity<StreamingResponseBody> exportQrCodes(
+            @Parameter(description = "Nome dell'evento") @RequestParam String eventName,
+            @Parameter(description = "Formato delle immagini (png, svg)") @RequestParam(defaultValue = "png") String format) {
+
+        log.info("Richiesta export QR Code per evento: {}", eventName);
+
+        QrCodeFormat qrCodeFormat = QrCodeFormat.fromName(format);
+        ticketExportService.checkEventHasTickets(eventName);
+
+        String fileName = eventName.replaceAll("[^A-Za-z0-9._-]+", "_") + "-qrcodes.zip";
+        StreamingResponseBody body = out -> ticketExportService.exportEventQrCodes(eventName, qrCodeFormat, out);
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/zip"))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(fileName).build().toString())
+                .body(body);
+    }
+}
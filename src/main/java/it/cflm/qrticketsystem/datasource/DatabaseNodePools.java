@@ -0,0 +1,40 @@
+package it.cflm.qrticketsystem.datasource;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+
+import it.cflm.qrticketsystem.config.DatabaseNode;
+import lombok.experimental.UtilityClass;
+
+/**
+ * Pool di connessioni per i database aggiuntivi (repliche e shard).
+ */
+@UtilityClass
+public class DatabaseNodePools {
+
+    /**
+     * Crea il pool di un nodo. Un nodo spento non blocca l'avvio: le connessioni
+     * vengono aperte al primo utilizzo.
+     *
+     * @param name Il nome del pool (nelle metriche {@code hikaricp.*})
+     * @param node Il nodo
+     * @param maximumPoolSize Connessioni massime
+     * @param readOnly true per le repliche
+     * @param metricsTracker Le metriche del pool
+     */
+    public static HikariDataSource create(String name, DatabaseNode node, int maximumPoolSize,
+                                          boolean readOnly, MetricsTrackerFactory metricsTracker) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName(name);
+        config.setJdbcUrl(node.getUrl());
+        config.setUsername(node.getUsername());
+        config.setPassword(node.getPassword());
+        config.setReadOnly(readOnly);
+        config.setMaximumPoolSize(Math.max(1, maximumPoolSize));
+        config.setInitializationFailTimeout(-1);
+        config.setConnectionTimeout(2000);
+        config.setMetricsTrackerFactory(metricsTracker);
+        return new HikariDataSource(config);
+    }
+}
@@ -0,0 +1,32 @@
+package it.cflm.qrticketsystem.datasource;
+
+import java.sql.SQLException;
+
+import org.hibernate.jpa.SpecHints;
+import org.springframework.orm.jpa.vendor.HibernateJpaDialect;
+import org.springframework.transaction.TransactionDefinition;
+
+import jakarta.persistence.CacheStoreMode;
+import jakarta.persistence.EntityManager;
+
+/**
+ * Dialetto JPA per l'uso con le repliche: le transazioni in sola lettura leggono dalla cache
+ * di secondo livello ma non la popolano.
+ *
+ * Un biglietto letto da una replica in ritardo può risultare ancora valido; se finisse in
+ * cache, il check-in successivo (che legge dalla cache) lo ammetterebbe una seconda volta.
+ * Così la cache contiene solo stati letti o scritti sul primario.
+ */
+public class ReplicaAwareJpaDialect extends HibernateJpaDialect {
+
+    @Override
+    public Object beginTransaction(EntityManager entityManager, TransactionDefinition definition)
+            throws SQLException {
+        Object transactionData = super.beginTransaction(entityManager, definition);
+        if (definition.isReadOnly()) {
+            // Come proprietà dell'EntityManager, altrimenti find() ripristina la modalità di default
+            entityManager.setProperty(SpecHints.HINT_SPEC_CACHE_STORE_MODE, CacheStoreMode.BYPASS);
+        }
+        return transactionData;
+    }
+}
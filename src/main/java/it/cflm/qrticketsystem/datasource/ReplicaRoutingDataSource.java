@@ -0,0 +1,170 @@
+package it.cflm.qrticketsystem.datasource;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+
+import it.cflm.qrticketsystem.config.DatabaseNode;
+import it.cflm.qrticketsystem.config.ReadReplicaProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Sorgente delle connessioni in sola lettura: distribuisce le connessioni a turno tra le
+ * repliche allineate e ripiega sul primario quando nessuna è disponibile.
+ *
+ * Un thread dedicato controlla ogni {@code qrticket.datasource.replicas.check-interval-ms} la
+ * raggiungibilità e il ritardo di ogni replica ({@code lag-query}); una replica è esclusa
+ * se non risponde o se il ritardo supera {@code max-lag-ms}, e rientra al primo controllo
+ * positivo. Anche una connessione rifiutata esclude subito la replica.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractDataSource implements AutoCloseable {
+
+    private final DataSource primary;
+    private final ReadReplicaProperties settings;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final AtomicInteger next = new AtomicInteger();
+    private final ScheduledExecutorService monitor;
+    private final Counter fallbackCounter;
+
+    public ReplicaRoutingDataSource(DataSource primary, ReadReplicaProperties settings, MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.settings = settings;
+        MicrometerMetricsTrackerFactory metricsTracker = new MicrometerMetricsTrackerFactory(meterRegistry);
+        for (DatabaseNode node : settings.getNodes()) {
+            String name = "replica-" + (replicas.size() + 1);
+            // Una replica spenta non blocca l'avvio né le richieste: si ripiega sul primario
+            Replica replica = new Replica(name, DatabaseNodePools.create(name, node,
+                    settings.getMaximumPoolSize(), true, metricsTracker));
+            replicas.add(replica);
+            Gauge.builder("qrticket.datasource.replica.lag", replica, r -> r.healthy ? r.lagMs : Double.NaN)
+                    .description("Ritardo di replica misurato (NaN se la replica non risponde)")
+                    .baseUnit("milliseconds")
+                    .tag("replica", replica.name)
+                    .register(meterRegistry);
+        }
+        this.fallbackCounter = Counter.builder("qrticket.datasource.replica.fallback")
+                .description("Connessioni in sola lettura servite dal primario per repliche non disponibili")
+                .register(meterRegistry);
+
+        this.monitor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-lag-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        monitor.scheduleWithFixedDelay(this::checkReplicas, 0, Math.max(10, settings.getCheckIntervalMs()),
+                TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        int size = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (!replica.healthy) {
+                continue;
+            }
+            try {
+                return replica.pool.getConnection();
+            } catch (SQLException e) {
+                replica.healthy = false;
+                log.warn("Replica {} non raggiungibile, esclusa fino al prossimo controllo: {}",
+                        replica.name, e.getMessage());
+            }
+        }
+        fallbackCounter.increment();
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return getConnection();
+    }
+
+    /**
+     * Controlla raggiungibilità e ritardo di ogni replica.
+     */
+    void checkReplicas() {
+        for (Replica replica : replicas) {
+            boolean wasHealthy = replica.healthy;
+            try (Connection connection = replica.pool.getConnection()) {
+                long lagMs = measureLag(connection);
+                replica.lagMs = lagMs;
+                replica.healthy = lagMs <= settings.getMaxLagMs();
+                if (wasHealthy && !replica.healthy) {
+                    log.warn("Replica {} esclusa: ritardo {} ms oltre il limite di {} ms",
+                            replica.name, lagMs, settings.getMaxLagMs());
+                }
+            } catch (SQLException | RuntimeException e) {
+                replica.healthy = false;
+                if (wasHealthy) {
+                    log.warn("Replica {} esclusa: {}", replica.name, e.getMessage());
+                }
+            }
+            if (!wasHealthy && replica.healthy) {
+                log.info("Replica {} disponibile (ritardo {} ms)", replica.name, replica.lagMs);
+            }
+        }
+    }
+
+    private long measureLag(Connection connection) throws SQLException {
+        String lagQuery = settings.getLagQuery();
+        if (lagQuery == null || lagQuery.isBlank()) {
+            if (!connection.isValid(1)) {
+                throw new SQLException("connessione non valida");
+            }
+            return 0;
+        }
+        try (Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery(lagQuery)) {
+            if (!result.next()) {
+                throw new SQLException("la query del ritardo non ha restituito righe");
+            }
+            double seconds = result.getDouble(1);
+            return result.wasNull() ? 0 : Math.round(seconds * 1000);
+        }
+    }
+
+    /**
+     * @return Il numero di repliche attualmente utilizzabili
+     */
+    public int healthyReplicas() {
+        return (int) replicas.stream().filter(replica -> replica.healthy).count();
+    }
+
+    @Override
+    public void close() {
+        monitor.shutdownNow();
+        replicas.forEach(replica -> replica.pool.close());
+    }
+
+    private static final class Replica {
+        private final String name;
+        private final HikariDataSource pool;
+        private volatile boolean healthy;
+        private volatile long lagMs;
+
+        private Replica(String name, HikariDataSource pool) {
+            this.name = name;
+            this.pool = pool;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package it.cflm.qrticketsystem.dto;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO con un token emesso per un dispositivo di scansione.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DeviceTokenDTO {
+    private String token;
+    private UUID tokenId;
+    private String deviceId;
+    private String eventName;
+    private int gate;
+    private Instant expiresAt;
+}
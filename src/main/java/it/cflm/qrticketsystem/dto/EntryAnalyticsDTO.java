@@ -0,0 +1,23 @@
+package it.cflm.qrticketsystem.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO con le statistiche in tempo reale di ingressi e presenze.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class EntryAnalyticsDTO {
+    private LocalDateTime generatedAt;
+    private int windowSeconds;
+    private List<EventOccupancyDTO> events;
+    private List<GateRateDTO> gates;
+}
@@ -0,0 +1,30 @@
+package it.cflm.qrticketsystem.dto;
+
+import java.time.LocalDateTime;
+
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+
+import it.cflm.qrticketsystem.config.QRCodeConfig.PayloadEncoding;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO con i dati di un evento. In modifica i contatori sono ignorati e le impostazioni
+ * dei QR Code a null tornano ai valori di default.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class EventDTO {
+    private Integer id;
+    private String name;
+    private String title;
+    private LocalDateTime startsAt;
+    private PayloadEncoding payloadEncoding;
+    private ErrorCorrectionLevel errorCorrection;
+    private long ticketsSold;
+    private long ticketsEntered;
+}
@@ -0,0 +1,21 @@
+package it.cflm.qrticketsystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO con le presenze di un evento e il suo ritmo di ingresso nella finestra mobile.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class EventOccupancyDTO {
+    private String eventName;
+    private long inside;
+    private double entriesPerMinute;
+    private long p95EntriesPerSecond;
+    private long peakEntriesPerSecond;
+}
@@ -0,0 +1,24 @@
+package it.cflm.qrticketsystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO con il ritmo di scansione di un varco nella finestra mobile.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class GateRateDTO {
+    private int gate;
+    private double entriesPerMinute;
+    private double rejectionsPerMinute;
+    private long p50EntriesPerSecond;
+    private long p95EntriesPerSecond;
+    private long peakEntriesPerSecond;
+    private long totalEntries;
+    private long totalRejections;
+}
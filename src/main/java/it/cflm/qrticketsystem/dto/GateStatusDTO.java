@@ -0,0 +1,20 @@
+package it.cflm.qrticketsystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO con lo stato di un varco aperto in modalità check-in in memoria.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class GateStatusDTO {
+    private String eventName;
+    private int tickets;
+    private int checkedIn;
+    private int pendingWrites;
+}
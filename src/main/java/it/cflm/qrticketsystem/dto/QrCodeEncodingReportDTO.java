@@ -0,0 +1,25 @@
+package it.cflm.qrticketsystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO che descrive il simbolo QR risultante da una combinazione di formato del contenuto
+ * e livello di correzione errori: versione, numero di moduli e dimensione del modulo in pixel.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class QrCodeEncodingReportDTO {
+    private String payloadEncoding;
+    private String errorCorrection;
+    private int payloadLength;
+    private String mode;
+    private int version;
+    private int modules;
+    private int moduleSizePx;
+    private boolean active;
+}
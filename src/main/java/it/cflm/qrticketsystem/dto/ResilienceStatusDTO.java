@@ -0,0 +1,38 @@
+package it.cflm.qrticketsystem.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO con lo stato delle protezioni del database e del check-in degradato.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ResilienceStatusDTO {
+    private String circuitState;
+    private List<Bulkhead> bulkheads;
+    private double faultFailureRate;
+    private long faultLatencyMs;
+    private int allowListTickets;
+    private int pendingWrites;
+
+    /**
+     * Occupazione del bulkhead di un caso d'uso.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Bulkhead {
+        private String useCase;
+        private int maxConcurrent;
+        private int active;
+        private long rejected;
+    }
+}
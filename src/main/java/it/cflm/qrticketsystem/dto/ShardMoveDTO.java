@@ -0,0 +1,21 @@
+package it.cflm.qrticketsystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO con lo spostamento di un bucket di eventi tra due shard, pianificato o eseguito dal ribilanciamento.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ShardMoveDTO {
+    private int bucket;
+    private int fromShard;
+    private int toShard;
+    private int events;
+    private long tickets;
+}
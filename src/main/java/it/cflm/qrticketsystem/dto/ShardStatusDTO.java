@@ -0,0 +1,20 @@
+package it.cflm.qrticketsystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO con lo stato di uno shard dei biglietti.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ShardStatusDTO {
+    private int shard;
+    private int buckets;
+    private int movingBuckets;
+    private long tickets;
+}
@@ -0,0 +1,12 @@
+package it.cflm.qrticketsystem.exception;
+
+/**
+ * Eccezione lanciata quando le chiamate al database di un caso d'uso (acquisto, check-in,
+ * lettura) sono già al massimo e non si libera un posto in tempo: il client deve riprovare.
+ */
+public class BulkheadFullException extends RuntimeException {
+
+    public BulkheadFullException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,16 @@
+package it.cflm.qrticketsystem.exception;
+
+/**
+ * Eccezione lanciata quando il database non risponde (errore di connessione, timeout) o il
+ * circuit breaker è aperto: il client deve riprovare più tardi.
+ */
+public class DatabaseUnavailableException extends RuntimeException {
+
+    public DatabaseUnavailableException(String message) {
+        super(message);
+    }
+
+    public DatabaseUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
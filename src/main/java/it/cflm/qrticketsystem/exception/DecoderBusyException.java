@@ -0,0 +1,12 @@
+package it.cflm.qrticketsystem.exception;
+
+/**
+ * Eccezione lanciata quando la coda di decodifica dei frame è piena o il frame non viene
+ * decodificato entro il tempo massimo: il client deve riprovare più tardi.
+ */
+public class DecoderBusyException extends RuntimeException {
+    
+    public DecoderBusyException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package it.cflm.qrticketsystem.exception;
+
+/**
+ * Eccezione lanciata quando un evento non è presente nell'anagrafica.
+ */
+public class EventNotFoundException extends RuntimeException {
+    
+    public EventNotFoundException(String eventName) {
+        super("Evento non trovato: " + eventName);
+    }
+}
@@ -0,0 +1,11 @@
+package it.cflm.qrticketsystem.exception;
+
+/**
+ * Eccezione lanciata quando un frame inviato alla reception supera la dimensione massima accettata.
+ */
+public class FrameTooLargeException extends RuntimeException {
+
+    public FrameTooLargeException(String message) {
+        super(message);
+    }
+}
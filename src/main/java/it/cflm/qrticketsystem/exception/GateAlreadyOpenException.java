@@ -0,0 +1,11 @@
+package it.cflm.qrticketsystem.exception;
+
+/**
+ * Eccezione lanciata quando si apre il varco di un evento che ha già un varco aperto.
+ */
+public class GateAlreadyOpenException extends RuntimeException {
+    
+    public GateAlreadyOpenException(String eventName) {
+        super("Il varco per l'evento " + eventName + " è già aperto");
+    }
+}
@@ -1,6 +1,7 @@
 package it.cflm.qrticketsystem.exception;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -61,6 +62,23 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(response, HttpStatus.NOT_FOUND);
     }
     
+    /**
+     * Gestisce l'eccezione quando un evento non è presente nell'anagrafica.
+     */
+    @ExceptionHandler(EventNotFoundException.class)
+    public ResponseEntity<Map<String, Object>> handleEventNotFoundException(
+            EventNotFoundException ex) {
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("timestamp", LocalDateTime.now());
+        response.put("status", HttpStatus.NOT_FOUND.value());
+        response.put("message", ex.getMessage());
+        
+        log.warn("Evento non trovato: {}", ex.getMessage());
+        
+        return new ResponseEntity<>(response, HttpStatus.NOT_FOUND);
+    }
+    
     /**
      * Gestisce l'eccezione quando un biglietto è già stato usato.
      */
@@ -78,6 +96,169 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(response, HttpStatus.CONFLICT);
     }
     
+    /**
+     * Gestisce l'apertura di un varco già aperto.
+     */
+    @ExceptionHandler(GateAlreadyOpenException.class)
+    public ResponseEntity<Map<String, Object>> handleGateAlreadyOpenException(
+            GateAlreadyOpenException ex) {
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("timestamp", LocalDateTime.now());
+        response.put("status", HttpStatus.CONFLICT.value());
+        response.put("message", ex.getMessage());
+        
+        log.warn("Varco già aperto: {}", ex.getMessage());
+        
+        return new ResponseEntity<>(response, HttpStatus.CONFLICT);
+    }
+    
+    /**
+     * Gestisce i parametri di richiesta non validi (es. dimensione o formato QR Code non supportati).
+     */
+    @ExceptionHandler(InvalidRequestParameterException.class)
+    public ResponseEntity<Map<String, Object>> handleInvalidRequestParameterException(
+            InvalidRequestParameterException ex) {
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("timestamp", LocalDateTime.now());
+        response.put("status", HttpStatus.BAD_REQUEST.value());
+        response.put("message", ex.getMessage());
+        
+        log.warn("Richiesta non valida: {}", ex.getMessage());
+        
+        return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+    }
+    
+    /**
+     * Gestisce i frame in cui non è stato trovato un QR Code leggibile.
+     */
+    @ExceptionHandler(QRCodeDecodingException.class)
+    public ResponseEntity<Map<String, Object>> handleQRCodeDecodingException(
+            QRCodeDecodingException ex) {
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("timestamp", LocalDateTime.now());
+        response.put("status", HttpStatus.UNPROCESSABLE_ENTITY.value());
+        response.put("message", ex.getMessage());
+        
+        log.debug("Frame non decodificabile: {}", ex.getMessage());
+        
+        return new ResponseEntity<>(response, HttpStatus.UNPROCESSABLE_ENTITY);
+    }
+    
+    /**
+     * Gestisce i frame che superano la dimensione massima accettata.
+     */
+    @ExceptionHandler(FrameTooLargeException.class)
+    public ResponseEntity<Map<String, Object>> handleFrameTooLargeException(
+            FrameTooLargeException ex) {
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("timestamp", LocalDateTime.now());
+        response.put("status", HttpStatus.PAYLOAD_TOO_LARGE.value());
+        response.put("message", ex.getMessage());
+        
+        log.warn("Frame rifiutato: {}", ex.getMessage());
+        
+        return new ResponseEntity<>(response, HttpStatus.PAYLOAD_TOO_LARGE);
+    }
+    
+    /**
+     * Gestisce la saturazione della coda di decodifica: il client deve riprovare.
+     */
+    @ExceptionHandler(DecoderBusyException.class)
+    public ResponseEntity<Map<String, Object>> handleDecoderBusyException(
+            DecoderBusyException ex) {
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("timestamp", LocalDateTime.now());
+        response.put("status", HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.put("message", ex.getMessage());
+        
+        log.warn("Decodifica frame rifiutata: {}", ex.getMessage());
+        
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(response);
+    }
+    
+    /**
+     * Gestisce le letture unite rifiutate o scadute: il client deve riprovare.
+     */
+    @ExceptionHandler(LookupBusyException.class)
+    public ResponseEntity<Map<String, Object>> handleLookupBusyException(
+            LookupBusyException ex) {
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("timestamp", LocalDateTime.now());
+        response.put("status", HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.put("message", ex.getMessage());
+        
+        log.warn("Lettura rifiutata: {}", ex.getMessage());
+        
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(response);
+    }
+    
+    /**
+     * Gestisce il database non disponibile (circuit breaker aperto o errore di connessione).
+     */
+    @ExceptionHandler(DatabaseUnavailableException.class)
+    public ResponseEntity<Map<String, Object>> handleDatabaseUnavailableException(
+            DatabaseUnavailableException ex) {
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("timestamp", LocalDateTime.now());
+        response.put("status", HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.put("message", "Database non disponibile, riprovare più tardi");
+        
+        log.warn("Database non disponibile: {}", ex.getMessage());
+        
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "5")
+                .body(response);
+    }
+    
+    /**
+     * Gestisce le richieste rifiutate dal bulkhead del loro caso d'uso: il client deve riprovare.
+     */
+    @ExceptionHandler(BulkheadFullException.class)
+    public ResponseEntity<Map<String, Object>> handleBulkheadFullException(
+            BulkheadFullException ex) {
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("timestamp", LocalDateTime.now());
+        response.put("status", HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.put("message", ex.getMessage());
+        
+        log.warn("Richiesta rifiutata dal bulkhead: {}", ex.getMessage());
+        
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(response);
+    }
+    
+    /**
+     * Gestisce le scritture sui biglietti di un evento in spostamento tra shard: il client deve riprovare.
+     */
+    @ExceptionHandler(ShardMovingException.class)
+    public ResponseEntity<Map<String, Object>> handleShardMovingException(
+            ShardMovingException ex) {
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("timestamp", LocalDateTime.now());
+        response.put("status", HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.put("message", ex.getMessage());
+        
+        log.warn("Scrittura rifiutata durante il ribilanciamento: {}", ex.getMessage());
+        
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "5")
+                .body(response);
+    }
+    
     /**
      * Gestisce l'eccezione di generazione del QR Code.
      */
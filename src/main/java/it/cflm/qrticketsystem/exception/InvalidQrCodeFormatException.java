@@ -0,0 +1,12 @@
+package it.cflm.qrticketsystem.exception;
+
+/**
+ * Eccezione lanciata quando il formato o il taglio richiesto per l'immagine di un QR Code
+ * non è supportato.
+ */
+public class InvalidQrCodeFormatException extends InvalidRequestParameterException {
+
+    public InvalidQrCodeFormatException(String message) {
+        super(message);
+    }
+}
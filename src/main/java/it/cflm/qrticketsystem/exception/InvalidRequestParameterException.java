@@ -0,0 +1,12 @@
+package it.cflm.qrticketsystem.exception;
+
+/**
+ * Eccezione lanciata quando un parametro fornito dal client non è valido
+ * (es. varco fuori intervallo, validità di un token non ammessa).
+ */
+public class InvalidRequestParameterException extends IllegalArgumentException {
+
+    public InvalidRequestParameterException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,12 @@
+package it.cflm.qrticketsystem.exception;
+
+/**
+ * Eccezione lanciata quando troppe richieste attendono la stessa lettura in corso, o la
+ * lettura non termina entro il tempo massimo: il client deve riprovare più tardi.
+ */
+public class LookupBusyException extends RuntimeException {
+
+    public LookupBusyException(String message) {
+        super(message);
+    }
+}
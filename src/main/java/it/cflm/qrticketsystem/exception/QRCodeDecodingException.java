@@ -0,0 +1,15 @@
+package it.cflm.qrticketsystem.exception;
+
+/**
+ * Eccezione lanciata quando in un frame inviato alla reception non viene trovato un QR Code leggibile.
+ */
+public class QRCodeDecodingException extends RuntimeException {
+    
+    public QRCodeDecodingException(String message) {
+        super(message);
+    }
+    
+    public QRCodeDecodingException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,12 @@
+package it.cflm.qrticketsystem.exception;
+
+/**
+ * Eccezione lanciata quando si scrive un biglietto il cui evento è in spostamento tra due
+ * shard: il client deve riprovare a spostamento concluso.
+ */
+public class ShardMovingException extends RuntimeException {
+    
+    public ShardMovingException(String message) {
+        super(message);
+    }
+}
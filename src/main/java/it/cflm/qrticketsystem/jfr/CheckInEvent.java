@@ -0,0 +1,30 @@
+package it.cflm.qrticketsystem.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import lombok.Setter;
+
+/**
+ * Evento JFR: check-in di un biglietto alla reception, con esito e varco.
+ * La durata copre la verifica nel servizio (varco in memoria o database), esclusa la commit.
+ */
+@Name("it.cflm.qrticketsystem.CheckIn")
+@Label("Check-in")
+@Category({"QR Ticket System", "Reception"})
+@Description("Scansione di un biglietto alla reception")
+@StackTrace(false)
+@Setter
+public class CheckInEvent extends jdk.jfr.Event {
+
+    @Label("ID biglietto")
+    private String ticketId;
+
+    @Label("Esito")
+    private String outcome;
+
+    @Label("Varco")
+    private int gate;
+}
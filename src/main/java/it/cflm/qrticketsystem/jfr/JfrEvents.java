@@ -0,0 +1,67 @@
+package it.cflm.qrticketsystem.jfr;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import lombok.experimental.UtilityClass;
+
+/**
+ * Supporto per gli eventi JFR del ciclo di vita dei biglietti.
+ *
+ * Gli eventi non hanno stack trace e, senza una registrazione attiva, {@code shouldCommit()}
+ * è falso: i campi non vengono valorizzati e il costo si riduce a due letture del clock.
+ */
+@UtilityClass
+public class JfrEvents {
+
+    /**
+     * Chiude un evento di scrittura iniziato con {@code begin()}.
+     *
+     * @param event L'evento
+     * @param operation L'operazione (vedi le costanti di {@link TicketPersistEvent})
+     * @param rows Le righe scritte
+     */
+    public static void commit(TicketPersistEvent event, String operation, int rows) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.setOperation(operation);
+            event.setRows(rows);
+            event.commit();
+        }
+    }
+
+    /**
+     * Chiude l'evento di creazione alla fine della transazione corrente e registra la sua
+     * scrittura (flush e commit) come {@link TicketPersistEvent}. Senza transazione attiva
+     * l'evento viene chiuso subito.
+     *
+     * @param creation L'evento di creazione, già iniziato
+     * @param operation L'operazione di scrittura
+     * @param rows Le righe scritte
+     */
+    public static void commitAfterTransaction(TicketCreationEvent creation, String operation, int rows) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            creation.setCommitted(true);
+            creation.commit();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private final TicketPersistEvent persist = new TicketPersistEvent();
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                persist.begin();
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                boolean committed = status == STATUS_COMMITTED;
+                if (committed) {
+                    commit(persist, operation, rows);
+                }
+                creation.setCommitted(committed);
+                creation.commit();
+            }
+        });
+    }
+}
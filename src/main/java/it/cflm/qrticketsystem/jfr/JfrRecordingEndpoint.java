@@ -0,0 +1,170 @@
+package it.cflm.qrticketsystem.jfr;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.boot.actuate.endpoint.web.annotation.WebEndpoint;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Endpoint Actuator {@code /actuator/jfr} per le registrazioni Java Flight Recorder su richiesta.
+ *
+ * <ul>
+ *   <li>{@code POST}: avvia una registrazione (impostazioni JFR {@code default} o {@code profile}).</li>
+ *   <li>{@code GET}: scarica un file .jfr con i dati registrati finora, senza fermare la registrazione.
+ *       Se non è stata avviata da qui, scarica un'istantanea delle registrazioni attive
+ *       (es. {@code -XX:StartFlightRecording}).</li>
+ *   <li>{@code DELETE}: ferma la registrazione.</li>
+ * </ul>
+ * Il file contiene gli eventi del ciclo di vita dei biglietti (categoria "QR Ticket System")
+ * insieme agli eventi della JVM (GC, lock, I/O), per correlarli con i picchi di latenza ai varchi.
+ */
+@Component
+@WebEndpoint(id = "jfr")
+@Slf4j
+public class JfrRecordingEndpoint {
+
+    private static final String RECORDING_NAME = "qrticket-on-demand";
+    private static final Duration DEFAULT_MAX_AGE = Duration.ofMinutes(30);
+
+    private Recording recording;
+
+    /**
+     * Avvia una registrazione, se non è già in corso.
+     *
+     * @param settings Le impostazioni JFR ({@code default}, basso overhead, o {@code profile})
+     * @param maxAgeSeconds Quanti secondi di dati conservare (default 30 minuti)
+     * @return Lo stato della registrazione
+     */
+    @WriteOperation
+    public synchronized WebEndpointResponse<Map<String, Object>> start(@Nullable String settings,
+                                                                       @Nullable Long maxAgeSeconds) {
+        if (recording != null) {
+            return new WebEndpointResponse<>(status(), WebEndpointResponse.STATUS_OK);
+        }
+        Configuration configuration;
+        try {
+            configuration = Configuration.getConfiguration(settings != null ? settings : "default");
+        } catch (IOException | ParseException e) {
+            return new WebEndpointResponse<>(Map.of("message", "Impostazioni JFR non disponibili: " + settings),
+                    WebEndpointResponse.STATUS_BAD_REQUEST);
+        }
+        Recording started = new Recording(configuration);
+        started.setName(RECORDING_NAME);
+        started.setToDisk(true);
+        started.setMaxAge(maxAgeSeconds != null ? Duration.ofSeconds(maxAgeSeconds) : DEFAULT_MAX_AGE);
+        started.start();
+        recording = started;
+        log.info("Registrazione JFR avviata con impostazioni '{}'", configuration.getName());
+        return new WebEndpointResponse<>(status(), WebEndpointResponse.STATUS_OK);
+    }
+
+    /**
+     * Scarica i dati registrati finora in formato .jfr.
+     *
+     * @return Il file della registrazione, oppure 404 se non ci sono registrazioni attive
+     */
+    @ReadOperation(produces = "application/octet-stream")
+    public synchronized WebEndpointResponse<Resource> dump() {
+        try {
+            Path file = Files.createTempFile("qrticket-", ".jfr");
+            if (recording != null) {
+                recording.dump(file);
+                return new WebEndpointResponse<>(new TemporaryFileSystemResource(file), WebEndpointResponse.STATUS_OK);
+            }
+            if (FlightRecorder.isAvailable() && !FlightRecorder.getFlightRecorder().getRecordings().isEmpty()) {
+                try (Recording snapshot = FlightRecorder.getFlightRecorder().takeSnapshot()) {
+                    if (snapshot.getSize() > 0) {
+                        snapshot.dump(file);
+                        return new WebEndpointResponse<>(new TemporaryFileSystemResource(file),
+                                WebEndpointResponse.STATUS_OK);
+                    }
+                }
+            }
+            Files.deleteIfExists(file);
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Scrittura della registrazione JFR fallita", e);
+        }
+    }
+
+    /**
+     * Ferma la registrazione avviata da questo endpoint.
+     *
+     * @return Lo stato finale della registrazione, oppure 404 se non era in corso
+     */
+    @DeleteOperation
+    public synchronized WebEndpointResponse<Map<String, Object>> stop() {
+        if (recording == null) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+        }
+        Map<String, Object> status = status();
+        recording.close();
+        recording = null;
+        log.info("Registrazione JFR fermata");
+        return new WebEndpointResponse<>(status, WebEndpointResponse.STATUS_OK);
+    }
+
+    private Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("name", recording.getName());
+        status.put("state", recording.getState().name());
+        status.put("startTime", recording.getStartTime());
+        status.put("maxAgeSeconds", recording.getMaxAge().toSeconds());
+        status.put("sizeBytes", recording.getSize());
+        return status;
+    }
+
+    @PreDestroy
+    synchronized void shutdown() {
+        if (recording != null) {
+            recording.close();
+            recording = null;
+        }
+    }
+
+    /**
+     * File temporaneo cancellato dopo essere stato inviato al client.
+     */
+    private static final class TemporaryFileSystemResource extends FileSystemResource {
+
+        private TemporaryFileSystemResource(Path path) {
+            super(path);
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return new FilterInputStream(super.getInputStream()) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        Files.deleteIfExists(getFile().toPath());
+                    }
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package it.cflm.qrticketsystem.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import lombok.Setter;
+
+/**
+ * Evento JFR: rendering di un QR Code, con dimensioni e peso dell'immagine.
+ */
+@Name("it.cflm.qrticketsystem.QrRender")
+@Label("Rendering QR Code")
+@Category({"QR Ticket System", "QR Code"})
+@Description("Codifica e scrittura dell'immagine di un QR Code")
+@StackTrace(false)
+@Setter
+public class QrRenderEvent extends jdk.jfr.Event {
+
+    @Label("Formato")
+    private String format;
+
+    @Label("Larghezza")
+    private int width;
+
+    @Label("Altezza")
+    private int height;
+
+    @Label("Dimensione")
+    @DataAmount
+    private long bytes;
+}
@@ -0,0 +1,30 @@
+package it.cflm.qrticketsystem.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import lombok.Setter;
+
+/**
+ * Evento JFR: creazione di un biglietto, dalla richiesta alla fine della transazione.
+ */
+@Name("it.cflm.qrticketsystem.TicketCreation")
+@Label("Creazione biglietto")
+@Category({"QR Ticket System", "Biglietti"})
+@Description("Creazione di un biglietto, commit incluso")
+@StackTrace(false)
+@Setter
+public class TicketCreationEvent extends jdk.jfr.Event {
+
+    @Label("ID biglietto")
+    private String ticketId;
+
+    @Label("Evento")
+    private String eventName;
+
+    @Label("Confermato")
+    @Description("False se la transazione è stata annullata")
+    private boolean committed;
+}
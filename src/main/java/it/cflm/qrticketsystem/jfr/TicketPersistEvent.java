@@ -0,0 +1,35 @@
+package it.cflm.qrticketsystem.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import lombok.Setter;
+
+/**
+ * Evento JFR: scrittura sul database (flush e commit) di biglietti, immagini, check-in o audit.
+ */
+@Name("it.cflm.qrticketsystem.Persist")
+@Label("Scrittura su database")
+@Category({"QR Ticket System", "Database"})
+@Description("Transazione di scrittura, flush e commit inclusi")
+@StackTrace(false)
+@Setter
+public class TicketPersistEvent extends jdk.jfr.Event {
+
+    /** Biglietto appena creato. */
+    public static final String TICKET = "ticket";
+    /** Immagine del QR Code renderizzata in background. */
+    public static final String QR_IMAGE = "qr-image";
+    /** Batch di check-in del varco. */
+    public static final String GATE_CHECK_IN = "gate-check-in";
+    /** Batch della traccia di audit delle scansioni. */
+    public static final String SCAN_AUDIT = "scan-audit";
+
+    @Label("Operazione")
+    private String operation;
+
+    @Label("Righe")
+    private int rows;
+}
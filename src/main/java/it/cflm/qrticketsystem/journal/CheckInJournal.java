@@ -0,0 +1,383 @@
+package it.cflm.qrticketsystem.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+import it.cflm.qrticketsystem.model.ScanOutcome;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Journal append-only dei check-in su segmenti di file mappati in memoria.
+ *
+ * <p>Ogni record ha dimensione fissa ({@value #RECORD_BYTES} byte): ID del biglietto, istante,
+ * varco, esito e un CRC32C che permette di riconoscere un record scritto a metà da un crash.
+ * La scrittura avviene nella memoria mappata; la sincronizzazione su disco è fatta da un thread
+ * dedicato in <em>group commit</em>: un solo {@code force} rende durevoli tutti i record accodati
+ * nel frattempo, e {@link #awaitDurable(long)} attende il commit che copre il record.</p>
+ *
+ * <p>Le posizioni (LSN) codificano segmento e offset e crescono in modo monotono. Quando un
+ * segmento è pieno se ne apre uno nuovo; {@link #checkpoint(long)} registra fin dove i check-in
+ * sono stati applicati al database e rimuove i segmenti interamente applicati (compattazione).
+ * All'avvio {@link #recover()} restituisce i check-in successivi all'ultimo checkpoint, esclusi
+ * quelli annullati con {@link #revoke(UUID, int, long)}.</p>
+ */
+@Slf4j
+public class CheckInJournal implements Closeable {
+
+    /** Dimensione di un record: msb(8) lsb(8) istante(8) varco(2) esito(1) flag(1) crc(4). */
+    public static final int RECORD_BYTES = 32;
+
+    private static final int CRC_OFFSET = 28;
+    private static final byte REVOKED = 1;
+    private static final String SEGMENT_PREFIX = "checkin-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String CHECKPOINT_FILE = "checkpoint";
+    private static final ScanOutcome[] OUTCOMES = ScanOutcome.values();
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition written = lock.newCondition();
+    private final Condition durable = lock.newCondition();
+    private final CRC32C crc = new CRC32C();
+    private final Thread syncThread;
+
+    private long segmentSequence;
+    private MappedByteBuffer segment;
+    private int offset;
+    private long writtenLsn;
+    private long durableLsn;
+    private long checkpointLsn;
+    private IOException syncFailure;
+    private boolean closed;
+
+    /**
+     * Apre il journal nella directory indicata iniziando un nuovo segmento.
+     *
+     * @param directory La directory dei segmenti
+     * @param segmentRecords Il numero di record per segmento
+     */
+    public CheckInJournal(Path directory, int segmentRecords) throws IOException {
+        if (segmentRecords <= 0 || (long) segmentRecords * RECORD_BYTES > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Numero di record per segmento non valido: " + segmentRecords);
+        }
+        this.directory = Files.createDirectories(directory);
+        this.segmentBytes = segmentRecords * RECORD_BYTES;
+        this.checkpointLsn = readCheckpoint();
+        List<Path> existing = segments();
+        this.segmentSequence = existing.isEmpty() ? 0 : sequenceOf(existing.get(existing.size() - 1));
+        openNextSegment();
+        this.durableLsn = writtenLsn;
+        this.syncThread = new Thread(this::syncLoop, "checkin-journal-sync");
+        syncThread.setDaemon(true);
+        syncThread.start();
+    }
+
+    /**
+     * Scrive un record nella memoria mappata. Il record non è ancora durevole:
+     * usare {@link #awaitDurable(long)} prima di confermare un ingresso.
+     *
+     * @return La posizione (LSN) successiva al record
+     */
+    public long append(UUID ticketId, int gate, ScanOutcome outcome, long timestamp) throws IOException {
+        return write(ticketId, gate, outcome, (byte) 0, timestamp);
+    }
+
+    /**
+     * Annulla un ingresso scritto con {@link #append} ma non confermato: al recupero il check-in
+     * del biglietto non viene riapplicato. Come per {@code append} il record non è ancora durevole.
+     *
+     * @return La posizione (LSN) successiva al record
+     */
+    public long revoke(UUID ticketId, int gate, long timestamp) throws IOException {
+        return write(ticketId, gate, ScanOutcome.ADMITTED, REVOKED, timestamp);
+    }
+
+    private long write(UUID ticketId, int gate, ScanOutcome outcome, byte flags, long timestamp) throws IOException {
+        lock.lock();
+        try {
+            if (closed) {
+                throw new IOException("Journal dei check-in chiuso");
+            }
+            if (offset + RECORD_BYTES > segmentBytes) {
+                // Il segmento pieno viene reso durevole prima di essere abbandonato
+                segment.force();
+                durableLsn = writtenLsn;
+                openNextSegment();
+            }
+            segment.putLong(offset, ticketId.getMostSignificantBits());
+            segment.putLong(offset + 8, ticketId.getLeastSignificantBits());
+            segment.putLong(offset + 16, timestamp);
+            segment.putShort(offset + 24, (short) gate);
+            segment.put(offset + 26, (byte) (outcome.ordinal() + 1));
+            segment.put(offset + 27, flags);
+            crc.reset();
+            crc.update(segment.slice(offset, CRC_OFFSET));
+            segment.putInt(offset + CRC_OFFSET, (int) crc.getValue());
+            offset += RECORD_BYTES;
+            writtenLsn = lsn(segmentSequence, offset);
+            written.signal();
+            return writtenLsn;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Attende che il record alla posizione indicata sia stato sincronizzato su disco.
+     */
+    public void awaitDurable(long lsn) throws IOException {
+        lock.lock();
+        try {
+            while (durableLsn < lsn) {
+                if (syncFailure != null) {
+                    throw new IOException("Sincronizzazione del journal fallita", syncFailure);
+                }
+                if (closed) {
+                    throw new IOException("Journal dei check-in chiuso");
+                }
+                durable.await();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Attesa della sincronizzazione del journal interrotta");
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Posizione successiva all'ultimo record scritto.
+     */
+    public long writePosition() {
+        lock.lock();
+        try {
+            return writtenLsn;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Registra che tutti i check-in fino alla posizione indicata sono stati applicati al database
+     * e rimuove i segmenti precedenti, che non servono più per il recupero.
+     */
+    public void checkpoint(long lsn) throws IOException {
+        if (lsn <= checkpointLsn) {
+            return;
+        }
+        Path temp = directory.resolve(CHECKPOINT_FILE + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.write(ByteBuffer.allocate(Long.BYTES).putLong(0, lsn));
+            channel.force(true);
+        }
+        Files.move(temp, directory.resolve(CHECKPOINT_FILE),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        checkpointLsn = lsn;
+
+        long checkpointSegment = lsn >>> 32;
+        for (Path file : segments()) {
+            if (sequenceOf(file) < checkpointSegment) {
+                Files.deleteIfExists(file);
+                log.debug("Segmento del journal {} compattato", file.getFileName());
+            }
+        }
+    }
+
+    /**
+     * Legge i record successivi all'ultimo checkpoint, fermandosi in ogni segmento
+     * al primo record vuoto o corrotto.
+     *
+     * @return I check-in da riapplicare e la posizione fino a cui arrivano
+     */
+    public Recovery recover() throws IOException {
+        List<UUID> admitted = new ArrayList<>();
+        long endLsn = checkpointLsn;
+        int records = 0;
+        CRC32C check = new CRC32C();
+        for (Path file : segments()) {
+            long sequence = sequenceOf(file);
+            if (sequence == segmentSequence) {
+                continue; // segmento attivo, aperto vuoto da questa istanza
+            }
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                for (int position = 0; position + RECORD_BYTES <= data.limit(); position += RECORD_BYTES) {
+                    int outcome = data.get(position + 26);
+                    check.reset();
+                    check.update(data.slice(position, CRC_OFFSET));
+                    if (outcome <= 0 || outcome > OUTCOMES.length
+                            || data.getInt(position + CRC_OFFSET) != (int) check.getValue()) {
+                        break;
+                    }
+                    long recordLsn = lsn(sequence, position + RECORD_BYTES);
+                    if (recordLsn <= checkpointLsn) {
+                        continue;
+                    }
+                    records++;
+                    endLsn = Math.max(endLsn, recordLsn);
+                    UUID ticketId = new UUID(data.getLong(position), data.getLong(position + 8));
+                    if (data.get(position + 27) == REVOKED) {
+                        admitted.remove(ticketId);
+                    } else if (OUTCOMES[outcome - 1] == ScanOutcome.ADMITTED) {
+                        admitted.add(ticketId);
+                    }
+                }
+            }
+        }
+        return new Recovery(admitted, endLsn, records);
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            segment.force();
+            durableLsn = writtenLsn;
+            written.signalAll();
+            durable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        syncThread.interrupt();
+    }
+
+    private void syncLoop() {
+        while (true) {
+            MappedByteBuffer target;
+            long targetLsn;
+            int from;
+            int to;
+            lock.lock();
+            try {
+                while (writtenLsn == durableLsn && !closed) {
+                    written.awaitUninterruptibly();
+                }
+                if (closed) {
+                    return;
+                }
+                target = segment;
+                targetLsn = writtenLsn;
+                // Se il segmento è cambiato, il precedente è già stato reso durevole alla rotazione
+                from = (durableLsn >>> 32) == segmentSequence ? (int) durableLsn : 0;
+                to = offset;
+            } finally {
+                lock.unlock();
+            }
+            try {
+                sync(target, from, to - from);
+            } catch (UncheckedIOException e) {
+                lock.lock();
+                try {
+                    syncFailure = e.getCause();
+                    durable.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+                log.error("Sincronizzazione del journal dei check-in fallita", e);
+                return;
+            }
+            lock.lock();
+            try {
+                durableLsn = Math.max(durableLsn, targetLsn);
+                durable.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Sincronizza su disco una porzione del segmento.
+     *
+     * @throws UncheckedIOException se la scrittura su disco fallisce
+     */
+    protected void sync(MappedByteBuffer segment, int from, int length) {
+        segment.force(from, length);
+    }
+
+    private void openNextSegment() throws IOException {
+        segmentSequence++;
+        Path file = directory.resolve(String.format("%s%012d%s", SEGMENT_PREFIX, segmentSequence, SEGMENT_SUFFIX));
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // La mappatura resta valida dopo la chiusura del canale
+            segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        }
+        offset = 0;
+        writtenLsn = lsn(segmentSequence, 0);
+        log.debug("Aperto segmento del journal dei check-in {}", file.getFileName());
+    }
+
+    private long readCheckpoint() throws IOException {
+        Path file = directory.resolve(CHECKPOINT_FILE);
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        byte[] bytes = Files.readAllBytes(file);
+        return bytes.length == Long.BYTES ? ByteBuffer.wrap(bytes).getLong() : 0;
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> {
+                        String name = file.getFileName().toString();
+                        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+                    })
+                    .sorted((a, b) -> Long.compare(sequenceOf(a), sequenceOf(b)))
+                    .toList();
+        }
+    }
+
+    /**
+     * Indica se nella directory ci sono segmenti da esaminare all'avvio.
+     */
+    public static boolean hasSegments(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return false;
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.anyMatch(file -> file.getFileName().toString().endsWith(SEGMENT_SUFFIX));
+        }
+    }
+
+    private static long sequenceOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static long lsn(long sequence, int offset) {
+        return (sequence << 32) | offset;
+    }
+
+    /**
+     * Risultato del recupero all'avvio.
+     *
+     * @param admitted Gli ID dei biglietti con ingresso registrato (e non annullato) dopo l'ultimo checkpoint
+     * @param endLsn La posizione fino a cui arrivano i record letti
+     * @param records Il numero di record letti (di qualsiasi esito)
+     */
+    public record Recovery(List<UUID> admitted, long endLsn, int records) {
+    }
+}
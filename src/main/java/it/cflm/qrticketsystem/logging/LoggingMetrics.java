@@ -0,0 +1,54 @@
+package it.cflm.qrticketsystem.logging;
+
+import java.util.Iterator;
+
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Espone le metriche degli appender asincroni ({@link MeteredAsyncAppender}) collegati
+ * al logger radice: eventi persi per coda piena, eventi scartati e occupazione della coda.
+ */
+@Component
+public class LoggingMetrics implements MeterBinder {
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        if (!(LoggerFactory.getILoggerFactory() instanceof LoggerContext context)) {
+            return;
+        }
+        Iterator<Appender<ILoggingEvent>> appenders =
+                context.getLogger(Logger.ROOT_LOGGER_NAME).iteratorForAppenders();
+        while (appenders.hasNext()) {
+            if (appenders.next() instanceof MeteredAsyncAppender appender) {
+                bind(registry, appender);
+            }
+        }
+    }
+
+    private static void bind(MeterRegistry registry, MeteredAsyncAppender appender) {
+        FunctionCounter.builder("qrticket.logging.events.lost", appender, MeteredAsyncAppender::getDroppedCount)
+                .description("Eventi di log persi dall'appender asincrono")
+                .tag("appender", appender.getName())
+                .tag("reason", "queue-full")
+                .register(registry);
+        FunctionCounter.builder("qrticket.logging.events.lost", appender, MeteredAsyncAppender::getDiscardedCount)
+                .description("Eventi di log persi dall'appender asincrono")
+                .tag("appender", appender.getName())
+                .tag("reason", "discarded")
+                .register(registry);
+        Gauge.builder("qrticket.logging.queue.size", appender, MeteredAsyncAppender::getNumberOfElementsInQueue)
+                .description("Eventi di log in attesa di scrittura")
+                .tag("appender", appender.getName())
+                .register(registry);
+    }
+}
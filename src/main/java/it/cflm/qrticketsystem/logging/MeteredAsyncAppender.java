@@ -0,0 +1,50 @@
+package it.cflm.qrticketsystem.logging;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+
+/**
+ * Appender asincrono di Logback con coda limitata che conta gli eventi persi.
+ *
+ * Con {@code neverBlock} il thread della richiesta non attende mai l'I/O della console:
+ * se la coda è piena l'evento viene scartato. Sotto la soglia di scarto
+ * ({@code discardingThreshold}) vengono scartati anche gli eventi TRACE, DEBUG e INFO,
+ * per lasciare spazio a WARN ed ERROR. I contatori sono esposti come metriche da
+ * {@link LoggingMetrics}; il controllo precede l'inserimento in coda, quindi in caso di
+ * forte concorrenza i valori sono approssimati per difetto.
+ */
+public class MeteredAsyncAppender extends AsyncAppender {
+
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder discarded = new LongAdder();
+
+    @Override
+    protected void append(ILoggingEvent event) {
+        int remaining = getRemainingCapacity();
+        if (remaining < getDiscardingThreshold() && isDiscardable(event)) {
+            discarded.increment();
+            return;
+        }
+        if (remaining == 0 && isNeverBlock()) {
+            dropped.increment();
+            return;
+        }
+        super.append(event);
+    }
+
+    /**
+     * Eventi persi perché la coda era piena.
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * Eventi di livello INFO o inferiore scartati sotto la soglia di scarto.
+     */
+    public long getDiscardedCount() {
+        return discarded.sum();
+    }
+}
@@ -0,0 +1,77 @@
+package it.cflm.qrticketsystem.mail;
+
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.stereotype.Component;
+import org.thymeleaf.ITemplateEngine;
+import org.thymeleaf.context.Context;
+
+import it.cflm.qrticketsystem.config.TicketMailProperties;
+import it.cflm.qrticketsystem.model.TicketEmail;
+import it.cflm.qrticketsystem.service.TicketService;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+
+/**
+ * Compone l'email di un biglietto: testo semplice e HTML (template {@code mail/ticket}),
+ * link alla pagina del biglietto e, se configurato, il QR Code come immagine inline.
+ */
+@Component
+public class TicketEmailComposer {
+
+    private static final String QR_CODE_CID = "qrcode";
+
+    private final TicketService ticketService;
+    private final ITemplateEngine templateEngine;
+    private final TicketMailProperties settings;
+
+    public TicketEmailComposer(TicketService ticketService, ITemplateEngine templateEngine,
+                               TicketMailProperties settings) {
+        this.ticketService = ticketService;
+        this.templateEngine = templateEngine;
+        this.settings = settings;
+    }
+
+    /**
+     * @param mailSender Il sender che invierà il messaggio
+     * @param email L'email da comporre
+     * @return Il messaggio pronto per l'invio
+     * @throws MessagingException se un indirizzo non è valido
+     * @throws it.cflm.qrticketsystem.exception.TicketNotFoundException se il biglietto non esiste più
+     */
+    public MimeMessage compose(JavaMailSender mailSender, TicketEmail email) throws MessagingException {
+        String baseUrl = settings.getPublicBaseUrl().replaceAll("/+$", "");
+        String ticketUrl = baseUrl + "/ticket/" + email.getTicketId();
+        String qrCodeUrl = baseUrl + "/qrcode/" + email.getTicketId();
+
+        Context context = new Context();
+        context.setVariable("userName", email.getRecipientName());
+        context.setVariable("eventName", email.getEventName());
+        context.setVariable("ticketId", email.getTicketId());
+        context.setVariable("ticketUrl", ticketUrl);
+        context.setVariable("qrCodeUrl", qrCodeUrl);
+        context.setVariable("attachQrCode", settings.isAttachQrCode());
+
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, MimeMessageHelper.MULTIPART_MODE_MIXED_RELATED, "UTF-8");
+        helper.setFrom(settings.getFrom());
+        helper.setTo(email.getRecipient());
+        helper.setSubject("Il tuo biglietto per " + email.getEventName());
+        helper.setText(plainText(email, ticketUrl, qrCodeUrl), templateEngine.process("mail/ticket", context));
+        if (settings.isAttachQrCode()) {
+            // Dopo setText: le parti inline seguono il corpo
+            helper.addInline(QR_CODE_CID, new ByteArrayResource(ticketService.getQrCodeImage(email.getTicketId())),
+                    "image/png");
+        }
+        return message;
+    }
+
+    private static String plainText(TicketEmail email, String ticketUrl, String qrCodeUrl) {
+        return "Ciao " + email.getRecipientName() + ",\n\n"
+                + "ecco il tuo biglietto per " + email.getEventName() + ".\n"
+                + "Mostra il QR Code all'ingresso: " + qrCodeUrl + "\n"
+                + "Biglietto online: " + ticketUrl + "\n\n"
+                + "ID biglietto: " + email.getTicketId() + "\n";
+    }
+}
@@ -0,0 +1,380 @@
+package it.cflm.qrticketsystem.mail;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import it.cflm.qrticketsystem.config.TicketMailProperties;
+import it.cflm.qrticketsystem.model.OutboxMessage;
+import it.cflm.qrticketsystem.model.OutboxMessageType;
+import it.cflm.qrticketsystem.model.TicketEmail;
+import it.cflm.qrticketsystem.model.TicketEmailDeadLetter;
+import it.cflm.qrticketsystem.model.TicketEmailStatus;
+import it.cflm.qrticketsystem.repository.TicketEmailDeadLetterRepository;
+import it.cflm.qrticketsystem.repository.TicketEmailRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Consegna per email i biglietti acquistati.
+ *
+ * L'acquisto arriva dall'outbox ({@link OutboxMessageType#TICKET_ISSUED}), quindi solo dopo
+ * il commit e fuori dalla richiesta di acquisto: la latenza del server SMTP non pesa mai
+ * sull'acquisto. Il messaggio viene solo messo in coda nella tabella {@code ticket_emails}
+ * (una riga per biglietto, i duplicati dell'outbox sono ignorati); un thread dedicato invia
+ * le email in scadenza a batch, tutte sulla stessa connessione SMTP.
+ *
+ * Un invio fallito viene ritentato con attesa esponenziale ({@code qrticket.mail.initial-backoff-ms}
+ * raddoppiata a ogni fallimento, fino a {@code max-backoff-ms}); dopo {@code max-attempts}
+ * tentativi l'email è marcata FAILED e copiata in {@code ticket_email_dead_letters}.
+ *
+ * Attivo solo se è configurato un server SMTP ({@code spring.mail.host}) e
+ * {@code qrticket.mail.enabled} è true.
+ */
+@Service
+@Slf4j
+public class TicketMailer {
+
+    private final JavaMailSender mailSender;
+    private final TicketEmailComposer composer;
+    private final TicketEmailRepository ticketEmailRepository;
+    private final TicketEmailDeadLetterRepository deadLetterRepository;
+    private final TransactionTemplate transaction;
+    private final ObjectMapper objectMapper;
+    private final TicketMailProperties settings;
+    private final Clock clock;
+    private final ScheduledExecutorService sender;
+    private final Counter sentCounter;
+    private final Counter retriedCounter;
+    private final Counter deadLetterCounter;
+    private final Timer batchTimer;
+
+    @Autowired
+    public TicketMailer(ObjectProvider<JavaMailSender> mailSender,
+                        TicketEmailComposer composer,
+                        TicketEmailRepository ticketEmailRepository,
+                        TicketEmailDeadLetterRepository deadLetterRepository,
+                        PlatformTransactionManager transactionManager,
+                        ObjectMapper objectMapper,
+                        TicketMailProperties settings,
+                        MeterRegistry meterRegistry) {
+        this(mailSender.getIfAvailable(), composer, ticketEmailRepository, deadLetterRepository,
+                transactionManager, objectMapper, settings, meterRegistry, Clock.systemDefaultZone());
+    }
+
+    TicketMailer(JavaMailSender mailSender,
+                 TicketEmailComposer composer,
+                 TicketEmailRepository ticketEmailRepository,
+                 TicketEmailDeadLetterRepository deadLetterRepository,
+                 PlatformTransactionManager transactionManager,
+                 ObjectMapper objectMapper,
+                 TicketMailProperties settings,
+                 MeterRegistry meterRegistry,
+                 Clock clock) {
+        this.mailSender = mailSender;
+        this.composer = composer;
+        this.ticketEmailRepository = ticketEmailRepository;
+        this.deadLetterRepository = deadLetterRepository;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.settings = settings;
+        this.clock = clock;
+        this.sender = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ticket-mailer");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.sentCounter = Counter.builder("qrticket.mail.sent")
+                .description("Email dei biglietti accettate dal server SMTP")
+                .register(meterRegistry);
+        this.retriedCounter = Counter.builder("qrticket.mail.retried")
+                .description("Invii falliti di email dei biglietti rimessi in coda")
+                .register(meterRegistry);
+        this.deadLetterCounter = Counter.builder("qrticket.mail.dead.letters")
+                .description("Email dei biglietti non consegnate dopo tutti i tentativi")
+                .register(meterRegistry);
+        this.batchTimer = Timer.builder("qrticket.mail.batch")
+                .description("Durata dell'invio di un batch di email su una connessione SMTP")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return true se le email vengono messe in coda e inviate
+     */
+    public boolean isActive() {
+        return mailSender != null && settings.isEnabled();
+    }
+
+    /**
+     * Avvia l'invio in background quando lo schema è pronto.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!isActive()) {
+            log.info("Invio dei biglietti per email disabilitato (spring.mail.host o qrticket.mail.enabled)");
+            return;
+        }
+        long interval = Math.max(10, settings.getPollIntervalMs());
+        sender.scheduleWithFixedDelay(this::sendDueQuietly, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Mette in coda l'email di un biglietto appena acquistato.
+     * Un'eccezione fa fallire il batch dell'outbox, che viene riproposto.
+     *
+     * @param message Il messaggio pubblicato dall'outbox
+     */
+    @EventListener
+    public void onOutboxMessage(OutboxMessage message) {
+        if (!isActive() || message.getType() != OutboxMessageType.TICKET_ISSUED) {
+            return;
+        }
+        JsonNode payload;
+        try {
+            payload = objectMapper.readTree(message.getPayload());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Payload dell'outbox " + message.getId() + " non leggibile", e);
+        }
+        String recipient = payload.path("userEmail").asText(null);
+        if (recipient == null || recipient.isBlank()) {
+            log.debug("Biglietto {} senza email: nessun invio", message.getTicketId());
+            return;
+        }
+        enqueue(message.getTicketId(), recipient, payload.path("userName").asText(null),
+                payload.path("eventName").asText(null));
+    }
+
+    /**
+     * Mette in coda l'email di un biglietto, se non è già in coda o inviata.
+     *
+     * @return true se l'email è stata messa in coda
+     */
+    boolean enqueue(UUID ticketId, String recipient, String recipientName, String eventName) {
+        if (ticketEmailRepository.existsByTicketId(ticketId)) {
+            return false; // consegna ripetuta dall'outbox
+        }
+        LocalDateTime now = LocalDateTime.now(clock);
+        TicketEmail email = new TicketEmail();
+        email.setTicketId(ticketId);
+        email.setRecipient(recipient);
+        email.setRecipientName(recipientName);
+        email.setEventName(eventName);
+        email.setStatus(TicketEmailStatus.PENDING);
+        email.setNextAttemptAt(now);
+        email.setCreatedAt(now);
+        try {
+            ticketEmailRepository.save(email);
+        } catch (DataIntegrityViolationException e) {
+            return false; // messa in coda nel frattempo da un'altra istanza
+        }
+        return true;
+    }
+
+    /**
+     * Invia le email in scadenza, batch dopo batch.
+     *
+     * @return Le email accettate dal server SMTP
+     */
+    public synchronized int sendDue() {
+        if (!isActive()) {
+            return 0;
+        }
+        int batchSize = Math.max(1, settings.getBatchSize());
+        int sent = 0;
+        while (true) {
+            List<TicketEmail> batch = claim(batchSize);
+            if (batch.isEmpty()) {
+                return sent;
+            }
+            sent += batchTimer.record(() -> send(batch));
+            if (batch.size() < batchSize) {
+                return sent;
+            }
+        }
+    }
+
+    private void sendDueQuietly() {
+        try {
+            sendDue();
+        } catch (RuntimeException e) {
+            log.warn("Giro di invio delle email fallito: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Prende in carico fino a {@code batchSize} email in scadenza, spostandone il prossimo
+     * tentativo alla fine del lease: se l'istanza si ferma durante l'invio, un'altra le riprende.
+     */
+    private List<TicketEmail> claim(int batchSize) {
+        LocalDateTime now = LocalDateTime.now(clock);
+        LocalDateTime lease = now.plusSeconds(settings.getLeaseSeconds());
+        return transaction.execute(status -> {
+            List<TicketEmail> claimed = new ArrayList<>();
+            for (TicketEmail email : ticketEmailRepository.findByStatusAndNextAttemptAtLessThanEqualOrderByNextAttemptAt(
+                    TicketEmailStatus.PENDING, now, Limit.of(batchSize))) {
+                if (ticketEmailRepository.claim(email.getId(), email.getNextAttemptAt(), lease) == 1) {
+                    email.setNextAttemptAt(lease);
+                    claimed.add(email);
+                }
+            }
+            return claimed;
+        });
+    }
+
+    /**
+     * Compone e invia un batch su una sola connessione SMTP, poi ne salva l'esito.
+     */
+    private int send(List<TicketEmail> batch) {
+        Map<MimeMessage, TicketEmail> messages = new IdentityHashMap<>();
+        Map<TicketEmail, Exception> failed = new IdentityHashMap<>();
+        for (TicketEmail email : batch) {
+            try {
+                messages.put(composer.compose(mailSender, email), email);
+            } catch (MessagingException | RuntimeException e) {
+                failed.put(email, e);
+            }
+        }
+        if (!messages.isEmpty()) {
+            try {
+                mailSender.send(messages.keySet().toArray(MimeMessage[]::new));
+            } catch (MailSendException e) {
+                Map<Object, Exception> failedMessages = e.getFailedMessages();
+                messages.forEach((message, email) -> {
+                    if (failedMessages.isEmpty() || failedMessages.containsKey(message)) {
+                        failed.put(email, failedMessages.getOrDefault(message, e));
+                    }
+                });
+            } catch (MailException e) {
+                messages.values().forEach(email -> failed.put(email, e));
+            }
+        }
+        return record(batch, failed);
+    }
+
+    private int record(List<TicketEmail> batch, Map<TicketEmail, Exception> failed) {
+        LocalDateTime now = LocalDateTime.now(clock);
+        List<TicketEmailDeadLetter> deadLetters = new ArrayList<>();
+        int sent = 0;
+        for (TicketEmail email : batch) {
+            email.setAttempts(email.getAttempts() + 1);
+            Exception error = failed.get(email);
+            if (error == null) {
+                email.setStatus(TicketEmailStatus.SENT);
+                email.setSentAt(now);
+                email.setLastError(null);
+                sent++;
+                continue;
+            }
+            email.setLastError(truncate(error.getMessage()));
+            if (email.getAttempts() >= settings.getMaxAttempts()) {
+                email.setStatus(TicketEmailStatus.FAILED);
+                deadLetters.add(deadLetter(email, now));
+                log.warn("Email del biglietto {} non consegnata dopo {} tentativi: {}",
+                        email.getTicketId(), email.getAttempts(), error.getMessage());
+            } else {
+                email.setNextAttemptAt(now.plus(Duration.ofMillis(backoffMs(email.getAttempts()))));
+                log.debug("Invio dell'email del biglietto {} fallito (tentativo {}): {}",
+                        email.getTicketId(), email.getAttempts(), error.getMessage());
+            }
+        }
+        transaction.executeWithoutResult(status -> {
+            ticketEmailRepository.saveAll(batch);
+            deadLetterRepository.saveAll(deadLetters);
+        });
+        sentCounter.increment(sent);
+        retriedCounter.increment(batch.size() - sent - deadLetters.size());
+        deadLetterCounter.increment(deadLetters.size());
+        return sent;
+    }
+
+    /**
+     * Attesa prima del tentativo successivo al fallimento numero {@code attempts}.
+     */
+    long backoffMs(int attempts) {
+        long initial = Math.max(0, settings.getInitialBackoffMs());
+        long max = Math.max(initial, settings.getMaxBackoffMs());
+        int doublings = Math.min(attempts - 1, 62);
+        return initial > (max >> doublings) ? max : initial << doublings;
+    }
+
+    private static TicketEmailDeadLetter deadLetter(TicketEmail email, LocalDateTime now) {
+        TicketEmailDeadLetter deadLetter = new TicketEmailDeadLetter();
+        deadLetter.setEmailId(email.getId());
+        deadLetter.setTicketId(email.getTicketId());
+        deadLetter.setRecipient(email.getRecipient());
+        deadLetter.setAttempts(email.getAttempts());
+        deadLetter.setLastError(email.getLastError());
+        deadLetter.setFailedAt(now);
+        return deadLetter;
+    }
+
+    /**
+     * @return Le email non consegnate, dalla più vecchia
+     */
+    public List<TicketEmailDeadLetter> deadLetters() {
+        return deadLetterRepository.findAllByOrderById();
+    }
+
+    /**
+     * Rimette in coda un'email non consegnata, con i tentativi azzerati.
+     *
+     * @param deadLetterId L'ID della riga tra le email non consegnate
+     * @return false se la riga non esiste
+     */
+    public boolean retry(long deadLetterId) {
+        return Boolean.TRUE.equals(transaction.execute(status -> deadLetterRepository.findById(deadLetterId)
+                .map(deadLetter -> {
+                    ticketEmailRepository.findById(deadLetter.getEmailId()).ifPresent(email -> {
+                        email.setStatus(TicketEmailStatus.PENDING);
+                        email.setAttempts(0);
+                        email.setNextAttemptAt(LocalDateTime.now(clock));
+                    });
+                    deadLetterRepository.delete(deadLetter);
+                    return true;
+                })
+                .orElse(false)));
+    }
+
+    private static String truncate(String message) {
+        if (message == null) {
+            return null;
+        }
+        return message.length() <= 500 ? message : message.substring(0, 500);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        sender.shutdown();
+    }
+}
@@ -0,0 +1,58 @@
+package it.cflm.qrticketsystem.model;
+
+import java.time.LocalDateTime;
+
+import org.hibernate.annotations.ColumnDefault;
+
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+
+import it.cflm.qrticketsystem.config.QRCodeConfig.PayloadEncoding;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Entità rappresentante un evento, con le impostazioni dei suoi QR Code e i contatori
+ * di biglietti venduti ed entrati.
+ * Mappata alla tabella 'events' nel database.
+ *
+ * I contatori non vengono mai scritti da JPA: sono aggiornati per incremento
+ * ({@code UPDATE ... SET tickets_sold = tickets_sold + ?}), così la modifica delle
+ * impostazioni non sovrascrive gli incrementi concorrenti.
+ */
+@Entity
+@Table(name = "events")
+@Data
+@NoArgsConstructor
+public class Event {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    @Column(nullable = false, unique = true)
+    private String name; // Nome usato nei biglietti, nei varchi e nei token dei dispositivi
+
+    private String title; // Titolo mostrato nelle pagine; se vuoto si usa il nome
+    private LocalDateTime startsAt;
+
+    @Enumerated(EnumType.STRING) // null = qrcode.payload-encoding
+    private PayloadEncoding payloadEncoding;
+
+    @Enumerated(EnumType.STRING) // null = qrcode.error-correction
+    private ErrorCorrectionLevel errorCorrection;
+
+    @ColumnDefault("0")
+    @Column(nullable = false, insertable = false, updatable = false)
+    private long ticketsSold;
+
+    @ColumnDefault("0")
+    @Column(nullable = false, insertable = false, updatable = false)
+    private long ticketsEntered;
+}
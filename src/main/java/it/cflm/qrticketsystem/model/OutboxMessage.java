@@ -0,0 +1,40 @@
+package it.cflm.qrticketsystem.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Entità rappresentante un evento di dominio in attesa di essere pubblicato ai sistemi esterni.
+ * Mappata alla tabella 'outbox_messages'; le righe sono inserite nella stessa transazione
+ * del biglietto e lette e marcate come pubblicate via JDBC da OutboxRelay.
+ *
+ * L'ID, assegnato dal database in ordine di inserimento, è l'ordine di pubblicazione.
+ * Un messaggio che fallisce {@code qrticket.outbox.max-attempts} volte viene messo da parte
+ * (parkedAt) perché non blocchi quelli successivi.
+ */
+@Entity
+@Table(name = "outbox_messages", indexes = {
+        @Index(name = "idx_outbox_messages_published_at", columnList = "publishedAt, id")
+})
+@Data
+@NoArgsConstructor
+public class OutboxMessage {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    @Column(nullable = false)
+    private UUID ticketId;
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20, nullable = false)
+    private OutboxMessageType type;
+    @Column(length = 2000, nullable = false)
+    private String payload; // JSON
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+    private LocalDateTime publishedAt; // null finché non è pubblicato
+    private int attempts; // pubblicazioni fallite
+    private LocalDateTime parkedAt; // valorizzato quando i tentativi sono esauriti: il relay lo salta
+}
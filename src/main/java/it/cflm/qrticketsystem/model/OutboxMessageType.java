@@ -0,0 +1,11 @@
+package it.cflm.qrticketsystem.model;
+
+/**
+ * Tipo di evento di dominio pubblicato tramite l'outbox.
+ */
+public enum OutboxMessageType {
+    /** Biglietto acquistato. */
+    TICKET_ISSUED,
+    /** Biglietto usato a un varco. */
+    TICKET_USED
+}
@@ -0,0 +1,11 @@
+package it.cflm.qrticketsystem.model;
+
+/**
+ * Stato dell'immagine QR Code di un biglietto.
+ */
+public enum QrCodeStatus {
+    /** Biglietto salvato, immagine non ancora renderizzata. */
+    PENDING,
+    /** Immagine renderizzata e salvata sul biglietto. */
+    READY
+}
@@ -0,0 +1,34 @@
+package it.cflm.qrticketsystem.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Entità rappresentante una scansione a un varco (traccia di audit).
+ * Mappata alla tabella 'scan_events'; le righe sono inserite in batch via JDBC
+ * da ScanAuditService, l'entità è usata per le interrogazioni.
+ */
+@Entity
+@Table(name = "scan_events", indexes = {
+        @Index(name = "idx_scan_events_ticket", columnList = "ticketId, scannedAt"),
+        @Index(name = "idx_scan_events_scanned_at", columnList = "scannedAt")
+})
+@Data
+@NoArgsConstructor
+public class ScanEvent {
+    @Id
+    private UUID id;
+    private UUID ticketId; // null se il QR Code non è stato riconosciuto
+    @Column(length = 64)
+    private String payload; // contenuto grezzo, solo per i QR Code non riconosciuti
+    private int gate;
+    @Column(length = 100)
+    private String scannedBy;
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20)
+    private ScanOutcome outcome;
+    private LocalDateTime scannedAt;
+}
@@ -0,0 +1,13 @@
+package it.cflm.qrticketsystem.model;
+
+/**
+ * Esito della scansione di un biglietto a un varco.
+ */
+public enum ScanOutcome {
+    /** Biglietto valido, ingresso registrato. */
+    ADMITTED,
+    /** Biglietto già utilizzato. */
+    ALREADY_USED,
+    /** Biglietto o QR Code non riconosciuto. */
+    NOT_FOUND
+}
@@ -2,6 +2,8 @@ package it.cflm.qrticketsystem.model;
 
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 import java.util.UUID;
@@ -9,24 +11,53 @@ import java.util.UUID;
 /**
  * Entità rappresentante un biglietto.
  * Mappata alla tabella 'tickets' nel database.
+ * Letta molte volte e scritta circa due (rendering del QR Code e check-in): è mantenuta
+ * nella cache di secondo livello, aggiornata al commit di ogni modifica.
+ *
+ * I biglietti pre-generati per le vendite a picco (vedi {@code TicketPool}) non hanno
+ * acquirente né data di acquisto finché non vengono venduti.
  */
 @Entity
-@Table(name = "tickets")
+@Table(name = "tickets", indexes = {
+        @Index(name = "idx_tickets_event_id", columnList = "event_id"),
+        @Index(name = "idx_tickets_event_name_purchase_date", columnList = "event_name, purchase_date")
+})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Ticket.CACHE_REGION)
 @Data // Genera automaticamente getter, setter, toString, equals, hashCode
 @NoArgsConstructor // Genera un costruttore senza argomenti
 public class Ticket {
+    /** Regione della cache di secondo livello in cui è mantenuta l'entità. */
+    public static final String CACHE_REGION = "ticket";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID) // Genera un UUID per l'ID del biglietto
+    @TicketId // UUID ordinato nel tempo, con il bucket dell'evento per la suddivisione in shard
     private UUID id;
     private String eventName;
+
+    // Riferimento compatto all'evento; senza vincolo di chiave esterna perché, con la
+    // suddivisione in shard, biglietti ed eventi stanno su database diversi
+    @Column(name = "event_id")
+    private Integer eventId;
+
     private String userName;
     private String userEmail;
-    private LocalDateTime purchaseDate;
+    private LocalDateTime purchaseDate; // null = biglietto pre-generato non ancora venduto
     private boolean isValid; // Indica se il biglietto è ancora valido (non usato)
 
+    // La cache di secondo livello è locale a ogni istanza: l'UPDATE da una copia superata
+    // (es. biglietto già usato su un'altra istanza) non modifica righe e fallisce.
+    // Null finché il biglietto non è salvato: un biglietto nuovo con l'ID già assegnato è un INSERT
+    @Version
+    @Column(columnDefinition = "bigint default 0 not null")
+    private Long version;
+
     @Column(columnDefinition = "TEXT") // Per salvare la stringa contenente l'ID del QR code
     private String qrCodeData;
 
+    @Enumerated(EnumType.STRING) // PENDING finché la pipeline asincrona non ha salvato l'immagine
+    private QrCodeStatus qrStatus;
+
     @Lob // Per salvare l'immagine del QR code come BLOB (byte array)
     @Column(columnDefinition = "BYTEA") // Specifica il tipo di colonna per PostgreSQL
     private byte[] qrCodeImage;
@@ -0,0 +1,47 @@
+package it.cflm.qrticketsystem.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Entità rappresentante l'email di consegna di un biglietto all'acquirente.
+ * Mappata alla tabella 'ticket_emails', che fa da coda persistente per TicketMailer:
+ * una riga per biglietto, creata quando l'acquisto esce dall'outbox.
+ *
+ * Per le righe PENDING {@code nextAttemptAt} è l'istante del prossimo tentativo; durante
+ * l'invio è spostato in avanti (lease), così una riga è presa da una sola istanza.
+ */
+@Entity
+@Table(name = "ticket_emails", indexes = {
+        @Index(name = "idx_ticket_emails_due", columnList = "status, nextAttemptAt")
+}, uniqueConstraints = {
+        @UniqueConstraint(name = "uk_ticket_emails_ticket", columnNames = "ticketId")
+})
+@Data
+@NoArgsConstructor
+public class TicketEmail {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    @Column(nullable = false)
+    private UUID ticketId;
+    @Column(nullable = false)
+    private String recipient;
+    @Column(length = 100)
+    private String recipientName;
+    private String eventName;
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20, nullable = false)
+    private TicketEmailStatus status;
+    private int attempts; // invii tentati
+    @Column(nullable = false)
+    private LocalDateTime nextAttemptAt;
+    @Column(length = 500)
+    private String lastError;
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+    private LocalDateTime sentAt;
+}
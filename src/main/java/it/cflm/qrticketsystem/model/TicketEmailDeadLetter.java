@@ -0,0 +1,33 @@
+package it.cflm.qrticketsystem.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Entità rappresentante un'email di biglietto non consegnata dopo tutti i tentativi.
+ * Mappata alla tabella 'ticket_email_dead_letters'; la riga resta finché un operatore
+ * non rimette l'email in coda.
+ */
+@Entity
+@Table(name = "ticket_email_dead_letters")
+@Data
+@NoArgsConstructor
+public class TicketEmailDeadLetter {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    @Column(nullable = false)
+    private Long emailId;
+    @Column(nullable = false)
+    private UUID ticketId;
+    @Column(nullable = false)
+    private String recipient;
+    private int attempts;
+    @Column(length = 500)
+    private String lastError;
+    @Column(nullable = false)
+    private LocalDateTime failedAt;
+}
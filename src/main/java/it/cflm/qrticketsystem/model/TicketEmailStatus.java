@@ -0,0 +1,13 @@
+package it.cflm.qrticketsystem.model;
+
+/**
+ * Stato dell'email con cui un biglietto viene consegnato all'acquirente.
+ */
+public enum TicketEmailStatus {
+    /** In coda, da inviare (o da ritentare) da {@code nextAttemptAt}. */
+    PENDING,
+    /** Accettata dal server SMTP. */
+    SENT,
+    /** Tentativi esauriti: copiata nella tabella delle email non consegnate. */
+    FAILED
+}
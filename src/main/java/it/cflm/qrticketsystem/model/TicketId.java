@@ -0,0 +1,18 @@
+package it.cflm.qrticketsystem.model;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+/**
+ * Genera l'ID di un biglietto con {@link TicketIdGenerator}: UUID ordinato nel tempo con il
+ * bucket dell'evento incorporato.
+ */
+@IdGeneratorType(TicketIdGenerator.class)
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD})
+public @interface TicketId {
+}
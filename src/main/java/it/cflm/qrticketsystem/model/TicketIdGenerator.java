@@ -0,0 +1,38 @@
+package it.cflm.qrticketsystem.model;
+
+import java.util.EnumSet;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.hibernate.generator.EventTypeSets;
+
+import it.cflm.qrticketsystem.util.TicketIds;
+
+/**
+ * Generatore degli ID dei biglietti (vedi {@link TicketIds}). Il bucket viene dal nome
+ * dell'evento, che deve essere valorizzato prima del salvataggio. Un ID già assegnato
+ * (es. dai biglietti pre-generati, che ne hanno bisogno prima del salvataggio) viene mantenuto.
+ */
+public class TicketIdGenerator implements BeforeExecutionGenerator {
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object owner, Object currentValue,
+                           EventType eventType) {
+        if (currentValue != null) {
+            return currentValue;
+        }
+        String eventName = owner instanceof Ticket ticket ? ticket.getEventName() : null;
+        return TicketIds.newId(TicketIds.bucketOf(eventName));
+    }
+
+    @Override
+    public boolean allowAssignedIdentifiers() {
+        return true;
+    }
+
+    @Override
+    public EnumSet<EventType> getEventTypes() {
+        return EventTypeSets.INSERT_ONLY;
+    }
+}
@@ -0,0 +1,26 @@
+package it.cflm.qrticketsystem.outbox;
+
+import java.util.List;
+
+import org.springframework.context.ApplicationEventPublisher;
+
+import it.cflm.qrticketsystem.model.OutboxMessage;
+
+/**
+ * Sink in-process: consegna ogni messaggio ai listener dell'applicazione
+ * ({@code @EventListener} su {@link OutboxMessage}), in modo sincrono.
+ * Un'eccezione di un listener fa fallire il batch, che viene riproposto.
+ */
+public class ApplicationEventOutboxSink implements OutboxSink {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public ApplicationEventOutboxSink(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Override
+    public void publish(List<OutboxMessage> messages) {
+        messages.forEach(eventPublisher::publishEvent);
+    }
+}
@@ -0,0 +1,251 @@
+package it.cflm.qrticketsystem.outbox;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import it.cflm.qrticketsystem.config.OutboxProperties;
+import it.cflm.qrticketsystem.model.OutboxMessage;
+import it.cflm.qrticketsystem.model.OutboxMessageType;
+import it.cflm.qrticketsystem.sharding.ShardRoutingDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Pubblica i messaggi dell'outbox verso l'{@link OutboxSink}.
+ *
+ * Un thread dedicato legge i messaggi non pubblicati in ordine di ID, a batch, li consegna
+ * e li marca come pubblicati. Se la consegna fallisce il batch resta non pubblicato e viene
+ * riproposto con attesa esponenziale: la consegna è almeno una volta e, poiché un batch successivo
+ * non parte finché quello fallito non passa, i messaggi di uno stesso biglietto arrivano in
+ * ordine. Con la suddivisione in shard l'outbox di ogni shard è letto separatamente.
+ *
+ * Dopo un fallimento il primo messaggio è riproposto da solo: se fallisce
+ * {@code qrticket.outbox.max-attempts} volte (payload illeggibile, errore di un listener) viene
+ * messo da parte e la pubblicazione prosegue, così un messaggio non blocca l'outbox per sempre.
+ * I messaggi messi da parte restano in tabella con {@code parked_at} valorizzato.
+ *
+ * L'ordine è garantito solo con un relay attivo per volta: sulle altre istanze impostare
+ * {@code qrticket.outbox.relay-enabled=false}.
+ */
+@Component
+@Slf4j
+public class OutboxRelay {
+
+    private static final String TABLE = "outbox_messages";
+
+    private final List<JdbcTemplate> outboxes;
+    private final OutboxSink sink;
+    private final OutboxProperties settings;
+    private final ScheduledExecutorService relay;
+    private final Counter publishedCounter;
+    private final Counter failedCounter;
+    private final Counter parkedCounter;
+    private final long[] retryAt; // per outbox, System.nanoTime del prossimo tentativo dopo un fallimento
+    private final AtomicLong pending = new AtomicLong();
+    private final AtomicLong lagMs = new AtomicLong();
+
+    public OutboxRelay(DataSource dataSource,
+                       ObjectProvider<ShardRoutingDataSource> shardRoutingDataSource,
+                       OutboxSink sink,
+                       OutboxProperties settings,
+                       MeterRegistry meterRegistry) {
+        this.outboxes = outboxes(dataSource, shardRoutingDataSource.getIfAvailable());
+        this.retryAt = new long[outboxes.size()];
+        this.sink = sink;
+        this.settings = settings;
+        this.relay = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "outbox-relay");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.publishedCounter = Counter.builder("qrticket.outbox.published")
+                .description("Messaggi dell'outbox pubblicati")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("qrticket.outbox.failed")
+                .description("Batch dell'outbox la cui pubblicazione è fallita")
+                .register(meterRegistry);
+        this.parkedCounter = Counter.builder("qrticket.outbox.parked")
+                .description("Messaggi dell'outbox messi da parte dopo aver esaurito i tentativi")
+                .register(meterRegistry);
+        Gauge.builder("qrticket.outbox.pending", pending, AtomicLong::get)
+                .description("Messaggi dell'outbox in attesa di pubblicazione")
+                .register(meterRegistry);
+        Gauge.builder("qrticket.outbox.lag", lagMs, AtomicLong::get)
+                .description("Età in millisecondi del messaggio più vecchio non pubblicato")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+    }
+
+    private static List<JdbcTemplate> outboxes(DataSource dataSource, ShardRoutingDataSource shards) {
+        if (shards == null) {
+            return List.of(new JdbcTemplate(dataSource));
+        }
+        List<JdbcTemplate> outboxes = new ArrayList<>(shards.shardCount());
+        for (int shard = 0; shard < shards.shardCount(); shard++) {
+            outboxes.add(new JdbcTemplate(shards.shard(shard)));
+        }
+        return outboxes;
+    }
+
+    /**
+     * Avvia il relay quando lo schema è pronto.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!settings.isRelayEnabled()) {
+            log.info("Relay dell'outbox disabilitato su questa istanza");
+            return;
+        }
+        long interval = Math.max(10, settings.getPollIntervalMs());
+        relay.scheduleWithFixedDelay(this::relayQuietly, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Pubblica tutti i messaggi in attesa, batch dopo batch, e aggiorna le metriche di ritardo.
+     *
+     * @return I messaggi pubblicati
+     */
+    public synchronized int relay() {
+        int published = 0;
+        for (int shard = 0; shard < outboxes.size(); shard++) {
+            if (retryAt[shard] != 0 && System.nanoTime() - retryAt[shard] < 0) {
+                continue; // in attesa dopo un fallimento
+            }
+            published += drain(shard);
+        }
+        updateLag();
+        purge();
+        return published;
+    }
+
+    private void relayQuietly() {
+        try {
+            relay();
+        } catch (RuntimeException e) {
+            log.warn("Giro del relay dell'outbox fallito: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Pubblica i messaggi di un outbox fino a svuotarlo o al primo batch fallito.
+     */
+    private int drain(int shard) {
+        JdbcTemplate outbox = outboxes.get(shard);
+        int batchSize = Math.max(1, settings.getBatchSize());
+        int published = 0;
+        while (true) {
+            List<OutboxMessage> batch = outbox.query("SELECT id, ticket_id, type, payload, created_at, attempts FROM "
+                    + TABLE + " WHERE published_at IS NULL AND parked_at IS NULL ORDER BY id FETCH FIRST "
+                    + batchSize + " ROWS ONLY", OutboxRelay::toMessage);
+            if (batch.isEmpty()) {
+                return published;
+            }
+            // Dopo un fallimento il primo messaggio va da solo: si scopre se è lui a far fallire il batch
+            boolean retrying = batch.get(0).getAttempts() > 0;
+            List<OutboxMessage> messages = retrying ? batch.subList(0, 1) : batch;
+            try {
+                sink.publish(messages);
+            } catch (RuntimeException e) {
+                failedCounter.increment();
+                OutboxMessage first = messages.get(0);
+                if (retrying && first.getAttempts() + 1 >= settings.getMaxAttempts()) {
+                    outbox.update("UPDATE " + TABLE + " SET attempts = attempts + 1, parked_at = ? WHERE id = ?",
+                            Timestamp.valueOf(LocalDateTime.now()), first.getId());
+                    parkedCounter.increment();
+                    log.error("Messaggio {} dell'outbox ({} del biglietto {}) messo da parte dopo {} tentativi: {}",
+                            first.getId(), first.getType(), first.getTicketId(), first.getAttempts() + 1,
+                            e.getMessage());
+                    continue;
+                }
+                outbox.batchUpdate("UPDATE " + TABLE + " SET attempts = attempts + 1 WHERE id = ?",
+                        messages.stream().map(message -> new Object[] {message.getId()}).toList());
+                retryAt[shard] = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(backoffMs(first.getAttempts() + 1));
+                log.warn("Pubblicazione di {} messaggi dell'outbox fallita (da ID {}, tentativo {}): {}",
+                        messages.size(), first.getId(), first.getAttempts() + 1, e.getMessage());
+                return published;
+            }
+            retryAt[shard] = 0;
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            outbox.batchUpdate("UPDATE " + TABLE + " SET published_at = ? WHERE id = ?",
+                    messages.stream().map(message -> new Object[] {now, message.getId()}).toList());
+            published += messages.size();
+            publishedCounter.increment(messages.size());
+            if (!retrying && batch.size() < batchSize) {
+                return published;
+            }
+        }
+    }
+
+    /**
+     * Attesa prima del nuovo tentativo dopo il fallimento numero {@code attempts} (da 1).
+     */
+    long backoffMs(int attempts) {
+        long initial = Math.max(0, settings.getInitialBackoffMs());
+        long max = Math.max(initial, settings.getMaxBackoffMs());
+        int doublings = Math.min(attempts - 1, 62);
+        return initial > (max >> doublings) ? max : initial << doublings;
+    }
+
+    private void updateLag() {
+        long waiting = 0;
+        LocalDateTime oldest = null;
+        for (JdbcTemplate outbox : outboxes) {
+            Object[] row = outbox.queryForObject("SELECT COUNT(*), MIN(created_at) FROM " + TABLE
+                    + " WHERE published_at IS NULL AND parked_at IS NULL", (rs, rowNum) -> new Object[] {rs.getLong(1), rs.getTimestamp(2)});
+            waiting += (Long) row[0];
+            if (row[1] instanceof Timestamp created && (oldest == null || created.toLocalDateTime().isBefore(oldest))) {
+                oldest = created.toLocalDateTime();
+            }
+        }
+        pending.set(waiting);
+        lagMs.set(oldest == null ? 0 : Math.max(0, Duration.between(oldest, LocalDateTime.now()).toMillis()));
+    }
+
+    /**
+     * Elimina i messaggi pubblicati da più di {@code qrticket.outbox.retention-hours}.
+     */
+    private void purge() {
+        Timestamp before = Timestamp.valueOf(LocalDateTime.now().minusHours(settings.getRetentionHours()));
+        for (JdbcTemplate outbox : outboxes) {
+            outbox.update("DELETE FROM " + TABLE + " WHERE published_at < ?", before);
+        }
+    }
+
+    private static OutboxMessage toMessage(ResultSet rs, int rowNum) throws SQLException {
+        OutboxMessage message = new OutboxMessage();
+        message.setId(rs.getLong("id"));
+        message.setTicketId(rs.getObject("ticket_id", UUID.class));
+        message.setType(OutboxMessageType.valueOf(rs.getString("type")));
+        message.setPayload(rs.getString("payload"));
+        message.setCreatedAt(rs.getTimestamp("created_at").toLocalDateTime());
+        message.setAttempts(rs.getInt("attempts"));
+        return message;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        relay.shutdown();
+    }
+}
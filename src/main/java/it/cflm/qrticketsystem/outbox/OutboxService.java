@@ -0,0 +1,84 @@
+package it.cflm.qrticketsystem.outbox;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import it.cflm.qrticketsystem.model.OutboxMessage;
+import it.cflm.qrticketsystem.model.OutboxMessageType;
+import it.cflm.qrticketsystem.model.Ticket;
+import it.cflm.qrticketsystem.repository.OutboxMessageRepository;
+
+/**
+ * Scrive gli eventi di dominio dei biglietti nell'outbox.
+ *
+ * Va chiamato nella transazione che modifica il biglietto: l'evento esiste se e solo se
+ * la modifica è stata salvata, e i sistemi esterni lo ricevono da {@link OutboxRelay}
+ * senza aggiungere la loro latenza all'acquisto o al check-in.
+ */
+@Service
+public class OutboxService {
+
+    private final OutboxMessageRepository outboxMessageRepository;
+    private final ObjectMapper objectMapper;
+
+    public OutboxService(OutboxMessageRepository outboxMessageRepository, ObjectMapper objectMapper) {
+        this.outboxMessageRepository = outboxMessageRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Registra l'acquisto di un biglietto.
+     *
+     * @param ticket Il biglietto appena creato
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void ticketIssued(Ticket ticket) {
+        Map<String, Object> payload = basePayload(ticket);
+        payload.put("userName", ticket.getUserName());
+        payload.put("userEmail", ticket.getUserEmail());
+        payload.put("purchaseDate", ticket.getPurchaseDate());
+        payload.put("qrCodeData", ticket.getQrCodeData());
+        append(ticket, OutboxMessageType.TICKET_ISSUED, payload);
+    }
+
+    /**
+     * Registra l'uso di un biglietto a un varco.
+     *
+     * @param ticket Il biglietto appena marcato come usato
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void ticketUsed(Ticket ticket) {
+        Map<String, Object> payload = basePayload(ticket);
+        payload.put("usedAt", LocalDateTime.now());
+        append(ticket, OutboxMessageType.TICKET_USED, payload);
+    }
+
+    private static Map<String, Object> basePayload(Ticket ticket) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("ticketId", ticket.getId());
+        payload.put("eventName", ticket.getEventName());
+        payload.put("eventId", ticket.getEventId());
+        return payload;
+    }
+
+    private void append(Ticket ticket, OutboxMessageType type, Map<String, Object> payload) {
+        OutboxMessage message = new OutboxMessage();
+        message.setTicketId(ticket.getId());
+        message.setType(type);
+        message.setCreatedAt(LocalDateTime.now());
+        try {
+            message.setPayload(objectMapper.writeValueAsString(payload));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Serializzazione dell'evento " + type + " fallita", e);
+        }
+        outboxMessageRepository.save(message);
+    }
+}
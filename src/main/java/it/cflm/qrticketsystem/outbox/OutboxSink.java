@@ -0,0 +1,23 @@
+package it.cflm.qrticketsystem.outbox;
+
+import java.util.List;
+
+import it.cflm.qrticketsystem.model.OutboxMessage;
+
+/**
+ * Destinazione degli eventi di dominio pubblicati da {@link OutboxRelay}
+ * (broker, webhook, o i listener dell'applicazione con {@link ApplicationEventOutboxSink}).
+ *
+ * La consegna è almeno una volta: un batch che fallisce viene riproposto per intero,
+ * compresi i messaggi già consegnati. I consumatori deduplicano con l'ID del messaggio.
+ */
+public interface OutboxSink {
+
+    /**
+     * Pubblica un batch di messaggi, nell'ordine dato.
+     *
+     * @param messages I messaggi in ordine di ID
+     * @throws RuntimeException se la pubblicazione fallisce: il batch verrà riproposto
+     */
+    void publish(List<OutboxMessage> messages);
+}
@@ -0,0 +1,31 @@
+package it.cflm.qrticketsystem.repository;
+
+import it.cflm.qrticketsystem.model.Event;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+/**
+ * Repository per l'accesso ai dati dell'entità Event.
+ * I contatori sono aggiornati per incremento con UPDATE JPQL: a differenza delle istruzioni
+ * native, non svuotano la cache di secondo livello dei biglietti.
+ */
+public interface EventRepository extends JpaRepository<Event, Integer> {
+
+    Optional<Event> findByName(String name);
+
+    @Modifying
+    @Query("UPDATE Event e SET e.ticketsSold = e.ticketsSold + :delta WHERE e.id = :id")
+    int addTicketsSold(@Param("id") int id, @Param("delta") long delta);
+
+    @Modifying
+    @Query("UPDATE Event e SET e.ticketsEntered = e.ticketsEntered + :delta WHERE e.id = :id")
+    int addTicketsEntered(@Param("id") int id, @Param("delta") long delta);
+
+    @Modifying
+    @Query("UPDATE Event e SET e.ticketsSold = :sold, e.ticketsEntered = :entered WHERE e.id = :id")
+    int setCounters(@Param("id") int id, @Param("sold") long sold, @Param("entered") long entered);
+}
@@ -0,0 +1,15 @@
+package it.cflm.qrticketsystem.repository;
+
+import it.cflm.qrticketsystem.model.OutboxMessage;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Repository per l'accesso ai dati dell'entità OutboxMessage.
+ */
+public interface OutboxMessageRepository extends JpaRepository<OutboxMessage, Long> {
+
+    List<OutboxMessage> findByTicketIdOrderById(UUID ticketId);
+}
@@ -0,0 +1,41 @@
+package it.cflm.qrticketsystem.repository;
+
+import it.cflm.qrticketsystem.model.ScanEvent;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Repository per l'interrogazione della traccia di audit delle scansioni.
+ * Le scritture avvengono in batch via JDBC (vedi ScanAuditService).
+ */
+public interface ScanEventRepository extends JpaRepository<ScanEvent, UUID> {
+
+    /**
+     * Cronologia delle scansioni di un biglietto.
+     */
+    List<ScanEvent> findByTicketIdOrderByScannedAtAsc(UUID ticketId);
+
+    /**
+     * Biglietti con almeno {@code minRejections} scansioni rifiutate a partire da {@code since},
+     * ordinati per numero di rifiuti.
+     */
+    @Query("""
+            select s.ticketId as ticketId, count(s) as rejections,
+                   count(distinct s.gate) as gates, max(s.scannedAt) as lastScannedAt
+            from ScanEvent s
+            where s.ticketId is not null
+              and s.outcome <> it.cflm.qrticketsystem.model.ScanOutcome.ADMITTED
+              and s.scannedAt >= :since
+            group by s.ticketId
+            having count(s) >= :minRejections
+            order by count(s) desc""")
+    List<ScanRejectionSummary> findRepeatedRejections(@Param("since") LocalDateTime since,
+                                                      @Param("minRejections") long minRejections,
+                                                      Limit limit);
+}
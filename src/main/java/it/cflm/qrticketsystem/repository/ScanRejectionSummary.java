@@ -0,0 +1,14 @@
+package it.cflm.qrticketsystem.repository;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Proiezione con il riepilogo delle scansioni rifiutate di un biglietto.
+ */
+public interface ScanRejectionSummary {
+    UUID getTicketId();
+    long getRejections();
+    long getGates();
+    LocalDateTime getLastScannedAt();
+}
@@ -0,0 +1,13 @@
+package it.cflm.qrticketsystem.repository;
+
+import java.util.UUID;
+
+/**
+ * Proiezione con i soli dati necessari al check-in in modalità varco.
+ * Evita di caricare l'immagine salvata (BLOB) quando si precarica un evento.
+ */
+public interface TicketCheckInView {
+    UUID getId();
+    String getUserName();
+    boolean isValid();
+}
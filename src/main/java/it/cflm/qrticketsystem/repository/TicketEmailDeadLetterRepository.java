@@ -0,0 +1,14 @@
+package it.cflm.qrticketsystem.repository;
+
+import it.cflm.qrticketsystem.model.TicketEmailDeadLetter;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+/**
+ * Repository per l'accesso ai dati dell'entità TicketEmailDeadLetter.
+ */
+public interface TicketEmailDeadLetterRepository extends JpaRepository<TicketEmailDeadLetter, Long> {
+
+    List<TicketEmailDeadLetter> findAllByOrderById();
+}
@@ -0,0 +1,36 @@
+package it.cflm.qrticketsystem.repository;
+
+import it.cflm.qrticketsystem.model.TicketEmail;
+import it.cflm.qrticketsystem.model.TicketEmailStatus;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Repository per l'accesso ai dati dell'entità TicketEmail.
+ */
+public interface TicketEmailRepository extends JpaRepository<TicketEmail, Long> {
+
+    Optional<TicketEmail> findByTicketId(UUID ticketId);
+
+    boolean existsByTicketId(UUID ticketId);
+
+    List<TicketEmail> findByStatusAndNextAttemptAtLessThanEqualOrderByNextAttemptAt(
+            TicketEmailStatus status, LocalDateTime now, Limit limit);
+
+    /**
+     * Prende in carico un'email in coda spostandone il prossimo tentativo alla scadenza del lease.
+     * Fallisce (0 righe) se un'altra istanza l'ha presa dopo la lettura.
+     */
+    @Modifying
+    @Query("UPDATE TicketEmail e SET e.nextAttemptAt = :lease WHERE e.id = :id"
+            + " AND e.status = it.cflm.qrticketsystem.model.TicketEmailStatus.PENDING AND e.nextAttemptAt = :due")
+    int claim(@Param("id") long id, @Param("due") LocalDateTime due, @Param("lease") LocalDateTime lease);
+}
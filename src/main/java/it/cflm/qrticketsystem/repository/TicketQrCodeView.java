@@ -0,0 +1,12 @@
+package it.cflm.qrticketsystem.repository;
+
+import java.util.UUID;
+
+/**
+ * Proiezione leggera di un biglietto con i soli dati necessari al rendering del QR Code.
+ * Evita di caricare l'immagine salvata (BLOB) quando si scorrono molti biglietti.
+ */
+public interface TicketQrCodeView {
+    UUID getId();
+    String getQrCodeData();
+}
@@ -1,15 +1,135 @@
 package it.cflm.qrticketsystem.repository;
 
 import it.cflm.qrticketsystem.model.Ticket;
-import org.springframework.data.jpa.repository.JpaRepository;
+import it.cflm.qrticketsystem.sharding.ShardRoute;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 /**
  * Repository per l'accesso ai dati dell'entità Ticket.
- * Spring Data JPA fornisce automaticamente i metodi CRUD.
+ * Espone solo i metodi CRUD usati, implementati da Spring Data JPA: ogni metodo dichiara con
+ * {@link ShardRoute} lo shard su cui viene eseguito quando i biglietti sono suddivisi.
  */
-public interface TicketRepository extends JpaRepository<Ticket, UUID> {
+public interface TicketRepository extends Repository<Ticket, UUID> {
+
+    @ShardRoute(value = ShardRoute.Key.TICKET, write = true)
+    <S extends Ticket> S save(S ticket);
+
+    @ShardRoute(value = ShardRoute.Key.TICKET, write = true)
+    <S extends Ticket> S saveAndFlush(S ticket);
+
+    @ShardRoute(value = ShardRoute.Key.TICKET, write = true)
+    <S extends Ticket> List<S> saveAll(Iterable<S> tickets);
+
+    @ShardRoute(value = ShardRoute.Key.TICKET, write = true)
+    void delete(Ticket ticket);
+
+    @ShardRoute(ShardRoute.Key.TICKET_ID)
+    Optional<Ticket> findById(UUID id);
+
+    @ShardRoute(ShardRoute.Key.TICKET_ID)
+    boolean existsById(UUID id);
+
+    @ShardRoute(ShardRoute.Key.TICKET_IDS)
+    List<Ticket> findAllById(Iterable<UUID> ids);
+
+    @ShardRoute(ShardRoute.Key.ALL_SHARDS)
+    List<Ticket> findAll();
+
+    @ShardRoute(ShardRoute.Key.ALL_SHARDS)
+    long count();
+
+    /**
+     * Lookup per contenuto del QR Code, con risultato nella cache delle query
+     * (invalidata automaticamente a ogni modifica della tabella dei biglietti).
+     */
+    @ShardRoute(ShardRoute.Key.QR_CODE_DATA)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<Ticket> findByQrCodeData(String qrCodeData);
+
+    /**
+     * Prima pagina (keyset) dei biglietti venduti di un evento, ordinati per ID.
+     */
+    @ShardRoute(ShardRoute.Key.EVENT_NAME)
+    List<TicketQrCodeView> findByEventNameAndPurchaseDateIsNotNullOrderByIdAsc(String eventName, Limit limit);
+
+    /**
+     * Pagina successiva (keyset) dei biglietti venduti di un evento, a partire dall'ultimo ID letto.
+     */
+    @ShardRoute(ShardRoute.Key.EVENT_NAME)
+    List<TicketQrCodeView> findByEventNameAndPurchaseDateIsNotNullAndIdGreaterThanOrderByIdAsc(String eventName,
+                                                                                              UUID lastId, Limit limit);
+
+    /**
+     * Stato di check-in dei biglietti venduti di un evento, per il precaricamento del varco.
+     * Va consumato all'interno di una transazione.
+     */
+    @ShardRoute(ShardRoute.Key.EVENT_NAME)
+    @Query("select t.id as id, t.userName as userName, t.isValid as valid from Ticket t "
+            + "where t.eventName = :eventName and t.purchaseDate is not null")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    Stream<TicketCheckInView> streamCheckInStateByEventName(@Param("eventName") String eventName);
+
+    /**
+     * Biglietti venduti di un evento come entità, per caricarli nella cache di secondo livello.
+     * Va consumato all'interno di una transazione.
+     */
+    @ShardRoute(ShardRoute.Key.EVENT_NAME)
+    @Query("select t from Ticket t where t.eventName = :eventName and t.purchaseDate is not null")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<Ticket> streamByEventName(@Param("eventName") String eventName);
+
+    /**
+     * Biglietti venduti di un evento, per il riallineamento dei contatori dell'evento.
+     */
+    @ShardRoute(ShardRoute.Key.EVENT_NAME)
+    long countByEventNameAndPurchaseDateIsNotNull(String eventName);
+
+    /**
+     * Biglietti pre-generati non ancora venduti di un evento.
+     */
+    @ShardRoute(ShardRoute.Key.EVENT_NAME)
+    long countByEventNameAndPurchaseDateIsNull(String eventName);
+
+    /**
+     * Blocca un biglietto pre-generato non ancora venduto di un evento, saltando quelli già
+     * bloccati da altri acquisti ({@code FOR UPDATE SKIP LOCKED} sui database che lo supportano).
+     * Va chiamato all'interno della transazione di acquisto.
+     */
+    @ShardRoute(ShardRoute.Key.EVENT_NAME)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    // -2 = SKIP LOCKED per Hibernate (LockOptions.SKIP_LOCKED, deprecata in 6.6)
+    @QueryHints(@QueryHint(name = AvailableSettings.JAKARTA_LOCK_TIMEOUT, value = "-2"))
+    Optional<Ticket> findFirstByEventNameAndPurchaseDateIsNull(String eventName);
+
+    /**
+     * Biglietti già usati di un evento, per il riallineamento dei contatori dell'evento.
+     */
+    @ShardRoute(ShardRoute.Key.EVENT_NAME)
+    long countByEventNameAndIsValidFalse(String eventName);
+
+    /**
+     * Collega all'evento i biglietti creati prima dell'anagrafica degli eventi.
+     */
+    @ShardRoute(value = ShardRoute.Key.EVENT_NAME, write = true)
+    @Modifying
+    @Query("update Ticket t set t.eventId = :eventId where t.eventName = :eventName and t.eventId is null")
+    int assignEventIdByEventName(@Param("eventName") String eventName, @Param("eventId") Integer eventId);
 }
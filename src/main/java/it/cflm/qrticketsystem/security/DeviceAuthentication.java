@@ -0,0 +1,35 @@
+package it.cflm.qrticketsystem.security;
+
+import java.util.List;
+
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+/**
+ * Autenticazione di un dispositivo di scansione tramite token firmato (ruolo DEVICE).
+ */
+public class DeviceAuthentication extends AbstractAuthenticationToken {
+
+    private final DeviceToken token;
+
+    public DeviceAuthentication(DeviceToken token) {
+        super(List.of(new SimpleGrantedAuthority("ROLE_DEVICE")));
+        this.token = token;
+        setAuthenticated(true);
+    }
+
+    @Override
+    public Object getCredentials() {
+        return "";
+    }
+
+    @Override
+    public DeviceToken getPrincipal() {
+        return token;
+    }
+
+    @Override
+    public String getName() {
+        return "device:" + token.deviceId();
+    }
+}
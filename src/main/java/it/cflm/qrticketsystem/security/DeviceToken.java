@@ -0,0 +1,28 @@
+package it.cflm.qrticketsystem.security;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import it.cflm.qrticketsystem.service.ScanContext;
+
+/**
+ * Contenuto verificato di un token di dispositivo.
+ *
+ * @param tokenId Identificativo del token (per la revoca)
+ * @param deviceId Identificativo del dispositivo di scansione
+ * @param eventName L'unico evento per cui il dispositivo può registrare ingressi
+ * @param gate Il varco a cui è assegnato il dispositivo
+ * @param issuedAt Emissione
+ * @param expiresAt Scadenza
+ */
+public record DeviceToken(UUID tokenId, String deviceId, String eventName, int gate,
+                          Instant issuedAt, Instant expiresAt) {
+
+    /**
+     * Contesto delle scansioni del dispositivo: varco e evento vengono dal token,
+     * non dalla richiesta.
+     */
+    public ScanContext scanContext() {
+        return new ScanContext(gate, "device:" + deviceId, eventName);
+    }
+}
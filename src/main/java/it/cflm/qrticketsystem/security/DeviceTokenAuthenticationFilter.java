@@ -0,0 +1,67 @@
+package it.cflm.qrticketsystem.security;
+
+import java.io.IOException;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.context.SecurityContextHolderStrategy;
+import org.springframework.security.web.AuthenticationEntryPoint;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Autentica le richieste con {@code Authorization: Bearer <token di dispositivo>}.
+ *
+ * Il contesto di sicurezza vale solo per la richiesta corrente: non viene creata né letta
+ * alcuna sessione, e la verifica non accede al database.
+ */
+@Slf4j
+public class DeviceTokenAuthenticationFilter extends OncePerRequestFilter {
+
+    /** Prefisso dell'header Authorization. */
+    public static final String BEARER_PREFIX = "Bearer ";
+
+    private final DeviceTokenService deviceTokenService;
+    private final AuthenticationEntryPoint entryPoint;
+    private final SecurityContextHolderStrategy contextHolder = SecurityContextHolder.getContextHolderStrategy();
+
+    public DeviceTokenAuthenticationFilter(DeviceTokenService deviceTokenService, AuthenticationEntryPoint entryPoint) {
+        this.deviceTokenService = deviceTokenService;
+        this.entryPoint = entryPoint;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header == null || !header.regionMatches(true, 0, BEARER_PREFIX, 0, BEARER_PREFIX.length())) {
+            chain.doFilter(request, response);
+            return;
+        }
+        DeviceAuthentication authentication;
+        try {
+            authentication = new DeviceAuthentication(
+                    deviceTokenService.verify(header.substring(BEARER_PREFIX.length()).trim()));
+        } catch (AuthenticationException e) {
+            log.debug("Token di dispositivo rifiutato: {}", e.getMessage());
+            contextHolder.clearContext();
+            entryPoint.commence(request, response, e);
+            return;
+        }
+        SecurityContext context = contextHolder.createEmptyContext();
+        context.setAuthentication(authentication);
+        contextHolder.setContext(context);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            contextHolder.clearContext();
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package it.cflm.qrticketsystem.security;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import it.cflm.qrticketsystem.config.DeviceTokenProperties;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Elenco dei token di dispositivo revocati, salvato nella tabella {@value #TABLE}.
+ *
+ * Un token revocato resta nell'elenco solo fino alla sua scadenza; la revoca di un dispositivo
+ * invalida tutti i token emessi fino a quel momento. La verifica usa una copia locale: la revoca
+ * vale subito sull'istanza che la riceve, e le altre (o una riavviata) la leggono dalla tabella
+ * entro {@code qrticket.device-token.revocation-refresh-ms}.
+ */
+@Component
+@Slf4j
+public class DeviceTokenRevocationList implements AutoCloseable {
+
+    static final String TABLE = "device_token_revocations";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ScheduledExecutorService refresher;
+
+    private volatile Map<UUID, Instant> revokedTokens = new ConcurrentHashMap<>();
+    private volatile Map<String, Instant> revokedDevices = new ConcurrentHashMap<>();
+
+    @Autowired
+    public DeviceTokenRevocationList(JdbcTemplate jdbcTemplate, DeviceTokenProperties settings) {
+        this.jdbcTemplate = jdbcTemplate;
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + TABLE
+                + " (id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, token_id VARCHAR(36),"
+                + " device_id VARCHAR(255), expires_at TIMESTAMP, revoked_at TIMESTAMP)");
+        reload();
+        this.refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "device-token-revocations-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = Math.max(10, settings.getRevocationRefreshMs());
+        refresher.scheduleWithFixedDelay(() -> {
+            try {
+                reload();
+            } catch (RuntimeException e) {
+                log.warn("Rilettura delle revoche dei token fallita, resta la copia precedente: {}", e.getMessage());
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Elenco solo locale, senza tabella condivisa.
+     */
+    DeviceTokenRevocationList() {
+        this.jdbcTemplate = null;
+        this.refresher = null;
+    }
+
+    /**
+     * Rilegge le revoche dalla tabella. Serializzata con le revoche: una rilettura iniziata
+     * prima di una revoca non può sostituire la copia locale con una che non la contiene.
+     */
+    public synchronized void reload() {
+        if (jdbcTemplate == null) {
+            return;
+        }
+        Map<UUID, Instant> tokens = new ConcurrentHashMap<>();
+        Map<String, Instant> devices = new ConcurrentHashMap<>();
+        jdbcTemplate.query("SELECT token_id, device_id, expires_at, revoked_at FROM " + TABLE, row -> {
+            String tokenId = row.getString(1);
+            if (tokenId != null) {
+                tokens.put(UUID.fromString(tokenId), row.getTimestamp(3).toInstant());
+            } else {
+                devices.merge(row.getString(2), row.getTimestamp(4).toInstant(), DeviceTokenRevocationList::latest);
+            }
+        });
+        revokedTokens = tokens;
+        revokedDevices = devices;
+    }
+
+    /**
+     * Revoca un singolo token.
+     *
+     * @param tokenId L'identificativo del token
+     * @param expiresAt La scadenza del token (dopo la quale la revoca non serve più)
+     */
+    public synchronized void revokeToken(UUID tokenId, Instant expiresAt) {
+        if (jdbcTemplate != null) {
+            jdbcTemplate.update("INSERT INTO " + TABLE + " (token_id, expires_at) VALUES (?, ?)",
+                    tokenId.toString(), Timestamp.from(expiresAt));
+        }
+        revokedTokens.put(tokenId, expiresAt);
+    }
+
+    /**
+     * Revoca tutti i token emessi finora per un dispositivo.
+     *
+     * @param deviceId L'identificativo del dispositivo
+     * @param now L'istante della revoca
+     */
+    public synchronized void revokeDevice(String deviceId, Instant now) {
+        if (jdbcTemplate != null) {
+            jdbcTemplate.update("INSERT INTO " + TABLE + " (device_id, revoked_at) VALUES (?, ?)",
+                    deviceId, Timestamp.from(now));
+        }
+        revokedDevices.merge(deviceId, now, DeviceTokenRevocationList::latest);
+    }
+
+    /**
+     * @return true se il token è stato revocato, direttamente o tramite il suo dispositivo
+     */
+    public boolean isRevoked(DeviceToken token) {
+        if (revokedTokens.containsKey(token.tokenId())) {
+            return true;
+        }
+        Instant deviceRevokedAt = revokedDevices.get(token.deviceId());
+        return deviceRevokedAt != null && !token.issuedAt().isAfter(deviceRevokedAt);
+    }
+
+    /**
+     * Rimuove le revoche di token ormai scaduti.
+     *
+     * @param now L'istante corrente
+     * @param maxTtlSeconds La validità massima di un token
+     */
+    public synchronized void purge(Instant now, long maxTtlSeconds) {
+        Instant oldestValidIssue = now.minusSeconds(maxTtlSeconds);
+        if (jdbcTemplate != null) {
+            jdbcTemplate.update("DELETE FROM " + TABLE + " WHERE expires_at < ? OR revoked_at < ?",
+                    Timestamp.from(now), Timestamp.from(oldestValidIssue));
+        }
+        revokedTokens.values().removeIf(expiresAt -> expiresAt.isBefore(now));
+        revokedDevices.values().removeIf(revokedAt -> revokedAt.isBefore(oldestValidIssue));
+    }
+
+    private static Instant latest(Instant previous, Instant current) {
+        return current.isAfter(previous) ? current : previous;
+    }
+
+    @Override
+    public void close() {
+        if (refresher != null) {
+            refresher.shutdownNow();
+        }
+    }
+}
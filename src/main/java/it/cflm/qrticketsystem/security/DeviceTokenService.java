@@ -0,0 +1,233 @@
+package it.cflm.qrticketsystem.security;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.UUID;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.CredentialsExpiredException;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.stereotype.Service;
+
+import it.cflm.qrticketsystem.config.DeviceTokenProperties;
+import it.cflm.qrticketsystem.exception.InvalidRequestParameterException;
+import it.cflm.qrticketsystem.service.ScanContext;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Emissione e verifica dei token dei dispositivi di scansione.
+ *
+ * Formato: {@code base64url(contenuto) + "." + base64url(HMAC-SHA256(contenuto))}, dove il
+ * contenuto binario riporta versione, ID del token, emissione, scadenza, varco, dispositivo
+ * ed evento. La verifica non usa sessioni né database: solo la firma, la scadenza e
+ * la copia locale delle revoche ({@link DeviceTokenRevocationList}).
+ */
+@Service
+@Slf4j
+public class DeviceTokenService {
+
+    private static final byte VERSION = 1;
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int MIN_SECRET_BYTES = 32;
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final DeviceTokenRevocationList revocationList;
+    private final DeviceTokenProperties settings;
+    private final Clock clock;
+    private final ThreadLocal<Mac> macs;
+
+    @Autowired
+    public DeviceTokenService(DeviceTokenProperties settings, DeviceTokenRevocationList revocationList) {
+        this(settings, revocationList, Clock.systemUTC());
+    }
+
+    DeviceTokenService(DeviceTokenProperties settings, DeviceTokenRevocationList revocationList, Clock clock) {
+        this.revocationList = revocationList;
+        this.settings = settings;
+        this.clock = clock;
+        SecretKeySpec key = new SecretKeySpec(secret(settings.getSecret()), ALGORITHM);
+        this.macs = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance(ALGORITHM);
+                mac.init(key);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("HMAC-SHA256 non disponibile", e);
+            }
+        });
+    }
+
+    private static byte[] secret(String configured) {
+        if (configured == null || configured.isBlank()) {
+            log.warn("qrticket.device-token.secret non impostato: chiave casuale, i token valgono solo su questa "
+                    + "istanza e fino al riavvio");
+            byte[] random = new byte[MIN_SECRET_BYTES];
+            new SecureRandom().nextBytes(random);
+            return random;
+        }
+        byte[] secret = Base64.getDecoder().decode(configured);
+        if (secret.length < MIN_SECRET_BYTES) {
+            throw new IllegalStateException("qrticket.device-token.secret deve essere di almeno "
+                    + MIN_SECRET_BYTES + " byte");
+        }
+        return secret;
+    }
+
+    /**
+     * Emette un token per un dispositivo assegnato a un varco di un evento.
+     *
+     * @param deviceId L'identificativo del dispositivo
+     * @param eventName L'evento
+     * @param gate Il varco
+     * @param ttl La validità richiesta (null per quella di default)
+     * @return Il token firmato e il suo contenuto
+     * @throws InvalidRequestParameterException se i parametri non sono validi
+     */
+    public IssuedDeviceToken issue(String deviceId, String eventName, int gate, Duration ttl) {
+        if (deviceId == null || deviceId.isBlank() || eventName == null || eventName.isBlank()) {
+            throw new InvalidRequestParameterException("Dispositivo ed evento sono obbligatori");
+        }
+        if (gate < 1 || gate > ScanContext.MAX_GATE) {
+            throw new InvalidRequestParameterException("Numero del varco non valido: " + gate);
+        }
+        Duration validity = ttl != null ? ttl : Duration.ofSeconds(settings.getTtlSeconds());
+        if (validity.isNegative() || validity.isZero() || validity.toSeconds() > settings.getMaxTtlSeconds()) {
+            throw new InvalidRequestParameterException("Validità del token non ammessa: " + validity.toSeconds()
+                    + " s (massimo " + settings.getMaxTtlSeconds() + " s)");
+        }
+        Instant now = clock.instant();
+        DeviceToken token = new DeviceToken(UUID.randomUUID(), deviceId, eventName, gate,
+                now, now.plus(validity));
+        String payload = ENCODER.encodeToString(serialize(token));
+        return new IssuedDeviceToken(payload + "." + ENCODER.encodeToString(sign(payload)), token);
+    }
+
+    /**
+     * Verifica un token: firma, scadenza e revoca.
+     *
+     * @param value Il token
+     * @return Il contenuto del token
+     * @throws BadCredentialsException se il token non è valido o è stato revocato
+     * @throws CredentialsExpiredException se il token è scaduto
+     */
+    public DeviceToken verify(String value) {
+        int separator = value.indexOf('.');
+        if (separator <= 0 || separator != value.lastIndexOf('.')) {
+            throw new BadCredentialsException("Token di dispositivo malformato");
+        }
+        String payload = value.substring(0, separator);
+        byte[] signature;
+        byte[] content;
+        try {
+            signature = DECODER.decode(value.substring(separator + 1));
+            content = DECODER.decode(payload);
+        } catch (IllegalArgumentException e) {
+            throw new BadCredentialsException("Token di dispositivo malformato");
+        }
+        if (!MessageDigest.isEqual(signature, sign(payload))) {
+            throw new BadCredentialsException("Firma del token di dispositivo non valida");
+        }
+        DeviceToken token = deserialize(content);
+        if (!clock.instant().isBefore(token.expiresAt())) {
+            throw new CredentialsExpiredException("Token di dispositivo scaduto");
+        }
+        if (revocationList.isRevoked(token)) {
+            throw new BadCredentialsException("Token di dispositivo revocato");
+        }
+        return token;
+    }
+
+    /**
+     * Revoca un token verificandone prima la firma (la scadenza serve a ripulire l'elenco).
+     *
+     * @param value Il token da revocare
+     * @return Il contenuto del token revocato
+     * @throws InvalidRequestParameterException se il token non è valido, è scaduto o è già revocato
+     */
+    public DeviceToken revoke(String value) {
+        DeviceToken token;
+        try {
+            token = verify(value);
+        } catch (AuthenticationException e) {
+            throw new InvalidRequestParameterException(e.getMessage());
+        }
+        revocationList.revokeToken(token.tokenId(), token.expiresAt());
+        revocationList.purge(clock.instant(), settings.getMaxTtlSeconds());
+        log.info("Revocato il token {} del dispositivo {}", token.tokenId(), token.deviceId());
+        return token;
+    }
+
+    /**
+     * Revoca tutti i token emessi finora per un dispositivo.
+     *
+     * @param deviceId L'identificativo del dispositivo
+     */
+    public void revokeDevice(String deviceId) {
+        Instant now = clock.instant();
+        revocationList.revokeDevice(deviceId, now);
+        revocationList.purge(now, settings.getMaxTtlSeconds());
+        log.info("Revocati i token del dispositivo {}", deviceId);
+    }
+
+    private byte[] sign(String payload) {
+        return macs.get().doFinal(payload.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static byte[] serialize(DeviceToken token) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+            out.writeLong(token.tokenId().getMostSignificantBits());
+            out.writeLong(token.tokenId().getLeastSignificantBits());
+            out.writeLong(token.issuedAt().toEpochMilli());
+            out.writeLong(token.expiresAt().toEpochMilli());
+            out.writeShort(token.gate());
+            out.writeUTF(token.deviceId());
+            out.writeUTF(token.eventName());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static DeviceToken deserialize(byte[] content) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(content))) {
+            if (in.readByte() != VERSION) {
+                throw new BadCredentialsException("Versione del token di dispositivo non supportata");
+            }
+            UUID tokenId = new UUID(in.readLong(), in.readLong());
+            Instant issuedAt = Instant.ofEpochMilli(in.readLong());
+            Instant expiresAt = Instant.ofEpochMilli(in.readLong());
+            int gate = in.readUnsignedShort();
+            return new DeviceToken(tokenId, in.readUTF(), in.readUTF(), gate, issuedAt, expiresAt);
+        } catch (IOException e) {
+            throw new BadCredentialsException("Token di dispositivo malformato");
+        }
+    }
+
+    /**
+     * Token emesso: il valore da consegnare al dispositivo e il suo contenuto.
+     *
+     * @param value Il token firmato
+     * @param token Il contenuto del token
+     */
+    public record IssuedDeviceToken(String value, DeviceToken token) {
+    }
+}
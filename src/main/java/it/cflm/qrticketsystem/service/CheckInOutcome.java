@@ -0,0 +1,78 @@
+package it.cflm.qrticketsystem.service;
+
+import java.util.UUID;
+
+import it.cflm.qrticketsystem.dto.TicketValidationResponseDTO;
+import it.cflm.qrticketsystem.model.ScanOutcome;
+
+/**
+ * Esito di un check-in alla reception.
+ *
+ * Alla porta i rifiuti (riscansioni, QR Code sbagliati) sono frequenti: sul percorso di
+ * check-in vengono restituiti come valori invece che come eccezioni, senza cattura dello
+ * stack trace né rollback della transazione. Le eccezioni restano per gli altri percorsi
+ * (vedi {@link TicketService#validateTicket(UUID, ScanContext)}).
+ */
+public sealed interface CheckInOutcome {
+
+    /**
+     * L'esito registrato nella traccia di audit.
+     */
+    ScanOutcome scanOutcome();
+
+    /**
+     * Il corpo della risposta per la reception.
+     */
+    TicketValidationResponseDTO toResponse();
+
+    /**
+     * Ingresso consentito: il biglietto è stato registrato come usato.
+     */
+    record Admitted(TicketValidationResponseDTO response) implements CheckInOutcome {
+        @Override
+        public ScanOutcome scanOutcome() {
+            return ScanOutcome.ADMITTED;
+        }
+
+        @Override
+        public TicketValidationResponseDTO toResponse() {
+            return response;
+        }
+    }
+
+    /**
+     * Il biglietto è già stato usato.
+     */
+    record AlreadyUsed(UUID ticketId) implements CheckInOutcome {
+        @Override
+        public ScanOutcome scanOutcome() {
+            return ScanOutcome.ALREADY_USED;
+        }
+
+        @Override
+        public TicketValidationResponseDTO toResponse() {
+            return TicketValidationResponseDTO.builder()
+                    .valid(false)
+                    .message("Il biglietto con ID " + ticketId + " è già stato utilizzato")
+                    .build();
+        }
+    }
+
+    /**
+     * Biglietto inesistente o QR Code non riconosciuto.
+     */
+    record NotFound(String message) implements CheckInOutcome {
+        @Override
+        public ScanOutcome scanOutcome() {
+            return ScanOutcome.NOT_FOUND;
+        }
+
+        @Override
+        public TicketValidationResponseDTO toResponse() {
+            return TicketValidationResponseDTO.builder()
+                    .valid(false)
+                    .message(message)
+                    .build();
+        }
+    }
+}
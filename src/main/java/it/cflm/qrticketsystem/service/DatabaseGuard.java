@@ -0,0 +1,267 @@
+package it.cflm.qrticketsystem.service;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import it.cflm.qrticketsystem.config.ResilienceProperties;
+import it.cflm.qrticketsystem.exception.BulkheadFullException;
+import it.cflm.qrticketsystem.exception.DatabaseUnavailableException;
+import it.cflm.qrticketsystem.exception.InvalidRequestParameterException;
+import it.cflm.qrticketsystem.util.Bulkhead;
+import it.cflm.qrticketsystem.util.CircuitBreaker;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Esegue le transazioni di acquisto, check-in e lettura dei biglietti proteggendo
+ * l'applicazione da un database lento o irraggiungibile.
+ *
+ * Ogni caso d'uso ha un proprio {@link Bulkhead}: le letture bloccate non tolgono posti ai
+ * check-in. Dentro il bulkhead la transazione ha un timeout
+ * ({@code qrticket.resilience.transaction-timeout-seconds}, applicato da Hibernate a ogni query)
+ * e passa da un {@link CircuitBreaker} comune: dopo troppi errori di connessione, timeout o
+ * chiamate lente le richieste vengono rifiutate subito con {@link DatabaseUnavailableException},
+ * invece di attendere ciascuna il timeout del pool.
+ *
+ * Solo gli errori di disponibilità del database contano come fallimenti; quelli applicativi
+ * (biglietto non trovato, vincoli violati) escono invariati.
+ */
+@Component
+@Slf4j
+public class DatabaseGuard {
+
+    private final boolean enabled;
+    private final boolean faultInjectionEnabled;
+    private final Bulkhead purchase;
+    private final Bulkhead checkIn;
+    private final Bulkhead read;
+    private final CircuitBreaker circuitBreaker;
+    private final TransactionTemplate writeTransaction;
+    private final TransactionTemplate readTransaction;
+    private final LongSupplier nanoTime;
+    private final LongAdder rejectedByCircuitBreaker = new LongAdder();
+    private volatile Faults faults = Faults.NONE;
+
+    @Autowired
+    public DatabaseGuard(PlatformTransactionManager transactionManager, ResilienceProperties settings,
+                         MeterRegistry meterRegistry) {
+        this(transactionManager, settings, meterRegistry, System::nanoTime);
+    }
+
+    DatabaseGuard(PlatformTransactionManager transactionManager, ResilienceProperties settings,
+                  MeterRegistry meterRegistry, LongSupplier nanoTime) {
+        ResilienceProperties.CircuitBreaker breaker = settings.getCircuitBreaker();
+        this.enabled = settings.isEnabled();
+        this.faultInjectionEnabled = settings.isFaultInjectionEnabled();
+        this.nanoTime = nanoTime;
+        this.purchase = bulkhead("acquisto", settings.getPurchase());
+        this.checkIn = bulkhead("check-in", settings.getCheckIn());
+        this.read = bulkhead("lettura", settings.getRead());
+        this.circuitBreaker = new CircuitBreaker(breaker.getWindowSize(), breaker.getMinimumCalls(),
+                breaker.getFailureRatePercent(), Duration.ofMillis(breaker.getSlowCallMs()),
+                Duration.ofMillis(breaker.getOpenMs()), breaker.getHalfOpenCalls(), nanoTime);
+
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        if (enabled && settings.getTransactionTimeoutSeconds() > 0) {
+            writeTransaction.setTimeout(settings.getTransactionTimeoutSeconds());
+            readTransaction.setTimeout(settings.getTransactionTimeoutSeconds());
+        }
+
+        Gauge.builder("qrticket.resilience.circuit.state", circuitBreaker, cb -> cb.state().ordinal())
+                .description("Stato del circuit breaker del database (0 chiuso, 1 semiaperto, 2 aperto)")
+                .register(meterRegistry);
+        FunctionCounter.builder("qrticket.resilience.circuit.rejected", rejectedByCircuitBreaker, LongAdder::sum)
+                .description("Chiamate al database rifiutate dal circuit breaker aperto")
+                .register(meterRegistry);
+        for (Bulkhead bulkhead : new Bulkhead[] {purchase, checkIn, read}) {
+            Gauge.builder("qrticket.resilience.bulkhead.active", bulkhead, Bulkhead::active)
+                    .description("Chiamate al database in corso per caso d'uso")
+                    .tag("usecase", bulkhead.getName())
+                    .register(meterRegistry);
+            FunctionCounter.builder("qrticket.resilience.bulkhead.rejected", bulkhead, Bulkhead::rejected)
+                    .description("Chiamate al database rifiutate per troppe richieste concorrenti")
+                    .tag("usecase", bulkhead.getName())
+                    .register(meterRegistry);
+        }
+    }
+
+    private static Bulkhead bulkhead(String name, ResilienceProperties.Bulkhead settings) {
+        return new Bulkhead(name, Math.max(1, settings.getMaxConcurrent()), Duration.ofMillis(settings.getMaxWaitMs()));
+    }
+
+    /**
+     * Esegue la transazione di un acquisto.
+     *
+     * @throws BulkheadFullException se troppi acquisti sono già in corso
+     * @throws DatabaseUnavailableException se il database non è disponibile
+     */
+    public <T> T purchase(Supplier<T> call) {
+        return execute(purchase, writeTransaction, call);
+    }
+
+    /**
+     * Esegue la transazione di un check-in.
+     *
+     * @throws BulkheadFullException se troppi check-in sono già in corso
+     * @throws DatabaseUnavailableException se il database non è disponibile
+     */
+    public <T> T checkIn(Supplier<T> call) {
+        return execute(checkIn, writeTransaction, call);
+    }
+
+    /**
+     * Esegue una lettura in una transazione in sola lettura (instradata sulle repliche).
+     *
+     * @throws BulkheadFullException se troppe letture sono già in corso
+     * @throws DatabaseUnavailableException se il database non è disponibile
+     */
+    public <T> T read(Supplier<T> call) {
+        return execute(read, readTransaction, call);
+    }
+
+    private <T> T execute(Bulkhead bulkhead, TransactionTemplate transaction, Supplier<T> call) {
+        if (!enabled) {
+            return transaction.execute(status -> call.get());
+        }
+        return bulkhead.execute(() -> {
+            if (!circuitBreaker.tryAcquire()) {
+                rejectedByCircuitBreaker.increment();
+                throw new DatabaseUnavailableException("Database non disponibile, riprovare più tardi");
+            }
+            long start = nanoTime.getAsLong();
+            try {
+                T result = transaction.execute(status -> {
+                    injectFaults();
+                    return call.get();
+                });
+                circuitBreaker.onSuccess(nanoTime.getAsLong() - start);
+                return result;
+            } catch (RuntimeException e) {
+                if (!isDatabaseFailure(e)) {
+                    // Il database ha risposto: l'errore è applicativo
+                    circuitBreaker.onSuccess(nanoTime.getAsLong() - start);
+                    throw e;
+                }
+                circuitBreaker.onFailure();
+                log.warn("Chiamata al database fallita ({}): {}", bulkhead.getName(), e.getMessage());
+                throw new DatabaseUnavailableException("Database non disponibile: " + e.getMessage(), e);
+            } catch (Error e) {
+                circuitBreaker.onFailure();
+                throw e;
+            }
+        });
+    }
+
+    /**
+     * Errori di connessione, timeout e transazioni non avviate o non completate.
+     * Un conflitto di versione non è un guasto: il database ha risposto.
+     */
+    static boolean isDatabaseFailure(Throwable e) {
+        if (e instanceof OptimisticLockingFailureException) {
+            return false;
+        }
+        return e instanceof DataAccessResourceFailureException
+                || e instanceof TransientDataAccessException
+                || e instanceof RecoverableDataAccessException
+                || e instanceof TransactionException;
+    }
+
+    /**
+     * @return false se il circuit breaker è aperto
+     */
+    public boolean isAvailable() {
+        return circuitBreaker.state() != CircuitBreaker.State.OPEN;
+    }
+
+    /**
+     * @return Lo stato del circuit breaker
+     */
+    public CircuitBreaker.State circuitState() {
+        return circuitBreaker.state();
+    }
+
+    /**
+     * @return Gli acquisti con una transazione in corso
+     */
+    public int activePurchases() {
+        return purchase.active();
+    }
+
+    /**
+     * @return I bulkhead di acquisto, check-in e lettura
+     */
+    public Bulkhead[] bulkheads() {
+        return new Bulkhead[] {purchase, checkIn, read};
+    }
+
+    /**
+     * Simula un database guasto o lento sulle chiamate protette (prove in locale).
+     *
+     * @param failureRate Frazione delle chiamate che falliscono (0-1)
+     * @param latencyMs Ritardo aggiunto a ogni chiamata
+     * @throws InvalidRequestParameterException se l'iniezione non è abilitata o i valori non sono validi
+     */
+    public void injectFaults(double failureRate, long latencyMs) {
+        if (!faultInjectionEnabled) {
+            throw new InvalidRequestParameterException("Iniezione di guasti disabilitata (qrticket.resilience.fault-injection-enabled)");
+        }
+        if (failureRate < 0 || failureRate > 1 || latencyMs < 0) {
+            throw new InvalidRequestParameterException("failureRate deve essere tra 0 e 1, latencyMs non negativo");
+        }
+        faults = new Faults(failureRate, latencyMs);
+        log.warn("Guasti del database simulati: {}% di errori, {} ms di ritardo", failureRate * 100, latencyMs);
+    }
+
+    /**
+     * Rimuove i guasti simulati.
+     */
+    public void clearFaults() {
+        faults = Faults.NONE;
+    }
+
+    /**
+     * @return I guasti simulati in corso
+     */
+    public Faults faults() {
+        return faults;
+    }
+
+    private void injectFaults() {
+        Faults current = faults;
+        if (current.latencyMs() > 0) {
+            try {
+                TimeUnit.MILLISECONDS.sleep(current.latencyMs());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (current.failureRate() > 0 && ThreadLocalRandom.current().nextDouble() < current.failureRate()) {
+            throw new DataAccessResourceFailureException("Guasto simulato del database");
+        }
+    }
+
+    /**
+     * Guasti simulati sulle chiamate protette.
+     */
+    public record Faults(double failureRate, long latencyMs) {
+        static final Faults NONE = new Faults(0, 0);
+    }
+}
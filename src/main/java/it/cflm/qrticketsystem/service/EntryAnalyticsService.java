@@ -0,0 +1,182 @@
+package it.cflm.qrticketsystem.service;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import it.cflm.qrticketsystem.config.AnalyticsProperties;
+import it.cflm.qrticketsystem.dto.EntryAnalyticsDTO;
+import it.cflm.qrticketsystem.dto.EventOccupancyDTO;
+import it.cflm.qrticketsystem.dto.GateRateDTO;
+import it.cflm.qrticketsystem.util.RollingWindowCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Presenze e ritmo degli ingressi in tempo reale, per evento e per varco.
+ *
+ * Alimentato dagli esiti dei check-in, senza leggere la tabella dei biglietti: ogni scansione
+ * costa un incremento di {@link LongAdder} e uno di {@link RollingWindowCounter}, senza lock.
+ * Ingressi al minuto e percentili degli ingressi al secondo sono calcolati alla lettura,
+ * sulla finestra mobile {@code qrticket.analytics.window-seconds}.
+ *
+ * I valori sono dell'istanza e ripartono da zero al riavvio: i totali persistiti restano
+ * quelli dei contatori degli eventi. Non esistendo scansioni in uscita, le presenze di un
+ * evento sono gli ingressi registrati.
+ */
+@Service
+public class EntryAnalyticsService {
+
+    private final MeterRegistry meterRegistry;
+    private final Clock clock;
+    private final LongSupplier epochSecond;
+    private final int windowSeconds;
+    private final Map<Integer, GateStats> gates = new ConcurrentHashMap<>();
+    private final Map<String, EventStats> events = new ConcurrentHashMap<>();
+
+    @Autowired
+    public EntryAnalyticsService(AnalyticsProperties settings, MeterRegistry meterRegistry) {
+        this(settings, meterRegistry, Clock.systemDefaultZone());
+    }
+
+    EntryAnalyticsService(AnalyticsProperties settings, MeterRegistry meterRegistry, Clock clock) {
+        this.meterRegistry = meterRegistry;
+        this.clock = clock;
+        this.epochSecond = () -> clock.millis() / 1000;
+        this.windowSeconds = Math.max(1, settings.getWindowSeconds());
+    }
+
+    /**
+     * Registra l'esito di un check-in. Non accede al database.
+     *
+     * @param context Il varco da cui proviene la scansione
+     * @param outcome L'esito del check-in
+     */
+    public void record(ScanContext context, CheckInOutcome outcome) {
+        GateStats gate = gates.computeIfAbsent(context.gate(), this::newGate);
+        if (outcome instanceof CheckInOutcome.Admitted admitted) {
+            gate.entries.increment();
+            gate.totalEntries.increment();
+            String eventName = admitted.response().getEventName();
+            if (eventName != null) {
+                EventStats event = events.computeIfAbsent(eventName, this::newEvent);
+                event.entries.increment();
+                event.inside.increment();
+            }
+        } else {
+            gate.rejections.increment();
+            gate.totalRejections.increment();
+        }
+    }
+
+    /**
+     * @return Presenze per evento e ritmo di ogni varco, ordinati per nome e numero
+     */
+    public EntryAnalyticsDTO snapshot() {
+        List<EventOccupancyDTO> eventRates = events.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .map(entry -> toDTO(entry.getKey(), entry.getValue()))
+                .toList();
+        List<GateRateDTO> gateRates = gates.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .map(entry -> toDTO(entry.getKey(), entry.getValue()))
+                .toList();
+        return EntryAnalyticsDTO.builder()
+                .generatedAt(LocalDateTime.now(clock))
+                .windowSeconds(windowSeconds)
+                .events(eventRates)
+                .gates(gateRates)
+                .build();
+    }
+
+    private GateStats newGate(int gate) {
+        GateStats stats = new GateStats(new RollingWindowCounter(windowSeconds, epochSecond),
+                new RollingWindowCounter(windowSeconds, epochSecond));
+        Gauge.builder("qrticket.analytics.gate.entry.rate", stats.entries, this::perMinute)
+                .description("Ingressi al minuto del varco nella finestra mobile")
+                .tag("gate", Integer.toString(gate))
+                .register(meterRegistry);
+        return stats;
+    }
+
+    private EventStats newEvent(String eventName) {
+        EventStats stats = new EventStats(new RollingWindowCounter(windowSeconds, epochSecond));
+        Gauge.builder("qrticket.analytics.occupancy", stats.inside, LongAdder::sum)
+                .description("Persone entrate all'evento")
+                .tag("event", eventName)
+                .register(meterRegistry);
+        Gauge.builder("qrticket.analytics.event.entry.rate", stats.entries, this::perMinute)
+                .description("Ingressi al minuto dell'evento nella finestra mobile")
+                .tag("event", eventName)
+                .register(meterRegistry);
+        return stats;
+    }
+
+    private GateRateDTO toDTO(int gate, GateStats stats) {
+        long[] perSecond = sorted(stats.entries);
+        return GateRateDTO.builder()
+                .gate(gate)
+                .entriesPerMinute(perMinute(perSecond))
+                .rejectionsPerMinute(perMinute(stats.rejections))
+                .p50EntriesPerSecond(percentile(perSecond, 50))
+                .p95EntriesPerSecond(percentile(perSecond, 95))
+                .peakEntriesPerSecond(perSecond[perSecond.length - 1])
+                .totalEntries(stats.totalEntries.sum())
+                .totalRejections(stats.totalRejections.sum())
+                .build();
+    }
+
+    private EventOccupancyDTO toDTO(String eventName, EventStats stats) {
+        long[] perSecond = sorted(stats.entries);
+        return EventOccupancyDTO.builder()
+                .eventName(eventName)
+                .inside(stats.inside.sum())
+                .entriesPerMinute(perMinute(perSecond))
+                .p95EntriesPerSecond(percentile(perSecond, 95))
+                .peakEntriesPerSecond(perSecond[perSecond.length - 1])
+                .build();
+    }
+
+    private double perMinute(RollingWindowCounter counter) {
+        return perMinute(counter.perSecond());
+    }
+
+    private double perMinute(long[] perSecond) {
+        return Arrays.stream(perSecond).sum() * 60.0 / windowSeconds;
+    }
+
+    private static long[] sorted(RollingWindowCounter counter) {
+        long[] perSecond = counter.perSecond();
+        Arrays.sort(perSecond);
+        return perSecond;
+    }
+
+    /**
+     * Percentile con il metodo nearest-rank su valori ordinati.
+     */
+    static long percentile(long[] sorted, int percentile) {
+        int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+
+    private record GateStats(RollingWindowCounter entries, RollingWindowCounter rejections,
+                             LongAdder totalEntries, LongAdder totalRejections) {
+        GateStats(RollingWindowCounter entries, RollingWindowCounter rejections) {
+            this(entries, rejections, new LongAdder(), new LongAdder());
+        }
+    }
+
+    private record EventStats(RollingWindowCounter entries, LongAdder inside) {
+        EventStats(RollingWindowCounter entries) {
+            this(entries, new LongAdder());
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package it.cflm.qrticketsystem.service;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+
+import it.cflm.qrticketsystem.config.EventProperties;
+import it.cflm.qrticketsystem.config.QRCodeConfig;
+import it.cflm.qrticketsystem.dto.EventDTO;
+import it.cflm.qrticketsystem.exception.EventNotFoundException;
+import it.cflm.qrticketsystem.model.Event;
+import it.cflm.qrticketsystem.repository.EventRepository;
+import it.cflm.qrticketsystem.repository.TicketRepository;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Anagrafica degli eventi.
+ *
+ * I dati di un evento sono letti dal database al primo uso e restano in cache
+ * ({@code qrticket.events.cache-ttl-seconds}): creazione dei biglietti e rendering dei QR Code
+ * non interrogano la tabella degli eventi. Le letture ({@link #find(String)}) non scrivono mai:
+ * un evento mai visto viene aggiunto all'anagrafica solo da {@link #register(String)}, prima
+ * della transazione del primo biglietto.
+ *
+ * I contatori di venduti ed entrati sono aggiornati per incremento dopo il commit della
+ * transazione che li ha fatti cambiare, in una transazione a sé: un crash tra i due commit
+ * perde l'incremento, e {@link #recount(String)} riallinea i contatori contando i biglietti.
+ * Tutte le scritture sugli eventi usano transazioni proprie, così, con la suddivisione in
+ * shard, restano sul database che ospita la tabella degli eventi.
+ */
+@Service
+@Slf4j
+public class EventService {
+
+    private final EventRepository eventRepository;
+    private final TicketRepository ticketRepository;
+    private final QRCodeConfig qrCodeConfig;
+    private final EventProperties eventProperties;
+    private final TransactionTemplate eventTransaction;
+    private final LoadingCache<String, EventSettings> cache;
+
+    public EventService(EventRepository eventRepository,
+                        TicketRepository ticketRepository,
+                        QRCodeConfig qrCodeConfig,
+                        EventProperties eventProperties,
+                        PlatformTransactionManager transactionManager) {
+        this.eventRepository = eventRepository;
+        this.ticketRepository = ticketRepository;
+        this.qrCodeConfig = qrCodeConfig;
+        this.eventProperties = eventProperties;
+        this.eventTransaction = new TransactionTemplate(transactionManager);
+        this.eventTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(eventProperties.getCacheSize())
+                .expireAfterWrite(Duration.ofSeconds(eventProperties.getCacheTtlSeconds()))
+                .build(this::load);
+    }
+
+    /**
+     * Restituisce i dati di un evento, senza scritture. Un evento non ancora in anagrafica
+     * ha le impostazioni di {@code qrcode.*} e nessun ID.
+     *
+     * @param eventName Il nome dell'evento
+     * @return I dati dell'evento
+     */
+    public EventSettings find(String eventName) {
+        return cache.get(eventName);
+    }
+
+    /**
+     * Restituisce i dati di un evento, aggiungendolo all'anagrafica se non c'è. La creazione
+     * usa una transazione e una connessione proprie: va chiamato prima di aprire la
+     * transazione che usa l'evento (es. quella di acquisto), non al suo interno.
+     *
+     * @param eventName Il nome dell'evento
+     * @return I dati dell'evento, con l'ID
+     */
+    public EventSettings register(String eventName) {
+        EventSettings settings = cache.get(eventName);
+        if (settings.id() != null) {
+            return settings;
+        }
+        settings = toSettings(create(eventName));
+        cache.put(eventName, settings);
+        return settings;
+    }
+
+    /**
+     * @return L'evento proposto nella pagina principale ({@code qrticket.events.featured})
+     */
+    public EventSettings featured() {
+        return find(eventProperties.getFeatured());
+    }
+
+    /**
+     * @return Tutti gli eventi, con i contatori aggiornati
+     */
+    public List<EventDTO> list() {
+        return eventTransaction.execute(status -> eventRepository.findAll().stream()
+                .map(EventService::toDTO)
+                .toList());
+    }
+
+    /**
+     * @param eventName Il nome dell'evento
+     * @return L'evento, con i contatori aggiornati
+     * @throws EventNotFoundException se l'evento non esiste
+     */
+    public EventDTO get(String eventName) {
+        return toDTO(findEvent(eventName));
+    }
+
+    /**
+     * Modifica titolo, inizio e impostazioni dei QR Code di un evento. Le nuove impostazioni
+     * valgono per i QR Code renderizzati da qui in avanti; sulle altre istanze entro
+     * {@code qrticket.events.cache-ttl-seconds}.
+     *
+     * @param eventName Il nome dell'evento
+     * @param changes I nuovi dati (nome e contatori sono ignorati)
+     * @return L'evento modificato
+     * @throws EventNotFoundException se l'evento non esiste
+     */
+    public EventDTO update(String eventName, EventDTO changes) {
+        Event updated = eventTransaction.execute(status -> {
+            Event event = eventRepository.findByName(eventName)
+                    .orElseThrow(() -> new EventNotFoundException(eventName));
+            event.setTitle(changes.getTitle());
+            event.setStartsAt(changes.getStartsAt());
+            event.setPayloadEncoding(changes.getPayloadEncoding());
+            event.setErrorCorrection(changes.getErrorCorrection());
+            return eventRepository.save(event);
+        });
+        cache.invalidate(eventName);
+        log.info("Evento {} modificato", eventName);
+        return get(updated.getName());
+    }
+
+    /**
+     * Ricalcola i contatori di un evento contando i biglietti, e collega all'evento i
+     * biglietti creati prima dell'anagrafica. Gli incrementi concorrenti al conteggio
+     * possono andare persi: va eseguito a vendite e ingressi fermi.
+     *
+     * @param eventName Il nome dell'evento
+     * @return L'evento con i contatori ricalcolati
+     * @throws EventNotFoundException se l'evento non esiste
+     */
+    public EventDTO recount(String eventName) {
+        Event event = findEvent(eventName);
+        int linked = eventTransaction.execute(status ->
+                ticketRepository.assignEventIdByEventName(eventName, event.getId()));
+        setCounters(event.getId(), eventName);
+        log.info("Contatori dell'evento {} ricalcolati ({} biglietti collegati all'evento)", eventName, linked);
+        return get(eventName);
+    }
+
+    /**
+     * Conta i biglietti venduti, dopo il commit della transazione corrente.
+     *
+     * @param event L'evento
+     * @param tickets I biglietti venduti
+     */
+    public void recordSold(EventSettings event, int tickets) {
+        afterCommit(() -> eventTransaction.executeWithoutResult(status ->
+                eventRepository.addTicketsSold(event.id(), tickets)));
+    }
+
+    /**
+     * Conta gli ingressi, dopo il commit della transazione corrente.
+     *
+     * @param eventName Il nome dell'evento
+     * @param tickets I biglietti entrati
+     */
+    public void recordEntered(String eventName, int tickets) {
+        afterCommit(() -> {
+            EventSettings event = register(eventName);
+            eventTransaction.executeWithoutResult(status -> eventRepository.addTicketsEntered(event.id(), tickets));
+        });
+    }
+
+    private EventSettings load(String eventName) {
+        Event event = eventTransaction.execute(status -> eventRepository.findByName(eventName).orElse(null));
+        if (event == null) {
+            return new EventSettings(null, eventName, eventName, null, qrCodeConfig.getPayloadEncoding(),
+                    qrCodeConfig.getErrorCorrection());
+        }
+        return toSettings(event);
+    }
+
+    /**
+     * Crea un evento e ne inizializza i contatori con i biglietti già esistenti.
+     * Se un'altra istanza lo crea nello stesso momento, usa quello.
+     */
+    private Event create(String eventName) {
+        Event created;
+        try {
+            created = eventTransaction.execute(status -> {
+                Event event = new Event();
+                event.setName(eventName);
+                event.setTitle(eventName);
+                return eventRepository.save(event);
+            });
+        } catch (DataIntegrityViolationException e) {
+            return findEvent(eventName);
+        }
+        if (ticketRepository.countByEventNameAndPurchaseDateIsNotNull(eventName) > 0) {
+            setCounters(created.getId(), eventName);
+        }
+        log.info("Evento {} aggiunto all'anagrafica con ID {}", eventName, created.getId());
+        return created;
+    }
+
+    private void setCounters(int eventId, String eventName) {
+        long sold = ticketRepository.countByEventNameAndPurchaseDateIsNotNull(eventName);
+        long entered = ticketRepository.countByEventNameAndIsValidFalse(eventName);
+        eventTransaction.executeWithoutResult(status -> eventRepository.setCounters(eventId, sold, entered));
+    }
+
+    private Event findEvent(String eventName) {
+        return eventTransaction.execute(status -> eventRepository.findByName(eventName)
+                .orElseThrow(() -> new EventNotFoundException(eventName)));
+    }
+
+    private EventSettings toSettings(Event event) {
+        return new EventSettings(event.getId(), event.getName(),
+                event.getTitle() != null && !event.getTitle().isBlank() ? event.getTitle() : event.getName(),
+                event.getStartsAt(),
+                event.getPayloadEncoding() != null ? event.getPayloadEncoding() : qrCodeConfig.getPayloadEncoding(),
+                event.getErrorCorrection() != null ? event.getErrorCorrection() : qrCodeConfig.getErrorCorrection());
+    }
+
+    private static EventDTO toDTO(Event event) {
+        return EventDTO.builder()
+                .id(event.getId())
+                .name(event.getName())
+                .title(event.getTitle())
+                .startsAt(event.getStartsAt())
+                .payloadEncoding(event.getPayloadEncoding())
+                .errorCorrection(event.getErrorCorrection())
+                .ticketsSold(event.getTicketsSold())
+                .ticketsEntered(event.getTicketsEntered())
+                .build();
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                try {
+                    action.run();
+                } catch (RuntimeException e) {
+                    log.warn("Aggiornamento dei contatori dell'evento fallito (riallineabile con il ricalcolo): {}",
+                            e.getMessage());
+                }
+            }
+        });
+    }
+}
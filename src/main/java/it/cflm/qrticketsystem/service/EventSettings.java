@@ -0,0 +1,22 @@
+package it.cflm.qrticketsystem.service;
+
+import java.time.LocalDateTime;
+
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+
+import it.cflm.qrticketsystem.config.QRCodeConfig.PayloadEncoding;
+
+/**
+ * Dati di un evento mantenuti in cache da {@link EventService}, con le impostazioni
+ * dei QR Code già risolte (quelle dell'evento, altrimenti quelle di {@code qrcode.*}).
+ *
+ * @param id L'ID dell'evento, riportato sui biglietti (null se l'evento non è ancora in anagrafica)
+ * @param name Il nome dell'evento
+ * @param title Il titolo da mostrare
+ * @param startsAt L'inizio dell'evento, se noto
+ * @param payloadEncoding Il formato del contenuto dei QR Code
+ * @param errorCorrection Il livello di correzione errori dei QR Code
+ */
+public record EventSettings(Integer id, String name, String title, LocalDateTime startsAt,
+                            PayloadEncoding payloadEncoding, ErrorCorrectionLevel errorCorrection) {
+}
@@ -0,0 +1,162 @@
+package it.cflm.qrticketsystem.service;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import it.cflm.qrticketsystem.repository.TicketCheckInView;
+
+/**
+ * Indice in memoria dello stato di check-in dei biglietti di un evento.
+ *
+ * Tabella a indirizzamento aperto (linear probing) con l'UUID memorizzato come due long
+ * in array primitivi: nessun oggetto per biglietto oltre al nome dell'intestatario.
+ * L'insieme delle chiavi è fisso dopo la costruzione, quindi la ricerca non richiede lock;
+ * il bit di check-in di ogni slot è aggiornato con una compare-and-set.
+ */
+public final class GateCheckInIndex {
+
+    private static final int EMPTY = 0;
+    private static final int VALID = 1;
+    private static final int USED = 2;
+
+    private final String eventName;
+    private final long[] mostSignificant;
+    private final long[] leastSignificant;
+    private final String[] userNames;
+    private final AtomicIntegerArray states;
+    private final int mask;
+    private final int size;
+    private volatile boolean closed;
+
+    private GateCheckInIndex(String eventName, int capacity, int size) {
+        this.eventName = eventName;
+        this.mostSignificant = new long[capacity];
+        this.leastSignificant = new long[capacity];
+        this.userNames = new String[capacity];
+        this.states = new AtomicIntegerArray(capacity);
+        this.mask = capacity - 1;
+        this.size = size;
+    }
+
+    /**
+     * Costruisce l'indice dai biglietti di un evento.
+     *
+     * @param eventName Il nome dell'evento
+     * @param tickets Lo stato dei biglietti letto dal database
+     * @return L'indice pronto per il check-in
+     */
+    public static GateCheckInIndex build(String eventName, List<TicketCheckInView> tickets) {
+        // Fattore di carico massimo 0,5: le sequenze di probing restano corte
+        int capacity = Integer.highestOneBit(Math.max(2, tickets.size()) * 2 - 1) << 1;
+        GateCheckInIndex index = new GateCheckInIndex(eventName, capacity, tickets.size());
+        for (TicketCheckInView ticket : tickets) {
+            index.insert(ticket.getId(), ticket.getUserName(), ticket.isValid());
+        }
+        return index;
+    }
+
+    private void insert(UUID id, String userName, boolean valid) {
+        long msb = id.getMostSignificantBits();
+        long lsb = id.getLeastSignificantBits();
+        int slot = hash(msb, lsb) & mask;
+        while (states.get(slot) != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+        mostSignificant[slot] = msb;
+        leastSignificant[slot] = lsb;
+        userNames[slot] = userName;
+        states.set(slot, valid ? VALID : USED);
+    }
+
+    /**
+     * Cerca lo slot di un biglietto.
+     *
+     * @param id L'ID del biglietto
+     * @return Lo slot, oppure -1 se il biglietto non appartiene all'evento
+     */
+    public int find(UUID id) {
+        long msb = id.getMostSignificantBits();
+        long lsb = id.getLeastSignificantBits();
+        int slot = hash(msb, lsb) & mask;
+        while (states.get(slot) != EMPTY) {
+            if (mostSignificant[slot] == msb && leastSignificant[slot] == lsb) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Registra il check-in dello slot.
+     *
+     * @return true se il biglietto era valido, false se era già stato usato
+     */
+    public boolean tryCheckIn(int slot) {
+        return states.compareAndSet(slot, VALID, USED);
+    }
+
+    /**
+     * @return true se il biglietto dello slot risulta già entrato
+     */
+    public boolean isUsed(int slot) {
+        return states.get(slot) == USED;
+    }
+
+    /**
+     * Annulla un check-in che non è stato possibile rendere durevole.
+     */
+    public void revertCheckIn(int slot) {
+        states.compareAndSet(slot, USED, VALID);
+    }
+
+    /**
+     * Segna l'indice come chiuso: nessun nuovo check-in va accodato per la scrittura sul database.
+     */
+    public void close() {
+        closed = true;
+    }
+
+    /**
+     * Riapre l'indice dopo una chiusura non completata.
+     */
+    public void reopen() {
+        closed = false;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    public String userName(int slot) {
+        return userNames[slot];
+    }
+
+    public String eventName() {
+        return eventName;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Conta i biglietti già entrati (scansione completa, solo per il monitoraggio).
+     */
+    public int checkedInCount() {
+        int count = 0;
+        for (int slot = 0; slot < states.length(); slot++) {
+            if (states.get(slot) == USED) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static int hash(long msb, long lsb) {
+        // Gli UUID v4 sono casuali, ma gli ID importati potrebbero non esserlo: si mescolano i bit
+        long h = (msb ^ lsb) * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
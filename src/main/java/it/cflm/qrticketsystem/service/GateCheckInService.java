@@ -0,0 +1,583 @@
+package it.cflm.qrticketsystem.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import it.cflm.qrticketsystem.config.GateProperties;
+import it.cflm.qrticketsystem.config.ResilienceProperties;
+import it.cflm.qrticketsystem.dto.GateStatusDTO;
+import it.cflm.qrticketsystem.dto.TicketValidationResponseDTO;
+import it.cflm.qrticketsystem.exception.GateAlreadyOpenException;
+import it.cflm.qrticketsystem.exception.TicketNotFoundException;
+import it.cflm.qrticketsystem.jfr.JfrEvents;
+import it.cflm.qrticketsystem.jfr.TicketPersistEvent;
+import it.cflm.qrticketsystem.journal.CheckInJournal;
+import it.cflm.qrticketsystem.model.ScanOutcome;
+import it.cflm.qrticketsystem.model.Ticket;
+import it.cflm.qrticketsystem.outbox.OutboxService;
+import it.cflm.qrticketsystem.repository.TicketCheckInView;
+import it.cflm.qrticketsystem.repository.TicketRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Modalità varco per l'apertura delle porte di un evento.
+ *
+ * All'apertura i biglietti dell'evento vengono precaricati in un {@link GateCheckInIndex}:
+ * il check-in è una compare-and-set in memoria seguita dall'append sul {@link CheckInJournal}
+ * locale (group commit), senza accessi al database. I check-in vengono poi scritti sul
+ * database in batch da un thread dedicato (write-behind) e il checkpoint del journal avanza
+ * dopo il commit; all'avvio i record successivi al checkpoint vengono riapplicati, quindi un
+ * crash non perde nessun ingresso confermato.
+ *
+ * Si assume un'unica istanza che gestisce i varchi dell'evento: i biglietti non presenti
+ * in nessun varco aperto seguono il normale percorso su database.
+ *
+ * Per il check-in degradato ({@code qrticket.resilience.degraded-check-in}) lo stesso indice
+ * è tenuto pronto, senza aprire il varco, per ogni evento con check-in sul database: se il
+ * database non è disponibile la decisione viene presa sulla lista in memoria e passa dal
+ * journal e dalla scrittura in batch come in modalità varco, così il database viene
+ * riallineato appena torna disponibile.
+ */
+@Service
+@Slf4j
+public class GateCheckInService {
+
+    private final TicketRepository ticketRepository;
+    private final EventService eventService;
+    private final OutboxService outboxService;
+    private final GateProperties settings;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<String, GateCheckInIndex> gates = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<UUID> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final List<UUID> retry = new ArrayList<>();
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final ScheduledExecutorService writer;
+    private final Timer checkInTimer;
+    private final Counter flushedCounter;
+    private volatile GateCheckInIndex[] openGates = new GateCheckInIndex[0];
+    private CheckInJournal journal;
+    private final boolean degradedCheckIn;
+    private final long allowListRefreshNanos;
+    private final Map<String, AllowList> allowLists = new ConcurrentHashMap<>();
+    private final Map<String, ConcurrentLinkedQueue<UUID>> loadingAllowLists = new ConcurrentHashMap<>();
+    private final Counter degradedCounter;
+    private volatile GateCheckInIndex[] standbyGates = new GateCheckInIndex[0];
+    private volatile GateCheckInIndex[] closingGates = new GateCheckInIndex[0];
+
+    public GateCheckInService(TicketRepository ticketRepository,
+                              EventService eventService,
+                              OutboxService outboxService,
+                              GateProperties settings,
+                              ResilienceProperties resilienceProperties,
+                              PlatformTransactionManager transactionManager,
+                              MeterRegistry meterRegistry) {
+        this.ticketRepository = ticketRepository;
+        this.eventService = eventService;
+        this.outboxService = outboxService;
+        this.settings = settings;
+        this.degradedCheckIn = resilienceProperties.isDegradedCheckIn();
+        this.allowListRefreshNanos = TimeUnit.SECONDS.toNanos(resilienceProperties.getAllowListRefreshSeconds());
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "gate-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = Math.max(10, settings.getFlushIntervalMs());
+        writer.scheduleWithFixedDelay(this::flushQuietly, interval, interval, TimeUnit.MILLISECONDS);
+
+        this.checkInTimer = Timer.builder("qrticket.gate.checkin")
+                .description("Durata del check-in in modalità varco (indice e journal)")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.flushedCounter = Counter.builder("qrticket.gate.flushed")
+                .description("Check-in del varco scritti sul database")
+                .register(meterRegistry);
+        this.degradedCounter = Counter.builder("qrticket.resilience.degraded.checkins")
+                .description("Ingressi ammessi sulla lista in memoria con il database non disponibile")
+                .register(meterRegistry);
+        Gauge.builder("qrticket.gate.pending", pendingCount, AtomicInteger::get)
+                .description("Check-in del varco non ancora scritti sul database")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Precarica i biglietti di un evento e apre il varco.
+     *
+     * @param eventName Il nome dell'evento
+     * @return Lo stato del varco
+     * @throws TicketNotFoundException se l'evento non ha biglietti
+     * @throws GateAlreadyOpenException se il varco dell'evento è già aperto
+     */
+    public synchronized GateStatusDTO openGate(String eventName) {
+        // Un indice ricaricato dal database perderebbe i check-in non ancora scritti:
+        // il varco va chiuso (scrivendoli) prima di riaprirlo. Con il lock dell'istanza
+        // nessuna chiusura è in corso, quindi basta controllare i varchi aperti
+        if (gates.containsKey(eventName)) {
+            throw new GateAlreadyOpenException(eventName);
+        }
+        ensureJournal();
+        // Transazione non read-only: lo stato dei check-in va letto dal primario, mai da una replica in ritardo
+        List<TicketCheckInView> tickets = transactionTemplate.execute(status -> {
+            try (Stream<TicketCheckInView> rows = ticketRepository.streamCheckInStateByEventName(eventName)) {
+                return rows.toList();
+            }
+        });
+        if (tickets == null || tickets.isEmpty()) {
+            throw new TicketNotFoundException("Nessun biglietto trovato per l'evento: " + eventName);
+        }
+        GateCheckInIndex index = GateCheckInIndex.build(eventName, tickets);
+        gates.put(eventName, index);
+        openGates = gates.values().toArray(GateCheckInIndex[]::new);
+        log.info("Varco aperto per l'evento {}: {} biglietti precaricati", eventName, index.size());
+        return toStatus(index);
+    }
+
+    /**
+     * Chiude il varco di un evento dopo aver scritto sul database i check-in in attesa.
+     *
+     * @param eventName Il nome dell'evento
+     * @return Lo stato finale del varco
+     * @throws TicketNotFoundException se il varco non è aperto
+     */
+    public synchronized GateStatusDTO closeGate(String eventName) {
+        GateCheckInIndex index = gates.get(eventName);
+        if (index == null) {
+            throw new TicketNotFoundException("Nessun varco aperto per l'evento: " + eventName);
+        }
+        // Fino alla scrittura dei check-in in attesa l'indice resta visibile per i rifiuti:
+        // sul database quei biglietti risultano ancora validi
+        closingGates = Stream.concat(Stream.of(closingGates), Stream.of(index)).toArray(GateCheckInIndex[]::new);
+        gates.remove(eventName);
+        openGates = gates.values().toArray(GateCheckInIndex[]::new);
+        // Una scansione può aver letto i varchi aperti prima della rimozione: dopo la chiusura
+        // dell'indice non accoda più check-in, quindi la scrittura che segue li include tutti
+        appendLock.lock();
+        try {
+            index.close();
+        } finally {
+            appendLock.unlock();
+        }
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            // Check-in non scritti: il varco torna aperto e la chiusura si può ripetere
+            index.reopen();
+            gates.put(eventName, index);
+            openGates = gates.values().toArray(GateCheckInIndex[]::new);
+            throw e;
+        } finally {
+            closingGates = Stream.of(closingGates).filter(closing -> closing != index).toArray(GateCheckInIndex[]::new);
+        }
+        log.info("Varco chiuso per l'evento {}", eventName);
+        return toStatus(index);
+    }
+
+    /**
+     * Restituisce lo stato dei varchi aperti.
+     */
+    public List<GateStatusDTO> status() {
+        return Stream.of(openGates).map(this::toStatus).toList();
+    }
+
+    /**
+     * Esegue il check-in se il biglietto appartiene a un varco aperto.
+     * L'ingresso è confermato solo dopo che il record è durevole nel journal.
+     *
+     * @param ticketId L'ID del biglietto
+     * @param context Il varco da cui proviene la scansione
+     * @return L'esito del check-in, oppure vuoto se il biglietto non è gestito da nessun varco
+     */
+    public Optional<CheckInOutcome> checkIn(UUID ticketId, ScanContext context) {
+        return checkIn(currentGates(), ticketId, context, false);
+    }
+
+    GateCheckInIndex[] currentGates() {
+        return openGates;
+    }
+
+    /**
+     * Check-in con il database non disponibile, sulle liste dei biglietti validi in memoria.
+     * Come in modalità varco l'ingresso è confermato dopo la scrittura sul journal e viene
+     * scritto sul database in batch quando torna disponibile.
+     *
+     * @param ticketId L'ID del biglietto
+     * @param context Il varco da cui proviene la scansione
+     * @return L'esito del check-in, oppure vuoto se il biglietto non è in nessuna lista
+     */
+    public Optional<CheckInOutcome> checkInDegraded(UUID ticketId, ScanContext context) {
+        Optional<CheckInOutcome> outcome = checkIn(standbyGates, ticketId, context, true);
+        if (outcome.isPresent() && outcome.get() instanceof CheckInOutcome.Admitted) {
+            degradedCounter.increment();
+            log.warn("Biglietto {} ammesso in modalità degradata, da riallineare sul database", ticketId);
+        }
+        return outcome;
+    }
+
+    /**
+     * Rifiuta un biglietto ammesso in modalità degradata, o da un varco in chiusura, il cui ingresso
+     * non è ancora stato scritto sul database: fino alla scrittura il database lo considera ancora valido.
+     *
+     * @param ticketId L'ID del biglietto
+     * @param context Il varco da cui proviene la scansione
+     * @return L'esito di biglietto già usato, oppure vuoto se la decisione spetta al database
+     */
+    public Optional<CheckInOutcome> rejectPending(UUID ticketId, ScanContext context) {
+        if (pendingCount.get() == 0) {
+            return Optional.empty();
+        }
+        if (isUsed(closingGates, ticketId, context) || isUsed(standbyGates, ticketId, context)) {
+            recordRejection(ticketId, context);
+            return Optional.of(new CheckInOutcome.AlreadyUsed(ticketId));
+        }
+        return Optional.empty();
+    }
+
+    private static boolean isUsed(GateCheckInIndex[] current, UUID ticketId, ScanContext context) {
+        for (GateCheckInIndex index : current) {
+            if (!context.admits(index.eventName())) {
+                continue;
+            }
+            int slot = index.find(ticketId);
+            if (slot >= 0 && index.isUsed(slot)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Optional<CheckInOutcome> checkIn(GateCheckInIndex[] current, UUID ticketId, ScanContext context,
+                                             boolean degraded) {
+        if (current.length == 0) {
+            return Optional.empty();
+        }
+        long start = System.nanoTime();
+        for (GateCheckInIndex index : current) {
+            if (!context.admits(index.eventName())) {
+                continue;
+            }
+            int slot = index.find(ticketId);
+            if (slot < 0) {
+                continue;
+            }
+            if (!index.tryCheckIn(slot)) {
+                recordRejection(ticketId, context);
+                return Optional.of(new CheckInOutcome.AlreadyUsed(ticketId));
+            }
+            boolean appended = false;
+            try {
+                long lsn;
+                appendLock.lock();
+                try {
+                    if (index.isClosed()) {
+                        // Varco chiuso dopo la lettura: la chiusura non scriverebbe l'ingresso, decide il database
+                        index.revertCheckIn(slot);
+                        return Optional.empty();
+                    }
+                    lsn = journal.append(ticketId, context.gate(), ScanOutcome.ADMITTED, System.currentTimeMillis());
+                    pending.add(ticketId);
+                    pendingCount.incrementAndGet();
+                    appended = true;
+                } finally {
+                    appendLock.unlock();
+                }
+                journal.awaitDurable(lsn);
+            } catch (IOException e) {
+                if (!degraded) {
+                    // Lo slot resta USED: il percorso su database registra l'ingresso in modo sincrono
+                    log.error("Scrittura sul journal fallita, check-in del biglietto {} su database", ticketId, e);
+                    return Optional.empty();
+                }
+                if (!appended || withdraw(ticketId, context)) {
+                    // Nessun percorso alternativo: l'ingresso non è confermato
+                    index.revertCheckIn(slot);
+                    log.error("Scrittura sul journal fallita, check-in degradato del biglietto {} rifiutato", ticketId, e);
+                    return Optional.empty();
+                }
+                // Check-in scritto sul database durante l'attesa: l'ingresso è confermato
+                log.warn("Scrittura sul journal fallita, check-in degradato del biglietto {} già sul database", ticketId);
+            }
+            checkInTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return Optional.of(new CheckInOutcome.Admitted(TicketValidationResponseDTO.builder()
+                    .valid(true)
+                    .message(degraded
+                            ? "Biglietto valido (database non disponibile, ingresso da riallineare)"
+                            : "Biglietto valido e registrato come usato")
+                    .eventName(index.eventName())
+                    .userName(index.userName(slot))
+                    .build()));
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Ritira dalla coda di scrittura un check-in il cui record sul journal non è diventato durevole,
+     * e lo annulla nel journal perché non venga riapplicato al riavvio. Il lock dell'istanza esclude
+     * una scrittura in batch in corso: il check-in è ancora in coda, oppure è già sul database.
+     *
+     * @return true se il check-in è stato ritirato, false se è già stato scritto sul database
+     */
+    private synchronized boolean withdraw(UUID ticketId, ScanContext context) {
+        appendLock.lock();
+        try {
+            // Dopo una scrittura fallita il check-in resta tra quelli da riprovare
+            if (!pending.remove(ticketId) && !retry.remove(ticketId)) {
+                return false;
+            }
+            pendingCount.decrementAndGet();
+            try {
+                journal.revoke(ticketId, context.gate(), System.currentTimeMillis());
+            } catch (IOException e) {
+                log.warn("Annullamento del check-in sul journal fallito per il biglietto {}", ticketId, e);
+            }
+            return true;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Registra un check-in fatto sul database: il biglietto risulta usato anche nella lista
+     * dei biglietti validi dell'evento, che viene caricata (o riletta, se scaduta) in background.
+     *
+     * @param eventName L'evento del biglietto
+     * @param ticketId L'ID del biglietto
+     */
+    public void admittedOnDatabase(String eventName, UUID ticketId) {
+        if (!degradedCheckIn || eventName == null) {
+            return;
+        }
+        // Prima la coda del caricamento in corso, poi la lista: nessun ingresso va perso tra i due
+        loadingAllowLists.computeIfPresent(eventName, (name, admitted) -> {
+            admitted.add(ticketId);
+            return admitted;
+        });
+        AllowList allowList = allowLists.get(eventName);
+        if (allowList != null) {
+            allowList.markUsed(ticketId);
+            if (System.nanoTime() - allowList.loadedAt() < allowListRefreshNanos) {
+                return;
+            }
+        }
+        if (loadingAllowLists.putIfAbsent(eventName, new ConcurrentLinkedQueue<>()) == null) {
+            writer.execute(() -> loadAllowList(eventName));
+        }
+    }
+
+    private void loadAllowList(String eventName) {
+        try {
+            if (allowLists.containsKey(eventName) && pendingCount.get() > 0) {
+                return; // check-in non ancora scritti: la rilettura li farebbe tornare validi
+            }
+            ensureJournal();
+            List<TicketCheckInView> tickets = transactionTemplate.execute(status -> {
+                try (Stream<TicketCheckInView> rows = ticketRepository.streamCheckInStateByEventName(eventName)) {
+                    return rows.toList();
+                }
+            });
+            if (tickets == null || tickets.isEmpty()) {
+                return;
+            }
+            AllowList allowList = new AllowList(GateCheckInIndex.build(eventName, tickets), System.nanoTime());
+            allowLists.put(eventName, allowList);
+            standbyGates = allowLists.values().stream().map(AllowList::index).toArray(GateCheckInIndex[]::new);
+            log.debug("Lista dei biglietti validi dell'evento {} caricata: {} biglietti", eventName, tickets.size());
+        } catch (RuntimeException e) {
+            log.warn("Caricamento della lista dei biglietti validi dell'evento {} fallito: {}", eventName, e.getMessage());
+        } finally {
+            ConcurrentLinkedQueue<UUID> admitted = loadingAllowLists.remove(eventName);
+            AllowList allowList = allowLists.get(eventName);
+            if (admitted != null && allowList != null) {
+                admitted.forEach(allowList::markUsed);
+            }
+        }
+    }
+
+    /**
+     * @return I biglietti nelle liste in memoria per il check-in degradato
+     */
+    public int allowListTickets() {
+        return Stream.of(standbyGates).mapToInt(GateCheckInIndex::size).sum();
+    }
+
+    /**
+     * @return I check-in (del varco o degradati) non ancora scritti sul database
+     */
+    public int pendingWrites() {
+        return pendingCount.get();
+    }
+
+    /**
+     * Scrive sul database i check-in in attesa e avanza il checkpoint del journal,
+     * che rimuove i segmenti ormai applicati.
+     */
+    public synchronized void flush() {
+        if (journal == null) {
+            return;
+        }
+        long checkpoint;
+        appendLock.lock();
+        try {
+            UUID id;
+            while ((id = pending.poll()) != null) {
+                retry.add(id);
+            }
+            // Tutti gli ingressi fino a questa posizione sono nel batch (o già applicati)
+            checkpoint = journal.writePosition();
+        } finally {
+            appendLock.unlock();
+        }
+        if (!retry.isEmpty()) {
+            persist(retry);
+            flushedCounter.increment(retry.size());
+            pendingCount.addAndGet(-retry.size());
+            retry.clear();
+        }
+        try {
+            journal.checkpoint(checkpoint);
+        } catch (IOException e) {
+            // Il checkpoint precedente resta valido: al riavvio i check-in vengono riapplicati (idempotente)
+            log.warn("Aggiornamento del checkpoint del journal fallito", e);
+        }
+    }
+
+    /**
+     * Riapplica al database i check-in rimasti nel journal dopo un arresto non pulito.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void replayJournal() {
+        try {
+            if (journal == null && CheckInJournal.hasSegments(Path.of(settings.getJournalDir()))) {
+                ensureJournal();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Lettura del journal dei check-in fallita", e);
+        }
+    }
+
+    private void persist(List<UUID> ids) {
+        int batchSize = Math.max(1, settings.getBatchSize());
+        for (int from = 0; from < ids.size(); from += batchSize) {
+            List<UUID> chunk = ids.subList(from, Math.min(ids.size(), from + batchSize));
+            TicketPersistEvent event = new TicketPersistEvent();
+            event.begin();
+            Map<String, Integer> entered = transactionTemplate.execute(status -> {
+                List<Ticket> tickets = ticketRepository.findAllById(chunk);
+                Map<String, Integer> admitted = new HashMap<>();
+                for (Ticket ticket : tickets) {
+                    // Dopo un crash il journal può riproporre check-in già scritti: contati una volta sola
+                    if (ticket.isValid()) {
+                        admitted.merge(ticket.getEventName(), 1, Integer::sum);
+                        ticket.setValid(false);
+                        outboxService.ticketUsed(ticket);
+                    }
+                }
+                ticketRepository.saveAll(tickets);
+                return admitted;
+            });
+            JfrEvents.commit(event, TicketPersistEvent.GATE_CHECK_IN, chunk.size());
+            if (entered != null) {
+                entered.forEach(eventService::recordEntered);
+            }
+        }
+    }
+
+    private synchronized void ensureJournal() {
+        if (journal != null) {
+            return;
+        }
+        try {
+            CheckInJournal opened = openJournal(Path.of(settings.getJournalDir()), settings.getSegmentRecords());
+            long start = System.nanoTime();
+            CheckInJournal.Recovery recovery = opened.recover();
+            persist(recovery.admitted());
+            opened.checkpoint(recovery.endLsn());
+            if (recovery.records() > 0) {
+                log.info("Riapplicati {} check-in dal journal ({} record) in {} ms", recovery.admitted().size(),
+                        recovery.records(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            }
+            journal = opened;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Impossibile aprire il journal dei check-in", e);
+        }
+    }
+
+    CheckInJournal openJournal(Path directory, int segmentRecords) throws IOException {
+        return new CheckInJournal(directory, segmentRecords);
+    }
+
+    private void recordRejection(UUID ticketId, ScanContext context) {
+        try {
+            // Solo per traccia: un rifiuto non richiede di attendere la sincronizzazione
+            journal.append(ticketId, context.gate(), ScanOutcome.ALREADY_USED, System.currentTimeMillis());
+        } catch (IOException e) {
+            log.warn("Scrittura del rifiuto sul journal fallita per il biglietto {}", ticketId, e);
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            // I check-in restano in coda e nel journal: verranno riprovati al prossimo giro
+            log.error("Scrittura dei check-in del varco sul database fallita", e);
+        }
+    }
+
+    private GateStatusDTO toStatus(GateCheckInIndex index) {
+        return GateStatusDTO.builder()
+                .eventName(index.eventName())
+                .tickets(index.size())
+                .checkedIn(index.checkedInCount())
+                .pendingWrites(pendingCount.get())
+                .build();
+    }
+
+    /**
+     * Lista dei biglietti validi di un evento per il check-in degradato.
+     */
+    private record AllowList(GateCheckInIndex index, long loadedAt) {
+        void markUsed(UUID ticketId) {
+            int slot = index.find(ticketId);
+            if (slot >= 0) {
+                index.tryCheckIn(slot);
+            }
+        }
+    }
+
+    @PreDestroy
+    synchronized void shutdown() throws IOException {
+        writer.shutdown();
+        if (journal != null) {
+            flushQuietly();
+            journal.close();
+        }
+    }
+}
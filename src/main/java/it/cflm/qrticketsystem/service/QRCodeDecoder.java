@@ -0,0 +1,241 @@
+package it.cflm.qrticketsystem.service;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+import org.springframework.stereotype.Service;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.ChecksumException;
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.FormatException;
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.NotFoundException;
+import com.google.zxing.PlanarYUVLuminanceSource;
+import com.google.zxing.client.j2se.BufferedImageLuminanceSource;
+import com.google.zxing.common.HybridBinarizer;
+import com.google.zxing.qrcode.QRCodeReader;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import it.cflm.qrticketsystem.config.QRCodeConfig;
+import it.cflm.qrticketsystem.exception.DecoderBusyException;
+import it.cflm.qrticketsystem.exception.QRCodeDecodingException;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Servizio di decodifica lato server dei QR Code contenuti nei frame inviati
+ * dalle telecamere fisse e dai kiosk.
+ *
+ * <ul>
+ *   <li>Il frame viene decodificato già ridotto (subsampling del reader ImageIO), senza
+ *       allocare l'immagine a piena risoluzione.</li>
+ *   <li>La luminanza è calcolata in un solo passaggio dai byte del raster e passata a ZXing
+ *       senza ulteriori copie.</li>
+ *   <li>La decodifica gira su un pool di thread con coda limitata: a coda piena la richiesta
+ *       viene rifiutata subito ({@link DecoderBusyException}) invece di accumulare latenza.</li>
+ * </ul>
+ */
+@Service
+@Slf4j
+public class QRCodeDecoder {
+
+    private static final Map<DecodeHintType, Object> DECODE_HINTS = Map.of(
+            DecodeHintType.TRY_HARDER, Boolean.TRUE,
+            DecodeHintType.POSSIBLE_FORMATS, List.of(BarcodeFormat.QR_CODE));
+
+    private final QRCodeConfig.Decoder settings;
+    private final ThreadPoolExecutor executor;
+    private final Timer queueTimer;
+    private final Timer decodeTimer;
+    private final Counter rejectedCounter;
+
+    public QRCodeDecoder(QRCodeConfig qrCodeConfig, MeterRegistry meterRegistry) {
+        this.settings = qrCodeConfig.getDecoder();
+        int threads = Math.max(1, settings.getThreads());
+        AtomicInteger threadCounter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, settings.getQueueCapacity())),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "qr-decode-" + threadCounter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        this.queueTimer = Timer.builder("qrticket.decode.queue")
+                .description("Attesa in coda dei frame prima della decodifica")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.decodeTimer = Timer.builder("qrticket.decode.latency")
+                .description("Durata della decodifica di un frame (lettura, luminanza, ZXing)")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("qrticket.decode.rejected")
+                .description("Frame rifiutati per coda di decodifica piena o timeout")
+                .register(meterRegistry);
+        Gauge.builder("qrticket.decode.queue.size", executor, pool -> pool.getQueue().size())
+                .description("Frame in attesa di decodifica")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Decodifica il QR Code contenuto in un frame JPEG o PNG.
+     *
+     * @param frame I byte dell'immagine
+     * @return Il testo decodificato e le latenze misurate
+     * @throws DecoderBusyException se la coda è piena o il tempo massimo è scaduto
+     * @throws QRCodeDecodingException se il frame non contiene un QR Code leggibile
+     */
+    public DecodedFrame decode(byte[] frame) {
+        long submittedAt = System.nanoTime();
+        Future<DecodedFrame> future;
+        try {
+            future = executor.submit(() -> decodeNow(frame, submittedAt));
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            throw new DecoderBusyException("Decodifica sovraccarica, riprovare");
+        }
+
+        try {
+            return future.get(settings.getTimeoutMs(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            rejectedCounter.increment();
+            throw new DecoderBusyException("Decodifica del frame non completata in tempo, riprovare");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DecoderBusyException("Decodifica interrotta");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof QRCodeDecodingException decodingException) {
+                throw decodingException;
+            }
+            throw new QRCodeDecodingException("Errore durante la decodifica del frame", e.getCause());
+        }
+    }
+
+    private DecodedFrame decodeNow(byte[] frame, long submittedAt) {
+        long startedAt = System.nanoTime();
+        long queueNanos = startedAt - submittedAt;
+        queueTimer.record(queueNanos, TimeUnit.NANOSECONDS);
+        try {
+            LuminanceSource source = readLuminance(frame);
+            String text = new QRCodeReader()
+                    .decode(new BinaryBitmap(new HybridBinarizer(source)), DECODE_HINTS)
+                    .getText();
+            long decodeNanos = System.nanoTime() - startedAt;
+            log.debug("Frame {}x{} decodificato in {} µs",
+                    source.getWidth(), source.getHeight(), decodeNanos / 1000);
+            return new DecodedFrame(text, queueNanos, decodeNanos);
+        } catch (NotFoundException | ChecksumException | FormatException e) {
+            throw new QRCodeDecodingException("Nessun QR Code leggibile nel frame");
+        } catch (IOException e) {
+            throw new QRCodeDecodingException("Immagine non valida", e);
+        } finally {
+            decodeTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Legge il frame con un passo di subsampling tale che il lato maggiore non superi
+     * {@code qrcode.decoder.max-dimension}: il reader scarta i pixel in decodifica.
+     */
+    private LuminanceSource readLuminance(byte[] frame) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(new ByteArrayInputStream(frame))) {
+            Iterator<ImageReader> readers = input != null ? ImageIO.getImageReaders(input) : null;
+            if (readers == null || !readers.hasNext()) {
+                throw new QRCodeDecodingException("Formato immagine non supportato");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int longestSide = Math.max(reader.getWidth(0), reader.getHeight(0));
+                int maxDimension = Math.max(1, settings.getMaxDimension());
+                int step = Math.max(1, (longestSide + maxDimension - 1) / maxDimension);
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                return toLuminance(reader.read(0, param));
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Converte l'immagine in luminanza lavorando direttamente sui byte del raster.
+     * Per i frame in scala di grigi il buffer viene riusato senza copia.
+     */
+    static LuminanceSource toLuminance(BufferedImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        DataBuffer buffer = image.getRaster().getDataBuffer();
+        if (!(buffer instanceof DataBufferByte byteBuffer) || buffer.getNumBanks() != 1) {
+            return new BufferedImageLuminanceSource(image);
+        }
+        byte[] data = byteBuffer.getData();
+        int pixels = width * height;
+
+        if (image.getType() == BufferedImage.TYPE_BYTE_GRAY && data.length == pixels) {
+            return new PlanarYUVLuminanceSource(data, width, height, 0, 0, width, height, false);
+        }
+        if (image.getType() == BufferedImage.TYPE_3BYTE_BGR && data.length == pixels * 3) {
+            byte[] luminance = new byte[pixels];
+            for (int i = 0, offset = 0; i < pixels; i++, offset += 3) {
+                int blue = data[offset] & 0xFF;
+                int green = data[offset + 1] & 0xFF;
+                int red = data[offset + 2] & 0xFF;
+                // Stessi pesi (fixed point) di BufferedImageLuminanceSource
+                luminance[i] = (byte) ((306 * red + 601 * green + 117 * blue + 0x200) >> 10);
+            }
+            return new PlanarYUVLuminanceSource(luminance, width, height, 0, 0, width, height, false);
+        }
+        return new BufferedImageLuminanceSource(image);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Risultato della decodifica di un frame.
+     *
+     * @param text Il testo contenuto nel QR Code
+     * @param queueNanos Il tempo trascorso in coda
+     * @param decodeNanos Il tempo di decodifica
+     */
+    public record DecodedFrame(String text, long queueNanos, long decodeNanos) {
+
+        /**
+         * Valore per l'header {@code Server-Timing} (durate in millisecondi).
+         */
+        public String serverTiming() {
+            return String.format(Locale.ROOT, "queue;dur=%.2f, decode;dur=%.2f",
+                    queueNanos / 1_000_000.0, decodeNanos / 1_000_000.0);
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package it.cflm.qrticketsystem.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.UUID;
+
+import org.springframework.stereotype.Component;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.EncodeHintType;
+import com.google.zxing.WriterException;
+import com.google.zxing.client.j2se.MatrixToImageWriter;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.qrcode.QRCodeWriter;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import com.google.zxing.qrcode.encoder.Encoder;
+import com.google.zxing.qrcode.encoder.QRCode;
+
+import it.cflm.qrticketsystem.config.QRCodeConfig;
+import it.cflm.qrticketsystem.config.QRCodeConfig.PayloadEncoding;
+import it.cflm.qrticketsystem.dto.QrCodeEncodingReportDTO;
+import it.cflm.qrticketsystem.exception.QRCodeGenerationException;
+import it.cflm.qrticketsystem.jfr.QrRenderEvent;
+import it.cflm.qrticketsystem.util.SvgQrCodeWriter;
+import it.cflm.qrticketsystem.util.TicketPayloadCodec;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Componente responsabile del rendering dei QR Code.
+ * È stateless e thread-safe, quindi può essere usato in parallelo
+ * (es. dall'export massivo degli eventi).
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class QRCodeGenerator {
+
+    /** ID di esempio: la lunghezza del contenuto non dipende dal valore dell'UUID. */
+    private static final UUID SAMPLE_TICKET_ID = UUID.fromString("123e4567-e89b-12d3-a456-426614174000");
+
+    private final QRCodeConfig qrCodeConfig;
+
+    /**
+     * Genera un'immagine QR Code come array di byte nel formato configurato.
+     *
+     * @param text Il testo da codificare nel QR Code.
+     * @return L'immagine del QR Code come array di byte.
+     * @throws QRCodeGenerationException Se si verifica un errore durante la generazione del QR Code.
+     */
+    public byte[] generate(String text) {
+        return generate(text, qrCodeConfig.getErrorCorrection());
+    }
+
+    /**
+     * Come {@link #generate(String)}, con il livello di correzione errori di un evento.
+     *
+     * @param text Il testo da codificare nel QR Code.
+     * @param errorCorrection Il livello di correzione errori.
+     * @return L'immagine del QR Code come array di byte.
+     * @throws QRCodeGenerationException Se si verifica un errore durante la generazione del QR Code.
+     */
+    public byte[] generate(String text, ErrorCorrectionLevel errorCorrection) {
+        QrRenderEvent event = new QrRenderEvent();
+        event.begin();
+        try {
+            log.debug("Generazione QR Code per: {}", text);
+            BitMatrix bitMatrix = encode(text, qrCodeConfig.getWidth(), qrCodeConfig.getHeight(), errorCorrection);
+            ByteArrayOutputStream pngOutputStream = new ByteArrayOutputStream();
+            MatrixToImageWriter.writeToStream(bitMatrix, qrCodeConfig.getFormat(), pngOutputStream);
+            log.debug("QR Code generato con successo");
+            byte[] image = pngOutputStream.toByteArray();
+            commit(event, qrCodeConfig.getFormat(), qrCodeConfig.getWidth(), qrCodeConfig.getHeight(), image);
+            return image;
+        } catch (IOException e) {
+            log.error("Errore durante la generazione del QR Code", e);
+            throw new QRCodeGenerationException("Errore durante la generazione del QR Code", e);
+        }
+    }
+
+    /**
+     * Genera un QR Code nella variante richiesta (formato e dimensione).
+     * Per SVG la matrice è codificata a risoluzione di modulo e scritta come path vettoriale.
+     *
+     * @param text Il testo da codificare nel QR Code.
+     * @param variant La variante da generare.
+     * @return L'immagine del QR Code come array di byte.
+     * @throws QRCodeGenerationException Se si verifica un errore durante la generazione del QR Code.
+     */
+    public byte[] generate(String text, QrCodeVariant variant) {
+        return generate(text, variant, qrCodeConfig.getErrorCorrection());
+    }
+
+    /**
+     * Come {@link #generate(String, QrCodeVariant)}, con il livello di correzione errori di un evento.
+     *
+     * @param text Il testo da codificare nel QR Code.
+     * @param variant La variante da generare.
+     * @param errorCorrection Il livello di correzione errori.
+     * @return L'immagine del QR Code come array di byte.
+     * @throws QRCodeGenerationException Se si verifica un errore durante la generazione del QR Code.
+     */
+    public byte[] generate(String text, QrCodeVariant variant, ErrorCorrectionLevel errorCorrection) {
+        QrRenderEvent event = new QrRenderEvent();
+        event.begin();
+        try {
+            log.debug("Generazione QR Code {} {}px per: {}", variant.format(), variant.size(), text);
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            if (variant.format() == QrCodeFormat.SVG) {
+                Writer writer = new OutputStreamWriter(outputStream, StandardCharsets.UTF_8);
+                SvgQrCodeWriter.write(encode(text, 0, 0, errorCorrection), variant.size(), writer);
+                writer.flush();
+            } else {
+                MatrixToImageWriter.writeToStream(
+                        encode(text, variant.size(), variant.size(), errorCorrection), "PNG", outputStream);
+            }
+            byte[] image = outputStream.toByteArray();
+            commit(event, variant.format().name(), variant.size(), variant.size(), image);
+            return image;
+        } catch (IOException e) {
+            log.error("Errore durante la generazione del QR Code", e);
+            throw new QRCodeGenerationException("Errore durante la generazione del QR Code", e);
+        }
+    }
+
+    private static void commit(QrRenderEvent event, String format, int width, int height, byte[] image) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.setFormat(format);
+            event.setWidth(width);
+            event.setHeight(height);
+            event.setBytes(image.length);
+            event.commit();
+        }
+    }
+
+    /**
+     * Descrive il simbolo che si ottiene codificando l'ID di un biglietto con il formato
+     * e il livello di correzione indicati, alla dimensione e al margine configurati.
+     *
+     * @param encoding Il formato del contenuto
+     * @param errorCorrection Il livello di correzione errori
+     * @return Versione, moduli e dimensione del modulo in pixel
+     */
+    public QrCodeEncodingReportDTO describe(PayloadEncoding encoding, ErrorCorrectionLevel errorCorrection) {
+        String payload = TicketPayloadCodec.encode(SAMPLE_TICKET_ID, encoding);
+        Map<EncodeHintType, Object> hints = qrCodeConfig.toEncodeHints();
+        hints.put(EncodeHintType.ERROR_CORRECTION, errorCorrection);
+        try {
+            QRCode qrCode = Encoder.encode(payload, errorCorrection, hints);
+            int modules = qrCode.getVersion().getDimensionForVersion();
+            int withQuietZone = modules + 2 * qrCodeConfig.getMargin();
+            int side = Math.min(qrCodeConfig.getWidth(), qrCodeConfig.getHeight());
+            int moduleSize = Math.max(1, side / withQuietZone);
+            return QrCodeEncodingReportDTO.builder()
+                    .payloadEncoding(encoding.name())
+                    .errorCorrection(errorCorrection.name())
+                    .payloadLength(payload.length())
+                    .mode(qrCode.getMode().name())
+                    .version(qrCode.getVersion().getVersionNumber())
+                    .modules(modules)
+                    .moduleSizePx(moduleSize)
+                    .active(encoding == qrCodeConfig.getPayloadEncoding()
+                            && errorCorrection == qrCodeConfig.getErrorCorrection())
+                    .build();
+        } catch (WriterException e) {
+            throw new QRCodeGenerationException("Errore durante l'analisi del QR Code", e);
+        }
+    }
+
+    private BitMatrix encode(String text, int width, int height, ErrorCorrectionLevel errorCorrection) {
+        Map<EncodeHintType, Object> hints = qrCodeConfig.toEncodeHints();
+        hints.put(EncodeHintType.ERROR_CORRECTION, errorCorrection);
+        try {
+            return new QRCodeWriter().encode(text, BarcodeFormat.QR_CODE, width, height, hints);
+        } catch (WriterException e) {
+            log.error("Errore durante la codifica del QR Code", e);
+            throw new QRCodeGenerationException("Errore durante la generazione del QR Code", e);
+        }
+    }
+}
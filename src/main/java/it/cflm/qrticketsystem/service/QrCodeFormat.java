@@ -0,0 +1,83 @@
+package it.cflm.qrticketsystem.service;
+
+import java.util.List;
+import java.util.Locale;
+
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+
+import it.cflm.qrticketsystem.exception.InvalidQrCodeFormatException;
+
+/**
+ * Formati di output supportati per le immagini dei QR Code.
+ */
+public enum QrCodeFormat {
+    PNG(MediaType.IMAGE_PNG, "png"),
+    SVG(MediaType.parseMediaType("image/svg+xml"), "svg");
+
+    private final MediaType mediaType;
+    private final String extension;
+
+    QrCodeFormat(MediaType mediaType, String extension) {
+        this.mediaType = mediaType;
+        this.extension = extension;
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * Converte il nome di un formato (es. "svg") nel valore corrispondente.
+     *
+     * @throws InvalidQrCodeFormatException se il formato non è supportato
+     */
+    public static QrCodeFormat fromName(String name) {
+        try {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidQrCodeFormatException("Formato QR Code non supportato: " + name);
+        }
+    }
+
+    /**
+     * Sceglie il formato in base all'header Accept: SVG solo se ha una qualità maggiore di quella
+     * che l'header assegna a PNG, esplicitamente o tramite un intervallo come {@code image/*}.
+     * Gli header di default dei browser, che elencano SVG accanto a {@code image/*}, restano su PNG.
+     *
+     * @param accept Il valore dell'header Accept (può essere null)
+     * @return Il formato da restituire
+     */
+    public static QrCodeFormat fromAcceptHeader(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return PNG;
+        }
+        List<MediaType> mediaTypes;
+        try {
+            mediaTypes = MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException e) {
+            return PNG;
+        }
+        double svgQuality = 0;
+        double pngQuality = 0;
+        int pngSpecificity = -1; // la qualità di PNG è quella dell'intervallo più specifico che lo include
+        for (MediaType mediaType : mediaTypes) {
+            if (mediaType.equalsTypeAndSubtype(SVG.mediaType)) {
+                svgQuality = Math.max(svgQuality, mediaType.getQualityValue());
+            } else if (mediaType.includes(PNG.mediaType)) {
+                int specificity = mediaType.isWildcardType() ? 0 : mediaType.isWildcardSubtype() ? 1 : 2;
+                if (specificity > pngSpecificity) {
+                    pngSpecificity = specificity;
+                    pngQuality = mediaType.getQualityValue();
+                } else if (specificity == pngSpecificity) {
+                    pngQuality = Math.max(pngQuality, mediaType.getQualityValue());
+                }
+            }
+        }
+        return svgQuality > pngQuality ? SVG : PNG;
+    }
+}
@@ -0,0 +1,141 @@
+package it.cflm.qrticketsystem.service;
+
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import it.cflm.qrticketsystem.config.QRCodeConfig;
+import it.cflm.qrticketsystem.jfr.JfrEvents;
+import it.cflm.qrticketsystem.jfr.TicketPersistEvent;
+import it.cflm.qrticketsystem.model.QrCodeStatus;
+import it.cflm.qrticketsystem.repository.TicketRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Pipeline in background per il rendering dei QR Code dei biglietti appena acquistati.
+ *
+ * La transazione di acquisto esegue solo l'INSERT: il rendering (CPU-bound) parte dopo il
+ * commit su un pool con coda limitata e l'immagine viene salvata in una transazione breve
+ * separata. Se la coda è piena il biglietto resta {@link QrCodeStatus#PENDING} e viene
+ * renderizzato in modo sincrono alla prima richiesta dell'immagine.
+ */
+@Component
+@Slf4j
+public class QrCodeRenderPipeline {
+
+    private final TicketRepository ticketRepository;
+    private final QRCodeGenerator qrCodeGenerator;
+    private final TransactionTemplate writeTransaction;
+    private final ThreadPoolExecutor executor;
+    private final Timer renderTimer;
+    private final Counter rejectedCounter;
+
+    public QrCodeRenderPipeline(TicketRepository ticketRepository,
+                                QRCodeGenerator qrCodeGenerator,
+                                QRCodeConfig qrCodeConfig,
+                                PlatformTransactionManager transactionManager,
+                                MeterRegistry meterRegistry) {
+        this.ticketRepository = ticketRepository;
+        this.qrCodeGenerator = qrCodeGenerator;
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.writeTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        QRCodeConfig.Pipeline settings = qrCodeConfig.getPipeline();
+        int threads = Math.max(1, settings.getThreads());
+        AtomicInteger threadCounter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, settings.getQueueCapacity())),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "qr-render-" + threadCounter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        this.renderTimer = Timer.builder("qrticket.render.latency")
+                .description("Durata del rendering di un QR Code")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("qrticket.render.rejected")
+                .description("Rendering non accodati per coda piena (eseguiti alla prima lettura)")
+                .register(meterRegistry);
+        Gauge.builder("qrticket.render.queue.size", executor, pool -> pool.getQueue().size())
+                .description("Biglietti in attesa di rendering del QR Code")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Accoda il rendering del QR Code dopo il commit della transazione di acquisto.
+     *
+     * @param event L'evento di creazione del biglietto
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTicketIssued(TicketIssuedEvent event) {
+        try {
+            executor.execute(() -> {
+                try {
+                    renderAndStore(event.ticketId(), event.qrCodeData(), event.errorCorrection());
+                } catch (RuntimeException e) {
+                    log.error("Rendering in background fallito per il biglietto {}", event.ticketId(), e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            log.warn("Coda di rendering piena, QR Code del biglietto {} renderizzato alla prima lettura",
+                    event.ticketId());
+        }
+    }
+
+    /**
+     * Renderizza subito il QR Code di un biglietto e lo salva, restituendo l'immagine.
+     * Usato in caso di miss quando l'immagine è ancora in attesa.
+     *
+     * @param ticketId L'ID del biglietto
+     * @param qrCodeData Il contenuto da codificare
+     * @param errorCorrection Il livello di correzione errori dell'evento
+     * @return L'immagine del QR Code
+     */
+    public byte[] renderNow(UUID ticketId, String qrCodeData, ErrorCorrectionLevel errorCorrection) {
+        return renderAndStore(ticketId, qrCodeData, errorCorrection);
+    }
+
+    private byte[] renderAndStore(UUID ticketId, String qrCodeData, ErrorCorrectionLevel errorCorrection) {
+        long start = System.nanoTime();
+        byte[] image = qrCodeGenerator.generate(qrCodeData, errorCorrection);
+        renderTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+        TicketPersistEvent persist = new TicketPersistEvent();
+        persist.begin();
+        writeTransaction.executeWithoutResult(status ->
+                ticketRepository.findById(ticketId)
+                        .filter(ticket -> ticket.getQrStatus() != QrCodeStatus.READY)
+                        .ifPresent(ticket -> {
+                            ticket.setQrCodeImage(image);
+                            ticket.setQrStatus(QrCodeStatus.READY);
+                        }));
+        JfrEvents.commit(persist, TicketPersistEvent.QR_IMAGE, 1);
+        log.debug("QR Code del biglietto {} renderizzato e salvato", ticketId);
+        return image;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,20 @@
+package it.cflm.qrticketsystem.service;
+
+/**
+ * Variante di rendering di un QR Code: formato e lato in pixel.
+ * Per SVG il lato è solo la dimensione nominale, l'immagine è vettoriale.
+ *
+ * @param format Il formato dell'immagine
+ * @param size Il lato dell'immagine in pixel
+ */
+public record QrCodeVariant(QrCodeFormat format, int size) {
+
+    public QrCodeVariant {
+        if (format == null) {
+            throw new IllegalArgumentException("Il formato del QR Code è obbligatorio");
+        }
+        if (size <= 0) {
+            throw new IllegalArgumentException("La dimensione del QR Code deve essere positiva");
+        }
+    }
+}
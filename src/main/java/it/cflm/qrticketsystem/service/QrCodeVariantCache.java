@@ -0,0 +1,50 @@
+package it.cflm.qrticketsystem.service;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import it.cflm.qrticketsystem.config.QRCodeConfig;
+
+/**
+ * Cache in memoria delle varianti renderizzate dei QR Code.
+ *
+ * Ogni combinazione biglietto/formato/dimensione è una voce separata, così i render piccoli
+ * per smartphone non invalidano quelli vettoriali per la stampa. La cache è limitata
+ * per peso (byte delle immagini) e non per numero di voci.
+ */
+@Component
+public class QrCodeVariantCache {
+
+    private final Cache<Key, byte[]> cache;
+
+    public QrCodeVariantCache(QRCodeConfig qrCodeConfig) {
+        QRCodeConfig.VariantCache settings = qrCodeConfig.getVariantCache();
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(settings.getMaxWeightBytes())
+                .weigher((Key key, byte[] image) -> image.length)
+                .expireAfterAccess(Duration.ofSeconds(settings.getExpireAfterAccessSeconds()))
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Restituisce la variante dalla cache, renderizzandola al primo accesso.
+     *
+     * @param ticketId L'ID del biglietto
+     * @param variant La variante richiesta
+     * @param renderer Funzione di rendering invocata solo in caso di miss
+     * @return L'immagine della variante
+     */
+    public byte[] get(UUID ticketId, QrCodeVariant variant, Supplier<byte[]> renderer) {
+        return cache.get(new Key(ticketId, variant), key -> renderer.get());
+    }
+
+    record Key(UUID ticketId, QrCodeVariant variant) {
+    }
+}
@@ -0,0 +1,233 @@
+package it.cflm.qrticketsystem.service;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import it.cflm.qrticketsystem.config.AuditProperties;
+import it.cflm.qrticketsystem.jfr.JfrEvents;
+import it.cflm.qrticketsystem.jfr.TicketPersistEvent;
+import it.cflm.qrticketsystem.model.ScanEvent;
+import it.cflm.qrticketsystem.model.ScanOutcome;
+import it.cflm.qrticketsystem.repository.ScanEventRepository;
+import it.cflm.qrticketsystem.repository.ScanRejectionSummary;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Traccia di audit delle scansioni (ingressi, biglietti già usati, QR Code non riconosciuti).
+ *
+ * La registrazione non tocca il database: l'evento entra in una coda lock-free limitata e
+ * un thread dedicato lo scrive con insert JDBC in batch, a intervalli regolari o appena la
+ * coda raggiunge la dimensione del batch. Se la coda è piena l'evento viene scartato e
+ * conteggiato, così l'audit non rallenta mai il check-in. Le interrogazioni vedono le
+ * scansioni con il ritardo della scrittura (al massimo {@code qrticket.audit.flush-interval-ms}).
+ */
+@Service
+@Slf4j
+public class ScanAuditService {
+
+    private static final String INSERT_SQL = "INSERT INTO scan_events "
+            + "(id, ticket_id, payload, gate, scanned_by, outcome, scanned_at) VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final int MAX_PAYLOAD_LENGTH = 64;
+    private static final int MAX_OPERATOR_LENGTH = 100;
+    private static final Pattern CONTROL_CHARACTERS = Pattern.compile("[\\p{Cc}\\p{Cf}\\p{Zl}\\p{Zp}]");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ScanEventRepository scanEventRepository;
+    private final AuditProperties settings;
+    private final ConcurrentLinkedQueue<ScanEvent> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final ScheduledExecutorService writer;
+    private final Counter droppedCounter;
+    private final Counter writtenCounter;
+
+    public ScanAuditService(JdbcTemplate jdbcTemplate,
+                            ScanEventRepository scanEventRepository,
+                            AuditProperties settings,
+                            MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.scanEventRepository = scanEventRepository;
+        this.settings = settings;
+        this.writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "scan-audit-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = Math.max(10, settings.getFlushIntervalMs());
+        writer.scheduleWithFixedDelay(this::flushQuietly, interval, interval, TimeUnit.MILLISECONDS);
+
+        this.droppedCounter = Counter.builder("qrticket.audit.dropped")
+                .description("Scansioni non registrate per coda di audit piena")
+                .register(meterRegistry);
+        this.writtenCounter = Counter.builder("qrticket.audit.written")
+                .description("Scansioni scritte nella traccia di audit")
+                .register(meterRegistry);
+        Gauge.builder("qrticket.audit.queue.size", queued, AtomicInteger::get)
+                .description("Scansioni in attesa di scrittura")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Registra una scansione. Non blocca e non accede al database.
+     *
+     * @param ticketId L'ID del biglietto (null se il QR Code non è stato riconosciuto)
+     * @param payload Il contenuto grezzo, registrato solo se il biglietto non è stato riconosciuto
+     * @param context Il varco e l'operatore
+     * @param outcome L'esito della scansione
+     */
+    public void record(UUID ticketId, String payload, ScanContext context, ScanOutcome outcome) {
+        if (queued.incrementAndGet() > settings.getCapacity()) {
+            queued.decrementAndGet();
+            droppedCounter.increment();
+            return;
+        }
+        ScanEvent event = new ScanEvent();
+        event.setId(UUID.randomUUID());
+        event.setTicketId(ticketId);
+        event.setPayload(ticketId == null ? sanitizePayload(payload) : null);
+        event.setGate(context.gate());
+        event.setScannedBy(truncate(context.operator(), MAX_OPERATOR_LENGTH));
+        event.setOutcome(outcome);
+        event.setScannedAt(LocalDateTime.now());
+        queue.add(event);
+
+        if (queued.get() >= settings.getBatchSize() && flushScheduled.compareAndSet(false, true)) {
+            writer.execute(this::flushQuietly);
+        }
+    }
+
+    /**
+     * Scrive sul database le scansioni in coda.
+     */
+    public synchronized void flush() {
+        flushScheduled.set(false);
+        int batchSize = Math.max(1, settings.getBatchSize());
+        List<ScanEvent> batch = new ArrayList<>(batchSize);
+        ScanEvent event;
+        while ((event = queue.poll()) != null) {
+            batch.add(event);
+            if (batch.size() == batchSize) {
+                write(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            write(batch);
+        }
+    }
+
+    /**
+     * Cronologia delle scansioni di un biglietto.
+     */
+    @Transactional(readOnly = true)
+    public List<ScanEvent> history(UUID ticketId) {
+        return scanEventRepository.findByTicketIdOrderByScannedAtAsc(ticketId);
+    }
+
+    /**
+     * Biglietti con scansioni rifiutate ripetute, per le indagini sulle frodi.
+     *
+     * @param since Istante da cui considerare le scansioni
+     * @param minRejections Numero minimo di rifiuti
+     * @param limit Numero massimo di biglietti restituiti
+     */
+    @Transactional(readOnly = true)
+    public List<ScanRejectionSummary> repeatedRejections(LocalDateTime since, long minRejections, int limit) {
+        return scanEventRepository.findRepeatedRejections(since, minRejections, Limit.of(limit));
+    }
+
+    private void write(List<ScanEvent> batch) {
+        try {
+            insert(batch);
+            writtenCounter.increment(batch.size());
+        } finally {
+            queued.addAndGet(-batch.size());
+        }
+    }
+
+    private void insert(List<ScanEvent> batch) {
+        TicketPersistEvent event = new TicketPersistEvent();
+        event.begin();
+        jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ScanEvent event = batch.get(i);
+                ps.setObject(1, event.getId());
+                ps.setObject(2, event.getTicketId());
+                if (event.getPayload() != null) {
+                    ps.setString(3, event.getPayload());
+                } else {
+                    ps.setNull(3, Types.VARCHAR);
+                }
+                ps.setInt(4, event.getGate());
+                if (event.getScannedBy() != null) {
+                    ps.setString(5, event.getScannedBy());
+                } else {
+                    ps.setNull(5, Types.VARCHAR);
+                }
+                ps.setString(6, event.getOutcome().name());
+                ps.setTimestamp(7, Timestamp.valueOf(event.getScannedAt()));
+            }
+
+            @Override
+            public int getBatchSize() {
+                return batch.size();
+            }
+        });
+        JfrEvents.commit(event, TicketPersistEvent.SCAN_AUDIT, batch.size());
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            // Il batch fallito è perso: l'audit è best-effort e non deve bloccare i varchi
+            log.error("Scrittura della traccia di audit fallita", e);
+        }
+    }
+
+    /**
+     * Riduce un contenuto scansionato non riconosciuto a una forma sicura da registrare:
+     * al più {@value #MAX_PAYLOAD_LENGTH} caratteri, con i caratteri di controllo sostituiti da '?'.
+     *
+     * @param payload Il contenuto grezzo, non attendibile
+     * @return Il contenuto troncato e ripulito (null se assente)
+     */
+    static String sanitizePayload(String payload) {
+        String truncated = truncate(payload, MAX_PAYLOAD_LENGTH);
+        return truncated == null ? null : CONTROL_CHARACTERS.matcher(truncated).replaceAll("?");
+    }
+
+    private static String truncate(String value, int maxLength) {
+        return value == null || value.length() <= maxLength ? value : value.substring(0, maxLength);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        writer.shutdown();
+        flushQuietly();
+    }
+}
@@ -0,0 +1,35 @@
+package it.cflm.qrticketsystem.service;
+
+/**
+ * Contesto di una scansione: il varco fisico da cui proviene, l'operatore che l'ha eseguita
+ * e, per i dispositivi con token, l'unico evento per cui possono registrare ingressi.
+ *
+ * @param gate Il numero del varco (0 se non indicato)
+ * @param operator L'utente autenticato che ha eseguito la scansione (null se non disponibile)
+ * @param eventName L'evento a cui è limitata la scansione (null per qualsiasi evento)
+ */
+public record ScanContext(int gate, String operator, String eventName) {
+
+    /** Varco massimo rappresentabile nei record del journal dei check-in. */
+    public static final int MAX_GATE = 0xFFFF;
+
+    /** Scansione senza varco né operatore indicati (es. verifica manuale). */
+    public static final ScanContext UNKNOWN = new ScanContext(0, null);
+
+    public ScanContext {
+        if (gate < 0 || gate > MAX_GATE) {
+            throw new IllegalArgumentException("Numero del varco non valido: " + gate);
+        }
+    }
+
+    public ScanContext(int gate, String operator) {
+        this(gate, operator, null);
+    }
+
+    /**
+     * @return true se la scansione può registrare ingressi per l'evento indicato
+     */
+    public boolean admits(String event) {
+        return eventName == null || eventName.equals(event);
+    }
+}
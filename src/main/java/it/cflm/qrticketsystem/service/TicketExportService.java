@@ -0,0 +1,195 @@
+package it.cflm.qrticketsystem.service;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+
+import it.cflm.qrticketsystem.config.QRCodeConfig;
+import it.cflm.qrticketsystem.exception.QRCodeGenerationException;
+import it.cflm.qrticketsystem.exception.TicketNotFoundException;
+import it.cflm.qrticketsystem.repository.TicketQrCodeView;
+import it.cflm.qrticketsystem.repository.TicketRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Servizio per l'export massivo dei QR Code di un evento (buste VIP, vendita alla porta).
+ *
+ * L'archivio ZIP (immagini PNG o SVG) viene scritto direttamente sullo stream di risposta:
+ * i biglietti sono letti a pagine (keyset) senza caricare le immagini salvate, i QR Code sono
+ * renderizzati in parallelo e scritti nell'ordine originale. Al massimo {@code qrcode.export.window} immagini sono
+ * in memoria per ogni export, senza file temporanei.
+ */
+@Service
+@Slf4j
+public class TicketExportService {
+
+    private final TicketRepository ticketRepository;
+    private final QRCodeGenerator qrCodeGenerator;
+    private final EventService eventService;
+    private final QRCodeConfig qrCodeConfig;
+    private final ExecutorService renderExecutor;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public TicketExportService(TicketRepository ticketRepository,
+                               QRCodeGenerator qrCodeGenerator,
+                               EventService eventService,
+                               QRCodeConfig qrCodeConfig,
+                               PlatformTransactionManager transactionManager) {
+        this.ticketRepository = ticketRepository;
+        this.qrCodeGenerator = qrCodeGenerator;
+        this.eventService = eventService;
+        this.qrCodeConfig = qrCodeConfig;
+        // Una transazione in sola lettura per pagina (servita da una replica, se configurata):
+        // nessuna connessione resta occupata durante il rendering e la scrittura dello stream
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        AtomicInteger threadCounter = new AtomicInteger();
+        this.renderExecutor = Executors.newFixedThreadPool(
+                Math.max(1, qrCodeConfig.getExport().getParallelism()),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "qr-export-" + threadCounter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Verifica che l'evento abbia almeno un biglietto, prima di iniziare lo streaming.
+     *
+     * @param eventName Il nome dell'evento
+     * @throws TicketNotFoundException se l'evento non ha biglietti
+     */
+    public void checkEventHasTickets(String eventName) {
+        List<TicketQrCodeView> first = readOnlyTransaction.execute(
+                status -> ticketRepository.findByEventNameAndPurchaseDateIsNotNullOrderByIdAsc(eventName, Limit.of(1)));
+        if (first == null || first.isEmpty()) {
+            throw new TicketNotFoundException("Nessun biglietto trovato per l'evento: " + eventName);
+        }
+    }
+
+    /**
+     * Scrive sullo stream un archivio ZIP con un'immagine QR Code per ogni biglietto dell'evento.
+     * Lo stream non viene chiuso.
+     *
+     * @param eventName Il nome dell'evento
+     * @param format Il formato delle immagini (PNG o SVG vettoriale)
+     * @param out Lo stream di destinazione
+     * @return Il numero di QR Code esportati
+     * @throws IOException se la scrittura sullo stream fallisce
+     */
+    public int exportEventQrCodes(String eventName, QrCodeFormat format, OutputStream out) throws IOException {
+        QRCodeConfig.Export export = qrCodeConfig.getExport();
+        int window = Math.max(1, export.getWindow());
+        Limit pageLimit = Limit.of(Math.max(1, export.getPageSize()));
+        QrCodeVariant variant = new QrCodeVariant(format, qrCodeConfig.getWidth());
+        ErrorCorrectionLevel errorCorrection = eventService.find(eventName).errorCorrection();
+
+        log.info("Avvio export QR Code {} per evento: {}", format, eventName);
+        long start = System.nanoTime();
+
+        ZipOutputStream zip = new ZipOutputStream(out);
+        Deque<Future<ZipItem>> inFlight = new ArrayDeque<>(window);
+        int submitted = 0;
+        try {
+            List<TicketQrCodeView> page = readOnlyTransaction.execute(
+                    status -> ticketRepository.findByEventNameAndPurchaseDateIsNotNullOrderByIdAsc(eventName, pageLimit));
+            while (page != null && !page.isEmpty()) {
+                for (TicketQrCodeView view : page) {
+                    String entryName = String.format("%08d-%s.%s", ++submitted, view.getId(), format.getExtension());
+                    String content = view.getQrCodeData() != null ? view.getQrCodeData() : view.getId().toString();
+                    inFlight.addLast(renderExecutor.submit(
+                            () -> new ZipItem(entryName, qrCodeGenerator.generate(content, variant, errorCorrection))));
+                    if (inFlight.size() >= window) {
+                        writeEntry(zip, inFlight.removeFirst());
+                    }
+                }
+                if (page.size() < pageLimit.max()) {
+                    break;
+                }
+                UUID lastId = page.get(page.size() - 1).getId();
+                page = readOnlyTransaction.execute(status -> ticketRepository
+                        .findByEventNameAndPurchaseDateIsNotNullAndIdGreaterThanOrderByIdAsc(eventName, lastId, pageLimit));
+            }
+            while (!inFlight.isEmpty()) {
+                writeEntry(zip, inFlight.removeFirst());
+            }
+            zip.finish();
+            zip.flush();
+        } finally {
+            inFlight.forEach(future -> future.cancel(true));
+        }
+
+        log.info("Export completato per evento: {}, {} QR Code in {} ms",
+                eventName, submitted, (System.nanoTime() - start) / 1_000_000);
+        return submitted;
+    }
+
+    /**
+     * Attende il rendering di un'immagine e la scrive nell'archivio. I PNG sono scritti
+     * non compressi (STORED): sono già compressi e deflate consumerebbe CPU senza ridurne
+     * la dimensione. Gli SVG, testuali, usano deflate.
+     */
+    private void writeEntry(ZipOutputStream zip, Future<ZipItem> future) throws IOException {
+        ZipItem item = await(future);
+        if (item.name().endsWith(".svg")) {
+            zip.putNextEntry(new ZipEntry(item.name()));
+            zip.write(item.image());
+            zip.closeEntry();
+            return;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(item.image());
+
+        ZipEntry entry = new ZipEntry(item.name());
+        entry.setMethod(ZipEntry.STORED);
+        entry.setSize(item.image().length);
+        entry.setCompressedSize(item.image().length);
+        entry.setCrc(crc.getValue());
+
+        zip.putNextEntry(entry);
+        zip.write(item.image());
+        zip.closeEntry();
+    }
+
+    private ZipItem await(Future<ZipItem> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Export dei QR Code interrotto");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof QRCodeGenerationException qrException) {
+                throw qrException;
+            }
+            throw new QRCodeGenerationException("Errore durante l'export dei QR Code", e.getCause());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        renderExecutor.shutdownNow();
+    }
+
+    private record ZipItem(String name, byte[] image) {
+    }
+}
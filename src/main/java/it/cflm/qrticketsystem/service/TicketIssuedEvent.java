@@ -0,0 +1,16 @@
+package it.cflm.qrticketsystem.service;
+
+import java.util.UUID;
+
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+
+/**
+ * Evento applicativo pubblicato alla creazione di un biglietto.
+ * I listener transazionali lo ricevono solo dopo il commit.
+ *
+ * @param ticketId L'ID del biglietto creato
+ * @param qrCodeData Il contenuto da codificare nel QR Code
+ * @param errorCorrection Il livello di correzione errori dell'evento
+ */
+public record TicketIssuedEvent(UUID ticketId, String qrCodeData, ErrorCorrectionLevel errorCorrection) {
+}
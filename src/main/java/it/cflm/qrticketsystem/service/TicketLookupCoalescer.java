@@ -0,0 +1,80 @@
+package it.cflm.qrticketsystem.service;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+
+import org.springframework.stereotype.Component;
+
+import it.cflm.qrticketsystem.config.SingleFlightProperties;
+import it.cflm.qrticketsystem.model.Ticket;
+import it.cflm.qrticketsystem.util.SingleFlight;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Unisce le letture concorrenti dello stesso biglietto e della stessa immagine del QR Code
+ * (link condiviso aperto da molti, scanner che ripetono lo stesso codice): una sola lettura
+ * dal database e al più un rendering per biglietto, qualunque sia il numero di richieste.
+ *
+ * Metriche: {@code qrticket.singleflight.calls} per lettura ({@code lookup}) ed esito
+ * ({@code result}: leader, coalesced, rejected, timeout) e {@code qrticket.singleflight.inflight}.
+ */
+@Component
+public class TicketLookupCoalescer {
+
+    private final boolean enabled;
+    private final SingleFlight<UUID, Ticket> tickets;
+    private final SingleFlight<UUID, byte[]> qrCodeImages;
+
+    public TicketLookupCoalescer(SingleFlightProperties settings, MeterRegistry meterRegistry) {
+        this.enabled = settings.isEnabled();
+        Duration timeout = Duration.ofMillis(settings.getTimeoutMs());
+        this.tickets = register(new SingleFlight<>("biglietto", settings.getMaxWaiters(), timeout),
+                "ticket", meterRegistry);
+        this.qrCodeImages = register(new SingleFlight<>("QR Code del biglietto", settings.getMaxWaiters(), timeout),
+                "qrcode", meterRegistry);
+    }
+
+    private static <V> SingleFlight<UUID, V> register(SingleFlight<UUID, V> flight, String lookup,
+                                                      MeterRegistry meterRegistry) {
+        counter(meterRegistry, flight, lookup, "leader", SingleFlight::leaders);
+        counter(meterRegistry, flight, lookup, "coalesced", SingleFlight::coalesced);
+        counter(meterRegistry, flight, lookup, "rejected", SingleFlight::rejected);
+        counter(meterRegistry, flight, lookup, "timeout", SingleFlight::timedOut);
+        Gauge.builder("qrticket.singleflight.inflight", flight, SingleFlight::inFlight)
+                .description("Letture con richieste unite in corso")
+                .tag("lookup", lookup)
+                .register(meterRegistry);
+        return flight;
+    }
+
+    private static <V> void counter(MeterRegistry meterRegistry, SingleFlight<UUID, V> flight, String lookup,
+                                    String result, ToDoubleFunction<SingleFlight<UUID, V>> count) {
+        FunctionCounter.builder("qrticket.singleflight.calls", flight, count)
+                .description("Letture dei biglietti per esito dell'unione delle richieste concorrenti")
+                .tag("lookup", lookup)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * @param id L'ID del biglietto
+     * @param loader La lettura dal database, eseguita da un solo chiamante per volta
+     * @return Il biglietto, condiviso tra i chiamanti uniti: va trattato in sola lettura
+     */
+    public Ticket ticket(UUID id, Supplier<Ticket> loader) {
+        return enabled ? tickets.execute(id, loader) : loader.get();
+    }
+
+    /**
+     * @param id L'ID del biglietto
+     * @param loader La lettura o il rendering dell'immagine, eseguito da un solo chiamante per volta
+     * @return L'immagine del QR Code
+     */
+    public byte[] qrCodeImage(UUID id, Supplier<byte[]> loader) {
+        return enabled ? qrCodeImages.execute(id, loader) : loader.get();
+    }
+}
@@ -0,0 +1,234 @@
+package it.cflm.qrticketsystem.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import it.cflm.qrticketsystem.config.TicketPoolProperties;
+import it.cflm.qrticketsystem.model.QrCodeStatus;
+import it.cflm.qrticketsystem.model.Ticket;
+import it.cflm.qrticketsystem.repository.TicketRepository;
+import it.cflm.qrticketsystem.util.TicketIds;
+import it.cflm.qrticketsystem.util.TicketPayloadCodec;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Biglietti pre-generati per le vendite a picco ({@code qrticket.ticket-pool.events}).
+ *
+ * Nei periodi senza acquisti un thread dedicato (minter) genera per ogni evento fino a
+ * {@code target-size} biglietti senza acquirente, già completi di ID, contenuto e immagine del
+ * QR Code. L'acquisto ne blocca uno con {@code SELECT ... FOR UPDATE SKIP LOCKED} (gli acquisti
+ * concorrenti non si attendono a vicenda) e, nella stessa transazione, vi associa l'acquirente
+ * con un UPDATE, senza generazione dell'ID né rendering. A pool vuoto l'acquisto crea il biglietto come di consueto.
+ *
+ * I biglietti pre-generati sono righe di {@code tickets} con data di acquisto nulla: stanno
+ * sullo shard del loro evento e sono esclusi da contatori, export, varchi e check-in.
+ */
+@Service
+@Slf4j
+public class TicketPool {
+
+    private final TicketRepository ticketRepository;
+    private final QRCodeGenerator qrCodeGenerator;
+    private final EventService eventService;
+    private final DatabaseGuard databaseGuard;
+    private final TicketPoolProperties settings;
+    private final TransactionTemplate mintTransaction;
+    private final ScheduledExecutorService minter;
+    private final Map<String, AtomicInteger> available = new LinkedHashMap<>();
+    private final long idleNanos;
+    private final Counter mintedCounter;
+    private final Counter claimedCounter;
+    private final Counter missedCounter;
+    private volatile long lastPurchaseAt;
+
+    public TicketPool(TicketRepository ticketRepository,
+                      QRCodeGenerator qrCodeGenerator,
+                      EventService eventService,
+                      DatabaseGuard databaseGuard,
+                      TicketPoolProperties settings,
+                      PlatformTransactionManager transactionManager,
+                      MeterRegistry meterRegistry) {
+        this.ticketRepository = ticketRepository;
+        this.qrCodeGenerator = qrCodeGenerator;
+        this.eventService = eventService;
+        this.databaseGuard = databaseGuard;
+        this.settings = settings;
+        this.mintTransaction = new TransactionTemplate(transactionManager);
+        this.idleNanos = TimeUnit.MILLISECONDS.toNanos(settings.getIdleMs());
+        this.lastPurchaseAt = System.nanoTime() - idleNanos;
+        this.minter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ticket-pool-minter");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        if (settings.isEnabled()) {
+            for (String eventName : settings.getEvents()) {
+                AtomicInteger count = available.computeIfAbsent(eventName, name -> new AtomicInteger());
+                Gauge.builder("qrticket.pool.available", count, AtomicInteger::get)
+                        .description("Biglietti pre-generati pronti per la vendita")
+                        .tag("event", eventName)
+                        .register(meterRegistry);
+            }
+        }
+        this.mintedCounter = Counter.builder("qrticket.pool.minted")
+                .description("Biglietti pre-generati dal minter")
+                .register(meterRegistry);
+        this.claimedCounter = Counter.builder("qrticket.pool.claims")
+                .description("Acquisti di eventi con biglietti pre-generati")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.missedCounter = Counter.builder("qrticket.pool.claims")
+                .description("Acquisti di eventi con biglietti pre-generati")
+                .tag("result", "miss")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Avvia il minter quando lo schema è pronto.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (available.isEmpty()) {
+            return;
+        }
+        long interval = Math.max(10, settings.getPollIntervalMs());
+        minter.scheduleWithFixedDelay(this::mintQuietly, interval, interval, TimeUnit.MILLISECONDS);
+        log.info("Biglietti pre-generati per gli eventi {} ({} per evento)", available.keySet(),
+                settings.getTargetSize());
+    }
+
+    /**
+     * Blocca un biglietto pre-generato dell'evento per l'acquisto in corso. Va chiamato
+     * all'interno della transazione di acquisto: il biglietto resta bloccato fino al commit.
+     *
+     * @param eventName Il nome dell'evento
+     * @return Il biglietto, gestito dalla transazione corrente, oppure vuoto se l'evento non ha
+     *         biglietti pre-generati pronti
+     */
+    public Optional<Ticket> claim(String eventName) {
+        lastPurchaseAt = System.nanoTime();
+        AtomicInteger count = available.get(eventName);
+        if (count == null) {
+            return Optional.empty();
+        }
+        if (count.get() <= 0) {
+            missedCounter.increment();
+            return Optional.empty();
+        }
+        Optional<Ticket> ticket = ticketRepository.findFirstByEventNameAndPurchaseDateIsNull(eventName);
+        if (ticket.isPresent()) {
+            count.decrementAndGet();
+            claimedCounter.increment();
+        } else {
+            // Esauriti (anche da altre istanze): il prossimo giro del minter riallinea il conteggio
+            count.set(0);
+            missedCounter.increment();
+        }
+        return ticket;
+    }
+
+    /**
+     * Un giro del minter: riallinea i conteggi e, se non ci sono acquisti in corso, genera i
+     * biglietti mancanti a batch, fermandosi alla ripresa degli acquisti.
+     *
+     * @return I biglietti generati
+     */
+    public int mint() {
+        int minted = 0;
+        for (Map.Entry<String, AtomicInteger> entry : available.entrySet()) {
+            String eventName = entry.getKey();
+            long unsold = ticketRepository.countByEventNameAndPurchaseDateIsNull(eventName);
+            entry.getValue().set((int) unsold);
+            long missing = settings.getTargetSize() - unsold;
+            EventSettings event = null;
+            while (missing > 0 && isIdle()) {
+                if (event == null) {
+                    event = eventService.register(eventName);
+                }
+                int batch = (int) Math.min(missing, Math.max(1, settings.getBatchSize()));
+                mintBatch(event, batch);
+                entry.getValue().addAndGet(batch);
+                mintedCounter.increment(batch);
+                missing -= batch;
+                minted += batch;
+            }
+        }
+        if (minted > 0) {
+            log.debug("Generati {} biglietti pre-generati", minted);
+        }
+        return minted;
+    }
+
+    /**
+     * @param eventName Il nome dell'evento
+     * @return I biglietti pre-generati pronti secondo l'ultimo conteggio, -1 se l'evento non ne ha
+     */
+    public int available(String eventName) {
+        AtomicInteger count = available.get(eventName);
+        return count != null ? count.get() : -1;
+    }
+
+    /**
+     * Nessun acquisto in corso né recente, e database disponibile.
+     */
+    private boolean isIdle() {
+        return databaseGuard.isAvailable()
+                && databaseGuard.activePurchases() == 0
+                && System.nanoTime() - lastPurchaseAt >= idleNanos;
+    }
+
+    /**
+     * Genera e salva un batch di biglietti. ID, contenuto e immagine sono preparati prima della
+     * transazione, che contiene solo gli INSERT: il rendering non occupa una connessione, e un
+     * biglietto visibile agli acquisti è sempre completo.
+     */
+    private void mintBatch(EventSettings event, int count) {
+        int bucket = TicketIds.bucketOf(event.name());
+        List<Ticket> tickets = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Ticket ticket = new Ticket();
+            ticket.setId(TicketIds.newId(bucket));
+            ticket.setEventName(event.name());
+            ticket.setEventId(event.id());
+            ticket.setValid(true);
+            String payload = TicketPayloadCodec.encode(ticket.getId(), event.payloadEncoding());
+            ticket.setQrCodeData(payload);
+            ticket.setQrCodeImage(qrCodeGenerator.generate(payload, event.errorCorrection()));
+            ticket.setQrStatus(QrCodeStatus.READY);
+            tickets.add(ticket);
+        }
+        mintTransaction.executeWithoutResult(status -> ticketRepository.saveAll(tickets));
+    }
+
+    private void mintQuietly() {
+        try {
+            mint();
+        } catch (RuntimeException e) {
+            // Riprovato al prossimo giro; nel frattempo gli acquisti creano i biglietti
+            log.warn("Generazione dei biglietti pre-generati fallita: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        minter.shutdown();
+    }
+}
@@ -1,164 +1,407 @@
 package it.cflm.qrticketsystem.service;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.Optional;
 import java.util.UUID;
 
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
-
-import com.google.zxing.BarcodeFormat;
-import com.google.zxing.WriterException;
-import com.google.zxing.client.j2se.MatrixToImageWriter;
-import com.google.zxing.common.BitMatrix;
-import com.google.zxing.qrcode.QRCodeWriter;
 
 import it.cflm.qrticketsystem.config.QRCodeConfig;
+import it.cflm.qrticketsystem.config.ResilienceProperties;
 import it.cflm.qrticketsystem.dto.TicketRequestDTO;
 import it.cflm.qrticketsystem.dto.TicketResponseDTO;
 import it.cflm.qrticketsystem.dto.TicketValidationResponseDTO;
-import it.cflm.qrticketsystem.exception.QRCodeGenerationException;
+import it.cflm.qrticketsystem.exception.DatabaseUnavailableException;
+import it.cflm.qrticketsystem.exception.LookupBusyException;
 import it.cflm.qrticketsystem.exception.TicketAlreadyUsedException;
 import it.cflm.qrticketsystem.exception.TicketNotFoundException;
+import it.cflm.qrticketsystem.jfr.CheckInEvent;
+import it.cflm.qrticketsystem.jfr.JfrEvents;
+import it.cflm.qrticketsystem.jfr.TicketCreationEvent;
+import it.cflm.qrticketsystem.jfr.TicketPersistEvent;
+import it.cflm.qrticketsystem.model.QrCodeStatus;
+import it.cflm.qrticketsystem.model.ScanOutcome;
 import it.cflm.qrticketsystem.model.Ticket;
+import it.cflm.qrticketsystem.outbox.OutboxService;
 import it.cflm.qrticketsystem.repository.TicketRepository;
+import it.cflm.qrticketsystem.util.LogRateLimiter;
+import it.cflm.qrticketsystem.util.TicketPayloadCodec;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 /**
  * Servizio per la gestione della logica di business relativa ai biglietti.
- * Include la generazione di QR Code e la validazione dei biglietti.
+ * Include la creazione dei biglietti, il recupero dei QR Code e la validazione.
  */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class TicketService {
 
+    /** Al massimo 10 righe al secondo per le scansioni rifiutate, le altre sono solo contate. */
+    private static final LogRateLimiter REJECTION_LOG = new LogRateLimiter(10, Duration.ofSeconds(1));
+
     private final TicketRepository ticketRepository;
+    private final QRCodeGenerator qrCodeGenerator;
     private final QRCodeConfig qrCodeConfig;
+    private final ResilienceProperties resilienceProperties;
+    private final QrCodeVariantCache qrCodeVariantCache;
+    private final QrCodeRenderPipeline qrCodeRenderPipeline;
+    private final ApplicationEventPublisher eventPublisher;
+    private final GateCheckInService gateCheckInService;
+    private final ScanAuditService scanAuditService;
+    private final EntryAnalyticsService entryAnalyticsService;
+    private final OutboxService outboxService;
+    private final EventService eventService;
+    private final TicketLookupCoalescer ticketLookupCoalescer;
+    private final DatabaseGuard databaseGuard;
+    private final TicketPool ticketPool;
 
     /**
-     * Genera un'immagine QR Code come array di byte (PNG).
+     * Crea un nuovo biglietto e lo salva nel database con il QR Code in stato PENDING.
+     * Il rendering dell'immagine avviene dopo il commit, fuori dalla transazione,
+     * tramite {@link QrCodeRenderPipeline}.
      *
-     * @param text Il testo da codificare nel QR Code.
-     * @return L'immagine del QR Code come array di byte.
-     * @throws QRCodeGenerationException Se si verifica un errore durante la generazione del QR Code.
-     */
-    private byte[] generateQrCodeImage(String text) {
-        try {
-            log.debug("Generazione QR Code per: {}", text);
-            QRCodeWriter qrCodeWriter = new QRCodeWriter();
-            BitMatrix bitMatrix = qrCodeWriter.encode(
-                text, 
-                BarcodeFormat.QR_CODE, 
-                qrCodeConfig.getWidth(), 
-                qrCodeConfig.getHeight()
-            );
-            ByteArrayOutputStream pngOutputStream = new ByteArrayOutputStream();
-            MatrixToImageWriter.writeToStream(bitMatrix, qrCodeConfig.getFormat(), pngOutputStream);
-            log.debug("QR Code generato con successo");
-            return pngOutputStream.toByteArray();
-        } catch (WriterException | IOException e) {
-            log.error("Errore durante la generazione del QR Code", e);
-            throw new QRCodeGenerationException("Errore durante la generazione del QR Code", e);
-        }
-    }
-
-    /**
-     * Crea un nuovo biglietto, genera il suo QR Code e lo salva nel database.
+     * Per gli eventi con biglietti pre-generati ({@link TicketPool}) l'acquisto prende un
+     * biglietto già pronto, con contenuto e immagine del QR Code, e vi associa l'acquirente.
+     *
+     * La transazione passa dal bulkhead degli acquisti e dal circuit breaker del database
+     * ({@link DatabaseGuard}).
      *
      * @param requestDTO Dati della richiesta di creazione biglietto
      * @return DTO contenente i dati del biglietto creato
+     * @throws DatabaseUnavailableException se il database non è disponibile
+     * @throws it.cflm.qrticketsystem.exception.BulkheadFullException se troppi acquisti sono in corso
      */
-    @Transactional
     public TicketResponseDTO createTicket(TicketRequestDTO requestDTO) {
-        log.info("Creazione nuovo biglietto per evento: {}, utente: {}", 
+        // Evento aggiunto all'anagrafica prima di aprire la transazione di acquisto
+        EventSettings event = eventService.register(requestDTO.getEventName());
+        return databaseGuard.purchase(() -> create(requestDTO, event));
+    }
+
+    private TicketResponseDTO create(TicketRequestDTO requestDTO, EventSettings event) {
+        TicketCreationEvent creation = new TicketCreationEvent();
+        creation.begin();
+        log.debug("Creazione nuovo biglietto per evento: {}, utente: {}", 
                 requestDTO.getEventName(), requestDTO.getUserName());
         
-        Ticket ticket = new Ticket();
-        ticket.setEventName(requestDTO.getEventName());
+        Optional<Ticket> preMinted = ticketPool.claim(event.name());
+        Ticket ticket = preMinted.orElseGet(Ticket::new);
+        ticket.setEventName(event.name());
+        ticket.setEventId(event.id());
         ticket.setUserName(requestDTO.getUserName());
         ticket.setUserEmail(requestDTO.getUserEmail());
         ticket.setPurchaseDate(LocalDateTime.now());
         ticket.setValid(true);
 
-        // Salva prima per ottenere l'ID generato automaticamente
+        // Salva prima per ottenere l'ID generato automaticamente (il pre-generato ne ha già uno)
         Ticket savedTicket = ticketRepository.save(ticket);
         
-        // Usa l'ID generato per il QR Code
-        String qrCodeContent = savedTicket.getId().toString();
-        byte[] qrCodeImage = generateQrCodeImage(qrCodeContent);
-
-        savedTicket.setQrCodeData(qrCodeContent);
-        savedTicket.setQrCodeImage(qrCodeImage);
-
-        // Aggiorna con i dati del QR Code
-        savedTicket = ticketRepository.save(savedTicket);
+        if (preMinted.isEmpty()) {
+            // Usa l'ID generato per il contenuto del QR Code; l'immagine arriva in seguito
+            savedTicket.setQrCodeData(TicketPayloadCodec.encode(savedTicket.getId(), event.payloadEncoding()));
+            savedTicket.setQrStatus(QrCodeStatus.PENDING);
+            savedTicket = ticketRepository.save(savedTicket);
+        }
+        outboxService.ticketIssued(savedTicket);
+        if (savedTicket.getQrStatus() != QrCodeStatus.READY) {
+            eventPublisher.publishEvent(new TicketIssuedEvent(savedTicket.getId(), savedTicket.getQrCodeData(),
+                    event.errorCorrection()));
+        }
+        eventService.recordSold(event, 1);
+        if (creation.isEnabled()) {
+            creation.setTicketId(savedTicket.getId().toString());
+            creation.setEventName(savedTicket.getEventName());
+            JfrEvents.commitAfterTransaction(creation, TicketPersistEvent.TICKET, 1);
+        }
         
-        log.info("Biglietto creato con successo, ID: {}", savedTicket.getId());
+        if (log.isInfoEnabled()) {
+            log.atInfo()
+                    .addKeyValue("ticketId", savedTicket.getId())
+                    .addKeyValue("event", savedTicket.getEventName())
+                    .log("Biglietto creato con successo");
+        }
         
         return mapToResponseDTO(savedTicket);
     }
 
     /**
-     * Recupera un biglietto tramite il suo ID.
+     * Recupera un biglietto tramite il suo ID. Le richieste concorrenti per lo stesso ID
+     * condividono una sola lettura ({@link TicketLookupCoalescer}).
+     *
+     * La transazione in sola lettura è aperta solo dalla richiesta che esegue la lettura
+     * ({@link DatabaseGuard#read}), così le richieste in attesa non occupano una connessione.
      *
      * @param id L'ID del biglietto.
-     * @return Il biglietto se trovato
+     * @return Il biglietto se trovato, da trattare in sola lettura
      * @throws TicketNotFoundException se il biglietto non viene trovato
+     * @throws it.cflm.qrticketsystem.exception.LookupBusyException se troppe richieste attendono la stessa lettura
      */
     public Ticket getTicketById(UUID id) {
-        log.debug("Ricerca biglietto con ID: {}", id);
-        return ticketRepository.findById(id)
-                .orElseThrow(() -> new TicketNotFoundException(id));
+        return ticketLookupCoalescer.ticket(id, () -> {
+            log.debug("Ricerca biglietto con ID: {}", id);
+            return databaseGuard.read(() -> ticketRepository.findById(id)
+                    .filter(ticket -> ticket.getPurchaseDate() != null) // pre-generato non ancora venduto
+                    .orElseThrow(() -> new TicketNotFoundException(id)));
+        });
     }
     
     /**
-     * Recupera l'immagine del QR Code di un biglietto.
+     * Recupera l'immagine del QR Code di un biglietto, renderizzandola subito
+     * se la pipeline asincrona non l'ha ancora salvata. Le richieste concorrenti
+     * per lo stesso biglietto condividono lettura e rendering.
      *
      * @param id L'ID del biglietto.
      * @return L'immagine del QR Code come array di byte
      * @throws TicketNotFoundException se il biglietto non viene trovato
      */
     public byte[] getQrCodeImage(UUID id) {
-        log.debug("Recupero QR Code per biglietto ID: {}", id);
-        Ticket ticket = getTicketById(id);
-        return ticket.getQrCodeImage();
+        return ticketLookupCoalescer.qrCodeImage(id, () -> {
+            log.debug("Recupero QR Code per biglietto ID: {}", id);
+            Ticket ticket = getTicketById(id);
+            if (ticket.getQrCodeImage() == null) {
+                // Rendering in background non ancora completato (o rifiutato): rendering sincrono
+                return qrCodeRenderPipeline.renderNow(ticket.getId(), ticket.getQrCodeData(),
+                        eventService.find(ticket.getEventName()).errorCorrection());
+            }
+            return ticket.getQrCodeImage();
+        });
+    }
+
+    /**
+     * Recupera l'immagine del QR Code di un biglietto nel formato e nel taglio richiesti.
+     * La variante di default (PNG alla dimensione configurata) è quella salvata sul biglietto;
+     * le altre sono renderizzate al primo accesso e mantenute in cache (le richieste concorrenti
+     * per la stessa variante attendono il rendering in corso).
+     *
+     * @param id L'ID del biglietto.
+     * @param size Il nome del taglio (es. "small"), null per la dimensione di default
+     * @param format Il formato dell'immagine
+     * @return L'immagine del QR Code come array di byte
+     * @throws TicketNotFoundException se il biglietto non viene trovato
+     * @throws it.cflm.qrticketsystem.exception.InvalidQrCodeFormatException se il formato o il taglio non è supportato
+     */
+    public byte[] getQrCodeImage(UUID id, String size, QrCodeFormat format) {
+        QrCodeVariant variant = new QrCodeVariant(format, qrCodeConfig.resolveSize(size));
+        if (format == QrCodeFormat.PNG && variant.size() == qrCodeConfig.getWidth()) {
+            return getQrCodeImage(id);
+        }
+        log.debug("Recupero QR Code {} {}px per biglietto ID: {}", format, variant.size(), id);
+        return qrCodeVariantCache.get(id, variant, () -> {
+            Ticket ticket = getTicketById(id);
+            return qrCodeGenerator.generate(ticket.getQrCodeData(), variant,
+                    eventService.find(ticket.getEventName()).errorCorrection());
+        });
+    }
+
+    /**
+     * Valida un biglietto a partire dal contenuto letto dal QR Code
+     * (UUID testuale o formato compatto Base45).
+     *
+     * @param payload Il testo decodificato dal QR Code.
+     * @param context Il varco da cui proviene la scansione.
+     * @return DTO contenente il risultato della validazione
+     * @throws TicketNotFoundException se il contenuto non è riconosciuto o il biglietto non esiste
+     * @throws TicketAlreadyUsedException se il biglietto è già stato usato
+     */
+    public TicketValidationResponseDTO validateTicket(String payload, ScanContext context) {
+        return admittedOrThrow(checkIn(payload, context));
     }
 
     /**
      * Valida un biglietto marcandolo come "usato" se è ancora valido.
      *
      * @param id L'ID del biglietto da validare.
+     * @param context Il varco da cui proviene la scansione.
      * @return DTO contenente il risultato della validazione
      * @throws TicketNotFoundException se il biglietto non viene trovato
      * @throws TicketAlreadyUsedException se il biglietto è già stato usato
      */
-    @Transactional
-    public TicketValidationResponseDTO validateTicket(UUID id) {
-        log.info("Tentativo di validazione biglietto ID: {}", id);
-        
+    public TicketValidationResponseDTO validateTicket(UUID id, ScanContext context) {
+        return admittedOrThrow(checkIn(id, context));
+    }
+
+    /**
+     * Check-in dalla reception a partire dal contenuto letto dal QR Code.
+     * A differenza di {@link #validateTicket(String, ScanContext)} non lancia eccezioni:
+     * i rifiuti sono restituiti come {@link CheckInOutcome}.
+     *
+     * @param payload Il testo decodificato dal QR Code.
+     * @param context Il varco da cui proviene la scansione.
+     * @return L'esito del check-in
+     */
+    public CheckInOutcome checkIn(String payload, ScanContext context) {
+        CheckInEvent event = new CheckInEvent();
+        event.begin();
+        UUID id = TicketPayloadCodec.tryDecode(payload);
+        if (id == null) {
+            // Il contenuto scansionato non è attendibile: non viene restituito al client
+            CheckInOutcome outcome = new CheckInOutcome.NotFound("QR Code non riconosciuto");
+            if (log.isDebugEnabled()) {
+                log.debug("QR Code non riconosciuto: {}", ScanAuditService.sanitizePayload(payload));
+            }
+            commit(event, null, context, outcome);
+            scanAuditService.record(null, payload, context, ScanOutcome.NOT_FOUND);
+            entryAnalyticsService.record(context, outcome);
+            logOutcome(null, context, outcome);
+            return outcome;
+        }
+        return checkIn(id, context);
+    }
+
+    /**
+     * Check-in dalla reception: marca il biglietto come "usato" se è ancora valido.
+     * A differenza di {@link #validateTicket(UUID, ScanContext)} non lancia eccezioni:
+     * i rifiuti sono restituiti come {@link CheckInOutcome}.
+     *
+     * @param id L'ID del biglietto.
+     * @param context Il varco da cui proviene la scansione.
+     * @return L'esito del check-in
+     * @throws LookupBusyException se la riga del biglietto cambia a ogni tentativo senza essere usata
+     */
+    public CheckInOutcome checkIn(UUID id, ScanContext context) {
+        CheckInEvent event = new CheckInEvent();
+        event.begin();
+        CheckInOutcome outcome = admit(id, context);
+        commit(event, id, context, outcome);
+        scanAuditService.record(id, null, context, outcome.scanOutcome());
+        entryAnalyticsService.record(context, outcome);
+        logOutcome(id, context, outcome);
+        return outcome;
+    }
+
+    private CheckInOutcome admit(UUID id, ScanContext context) {
+        log.debug("Tentativo di validazione biglietto ID: {}", id);
+
+        // Varco aperto per l'evento: check-in in memoria, scrittura sul database in batch
+        Optional<CheckInOutcome> gateCheckIn = gateCheckInService.checkIn(id, context);
+        if (gateCheckIn.isPresent()) {
+            return gateCheckIn.get();
+        }
+        // Ingresso degradato o da un varco in chiusura non ancora scritto: sul database il biglietto è ancora valido
+        Optional<CheckInOutcome> pendingCheckIn = gateCheckInService.rejectPending(id, context);
+        if (pendingCheckIn.isPresent()) {
+            return pendingCheckIn.get();
+        }
+
+        CheckInOutcome outcome;
+        try {
+            outcome = checkInOnDatabase(id, context);
+        } catch (DatabaseUnavailableException e) {
+            if (!resilienceProperties.isDegradedCheckIn()) {
+                throw e;
+            }
+            // Database non disponibile: decisione sulla lista dei biglietti validi in memoria
+            return gateCheckInService.checkInDegraded(id, context).orElseThrow(() -> e);
+        }
+        if (outcome instanceof CheckInOutcome.Admitted admitted) {
+            gateCheckInService.admittedOnDatabase(admitted.response().getEventName(), id);
+        }
+        return outcome;
+    }
+
+    private CheckInOutcome checkInOnDatabase(UUID id, ScanContext context) {
+        try {
+            return databaseGuard.checkIn(() -> admitFromDatabase(id, context));
+        } catch (OptimisticLockingFailureException e) {
+            // Copia in cache superata (check-in su un'altra istanza): nuovo tentativo con la riga
+            // letta dal database, dato che l'UPDATE fallito ha invalidato l'entry in cache
+            log.debug("Biglietto {} modificato da un'altra istanza, nuovo tentativo", id);
+        }
+        try {
+            return databaseGuard.checkIn(() -> admitFromDatabase(id, context));
+        } catch (OptimisticLockingFailureException e) {
+            // Secondo conflitto: la riga riletta dice se un'altra istanza ha già ammesso il biglietto
+            log.debug("Biglietto {} modificato di nuovo da un'altra istanza, rilettura", id);
+            boolean used = databaseGuard.checkIn(() -> ticketRepository.findById(id)
+                    .or(() -> ticketRepository.findByQrCodeData(id.toString()))
+                    .map(ticket -> !ticket.isValid())
+                    .orElse(false));
+            if (used) {
+                return new CheckInOutcome.AlreadyUsed(id);
+            }
+            throw new LookupBusyException("Biglietto " + id + " modificato durante il check-in, riprovare");
+        }
+    }
+
+    private CheckInOutcome admitFromDatabase(UUID id, ScanContext context) {
         Ticket ticket = ticketRepository.findById(id)
                 .or(() -> ticketRepository.findByQrCodeData(id.toString()))
-                .orElseThrow(() -> new TicketNotFoundException(id));
+                .orElse(null);
+        if (ticket == null || ticket.getPurchaseDate() == null) { // pre-generato non ancora venduto
+            return new CheckInOutcome.NotFound("Biglietto non trovato con ID: " + id);
+        }
+        if (!context.admits(ticket.getEventName())) {
+            return new CheckInOutcome.NotFound("Biglietto non valido per l'evento " + context.eventName());
+        }
         
         if (!ticket.isValid()) {
-            log.warn("Biglietto già usato, ID: {}", id);
-            throw new TicketAlreadyUsedException(id);
+            return new CheckInOutcome.AlreadyUsed(id);
         }
         
+        // UPDATE condizionato alla versione letta: due istanze non possono ammettere lo stesso biglietto
         ticket.setValid(false);
-        ticketRepository.save(ticket);
-        
-        log.info("Biglietto validato con successo, ID: {}", id);
+        ticketRepository.saveAndFlush(ticket);
+        outboxService.ticketUsed(ticket);
+        eventService.recordEntered(ticket.getEventName(), 1);
         
-        return TicketValidationResponseDTO.builder()
+        return new CheckInOutcome.Admitted(TicketValidationResponseDTO.builder()
                 .valid(true)
                 .message("Biglietto valido e registrato come usato")
                 .eventName(ticket.getEventName())
                 .userName(ticket.getUserName())
-                .build();
+                .build());
+    }
+
+    private static void commit(CheckInEvent event, UUID id, ScanContext context, CheckInOutcome outcome) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.setTicketId(id != null ? id.toString() : null);
+            event.setOutcome(outcome.scanOutcome().name());
+            event.setGate(context.gate());
+            event.commit();
+        }
+    }
+
+    /**
+     * Log dell'esito con campi strutturati. Nessun lavoro se il livello è disabilitato;
+     * i rifiuti (riscansioni, QR Code sbagliati) sono limitati da {@link #REJECTION_LOG}.
+     */
+    private void logOutcome(UUID id, ScanContext context, CheckInOutcome outcome) {
+        if (outcome instanceof CheckInOutcome.Admitted admitted) {
+            if (log.isInfoEnabled()) {
+                log.atInfo()
+                        .addKeyValue("ticketId", id)
+                        .addKeyValue("event", admitted.response().getEventName())
+                        .addKeyValue("gate", context.gate())
+                        .log("Biglietto validato con successo");
+            }
+            return;
+        }
+        if (!log.isWarnEnabled()) {
+            return;
+        }
+        long suppressed = REJECTION_LOG.tryAcquire();
+        if (suppressed == LogRateLimiter.SUPPRESSED) {
+            return;
+        }
+        log.atWarn()
+                .addKeyValue("ticketId", id)
+                .addKeyValue("gate", context.gate())
+                .addKeyValue("outcome", outcome.scanOutcome())
+                .addKeyValue("suppressed", suppressed)
+                .log("Scansione rifiutata");
+    }
+
+    private static TicketValidationResponseDTO admittedOrThrow(CheckInOutcome outcome) {
+        return switch (outcome) {
+            case CheckInOutcome.Admitted admitted -> admitted.response();
+            case CheckInOutcome.AlreadyUsed alreadyUsed -> throw new TicketAlreadyUsedException(alreadyUsed.ticketId());
+            case CheckInOutcome.NotFound notFound -> throw new TicketNotFoundException(notFound.message());
+        };
     }
     
     /**
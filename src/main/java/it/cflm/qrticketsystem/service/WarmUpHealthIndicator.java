@@ -0,0 +1,37 @@
+package it.cflm.qrticketsystem.service;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Contributo "warmUp" al gruppo di health {@code readiness}: fuori servizio finché
+ * {@link WarmUpService} non ha terminato, così il bilanciatore non invia check-in
+ * a un'istanza appena avviata.
+ */
+@Component
+@RequiredArgsConstructor
+public class WarmUpHealthIndicator implements HealthIndicator {
+
+    private final WarmUpService warmUpService;
+
+    @Override
+    public Health health() {
+        if (!warmUpService.isEnabled()) {
+            return Health.up().withDetail("enabled", false).build();
+        }
+        WarmUpService.WarmUpReport report = warmUpService.getReport();
+        if (report == null) {
+            return Health.outOfService().withDetail("phase", "warming-up").build();
+        }
+        return Health.up()
+                .withDetail("durationMs", report.durationMs())
+                .withDetail("poolConnections", report.poolConnections())
+                .withDetail("iterations", report.iterations())
+                .withDetail("preloadedTickets", report.preloadedTickets())
+                .withDetail("budgetExceeded", report.budgetExceeded())
+                .build();
+    }
+}
@@ -0,0 +1,219 @@
+package it.cflm.qrticketsystem.service;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import it.cflm.qrticketsystem.config.QRCodeConfig;
+import it.cflm.qrticketsystem.config.WarmUpProperties;
+import it.cflm.qrticketsystem.repository.TicketRepository;
+import it.cflm.qrticketsystem.util.TicketPayloadCodec;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Riscaldamento dell'istanza dopo l'avvio, prima di accettare traffico.
+ *
+ * <ol>
+ *   <li>Riempie il pool di connessioni fino alla dimensione massima.</li>
+ *   <li>Esegue rendering di QR Code e lookup di check-in su contenuti sintetici di biglietti
+ *       inesistenti, così il JIT compila il percorso caldo senza scrivere nulla nel database.</li>
+ *   <li>Carica nella cache di secondo livello i biglietti degli eventi configurati.</li>
+ * </ol>
+ * Finché non termina, {@link WarmUpHealthIndicator} tiene il probe di readiness fuori servizio.
+ * Il riscaldamento non supera {@code qrticket.warm-up.budget-ms}: scaduto il tempo, i passi
+ * rimanenti vengono saltati e l'istanza diventa comunque pronta.
+ */
+@Service
+@Slf4j
+public class WarmUpService {
+
+    private final TicketRepository ticketRepository;
+    private final QRCodeGenerator qrCodeGenerator;
+    private final DataSource dataSource;
+    private final QRCodeConfig qrCodeConfig;
+    private final WarmUpProperties settings;
+    private final TransactionTemplate readTransaction;
+    private final TransactionTemplate writeTransaction;
+
+    private volatile WarmUpReport report;
+
+    /**
+     * Esito del riscaldamento, esposto nei dettagli del probe di readiness.
+     *
+     * @param durationMs Durata complessiva
+     * @param poolConnections Connessioni aperte nel pool
+     * @param iterations Iterazioni di rendering e lookup eseguite
+     * @param preloadedTickets Biglietti caricati nella cache di secondo livello
+     * @param budgetExceeded true se il tempo a disposizione è scaduto prima della fine
+     */
+    public record WarmUpReport(long durationMs, int poolConnections, int iterations,
+                               long preloadedTickets, boolean budgetExceeded) {
+    }
+
+    public WarmUpService(TicketRepository ticketRepository,
+                         QRCodeGenerator qrCodeGenerator,
+                         DataSource dataSource,
+                         QRCodeConfig qrCodeConfig,
+                         WarmUpProperties settings,
+                         PlatformTransactionManager transactionManager) {
+        this.ticketRepository = ticketRepository;
+        this.qrCodeGenerator = qrCodeGenerator;
+        this.dataSource = dataSource;
+        this.qrCodeConfig = qrCodeConfig;
+        this.settings = settings;
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Avvia il riscaldamento in background quando l'applicazione è partita,
+     * così il probe di liveness risponde subito.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!settings.isEnabled()) {
+            return;
+        }
+        Thread thread = new Thread(() -> {
+            try {
+                warmUp();
+            } catch (RuntimeException e) {
+                log.warn("Riscaldamento interrotto: l'istanza accetta traffico a freddo", e);
+                report = new WarmUpReport(0, 0, 0, 0, true);
+            }
+        }, "warm-up");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Esegue il riscaldamento nel thread corrente.
+     *
+     * @return L'esito del riscaldamento
+     */
+    public WarmUpReport warmUp() {
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(settings.getBudgetMs());
+
+        int connections = fillConnectionPool();
+        int iterations = 0;
+        if (System.nanoTime() < deadline) {
+            while (iterations < settings.getIterations() && System.nanoTime() < deadline) {
+                exerciseHotPath(iterations);
+                iterations++;
+            }
+        }
+        long preloaded = 0;
+        for (String eventName : settings.getEvents()) {
+            if (System.nanoTime() >= deadline) {
+                break;
+            }
+            preloaded += preload(eventName, deadline);
+        }
+
+        long end = System.nanoTime();
+        WarmUpReport result = new WarmUpReport(TimeUnit.NANOSECONDS.toMillis(end - start), connections,
+                iterations, preloaded, end >= deadline);
+        report = result;
+        log.info("Riscaldamento completato in {} ms: {} connessioni, {} iterazioni, {} biglietti in cache{}",
+                result.durationMs(), connections, iterations, preloaded,
+                result.budgetExceeded() ? " (tempo esaurito)" : "");
+        return result;
+    }
+
+    /**
+     * @return L'esito del riscaldamento, oppure null se non è ancora terminato
+     */
+    public WarmUpReport getReport() {
+        return report;
+    }
+
+    public boolean isEnabled() {
+        return settings.isEnabled();
+    }
+
+    /**
+     * Apre contemporaneamente tante connessioni quante ne ammette il pool, poi le restituisce.
+     */
+    private int fillConnectionPool() {
+        int size = poolSize();
+        List<Connection> connections = new ArrayList<>(size);
+        try {
+            for (int i = 0; i < size; i++) {
+                Connection connection = dataSource.getConnection();
+                connections.add(connection);
+                connection.isValid(1);
+            }
+        } catch (SQLException e) {
+            log.warn("Riempimento del pool di connessioni interrotto dopo {} connessioni", connections.size(), e);
+        } finally {
+            for (Connection connection : connections) {
+                try {
+                    connection.close();
+                } catch (SQLException e) {
+                    log.debug("Chiusura della connessione di riscaldamento fallita", e);
+                }
+            }
+        }
+        return connections.size();
+    }
+
+    private int poolSize() {
+        try {
+            return dataSource.isWrapperFor(HikariDataSource.class)
+                    ? dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize()
+                    : 1;
+        } catch (SQLException e) {
+            return 1;
+        }
+    }
+
+    /**
+     * Un giro del percorso caldo: rendering (PNG, e SVG a giri alterni) e i lookup
+     * eseguiti da un check-in per ID e per contenuto del QR Code. L'ID è casuale a ogni
+     * giro: nessun biglietto viene trovato e la ricerca per contenuto non è servita dalla cache.
+     */
+    private void exerciseHotPath(int iteration) {
+        String payload = TicketPayloadCodec.encode(UUID.randomUUID(), qrCodeConfig.getPayloadEncoding());
+        if (iteration % 2 == 0) {
+            qrCodeGenerator.generate(payload);
+        } else {
+            qrCodeGenerator.generate(payload, new QrCodeVariant(QrCodeFormat.SVG, qrCodeConfig.getWidth()));
+        }
+        UUID id = TicketPayloadCodec.tryDecode(payload);
+        readTransaction.executeWithoutResult(status -> {
+            ticketRepository.findById(id);
+            ticketRepository.findByQrCodeData(payload);
+        });
+    }
+
+    /**
+     * Carica i biglietti di un evento nella cache di secondo livello.
+     */
+    private long preload(String eventName, long deadline) {
+        // Transazione non read-only: con le repliche, solo le letture dal primario entrano in cache
+        Long loaded = writeTransaction.execute(status -> {
+            try (var tickets = ticketRepository.streamByEventName(eventName)) {
+                return tickets.limit(settings.getMaxPreloadedTickets())
+                        .takeWhile(ticket -> System.nanoTime() < deadline)
+                        .count();
+            }
+        });
+        log.debug("Precaricati {} biglietti dell'evento {}", loaded, eventName);
+        return loaded != null ? loaded : 0;
+    }
+}
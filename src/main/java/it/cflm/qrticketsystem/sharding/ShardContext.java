@@ -0,0 +1,115 @@
+package it.cflm.qrticketsystem.sharding;
+
+import java.util.function.Supplier;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import lombok.experimental.UtilityClass;
+
+/**
+ * Shard su cui lavora il thread corrente.
+ *
+ * Fuori da una transazione vale lo shard impostato con {@link #call(int, Supplier)}. Dentro una
+ * transazione la connessione è una sola: lo shard viene fissato alla prima operazione (dal
+ * repository dei biglietti, oppure dalla prima connessione presa, che senza indicazioni va
+ * allo shard 0) e resta quello fino alla fine. Il legame è una {@link TransactionSynchronization},
+ * quindi viene sospeso insieme alla transazione con {@code REQUIRES_NEW}.
+ */
+@UtilityClass
+public class ShardContext {
+
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    /**
+     * Esegue un'operazione sullo shard indicato.
+     *
+     * @param shard Lo shard
+     * @param action L'operazione
+     * @return Il risultato dell'operazione
+     */
+    public static <T> T call(int shard, Supplier<T> action) {
+        Integer previous = CURRENT.get();
+        CURRENT.set(shard);
+        try {
+            return action.get();
+        } finally {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+
+    /**
+     * @return Lo shard impostato sul thread corrente, oppure null
+     */
+    public static Integer current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Lega la transazione corrente a uno shard, se non è già legata.
+     *
+     * @param shard Lo shard
+     * @return false se la transazione è già legata a un altro shard (true fuori da una transazione)
+     */
+    public static boolean bindTransaction(int shard) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()
+                || !TransactionSynchronizationManager.isActualTransactionActive()) {
+            return true;
+        }
+        ShardBinding binding = binding();
+        if (binding == null) {
+            TransactionSynchronizationManager.registerSynchronization(new ShardBinding(shard));
+            return true;
+        }
+        return binding.shard == shard;
+    }
+
+    /**
+     * Shard da cui prendere una connessione: quello della transazione corrente, altrimenti
+     * quello del thread, altrimenti lo shard 0. La transazione corrente resta legata allo
+     * shard restituito.
+     */
+    static int lookupShard() {
+        Integer current = CURRENT.get();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()
+                || !TransactionSynchronizationManager.isActualTransactionActive()) {
+            return current != null ? current : 0;
+        }
+        ShardBinding binding = binding();
+        if (binding != null) {
+            return binding.shard;
+        }
+        int shard = current != null ? current : 0;
+        TransactionSynchronizationManager.registerSynchronization(new ShardBinding(shard));
+        return shard;
+    }
+
+    private static ShardBinding binding() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()
+                || !TransactionSynchronizationManager.isActualTransactionActive()) {
+            return null;
+        }
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof ShardBinding binding) {
+                return binding;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Shard a cui è legata una transazione.
+     */
+    private static final class ShardBinding implements TransactionSynchronization {
+
+        private final int shard;
+
+        private ShardBinding(int shard) {
+            this.shard = shard;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package it.cflm.qrticketsystem.sharding;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Shard su cui {@link ShardedTicketRepositoryInterceptor} esegue un metodo del repository dei
+ * biglietti. Obbligatoria su ogni metodo: un metodo senza instradamento, o con un tipo di
+ * ritorno che non si può unire tra shard, blocca l'avvio dell'applicazione.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface ShardRoute {
+
+    /**
+     * @return Il parametro (il primo del metodo) che decide lo shard
+     */
+    Key value();
+
+    /**
+     * @return true se il metodo scrive: rifiutato sui biglietti in spostamento tra shard ed
+     *         eseguito in transazioni non in sola lettura quando interessa più shard
+     */
+    boolean write() default false;
+
+    enum Key {
+        /** Biglietto o elenco di biglietti: lo shard dell'evento di ciascuno. */
+        TICKET,
+        /** Nome dell'evento: lo shard dell'evento. */
+        EVENT_NAME,
+        /** ID del biglietto: lo shard del bucket incorporato, oppure tutti per gli ID casuali. */
+        TICKET_ID,
+        /** Elenco di ID: lo shard comune, oppure tutti. */
+        TICKET_IDS,
+        /** Contenuto del QR Code: come {@link #TICKET_ID} per l'ID che contiene, altrimenti tutti. */
+        QR_CODE_DATA,
+        /** Tutti gli shard, con i risultati uniti. */
+        ALL_SHARDS
+    }
+}
@@ -0,0 +1,65 @@
+package it.cflm.qrticketsystem.sharding;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * {@link DataSource} che instrada ogni connessione sullo shard indicato da {@link ShardContext}.
+ * Lo shard 0 è il database di {@code spring.datasource}, che ospita anche tutte le altre tabelle.
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+    private final List<HikariDataSource> shards;
+
+    /**
+     * @param shards I pool degli shard, nell'ordine (lo shard 0 per primo)
+     */
+    public ShardRoutingDataSource(List<HikariDataSource> shards) {
+        this.shards = List.copyOf(shards);
+        Map<Object, Object> targets = new LinkedHashMap<>();
+        for (int i = 0; i < shards.size(); i++) {
+            targets.put(i, shards.get(i));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(shards.get(0));
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return ShardContext.lookupShard();
+    }
+
+    /**
+     * @return Il numero di shard
+     */
+    public int shardCount() {
+        return shards.size();
+    }
+
+    /**
+     * Pool di uno shard, per gli accessi diretti (mappa dei bucket, ribilanciamento).
+     *
+     * @param shard Lo shard
+     * @return Il pool dello shard
+     */
+    public DataSource shard(int shard) {
+        return shards.get(shard);
+    }
+
+    /**
+     * Chiude i pool degli shard aggiuntivi; quello dello shard 0 è un bean a sé.
+     */
+    @Override
+    public void close() {
+        shards.subList(1, shards.size()).forEach(HikariDataSource::close);
+    }
+}
@@ -0,0 +1,78 @@
+package it.cflm.qrticketsystem.sharding;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.spi.BootstrapContext;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.hibernate.tool.schema.spi.SchemaManagementToolCoordinator;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Porta lo schema degli shard aggiuntivi allo stesso livello dello shard 0.
+ *
+ * Hibernate aggiorna lo schema ({@code spring.jpa.hibernate.ddl-auto}) solo sul database con
+ * cui si avvia, cioè lo shard 0. Questa classe, registrata come {@link Integrator}, conserva il
+ * modello delle entità e, a contesto avviato, esegue l'aggiornamento ({@code update}, mai
+ * {@code create}) su ogni altro shard. Con {@code ddl-auto} a {@code none} o {@code validate}
+ * lo schema degli shard va gestito a parte, come quello dello shard 0.
+ */
+@Slf4j
+public class ShardSchemaInitializer implements Integrator, SmartInitializingSingleton {
+
+    private static final Set<String> MANAGED_ACTIONS = Set.of("update", "create", "create-drop", "create-only");
+
+    private final int shardCount;
+
+    private volatile Metadata metadata;
+    private volatile ServiceRegistry serviceRegistry;
+
+    public ShardSchemaInitializer(int shardCount) {
+        this.shardCount = shardCount;
+    }
+
+    @Override
+    public void integrate(Metadata metadata, BootstrapContext bootstrapContext,
+                          SessionFactoryImplementor sessionFactory) {
+        this.metadata = metadata;
+        this.serviceRegistry = sessionFactory.getServiceRegistry();
+    }
+
+    @Override
+    public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+        this.metadata = null;
+        this.serviceRegistry = null;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (metadata == null) {
+            return;
+        }
+        Map<String, Object> settings = new HashMap<>(serviceRegistry.requireService(ConfigurationService.class)
+                .getSettings());
+        Object action = settings.get(AvailableSettings.HBM2DDL_AUTO);
+        if (action == null || !MANAGED_ACTIONS.contains(action.toString().trim().toLowerCase())) {
+            return;
+        }
+        settings.put(AvailableSettings.HBM2DDL_AUTO, "update");
+        settings.remove(AvailableSettings.JAKARTA_HBM2DDL_DATABASE_ACTION);
+        settings.remove(AvailableSettings.JAKARTA_HBM2DDL_SCRIPTS_ACTION);
+        for (int shard = 1; shard < shardCount; shard++) {
+            ShardContext.call(shard, () -> {
+                SchemaManagementToolCoordinator.process(metadata, serviceRegistry, settings, dropAction -> { });
+                return null;
+            });
+            log.info("Schema dello shard {} aggiornato", shard);
+        }
+    }
+}
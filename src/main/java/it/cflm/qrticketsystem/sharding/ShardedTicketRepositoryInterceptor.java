@@ -0,0 +1,355 @@
+package it.cflm.qrticketsystem.sharding;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Supplier;
+import java.util.stream.BaseStream;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.ProxyMethodInvocation;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.Slice;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import it.cflm.qrticketsystem.exception.ShardMovingException;
+import it.cflm.qrticketsystem.model.Ticket;
+import it.cflm.qrticketsystem.repository.TicketRepository;
+import it.cflm.qrticketsystem.util.TicketIds;
+import it.cflm.qrticketsystem.util.TicketPayloadCodec;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Instrada le chiamate al {@link TicketRepository} sullo shard dei biglietti coinvolti, secondo
+ * l'annotazione {@link ShardRoute} di ogni metodo (verificata alla creazione dell'interceptor).
+ *
+ * <ul>
+ *   <li>Entità (anche in lista): lo shard dell'evento del biglietto. Le scritture su un evento
+ *       in spostamento sono rifiutate con {@link ShardMovingException}.</li>
+ *   <li>Metodi per evento: lo shard dell'evento.</li>
+ *   <li>Metodi per ID e per contenuto del QR Code: lo shard del bucket incorporato nell'ID.
+ *       Gli ID casuali dei biglietti creati prima della suddivisione vengono cercati su tutti
+ *       gli shard, e la posizione trovata resta in cache.</li>
+ *   <li>Metodi su tutti gli shard (conteggi, elenchi completi): su ogni shard, in una transazione
+ *       a sé, con i risultati uniti (elenchi concatenati, conteggi sommati). L'ordinamento globale,
+ *       la paginazione e gli stream tra shard non sono supportati.</li>
+ * </ul>
+ * Dentro una transazione già legata a un altro shard, l'operazione viene eseguita in una
+ * transazione separata sullo shard giusto.
+ */
+@Slf4j
+public class ShardedTicketRepositoryInterceptor implements MethodInterceptor {
+
+    private static final int LOCATION_CACHE_SIZE = 100_000;
+
+    private final TicketShardDirectory directory;
+    private final ObjectProvider<PlatformTransactionManager> transactionManager;
+    private final Counter scatterCounter;
+    private final Map<Method, ShardRoute> routes = routes(TicketRepository.class);
+    private final Cache<UUID, Integer> legacyLocations = Caffeine.newBuilder()
+            .maximumSize(LOCATION_CACHE_SIZE)
+            .build();
+
+    private volatile TicketRepository target;
+
+    public ShardedTicketRepositoryInterceptor(TicketShardDirectory directory,
+                                              ObjectProvider<PlatformTransactionManager> transactionManager,
+                                              MeterRegistry meterRegistry) {
+        this.directory = directory;
+        this.transactionManager = transactionManager;
+        this.scatterCounter = Counter.builder("qrticket.sharding.scatter")
+                .description("Chiamate al repository dei biglietti eseguite su tutti gli shard")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Repository originale, usato per localizzare i biglietti con ID casuale.
+     */
+    public void setTarget(TicketRepository target) {
+        this.target = target;
+    }
+
+    /**
+     * Dimentica le posizioni dei biglietti con ID casuale (dopo un ribilanciamento).
+     */
+    public void clearLocations() {
+        legacyLocations.invalidateAll();
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        try {
+            return route(invocation);
+        } catch (ShardInvocationException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Instradamento dei metodi di un repository.
+     *
+     * @throws IllegalStateException se un metodo non è annotato con {@link ShardRoute}, il suo
+     *         primo parametro non corrisponde alla chiave, o il risultato non si può unire tra shard
+     */
+    static Map<Method, ShardRoute> routes(Class<?> repository) {
+        Map<Method, ShardRoute> routes = new HashMap<>();
+        for (Method method : repository.getMethods()) {
+            if (method.isDefault() || Modifier.isStatic(method.getModifiers())) {
+                continue;
+            }
+            ShardRoute route = method.getAnnotation(ShardRoute.class);
+            if (route == null) {
+                throw new IllegalStateException(describe(method) + ": manca @ShardRoute");
+            }
+            Class<?>[] parameters = method.getParameterTypes();
+            Class<?> first = parameters.length > 0 ? parameters[0] : null;
+            boolean matches = switch (route.value()) {
+                case TICKET -> first != null
+                        && (first.isAssignableFrom(Ticket.class) || Iterable.class.isAssignableFrom(first));
+                case EVENT_NAME, QR_CODE_DATA -> first == String.class;
+                case TICKET_ID -> first == UUID.class;
+                case TICKET_IDS -> first != null && Iterable.class.isAssignableFrom(first);
+                case ALL_SHARDS -> true;
+            };
+            if (!matches) {
+                throw new IllegalStateException(describe(method) + ": il primo parametro non è un "
+                        + route.value());
+            }
+            if (mayScatter(route) && !isMergeable(method.getReturnType())) {
+                throw new IllegalStateException(describe(method) + ": " + method.getReturnType().getSimpleName()
+                        + " non si può unire tra shard");
+            }
+            routes.put(method, route);
+        }
+        return routes;
+    }
+
+    private static boolean mayScatter(ShardRoute route) {
+        return route.value() != ShardRoute.Key.TICKET && route.value() != ShardRoute.Key.EVENT_NAME;
+    }
+
+    private static boolean isMergeable(Class<?> type) {
+        return !BaseStream.class.isAssignableFrom(type) && !Slice.class.isAssignableFrom(type);
+    }
+
+    private static String describe(Method method) {
+        return method.getDeclaringClass().getSimpleName() + "." + method.getName();
+    }
+
+    private Object route(MethodInvocation invocation) {
+        Method method = invocation.getMethod();
+        if (method.getDeclaringClass() == Object.class) {
+            return proceed(invocation);
+        }
+        ShardRoute route = routes.get(method);
+        if (route == null) {
+            throw new IllegalStateException(describe(method) + ": manca @ShardRoute");
+        }
+        Object first = invocation.getArguments().length > 0 ? invocation.getArguments()[0] : null;
+
+        return switch (route.value()) {
+            case TICKET -> first instanceof Ticket ticket
+                    ? onShard(writableShard(ticket), invocation)
+                    : onTicketShards(invocation, (Iterable<?>) first);
+            case EVENT_NAME -> onShard(directory.shardOfEvent((String) first), invocation);
+            case TICKET_ID -> onShardOrScatter(shardOf((UUID) first, route.write()), invocation, route);
+            case TICKET_IDS -> onShardOrScatter(commonShard((Iterable<?>) first, route.write()), invocation, route);
+            case QR_CODE_DATA -> {
+                UUID id = TicketPayloadCodec.tryDecode((String) first);
+                yield onShardOrScatter(id != null ? shardOf(id, false) : null, invocation, route);
+            }
+            case ALL_SHARDS -> scatter(invocation, route);
+        };
+    }
+
+    private Object onShardOrScatter(Integer shard, MethodInvocation invocation, ShardRoute route) {
+        return shard != null ? onShard(shard, invocation) : scatter(invocation, route);
+    }
+
+    /**
+     * Shard di un biglietto da scrivere.
+     */
+    private int writableShard(Ticket ticket) {
+        int bucket = TicketIds.bucketOf(ticket.getEventName());
+        if (directory.isMoving(bucket)) {
+            throw new ShardMovingException("Biglietti dell'evento " + ticket.getEventName()
+                    + " in spostamento tra shard, riprovare tra qualche secondo");
+        }
+        return directory.shardOf(bucket);
+    }
+
+    /**
+     * Shard di un biglietto dato l'ID, oppure null se il biglietto non esiste.
+     */
+    private Integer shardOf(UUID id, boolean write) {
+        int bucket = TicketIds.bucketOf(id);
+        if (bucket >= 0) {
+            if (write && directory.isMoving(bucket)) {
+                throw new ShardMovingException("Biglietto " + id + " in spostamento tra shard, riprovare "
+                        + "tra qualche secondo");
+            }
+            return directory.shardOf(bucket);
+        }
+        Integer cached = legacyLocations.getIfPresent(id);
+        if (cached != null) {
+            return cached;
+        }
+        scatterCounter.increment();
+        for (int shard = 0; shard < directory.shardCount(); shard++) {
+            Boolean exists = inNewTransaction(shard, true, () -> target.existsById(id));
+            if (Boolean.TRUE.equals(exists)) {
+                legacyLocations.put(id, shard);
+                return shard;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Shard comune a un elenco di ID, oppure null se sono su shard diversi o hanno ID casuali.
+     */
+    private Integer commonShard(Iterable<?> ids, boolean write) {
+        Integer common = null;
+        for (Object item : ids) {
+            if (!(item instanceof UUID id) || TicketIds.bucketOf(id) < 0) {
+                return null;
+            }
+            int shard = shardOf(id, write);
+            if (common != null && common.intValue() != shard) {
+                return null;
+            }
+            common = shard;
+        }
+        return common;
+    }
+
+    /**
+     * Esegue una chiamata con un elenco di biglietti, divisa per shard.
+     */
+    private Object onTicketShards(MethodInvocation invocation, Iterable<?> items) {
+        Map<Integer, List<Object>> byShard = new LinkedHashMap<>();
+        for (Object item : items) {
+            byShard.computeIfAbsent(writableShard((Ticket) item), shard -> new ArrayList<>()).add(item);
+        }
+        if (byShard.size() == 1) {
+            return onShard(byShard.keySet().iterator().next(), invocation);
+        }
+        List<Object> results = new ArrayList<>();
+        for (Map.Entry<Integer, List<Object>> entry : byShard.entrySet()) {
+            Object[] arguments = invocation.getArguments().clone();
+            arguments[0] = entry.getValue();
+            results.add(inNewTransaction(entry.getKey(), false, () -> proceed(clone(invocation, arguments))));
+        }
+        return merge(invocation.getMethod(), results);
+    }
+
+    /**
+     * Esegue la chiamata sullo shard indicato.
+     */
+    private Object onShard(int shard, MethodInvocation invocation) {
+        if (ShardContext.bindTransaction(shard)) {
+            return ShardContext.call(shard, () -> proceed(invocation));
+        }
+        log.debug("Transazione legata a un altro shard: {} eseguito in una transazione separata sullo shard {}",
+                invocation.getMethod().getName(), shard);
+        return inNewTransaction(shard, false, () -> proceed(clone(invocation, invocation.getArguments())));
+    }
+
+    /**
+     * Esegue la chiamata su tutti gli shard e ne unisce i risultati.
+     */
+    private Object scatter(MethodInvocation invocation, ShardRoute route) {
+        Method method = invocation.getMethod();
+        scatterCounter.increment();
+        boolean readOnly = !route.write();
+        List<Object> results = new ArrayList<>(directory.shardCount());
+        for (int shard = 0; shard < directory.shardCount(); shard++) {
+            ProxyMethodInvocation copy = clone(invocation, invocation.getArguments());
+            results.add(inNewTransaction(shard, readOnly, () -> proceed(copy)));
+        }
+        return merge(method, results);
+    }
+
+    private static Object merge(Method method, List<Object> results) {
+        Class<?> type = method.getReturnType();
+        if (type == void.class) {
+            return null;
+        }
+        if (Optional.class.equals(type)) {
+            return results.stream()
+                    .map(Optional.class::cast)
+                    .filter(Optional::isPresent)
+                    .findFirst()
+                    .orElse(Optional.empty());
+        }
+        if (Iterable.class.isAssignableFrom(type)) {
+            List<Object> merged = new ArrayList<>();
+            for (Object result : results) {
+                if (result instanceof Collection<?> collection) {
+                    merged.addAll(collection);
+                } else if (result != null) {
+                    ((Iterable<?>) result).forEach(merged::add);
+                }
+            }
+            return merged;
+        }
+        if (type == long.class || Long.class.equals(type)) {
+            return results.stream().mapToLong(result -> ((Number) result).longValue()).sum();
+        }
+        if (type == int.class || Integer.class.equals(type)) {
+            return results.stream().mapToInt(result -> ((Number) result).intValue()).sum();
+        }
+        if (type == boolean.class || Boolean.class.equals(type)) {
+            return results.stream().anyMatch(Boolean.TRUE::equals);
+        }
+        return results.stream().filter(result -> result != null).findFirst().orElse(null);
+    }
+
+    private <T> T inNewTransaction(int shard, boolean readOnly, Supplier<T> action) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager.getObject());
+        transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        transaction.setReadOnly(readOnly);
+        return transaction.execute(status -> {
+            ShardContext.bindTransaction(shard);
+            return ShardContext.call(shard, action);
+        });
+    }
+
+    private static ProxyMethodInvocation clone(MethodInvocation invocation, Object[] arguments) {
+        return (ProxyMethodInvocation) ((ProxyMethodInvocation) invocation).invocableClone(arguments);
+    }
+
+    private static Object proceed(MethodInvocation invocation) {
+        try {
+            return invocation.proceed();
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new ShardInvocationException(e);
+        }
+    }
+
+    /**
+     * Eccezione controllata del repository, trasportata attraverso le lambda.
+     */
+    private static final class ShardInvocationException extends RuntimeException {
+        private ShardInvocationException(Throwable cause) {
+            super(cause);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package it.cflm.qrticketsystem.sharding;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import it.cflm.qrticketsystem.util.TicketIds;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Mappa dei bucket degli eventi sugli shard, salvata nella tabella {@value #TABLE} dello shard 0.
+ *
+ * Al primo avvio ogni bucket va sullo shard {@code bucket % numero di shard}; dopo, la mappa
+ * cambia solo con il ribilanciamento ({@link TicketShardRebalancer}), così aggiungere uno shard
+ * non sposta i biglietti finché non lo si chiede. Ogni istanza rilegge la mappa ogni
+ * {@code qrticket.sharding.refresh-interval-ms}. Un bucket in spostamento accetta letture ma non
+ * scritture.
+ */
+@Slf4j
+public class TicketShardDirectory implements AutoCloseable {
+
+    static final String TABLE = "ticket_shard_buckets";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int shardCount;
+    private final ScheduledExecutorService refresher;
+
+    private volatile Assignment assignment;
+
+    /**
+     * Stato della mappa: shard e spostamento in corso per ogni bucket.
+     */
+    private record Assignment(int[] shards, boolean[] moving) {
+    }
+
+    public TicketShardDirectory(DataSource shardZero, int shardCount, long refreshIntervalMs) {
+        this.jdbcTemplate = new JdbcTemplate(shardZero);
+        this.shardCount = shardCount;
+        initialize();
+        this.refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "shard-directory-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = Math.max(10, refreshIntervalMs);
+        refresher.scheduleWithFixedDelay(() -> {
+            try {
+                reload();
+            } catch (RuntimeException e) {
+                log.warn("Rilettura della mappa degli shard fallita, resta quella precedente: {}", e.getMessage());
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    private void initialize() {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + TABLE
+                + " (bucket INT PRIMARY KEY, shard INT NOT NULL, moving BOOLEAN NOT NULL)");
+        Integer rows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + TABLE, Integer.class);
+        if (rows == null || rows == 0) {
+            List<Object[]> defaults = new ArrayList<>(TicketIds.BUCKETS);
+            for (int bucket = 0; bucket < TicketIds.BUCKETS; bucket++) {
+                defaults.add(new Object[] {bucket, targetShard(bucket)});
+            }
+            jdbcTemplate.batchUpdate("INSERT INTO " + TABLE + " (bucket, shard, moving) VALUES (?, ?, FALSE)",
+                    defaults);
+            log.info("Mappa degli shard inizializzata: {} bucket su {} shard", TicketIds.BUCKETS, shardCount);
+        }
+        reload();
+    }
+
+    /**
+     * Rilegge la mappa dal database. Serializzata: una rilettura periodica iniziata prima di
+     * {@link #assign(int, int)} non può sovrascrivere la mappa aggiornata con quella precedente.
+     *
+     * @throws IllegalStateException se un bucket è assegnato a uno shard non configurato
+     */
+    public synchronized void reload() {
+        int[] shards = new int[TicketIds.BUCKETS];
+        boolean[] moving = new boolean[TicketIds.BUCKETS];
+        jdbcTemplate.query("SELECT bucket, shard, moving FROM " + TABLE, row -> {
+            int bucket = row.getInt(1);
+            int shard = row.getInt(2);
+            if (shard >= shardCount) {
+                throw new IllegalStateException("Il bucket " + bucket + " è sullo shard " + shard
+                        + ", ma gli shard configurati sono " + shardCount);
+            }
+            shards[bucket] = shard;
+            moving[bucket] = row.getBoolean(3);
+        });
+        assignment = new Assignment(shards, moving);
+    }
+
+    /**
+     * @return Il numero di shard
+     */
+    public int shardCount() {
+        return shardCount;
+    }
+
+    /**
+     * @param bucket Il bucket
+     * @return Lo shard che ospita il bucket
+     */
+    public int shardOf(int bucket) {
+        return assignment.shards()[bucket];
+    }
+
+    /**
+     * @param eventName L'evento
+     * @return Lo shard che ospita i biglietti dell'evento
+     */
+    public int shardOfEvent(String eventName) {
+        return shardOf(TicketIds.bucketOf(eventName));
+    }
+
+    /**
+     * @param bucket Il bucket
+     * @return true se il bucket è in spostamento tra due shard
+     */
+    public boolean isMoving(int bucket) {
+        return assignment.moving()[bucket];
+    }
+
+    /**
+     * Shard su cui il bucket si trova a mappa bilanciata.
+     *
+     * @param bucket Il bucket
+     * @return Lo shard di destinazione
+     */
+    public int targetShard(int bucket) {
+        return bucket % shardCount;
+    }
+
+    /**
+     * Segna un bucket come in spostamento (le scritture vengono rifiutate) o lo libera.
+     */
+    void markMoving(int bucket, boolean moving) {
+        jdbcTemplate.update("UPDATE " + TABLE + " SET moving = ? WHERE bucket = ?", moving, bucket);
+        reload();
+    }
+
+    /**
+     * Assegna un bucket a uno shard e lo libera.
+     */
+    void assign(int bucket, int shard) {
+        jdbcTemplate.update("UPDATE " + TABLE + " SET shard = ?, moving = FALSE WHERE bucket = ?", shard, bucket);
+        reload();
+    }
+
+    @Override
+    public void close() {
+        refresher.shutdownNow();
+    }
+}
@@ -0,0 +1,200 @@
+package it.cflm.qrticketsystem.sharding;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import it.cflm.qrticketsystem.config.ShardingProperties;
+import it.cflm.qrticketsystem.dto.ShardMoveDTO;
+import it.cflm.qrticketsystem.dto.ShardStatusDTO;
+import it.cflm.qrticketsystem.util.TicketIds;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Ribilanciamento dei biglietti dopo l'aggiunta di uno shard.
+ *
+ * Ogni bucket fuori posto (vedi {@link TicketShardDirectory#targetShard(int)}) viene spostato così:
+ * <ol>
+ *   <li>il bucket è segnato in spostamento, e si attende un intervallo di rilettura della mappa
+ *       perché tutte le istanze smettano di scriverci;</li>
+ *   <li>i biglietti dei suoi eventi sono copiati a pagine sullo shard di destinazione (eventuali
+ *       copie di uno spostamento interrotto vengono prima rimosse);</li>
+ *   <li>il bucket passa allo shard di destinazione, e i biglietti vengono rimossi dall'origine.</li>
+ * </ol>
+ * Durante lo spostamento le letture continuano dallo shard di origine; le scritture sono rifiutate
+ * con 503. Un ribilanciamento interrotto si riprende rilanciandolo.
+ */
+@Slf4j
+public class TicketShardRebalancer {
+
+    private static final String TABLE = "tickets";
+
+    private final TicketShardDirectory directory;
+    private final ShardRoutingDataSource dataSource;
+    private final ShardedTicketRepositoryInterceptor repositoryInterceptor;
+    private final ShardingProperties settings;
+
+    public TicketShardRebalancer(TicketShardDirectory directory,
+                                 ShardRoutingDataSource dataSource,
+                                 ShardedTicketRepositoryInterceptor repositoryInterceptor,
+                                 ShardingProperties settings) {
+        this.directory = directory;
+        this.dataSource = dataSource;
+        this.repositoryInterceptor = repositoryInterceptor;
+        this.settings = settings;
+    }
+
+    /**
+     * @return Bucket e biglietti di ogni shard
+     */
+    public List<ShardStatusDTO> status() {
+        List<ShardStatusDTO> status = new ArrayList<>(directory.shardCount());
+        for (int shard = 0; shard < directory.shardCount(); shard++) {
+            int buckets = 0;
+            int moving = 0;
+            for (int bucket = 0; bucket < TicketIds.BUCKETS; bucket++) {
+                if (directory.shardOf(bucket) == shard) {
+                    buckets++;
+                    moving += directory.isMoving(bucket) ? 1 : 0;
+                }
+            }
+            Long tickets = jdbc(shard).queryForObject("SELECT COUNT(*) FROM " + TABLE, Long.class);
+            status.add(ShardStatusDTO.builder()
+                    .shard(shard)
+                    .buckets(buckets)
+                    .movingBuckets(moving)
+                    .tickets(tickets != null ? tickets : 0)
+                    .build());
+        }
+        return status;
+    }
+
+    /**
+     * @return Gli spostamenti necessari per bilanciare la mappa, senza eseguirli
+     */
+    public List<ShardMoveDTO> plan() {
+        List<ShardMoveDTO> moves = new ArrayList<>();
+        Map<Integer, Map<Integer, List<String>>> eventsByShard = new HashMap<>();
+        for (int bucket = 0; bucket < TicketIds.BUCKETS; bucket++) {
+            int from = directory.shardOf(bucket);
+            int to = directory.targetShard(bucket);
+            if (from == to) {
+                continue;
+            }
+            List<String> events = eventsByShard.computeIfAbsent(from, this::eventsByBucket)
+                    .getOrDefault(bucket, List.of());
+            moves.add(ShardMoveDTO.builder()
+                    .bucket(bucket)
+                    .fromShard(from)
+                    .toShard(to)
+                    .events(events.size())
+                    .tickets(countTickets(from, events))
+                    .build());
+        }
+        return moves;
+    }
+
+    /**
+     * Esegue tutti gli spostamenti necessari, uno alla volta.
+     *
+     * @return Gli spostamenti eseguiti
+     */
+    public synchronized List<ShardMoveDTO> rebalance() {
+        List<ShardMoveDTO> moves = plan();
+        List<ShardMoveDTO> done = new ArrayList<>(moves.size());
+        for (ShardMoveDTO move : moves) {
+            done.add(move(move.getBucket(), move.getFromShard(), move.getToShard()));
+        }
+        if (!done.isEmpty()) {
+            repositoryInterceptor.clearLocations();
+            log.info("Ribilanciamento completato: {} bucket spostati", done.size());
+        }
+        return done;
+    }
+
+    private ShardMoveDTO move(int bucket, int from, int to) {
+        directory.markMoving(bucket, true);
+        try {
+            Thread.sleep(settings.getRefreshIntervalMs());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            directory.markMoving(bucket, false);
+            throw new IllegalStateException("Ribilanciamento interrotto", e);
+        }
+        List<String> events = eventsByBucket(from).getOrDefault(bucket, List.of());
+        long copied = 0;
+        for (String eventName : events) {
+            copied += copyEvent(eventName, from, to);
+        }
+        directory.assign(bucket, to);
+        for (String eventName : events) {
+            jdbc(from).update("DELETE FROM " + TABLE + " WHERE event_name = ?", eventName);
+        }
+        log.info("Bucket {} spostato dallo shard {} allo shard {}: {} eventi, {} biglietti",
+                bucket, from, to, events.size(), copied);
+        return ShardMoveDTO.builder()
+                .bucket(bucket)
+                .fromShard(from)
+                .toShard(to)
+                .events(events.size())
+                .tickets(copied)
+                .build();
+    }
+
+    /**
+     * Copia i biglietti di un evento a pagine ordinate per ID, con colonne lette dal database:
+     * la copia non dipende dalla mappatura dell'entità.
+     */
+    private long copyEvent(String eventName, int from, int to) {
+        JdbcTemplate source = jdbc(from);
+        source.setMaxRows(Math.max(1, settings.getRebalancePageSize()));
+        JdbcTemplate target = jdbc(to);
+        target.update("DELETE FROM " + TABLE + " WHERE event_name = ?", eventName);
+
+        long copied = 0;
+        Object lastId = null;
+        while (true) {
+            List<Map<String, Object>> page = lastId == null
+                    ? source.queryForList("SELECT * FROM " + TABLE + " WHERE event_name = ? ORDER BY id", eventName)
+                    : source.queryForList("SELECT * FROM " + TABLE + " WHERE event_name = ? AND id > ? ORDER BY id",
+                            eventName, lastId);
+            if (page.isEmpty()) {
+                return copied;
+            }
+            List<String> columns = List.copyOf(page.get(0).keySet());
+            String insert = "INSERT INTO " + TABLE + " (" + String.join(", ", columns) + ") VALUES ("
+                    + columns.stream().map(column -> "?").collect(Collectors.joining(", ")) + ")";
+            target.batchUpdate(insert, page.stream()
+                    .map(row -> columns.stream().map(row::get).toArray())
+                    .toList());
+            copied += page.size();
+            lastId = page.get(page.size() - 1).get("id");
+        }
+    }
+
+    /**
+     * Eventi presenti su uno shard, raggruppati per bucket.
+     */
+    private Map<Integer, List<String>> eventsByBucket(int shard) {
+        return jdbc(shard).queryForList("SELECT DISTINCT event_name FROM " + TABLE, String.class).stream()
+                .collect(Collectors.groupingBy(TicketIds::bucketOf));
+    }
+
+    private long countTickets(int shard, List<String> events) {
+        long tickets = 0;
+        for (String eventName : events) {
+            Long count = jdbc(shard).queryForObject("SELECT COUNT(*) FROM " + TABLE + " WHERE event_name = ?",
+                    Long.class, eventName);
+            tickets += count != null ? count : 0;
+        }
+        return tickets;
+    }
+
+    private JdbcTemplate jdbc(int shard) {
+        return new JdbcTemplate(dataSource.shard(shard));
+    }
+}
@@ -0,0 +1,88 @@
+package it.cflm.qrticketsystem.util;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import it.cflm.qrticketsystem.exception.BulkheadFullException;
+
+/**
+ * Limita le esecuzioni concorrenti di un caso d'uso, così un caso d'uso bloccato
+ * (es. letture lente) non occupa tutti i thread e tutte le connessioni degli altri.
+ *
+ * Oltre {@code maxConcurrent} esecuzioni in corso le nuove attendono un posto libero
+ * al massimo {@code maxWait}, poi vengono rifiutate con {@link BulkheadFullException}.
+ */
+public class Bulkhead {
+
+    private final String name;
+    private final int maxConcurrent;
+    private final long maxWaitNanos;
+    private final Semaphore permits;
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * @param name Nome del caso d'uso, usato nei messaggi di errore
+     * @param maxConcurrent Esecuzioni concorrenti ammesse
+     * @param maxWait Attesa massima di un posto libero
+     */
+    public Bulkhead(String name, int maxConcurrent, Duration maxWait) {
+        if (maxConcurrent < 1) {
+            throw new IllegalArgumentException("maxConcurrent deve essere almeno 1");
+        }
+        this.name = name;
+        this.maxConcurrent = maxConcurrent;
+        this.maxWaitNanos = maxWait.toNanos();
+        this.permits = new Semaphore(maxConcurrent);
+    }
+
+    /**
+     * Esegue la chiamata appena c'è un posto libero.
+     *
+     * @param call La chiamata
+     * @return Il risultato della chiamata
+     * @throws BulkheadFullException se non si libera un posto entro l'attesa massima
+     */
+    public <T> T execute(Supplier<T> call) {
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            rejected.increment();
+            throw new BulkheadFullException("Troppe richieste di " + name + " in corso, riprovare");
+        }
+        try {
+            return call.get();
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * @return Le esecuzioni in corso
+     */
+    public int active() {
+        return maxConcurrent - permits.availablePermits();
+    }
+
+    /**
+     * @return Le chiamate rifiutate
+     */
+    public long rejected() {
+        return rejected.sum();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+}
@@ -0,0 +1,150 @@
+package it.cflm.qrticketsystem.util;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * Circuit breaker a finestra di conteggio.
+ *
+ * <ul>
+ *   <li>CLOSED: le chiamate passano; l'esito delle ultime {@code windowSize} è tenuto in un
+ *       buffer circolare. Con almeno {@code minimumCalls} esiti e una percentuale di chiamate
+ *       fallite o lente pari a {@code failureRatePercent} il circuito si apre.</li>
+ *   <li>OPEN: le chiamate sono rifiutate subito, senza attendere il servizio bloccato,
+ *       per {@code openDuration}.</li>
+ *   <li>HALF_OPEN: passano {@code halfOpenCalls} chiamate di prova; se riescono tutte il
+ *       circuito si richiude con la finestra vuota, al primo fallimento si riapre.</li>
+ * </ul>
+ *
+ * Ogni {@link #tryAcquire()} riuscito va seguito da {@link #onSuccess(long)} o {@link #onFailure()}.
+ */
+public class CircuitBreaker {
+
+    /**
+     * Stato del circuito.
+     */
+    public enum State {
+        CLOSED, HALF_OPEN, OPEN
+    }
+
+    private final int minimumCalls;
+    private final int failureRatePercent;
+    private final long slowCallNanos;
+    private final long openNanos;
+    private final int halfOpenCalls;
+    private final LongSupplier nanoTime;
+    private final boolean[] failedCalls;
+
+    private volatile State state = State.CLOSED;
+    private int next;
+    private int recorded;
+    private int failures;
+    private long openedAt;
+    private int halfOpenPermits;
+    private int halfOpenSuccesses;
+
+    public CircuitBreaker(int windowSize, int minimumCalls, int failureRatePercent,
+                          Duration slowCall, Duration openDuration, int halfOpenCalls) {
+        this(windowSize, minimumCalls, failureRatePercent, slowCall, openDuration, halfOpenCalls, System::nanoTime);
+    }
+
+    public CircuitBreaker(int windowSize, int minimumCalls, int failureRatePercent,
+                          Duration slowCall, Duration openDuration, int halfOpenCalls, LongSupplier nanoTime) {
+        if (windowSize < 1) {
+            throw new IllegalArgumentException("windowSize deve essere almeno 1");
+        }
+        this.failedCalls = new boolean[windowSize];
+        this.minimumCalls = Math.max(1, Math.min(minimumCalls, windowSize));
+        this.failureRatePercent = failureRatePercent;
+        this.slowCallNanos = slowCall.toNanos();
+        this.openNanos = openDuration.toNanos();
+        this.halfOpenCalls = Math.max(1, halfOpenCalls);
+        this.nanoTime = nanoTime;
+    }
+
+    /**
+     * Chiede il permesso di eseguire una chiamata.
+     *
+     * @return false se il circuito è aperto (o le chiamate di prova sono già in corso)
+     */
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (nanoTime.getAsLong() - openedAt < openNanos) {
+                return false;
+            }
+            state = State.HALF_OPEN;
+            halfOpenPermits = halfOpenCalls;
+            halfOpenSuccesses = 0;
+        }
+        if (state == State.HALF_OPEN) {
+            if (halfOpenPermits == 0) {
+                return false;
+            }
+            halfOpenPermits--;
+        }
+        return true;
+    }
+
+    /**
+     * Registra una chiamata riuscita; se più lenta della soglia conta come fallita.
+     *
+     * @param durationNanos La durata della chiamata
+     */
+    public synchronized void onSuccess(long durationNanos) {
+        record(durationNanos >= slowCallNanos);
+    }
+
+    /**
+     * Registra una chiamata fallita.
+     */
+    public synchronized void onFailure() {
+        record(true);
+    }
+
+    private void record(boolean failed) {
+        switch (state) {
+            case HALF_OPEN -> {
+                if (failed) {
+                    open();
+                } else if (++halfOpenSuccesses >= halfOpenCalls) {
+                    close();
+                }
+            }
+            case CLOSED -> {
+                if (recorded == failedCalls.length) {
+                    failures -= failedCalls[next] ? 1 : 0;
+                } else {
+                    recorded++;
+                }
+                failedCalls[next] = failed;
+                failures += failed ? 1 : 0;
+                next = (next + 1) % failedCalls.length;
+                if (recorded >= minimumCalls && failures * 100L >= (long) failureRatePercent * recorded) {
+                    open();
+                }
+            }
+            case OPEN -> {
+                // Chiamata iniziata prima dell'apertura: non cambia lo stato
+            }
+        }
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = nanoTime.getAsLong();
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        next = 0;
+        recorded = 0;
+        failures = 0;
+    }
+
+    /**
+     * @return Lo stato del circuito (OPEN resta tale fino alla prima richiesta dopo l'attesa)
+     */
+    public State state() {
+        return state;
+    }
+}
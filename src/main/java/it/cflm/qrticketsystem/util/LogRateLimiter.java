@@ -0,0 +1,55 @@
+package it.cflm.qrticketsystem.util;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Limita la frequenza di un messaggio di log ripetuto (es. scansioni rifiutate).
+ * Ammette al massimo {@code permits} messaggi per intervallo; quelli in eccesso vengono
+ * contati e il totale è restituito al primo messaggio ammesso successivamente,
+ * così il log riporta quante righe simili sono state omesse.
+ */
+public class LogRateLimiter {
+
+    /** Valore restituito da {@link #tryAcquire()} quando il messaggio va omesso. */
+    public static final long SUPPRESSED = -1;
+
+    private final int permits;
+    private final long intervalNanos;
+    private final LongSupplier nanoTime;
+    private final AtomicLong windowStart;
+    private final AtomicInteger used = new AtomicInteger();
+    private final AtomicLong suppressed = new AtomicLong();
+
+    public LogRateLimiter(int permits, Duration interval) {
+        this(permits, interval, System::nanoTime);
+    }
+
+    LogRateLimiter(int permits, Duration interval, LongSupplier nanoTime) {
+        this.permits = permits;
+        this.intervalNanos = interval.toNanos();
+        this.nanoTime = nanoTime;
+        this.windowStart = new AtomicLong(nanoTime.getAsLong());
+    }
+
+    /**
+     * Chiede il permesso di scrivere un messaggio.
+     *
+     * @return {@link #SUPPRESSED} se il messaggio va omesso, altrimenti il numero di
+     *         messaggi omessi dall'ultimo ammesso
+     */
+    public long tryAcquire() {
+        long now = nanoTime.getAsLong();
+        long start = windowStart.get();
+        if (now - start >= intervalNanos && windowStart.compareAndSet(start, now)) {
+            used.set(0);
+        }
+        if (used.incrementAndGet() > permits) {
+            suppressed.incrementAndGet();
+            return SUPPRESSED;
+        }
+        return suppressed.getAndSet(0);
+    }
+}
@@ -0,0 +1,94 @@
+package it.cflm.qrticketsystem.util;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+/**
+ * Contatore di eventi per secondo sugli ultimi {@code windowSeconds} secondi.
+ *
+ * Un buffer circolare con una cella per secondo: ogni cella contiene, in un solo long,
+ * il secondo a cui si riferisce (40 bit alti) e il conteggio (24 bit bassi). L'incremento
+ * è un compare-and-set sulla cella del secondo corrente, che la azzera se contiene
+ * un secondo ormai uscito dalla finestra: nessun lock e nessuna allocazione.
+ * La lettura copia le celle ancora nella finestra.
+ */
+public class RollingWindowCounter {
+
+    private static final int COUNT_BITS = 24;
+    private static final long MAX_COUNT = (1L << COUNT_BITS) - 1;
+
+    private final int windowSeconds;
+    private final LongSupplier epochSecond;
+    private final AtomicLongArray cells;
+
+    public RollingWindowCounter(int windowSeconds) {
+        this(windowSeconds, () -> System.currentTimeMillis() / 1000);
+    }
+
+    /**
+     * @param windowSeconds Ampiezza della finestra in secondi
+     * @param epochSecond Sorgente del secondo corrente (epoch)
+     */
+    public RollingWindowCounter(int windowSeconds, LongSupplier epochSecond) {
+        if (windowSeconds < 1) {
+            throw new IllegalArgumentException("windowSeconds deve essere almeno 1");
+        }
+        this.windowSeconds = windowSeconds;
+        this.epochSecond = epochSecond;
+        this.cells = new AtomicLongArray(windowSeconds);
+    }
+
+    /**
+     * Conta un evento nel secondo corrente.
+     */
+    public void increment() {
+        long second = epochSecond.getAsLong();
+        int index = (int) (second % windowSeconds);
+        while (true) {
+            long cell = cells.get(index);
+            long cellSecond = cell >>> COUNT_BITS;
+            long updated;
+            if (cellSecond == second) {
+                long count = cell & MAX_COUNT;
+                if (count == MAX_COUNT) {
+                    return;
+                }
+                updated = cell + 1;
+            } else if (cellSecond < second) {
+                updated = (second << COUNT_BITS) | 1;
+            } else {
+                // Thread rimasto indietro di un giro intero del buffer: il secondo è già fuori finestra
+                return;
+            }
+            if (cells.compareAndSet(index, cell, updated)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return Gli eventi di ogni secondo della finestra, dal più vecchio al corrente
+     */
+    public long[] perSecond() {
+        long now = epochSecond.getAsLong();
+        long[] counts = new long[windowSeconds];
+        for (int i = 0; i < windowSeconds; i++) {
+            long second = now - windowSeconds + 1 + i;
+            long cell = cells.get((int) (second % windowSeconds));
+            counts[i] = (cell >>> COUNT_BITS) == second ? cell & MAX_COUNT : 0;
+        }
+        return counts;
+    }
+
+    /**
+     * @return Gli eventi nella finestra
+     */
+    public long total() {
+        return Arrays.stream(perSecond()).sum();
+    }
+
+    public int getWindowSeconds() {
+        return windowSeconds;
+    }
+}
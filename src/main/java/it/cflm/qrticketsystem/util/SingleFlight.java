@@ -0,0 +1,159 @@
+package it.cflm.qrticketsystem.util;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import it.cflm.qrticketsystem.exception.LookupBusyException;
+
+/**
+ * Unisce le chiamate concorrenti con la stessa chiave in un'unica esecuzione.
+ *
+ * Il primo chiamante (leader) esegue il calcolo nel proprio thread; chi arriva con la stessa
+ * chiave mentre il calcolo è in corso ne attende il risultato, o la stessa eccezione, invece
+ * di ripeterlo. Nulla viene conservato dopo la fine del calcolo: non è una cache.
+ *
+ * Le attese sono limitate: oltre {@code maxWaiters} chiamanti in attesa sulla stessa chiave,
+ * o dopo {@code timeout}, viene lanciata {@link LookupBusyException}. Il leader non è
+ * interrotto e il suo risultato resta valido per chi è ancora in attesa.
+ *
+ * @param <K> Il tipo della chiave
+ * @param <V> Il tipo del risultato
+ */
+public class SingleFlight<K, V> {
+
+    private final String name;
+    private final int maxWaiters;
+    private final long timeoutNanos;
+    private final ConcurrentHashMap<K, Flight<V>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder leaders = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+
+    /**
+     * @param name Nome della lettura, usato nei messaggi di errore
+     * @param maxWaiters Chiamanti in attesa ammessi per chiave
+     * @param timeout Attesa massima di un chiamante
+     */
+    public SingleFlight(String name, int maxWaiters, Duration timeout) {
+        this.name = name;
+        this.maxWaiters = Math.max(0, maxWaiters);
+        this.timeoutNanos = timeout.toNanos();
+    }
+
+    /**
+     * Esegue il calcolo per la chiave, o si unisce a quello già in corso.
+     *
+     * @param key La chiave
+     * @param loader Il calcolo, eseguito solo dal leader
+     * @return Il risultato del calcolo
+     * @throws LookupBusyException se i chiamanti in attesa sono troppi o il calcolo non termina in tempo
+     */
+    public V execute(K key, Supplier<V> loader) {
+        Flight<V> flight = new Flight<>();
+        Flight<V> leader = inFlight.putIfAbsent(key, flight);
+        if (leader == null) {
+            return lead(key, flight, loader);
+        }
+        if (leader.waiters.incrementAndGet() > maxWaiters) {
+            leader.waiters.decrementAndGet();
+            rejected.increment();
+            throw new LookupBusyException("Troppe richieste in attesa per " + name + " " + key);
+        }
+        try {
+            V value = leader.result.get(timeoutNanos, TimeUnit.NANOSECONDS);
+            coalesced.increment();
+            return value;
+        } catch (TimeoutException e) {
+            timedOut.increment();
+            throw new LookupBusyException("Lettura di " + name + " " + key + " non terminata in tempo");
+        } catch (ExecutionException e) {
+            coalesced.increment();
+            throw rethrow(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new LookupBusyException("Attesa di " + name + " " + key + " interrotta");
+        } finally {
+            leader.waiters.decrementAndGet();
+        }
+    }
+
+    private V lead(K key, Flight<V> flight, Supplier<V> loader) {
+        leaders.increment();
+        try {
+            V value = loader.get();
+            flight.result.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            flight.result.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    private static RuntimeException rethrow(Throwable cause) {
+        if (cause instanceof RuntimeException runtime) {
+            return runtime;
+        }
+        if (cause instanceof Error error) {
+            throw error;
+        }
+        return new IllegalStateException(cause);
+    }
+
+    /**
+     * @return I chiamanti in attesa del calcolo in corso per la chiave
+     */
+    int waiting(K key) {
+        Flight<V> flight = inFlight.get(key);
+        return flight == null ? 0 : flight.waiters.get();
+    }
+
+    /**
+     * @return Le chiavi con un calcolo in corso
+     */
+    public int inFlight() {
+        return inFlight.size();
+    }
+
+    /**
+     * @return I calcoli eseguiti (uno per gruppo di chiamate unite)
+     */
+    public long leaders() {
+        return leaders.sum();
+    }
+
+    /**
+     * @return Le chiamate servite dal calcolo di un altro chiamante
+     */
+    public long coalesced() {
+        return coalesced.sum();
+    }
+
+    /**
+     * @return Le chiamate rifiutate per troppi chiamanti in attesa
+     */
+    public long rejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * @return Le chiamate scadute in attesa del leader
+     */
+    public long timedOut() {
+        return timedOut.sum();
+    }
+
+    private static final class Flight<V> {
+        private final CompletableFuture<V> result = new CompletableFuture<>();
+        private final AtomicInteger waiters = new AtomicInteger();
+    }
+}
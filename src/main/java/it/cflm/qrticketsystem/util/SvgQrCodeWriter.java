@@ -0,0 +1,62 @@
+package it.cflm.qrticketsystem.util;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import com.google.zxing.common.BitArray;
+import com.google.zxing.common.BitMatrix;
+
+import lombok.experimental.UtilityClass;
+
+/**
+ * Utility per scrivere un QR Code in formato SVG direttamente da una {@link BitMatrix}.
+ *
+ * La matrice deve essere a risoluzione di modulo (1 bit = 1 modulo). Ogni sequenza orizzontale
+ * di moduli scuri diventa un singolo segmento {@code M x y.5hN} di un unico path con tratto
+ * largo 1: l'output è compatto e scala a qualsiasi dimensione di stampa senza perdita.
+ */
+@UtilityClass
+public class SvgQrCodeWriter {
+
+    /**
+     * Scrive l'SVG sul writer, riga per riga, senza costruire stringhe intermedie.
+     *
+     * @param matrix La matrice dei moduli
+     * @param size Il lato nominale dell'immagine in pixel
+     * @param out Il writer di destinazione (non viene chiuso)
+     * @throws IOException se la scrittura fallisce
+     */
+    public static void write(BitMatrix matrix, int size, Writer out) throws IOException {
+        int width = matrix.getWidth();
+        int height = matrix.getHeight();
+
+        out.write("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"");
+        out.write(Integer.toString(size));
+        out.write("\" height=\"");
+        out.write(Integer.toString(size));
+        out.write("\" viewBox=\"0 0 ");
+        out.write(Integer.toString(width));
+        out.write(' ');
+        out.write(Integer.toString(height));
+        out.write("\" shape-rendering=\"crispEdges\"><rect width=\"100%\" height=\"100%\" fill=\"#fff\"/>");
+        out.write("<path stroke=\"#000\" d=\"");
+
+        BitArray row = new BitArray(width);
+        for (int y = 0; y < height; y++) {
+            row = matrix.getRow(y, row);
+            int x = row.getNextSet(0);
+            while (x < width) {
+                int end = row.getNextUnset(x);
+                out.write('M');
+                out.write(Integer.toString(x));
+                out.write(' ');
+                out.write(Integer.toString(y));
+                out.write(".5h");
+                out.write(Integer.toString(end - x));
+                x = row.getNextSet(end);
+            }
+        }
+
+        out.write("\"/></svg>");
+    }
+}
@@ -0,0 +1,77 @@
+package it.cflm.qrticketsystem.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.UUID;
+import java.util.zip.CRC32;
+
+import lombok.experimental.UtilityClass;
+
+/**
+ * ID dei biglietti: UUID versione 7 (ordinati per istante di creazione) con il bucket
+ * dell'evento incorporato.
+ *
+ * <pre>
+ *  48 bit  millisecondi Unix
+ *   4 bit  versione (7)
+ *   8 bit  bucket dell'evento (0-255)
+ *   4 bit  casuali
+ *   2 bit  variante
+ *  62 bit  casuali (SecureRandom)
+ * </pre>
+ * L'ordine temporale tiene gli inserimenti in coda all'indice della chiave primaria; il bucket
+ * permette di trovare lo shard di un biglietto dal solo ID, senza conoscerne l'evento. I 66 bit
+ * casuali rendono comunque impraticabile indovinare l'ID di un biglietto esistente.
+ */
+@UtilityClass
+public class TicketIds {
+
+    /** Numero di bucket logici in cui sono suddivisi gli eventi. */
+    public static final int BUCKETS = 256;
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    /**
+     * Genera un nuovo ID per un biglietto del bucket indicato.
+     *
+     * @param bucket Il bucket dell'evento (vedi {@link #bucketOf(String)})
+     * @return L'ID del biglietto
+     */
+    public static UUID newId(int bucket) {
+        long random = RANDOM.nextLong();
+        long msb = (System.currentTimeMillis() << 16)
+                | 0x7000L
+                | ((long) (bucket & 0xFF) << 4)
+                | (random >>> 60);
+        long lsb = (random & 0x3FFF_FFFF_FFFF_FFFFL) | 0x8000_0000_0000_0000L;
+        return new UUID(msb, lsb);
+    }
+
+    /**
+     * Bucket di un evento: stabile tra esecuzioni e istanze (CRC32 del nome).
+     *
+     * @param eventName Il nome dell'evento (null per il bucket 0)
+     * @return Il bucket, tra 0 e {@link #BUCKETS} - 1
+     */
+    public static int bucketOf(String eventName) {
+        if (eventName == null) {
+            return 0;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(eventName.getBytes(StandardCharsets.UTF_8));
+        return (int) (crc.getValue() % BUCKETS);
+    }
+
+    /**
+     * Bucket incorporato nell'ID di un biglietto.
+     *
+     * @param id L'ID del biglietto
+     * @return Il bucket, oppure -1 per gli ID casuali (versione 4) dei biglietti meno recenti
+     */
+    public static int bucketOf(UUID id) {
+        if (id.version() != 7) {
+            return -1;
+        }
+        return (int) ((id.getMostSignificantBits() >>> 4) & 0xFF);
+    }
+}
@@ -0,0 +1,146 @@
+package it.cflm.qrticketsystem.util;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.UUID;
+
+import it.cflm.qrticketsystem.config.QRCodeConfig.PayloadEncoding;
+import lombok.experimental.UtilityClass;
+
+/**
+ * Utility per codificare e decodificare l'ID di un biglietto nel contenuto del QR Code.
+ *
+ * <ul>
+ *   <li>{@link PayloadEncoding#UUID}: la stringa UUID canonica (36 caratteri, modalità byte).</li>
+ *   <li>{@link PayloadEncoding#COMPACT}: i 16 byte dell'UUID in Base45 (RFC 9285), 24 caratteri
+ *       dell'alfabeto alfanumerico QR, codificati a 5,5 bit per carattere invece di 8.</li>
+ * </ul>
+ * La decodifica riconosce automaticamente entrambi i formati.
+ */
+@UtilityClass
+public class TicketPayloadCodec {
+
+    private static final String BASE45_ALPHABET = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ $%*+-./:";
+    private static final int UUID_BYTES = 16;
+    private static final int COMPACT_LENGTH = 24;
+    private static final int[] BASE45_VALUES = new int[128];
+
+    static {
+        Arrays.fill(BASE45_VALUES, -1);
+        for (int i = 0; i < BASE45_ALPHABET.length(); i++) {
+            BASE45_VALUES[BASE45_ALPHABET.charAt(i)] = i;
+        }
+    }
+
+    /**
+     * Codifica l'ID del biglietto nel formato richiesto.
+     *
+     * @param id L'ID del biglietto
+     * @param encoding Il formato del contenuto
+     * @return Il testo da inserire nel QR Code
+     */
+    public static String encode(UUID id, PayloadEncoding encoding) {
+        if (encoding != PayloadEncoding.COMPACT) {
+            return id.toString();
+        }
+        byte[] bytes = ByteBuffer.allocate(UUID_BYTES)
+                .putLong(id.getMostSignificantBits())
+                .putLong(id.getLeastSignificantBits())
+                .array();
+        StringBuilder sb = new StringBuilder(COMPACT_LENGTH);
+        for (int i = 0; i < UUID_BYTES; i += 2) {
+            int value = ((bytes[i] & 0xFF) << 8) | (bytes[i + 1] & 0xFF);
+            sb.append(BASE45_ALPHABET.charAt(value % 45));
+            sb.append(BASE45_ALPHABET.charAt((value / 45) % 45));
+            sb.append(BASE45_ALPHABET.charAt(value / 2025));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Decodifica il contenuto di un QR Code nell'ID del biglietto.
+     *
+     * @param payload Il testo letto dal QR Code
+     * @return L'ID del biglietto
+     * @throws IllegalArgumentException se il contenuto non è in nessuno dei formati supportati
+     */
+    public static UUID decode(String payload) {
+        if (payload == null) {
+            throw new IllegalArgumentException("Contenuto del QR Code mancante");
+        }
+        UUID id = tryDecode(payload);
+        if (id == null) {
+            throw new IllegalArgumentException("Contenuto del QR Code non riconosciuto");
+        }
+        return id;
+    }
+
+    /**
+     * Come {@link #decode(String)}, ma senza eccezioni: usata sul percorso di check-in,
+     * dove i QR Code non riconosciuti sono frequenti.
+     *
+     * @param payload Il testo letto dal QR Code
+     * @return L'ID del biglietto, oppure null se il contenuto non è riconosciuto
+     */
+    public static UUID tryDecode(String payload) {
+        if (payload == null) {
+            return null;
+        }
+        // Niente trim: lo spazio fa parte dell'alfabeto Base45
+        if (payload.length() == 36) {
+            return parseCanonical(payload);
+        }
+        if (payload.length() != COMPACT_LENGTH) {
+            return null;
+        }
+        long msb = 0;
+        long lsb = 0;
+        for (int i = 0; i < COMPACT_LENGTH; i += 3) {
+            int c0 = base45Value(payload.charAt(i));
+            int c1 = base45Value(payload.charAt(i + 1));
+            int c2 = base45Value(payload.charAt(i + 2));
+            if (c0 < 0 || c1 < 0 || c2 < 0) {
+                return null;
+            }
+            int value = c0 + c1 * 45 + c2 * 2025;
+            if (value > 0xFFFF) {
+                return null;
+            }
+            // I primi 4 gruppi formano i 64 bit più significativi
+            if (i < COMPACT_LENGTH / 2) {
+                msb = (msb << 16) | value;
+            } else {
+                lsb = (lsb << 16) | value;
+            }
+        }
+        return new UUID(msb, lsb);
+    }
+
+    private static UUID parseCanonical(String payload) {
+        long msb = 0;
+        long lsb = 0;
+        for (int i = 0; i < 36; i++) {
+            char c = payload.charAt(i);
+            if (i == 8 || i == 13 || i == 18 || i == 23) {
+                if (c != '-') {
+                    return null;
+                }
+                continue;
+            }
+            int digit = c < 128 ? Character.digit(c, 16) : -1;
+            if (digit < 0) {
+                return null;
+            }
+            if (i < 18) {
+                msb = (msb << 4) | digit;
+            } else {
+                lsb = (lsb << 4) | digit;
+            }
+        }
+        return new UUID(msb, lsb);
+    }
+
+    private static int base45Value(char c) {
+        return c < BASE45_VALUES.length ? BASE45_VALUES[c] : -1;
+    }
+}
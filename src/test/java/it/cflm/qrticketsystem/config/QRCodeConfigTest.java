@@ -1,6 +1,7 @@
 package it.cflm.qrticketsystem.config;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -42,4 +43,11 @@ class QRCodeConfigTest {
         assertThat(qrCodeConfig.getFormat()).isNotBlank();
         assertThat(qrCodeConfig.getFormat()).isEqualToIgnoringCase("PNG");
     }
+
+    @Test
+    void sizes_shouldKeepDefaultOrder() {
+        // Then
+        assertThat(new QRCodeConfig().getSizes()).containsExactly(
+                entry("small", 150), entry("medium", 300), entry("large", 600));
+    }
 }
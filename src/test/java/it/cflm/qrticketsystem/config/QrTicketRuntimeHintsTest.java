@@ -0,0 +1,37 @@
+package it.cflm.qrticketsystem.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.hibernate.cache.jcache.internal.JCacheRegionFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+
+import it.cflm.qrticketsystem.dto.TicketValidationResponseDTO;
+import it.cflm.qrticketsystem.logging.MeteredAsyncAppender;
+import it.cflm.qrticketsystem.model.Ticket;
+
+/**
+ * Test degli hint per l'eseguibile nativo.
+ */
+class QrTicketRuntimeHintsTest {
+
+    private final RuntimeHints hints = new RuntimeHints();
+
+    @Test
+    void registerHints_shouldCoverReflectiveAccess() throws Exception {
+        // When
+        new QrTicketRuntimeHints().registerHints(hints, getClass().getClassLoader());
+
+        // Then
+        assertThat(RuntimeHintsPredicates.reflection().onMethod(Ticket.class, "getEventName")).accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection()
+                .onMethod(TicketValidationResponseDTO.class, "isValid")).accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection()
+                .onConstructor(JCacheRegionFactory.class.getConstructor())).accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onType(MeteredAsyncAppender.class)
+                .withMemberCategories(MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS, MemberCategory.INVOKE_PUBLIC_METHODS))
+                .accepts(hints);
+        assertThat(RuntimeHintsPredicates.resource().forResource("reference.conf")).accepts(hints);
+    }
+}
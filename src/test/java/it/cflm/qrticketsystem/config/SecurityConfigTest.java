@@ -0,0 +1,69 @@
+package it.cflm.qrticketsystem.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import org.springframework.test.web.servlet.MockMvc;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.redirectedUrlPattern;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Test di integrazione delle catene di sicurezza: HTTP Basic solo sulle URL per i client senza browser.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class SecurityConfigTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void httpBasic_shouldBeAccepted_onDecodeAndScriptEndpoints() throws Exception {
+        // When & Then - autenticato: il frame arriva al decoder (nessun QR Code leggibile)
+        mockMvc.perform(post("/reception/decode-and-verify")
+                        .with(httpBasic("reception", "reception123"))
+                        .contentType(MediaType.IMAGE_JPEG)
+                        .content(new byte[] {1, 2, 3}))
+                .andExpect(status().isUnprocessableEntity());
+        mockMvc.perform(get("/admin/resilience").with(httpBasic("admin", "admin123")))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/reception/decode-and-verify")
+                        .contentType(MediaType.IMAGE_JPEG)
+                        .content(new byte[] {1, 2, 3}))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void httpBasic_shouldRequireCsrfToken_onCrossSiteBrowserRequests() throws Exception {
+        // When & Then - credenziali Basic in cache reinviate da un form di un altro sito
+        mockMvc.perform(delete("/admin/resilience/faults")
+                        .with(httpBasic("admin", "admin123"))
+                        .header("Sec-Fetch-Site", "cross-site"))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(delete("/admin/resilience/faults")
+                        .with(httpBasic("admin", "admin123"))
+                        .header("Sec-Fetch-Site", "cross-site")
+                        .with(csrf()))
+                .andExpect(status().isNoContent());
+        mockMvc.perform(delete("/admin/resilience/faults")
+                        .with(httpBasic("admin", "admin123")))
+                .andExpect(status().isNoContent());
+    }
+
+    @Test
+    void httpBasic_shouldBeIgnored_onFormLoginPages() throws Exception {
+        // When & Then
+        mockMvc.perform(get("/reception").with(httpBasic("reception", "reception123")))
+                .andExpect(status().is3xxRedirection())
+                .andExpect(redirectedUrlPattern("**/login"));
+        mockMvc.perform(get("/admin/export/qrcodes").with(httpBasic("admin", "admin123")))
+                .andExpect(status().is3xxRedirection());
+    }
+}
@@ -0,0 +1,112 @@
+package it.cflm.qrticketsystem.controller;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.ResponseEntity;
+
+import it.cflm.qrticketsystem.exception.GlobalExceptionHandler;
+import it.cflm.qrticketsystem.exception.TicketAlreadyUsedException;
+import it.cflm.qrticketsystem.model.Ticket;
+import it.cflm.qrticketsystem.repository.TicketRepository;
+import it.cflm.qrticketsystem.service.CheckInOutcome;
+import it.cflm.qrticketsystem.service.GateCheckInService;
+import it.cflm.qrticketsystem.service.ScanContext;
+import it.cflm.qrticketsystem.service.TicketService;
+
+/**
+ * Benchmark della latenza di una scansione rifiutata (biglietto già usato, varco aperto):
+ * eccezione + {@link GlobalExceptionHandler} contro {@link CheckInOutcome}.
+ * Eseguire con {@code mvn test -Dtest=CheckInRejectionBenchmarkTest -Dbenchmarks=true}.
+ */
+@SpringBootTest(properties = {
+        "qrticket.gate.journal-dir=target/benchmark-checkin-journal",
+        "logging.level.it.cflm.qrticketsystem=ERROR"
+})
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+class CheckInRejectionBenchmarkTest {
+
+    private static final int WARMUP = 50_000;
+    private static final int ITERATIONS = 200_000;
+    private static final ScanContext GATE = new ScanContext(1, "benchmark");
+
+    @Autowired
+    private TicketService ticketService;
+
+    @Autowired
+    private GateCheckInService gateCheckInService;
+
+    @Autowired
+    private TicketRepository ticketRepository;
+
+    @Autowired
+    private GlobalExceptionHandler exceptionHandler;
+
+    @Test
+    void compareRejectionLatency() {
+        String eventName = "Benchmark " + UUID.randomUUID();
+        Ticket ticket = new Ticket();
+        ticket.setEventName(eventName);
+        ticket.setUserName("Mario Rossi");
+        ticket.setUserEmail("mario.rossi@example.com");
+        ticket.setPurchaseDate(LocalDateTime.now());
+        ticket.setValid(true);
+        UUID id = ticketRepository.save(ticket).getId();
+        gateCheckInService.openGate(eventName);
+        try {
+            assertThat(ticketService.checkIn(id, GATE)).isInstanceOf(CheckInOutcome.Admitted.class);
+
+            // Prima: eccezione con stack trace, rollback della transazione, mappa del gestore globale
+            Supplier<HttpStatusCode> exceptions = () -> {
+                try {
+                    ticketService.validateTicket(id, GATE);
+                    return HttpStatus.OK;
+                } catch (TicketAlreadyUsedException e) {
+                    return exceptionHandler.handleTicketAlreadyUsedException(e).getStatusCode();
+                }
+            };
+            // Dopo: esito come valore
+            Supplier<HttpStatusCode> outcomes = () -> {
+                CheckInOutcome outcome = ticketService.checkIn(id, GATE);
+                return ResponseEntity.status(TicketController.statusOf(outcome))
+                        .body(outcome.toResponse())
+                        .getStatusCode();
+            };
+
+            run(exceptions, WARMUP);
+            run(outcomes, WARMUP);
+            report("Eccezioni", run(exceptions, ITERATIONS));
+            report("CheckInOutcome", run(outcomes, ITERATIONS));
+        } finally {
+            gateCheckInService.closeGate(eventName);
+        }
+    }
+
+    private static long[] run(Supplier<HttpStatusCode> scan, int iterations) {
+        long[] latencies = new long[iterations];
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            HttpStatusCode status = scan.get();
+            latencies[i] = System.nanoTime() - start;
+            assertThat(status).isEqualTo(HttpStatus.CONFLICT);
+        }
+        return latencies;
+    }
+
+    private static void report(String name, long[] latencies) {
+        Arrays.sort(latencies);
+        long total = Arrays.stream(latencies).sum();
+        System.out.printf("%s: %,d rifiuti, media %,d ns, p50 %,d ns, p99 %,d ns (%,.0f rifiuti/s)%n",
+                name, latencies.length, total / latencies.length, latencies[latencies.length / 2],
+                latencies[(int) (latencies.length * 0.99)], latencies.length / (total / 1e9));
+    }
+}
@@ -0,0 +1,140 @@
+package it.cflm.qrticketsystem.controller;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.jayway.jsonpath.JsonPath;
+
+import it.cflm.qrticketsystem.model.QrCodeStatus;
+import it.cflm.qrticketsystem.model.Ticket;
+import it.cflm.qrticketsystem.repository.TicketRepository;
+
+/**
+ * Test di integrazione per i token dei dispositivi di scansione: emissione da ADMIN
+ * e check-in con {@code Authorization: Bearer}, senza sessione né CSRF.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class DeviceTokenControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TicketRepository ticketRepository;
+
+    @Test
+    void verify_withDeviceToken_shouldAdmitWithoutSessionOrCsrf() throws Exception {
+        // Given
+        UUID ticketId = saveTicket("Concerto Device").getId();
+        String token = issueToken("scanner-1", "Concerto Device", 5);
+
+        // When
+        MvcResult result = mockMvc.perform(post("/reception/verify/{ticketId}", ticketId)
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                        .header(TicketController.GATE_HEADER, "9"))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        // Then - nessuna sessione creata, varco preso dal token
+        assertThat(result.getRequest().getSession(false)).isNull();
+        assertThat(result.getResponse().getHeader(HttpHeaders.SET_COOKIE)).isNull();
+        assertThat(ticketRepository.findById(ticketId)).get()
+                .satisfies(ticket -> assertThat(ticket.isValid()).isFalse());
+    }
+
+    @Test
+    void verify_withDeviceTokenForAnotherEvent_shouldReturnNotFound() throws Exception {
+        // Given
+        UUID ticketId = saveTicket("Teatro Device").getId();
+        String token = issueToken("scanner-2", "Concerto Device", 5);
+
+        // When & Then
+        mockMvc.perform(post("/reception/verify")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                        .contentType(MediaType.TEXT_PLAIN)
+                        .content(ticketId.toString()))
+                .andExpect(status().isNotFound());
+        assertThat(ticketRepository.findById(ticketId)).get()
+                .satisfies(ticket -> assertThat(ticket.isValid()).isTrue());
+    }
+
+    @Test
+    void verify_withInvalidOrRevokedToken_shouldReturnUnauthorized() throws Exception {
+        // Given
+        UUID ticketId = saveTicket("Concerto Device").getId();
+        String token = issueToken("scanner-3", "Concerto Device", 5);
+        mockMvc.perform(delete("/admin/devices/{deviceId}/tokens", "scanner-3")
+                        .with(user("admin").roles("ADMIN"))
+                        .with(csrf()))
+                .andExpect(status().isNoContent());
+
+        // When & Then
+        mockMvc.perform(post("/reception/verify/{ticketId}", ticketId)
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(status().isUnauthorized())
+                .andExpect(header().string(HttpHeaders.WWW_AUTHENTICATE, "Bearer error=\"invalid_token\""));
+        mockMvc.perform(post("/reception/verify/{ticketId}", ticketId)
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer forged.token"))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void issue_shouldRequireAdmin() throws Exception {
+        // When & Then
+        mockMvc.perform(post("/admin/devices/{deviceId}/tokens", "scanner-4")
+                        .with(user("reception").roles("RECEPTION"))
+                        .param("eventName", "Concerto Device")
+                        .param("gate", "1"))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(post("/admin/devices/{deviceId}/tokens", "scanner-4")
+                        .with(user("admin").roles("ADMIN"))
+                        .with(csrf())
+                        .param("eventName", "Concerto Device")
+                        .param("gate", "1")
+                        .param("ttlSeconds", "999999"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private String issueToken(String deviceId, String eventName, int gate) throws Exception {
+        MvcResult result = mockMvc.perform(post("/admin/devices/{deviceId}/tokens", deviceId)
+                        .with(user("admin").roles("ADMIN"))
+                        .with(csrf())
+                        .param("eventName", eventName)
+                        .param("gate", String.valueOf(gate)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.gate").value(gate))
+                .andReturn();
+        return JsonPath.read(result.getResponse().getContentAsString(), "$.token");
+    }
+
+    private Ticket saveTicket(String eventName) {
+        Ticket ticket = new Ticket();
+        ticket.setEventName(eventName);
+        ticket.setUserName("Mario Rossi");
+        ticket.setUserEmail("mario.rossi@example.com");
+        ticket.setPurchaseDate(LocalDateTime.now());
+        ticket.setValid(true);
+        ticket.setQrStatus(QrCodeStatus.READY);
+        ticket = ticketRepository.save(ticket);
+        ticket.setQrCodeData(ticket.getId().toString());
+        return ticketRepository.save(ticket);
+    }
+}
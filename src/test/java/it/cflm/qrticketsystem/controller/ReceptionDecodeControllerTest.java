@@ -0,0 +1,109 @@
+package it.cflm.qrticketsystem.controller;
+
+import static org.hamcrest.Matchers.containsString;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import it.cflm.qrticketsystem.config.QRCodeConfig;
+import it.cflm.qrticketsystem.dto.TicketValidationResponseDTO;
+import it.cflm.qrticketsystem.exception.DecoderBusyException;
+import it.cflm.qrticketsystem.exception.QRCodeDecodingException;
+import it.cflm.qrticketsystem.service.CheckInOutcome;
+import it.cflm.qrticketsystem.service.QRCodeDecoder;
+import it.cflm.qrticketsystem.service.QRCodeDecoder.DecodedFrame;
+import it.cflm.qrticketsystem.service.ScanContext;
+import it.cflm.qrticketsystem.service.TicketService;
+
+/**
+ * Test unitari per ReceptionDecodeController.
+ */
+@WebMvcTest(value = ReceptionDecodeController.class, properties = "qrcode.decoder.max-frame-bytes=1024")
+@AutoConfigureMockMvc(addFilters = false)
+@Import(QRCodeConfig.class)
+class ReceptionDecodeControllerTest {
+
+    private static final byte[] FRAME = new byte[]{(byte) 0xFF, (byte) 0xD8, 1, 2, 3};
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    @SuppressWarnings("removal")
+    private QRCodeDecoder qrCodeDecoder;
+
+    @MockBean
+    @SuppressWarnings("removal")
+    private TicketService ticketService;
+
+    @Test
+    void decodeAndVerify_shouldValidateDecodedTicket() throws Exception {
+        // Given
+        when(qrCodeDecoder.decode(FRAME)).thenReturn(new DecodedFrame("payload", 250_000, 4_500_000));
+        when(ticketService.checkIn(eq("payload"), any(ScanContext.class))).thenReturn(new CheckInOutcome.Admitted(
+                new TicketValidationResponseDTO(true, "Biglietto valido e registrato come usato", "CFLM 2025 Party", "Mario Rossi")));
+
+        // When & Then
+        mockMvc.perform(post("/reception/decode-and-verify")
+                        .contentType(MediaType.IMAGE_JPEG)
+                        .content(FRAME))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Server-Timing", "queue;dur=0.25, decode;dur=4.50"))
+                .andExpect(jsonPath("$.valid").value(true))
+                .andExpect(jsonPath("$.userName").value("Mario Rossi"));
+    }
+
+    @Test
+    void decodeAndVerify_shouldReturnUnprocessable_whenNoQrCodeInFrame() throws Exception {
+        // Given
+        when(qrCodeDecoder.decode(FRAME)).thenThrow(new QRCodeDecodingException("Nessun QR Code leggibile nel frame"));
+
+        // When & Then
+        mockMvc.perform(post("/reception/decode-and-verify")
+                        .contentType(MediaType.IMAGE_JPEG)
+                        .content(FRAME))
+                .andExpect(status().isUnprocessableEntity())
+                .andExpect(jsonPath("$.message").value(containsString("Nessun QR Code")));
+
+        verify(ticketService, never()).checkIn(any(String.class), any(ScanContext.class));
+    }
+
+    @Test
+    void decodeAndVerify_shouldReturnServiceUnavailable_whenDecoderIsBusy() throws Exception {
+        // Given
+        when(qrCodeDecoder.decode(FRAME)).thenThrow(new DecoderBusyException("Decodifica sovraccarica, riprovare"));
+
+        // When & Then
+        mockMvc.perform(post("/reception/decode-and-verify")
+                        .contentType(MediaType.IMAGE_JPEG)
+                        .content(FRAME))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "1"));
+    }
+
+    @Test
+    void decodeAndVerify_shouldRejectFrame_overMaximumSize() throws Exception {
+        // When & Then
+        mockMvc.perform(post("/reception/decode-and-verify")
+                        .contentType(MediaType.IMAGE_JPEG)
+                        .content(new byte[1025]))
+                .andExpect(status().isPayloadTooLarge())
+                .andExpect(jsonPath("$.status").value(413));
+
+        verify(qrCodeDecoder, never()).decode(any());
+    }
+}
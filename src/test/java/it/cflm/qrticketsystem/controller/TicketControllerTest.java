@@ -7,6 +7,7 @@ import static org.hamcrest.Matchers.containsString;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -25,12 +26,20 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.view;
 
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+
+import it.cflm.qrticketsystem.config.QRCodeConfig.PayloadEncoding;
 import it.cflm.qrticketsystem.dto.TicketRequestDTO;
 import it.cflm.qrticketsystem.dto.TicketResponseDTO;
 import it.cflm.qrticketsystem.dto.TicketValidationResponseDTO;
-import it.cflm.qrticketsystem.exception.TicketAlreadyUsedException;
+import it.cflm.qrticketsystem.exception.InvalidQrCodeFormatException;
 import it.cflm.qrticketsystem.exception.TicketNotFoundException;
 import it.cflm.qrticketsystem.model.Ticket;
+import it.cflm.qrticketsystem.service.CheckInOutcome;
+import it.cflm.qrticketsystem.service.QrCodeFormat;
+import it.cflm.qrticketsystem.service.ScanContext;
+import it.cflm.qrticketsystem.service.EventService;
+import it.cflm.qrticketsystem.service.EventSettings;
 import it.cflm.qrticketsystem.service.TicketService;
 
 /**
@@ -47,6 +56,10 @@ class TicketControllerTest {
     @SuppressWarnings("removal")
     private TicketService ticketService;
 
+    @MockBean
+    @SuppressWarnings("removal")
+    private EventService eventService;
+
     private Ticket ticket;
     private TicketResponseDTO responseDTO;
     private UUID ticketId;
@@ -74,6 +87,9 @@ class TicketControllerTest {
                 true,
                 ticketId.toString()
         );
+
+        when(eventService.featured()).thenReturn(new EventSettings(1, "Non succederà più! CFLM 2025 Party",
+                "Non succederà più! CFLM 2025 Party", null, PayloadEncoding.UUID, ErrorCorrectionLevel.L));
     }
 
     @Test
@@ -82,7 +98,8 @@ class TicketControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(view().name("index"))
                 .andExpect(model().attributeExists("eventName"))
-                .andExpect(model().attribute("eventName", containsString("CFLM")));
+                .andExpect(model().attribute("eventName", containsString("CFLM")))
+                .andExpect(model().attribute("eventTitle", containsString("CFLM")));
     }
 
     @Test
@@ -187,6 +204,46 @@ class TicketControllerTest {
         verify(ticketService, times(1)).getQrCodeImage(ticketId);
     }
 
+    @Test
+    void getQrCodeImage_shouldReturnSvg_whenAcceptRequestsSvg() throws Exception {
+        // Given
+        byte[] svgBytes = "<svg/>".getBytes();
+        when(ticketService.getQrCodeImage(ticketId, null, QrCodeFormat.SVG)).thenReturn(svgBytes);
+
+        // When & Then
+        mockMvc.perform(get("/qrcode/{ticketId}", ticketId)
+                        .header("Accept", "image/svg+xml"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("image/svg+xml"))
+                .andExpect(content().bytes(svgBytes));
+
+        verify(ticketService, never()).getQrCodeImage(ticketId);
+    }
+
+    @Test
+    void getQrCodeImage_shouldReturnRequestedSize() throws Exception {
+        // Given
+        byte[] smallPng = new byte[]{9, 8, 7};
+        when(ticketService.getQrCodeImage(ticketId, "small", QrCodeFormat.PNG)).thenReturn(smallPng);
+
+        // When & Then
+        mockMvc.perform(get("/qrcode/{ticketId}", ticketId).param("size", "small"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.IMAGE_PNG_VALUE))
+                .andExpect(content().bytes(smallPng));
+    }
+
+    @Test
+    void getQrCodeImage_shouldReturnBadRequest_whenSizeIsUnknown() throws Exception {
+        // Given
+        when(ticketService.getQrCodeImage(ticketId, "huge", QrCodeFormat.PNG))
+                .thenThrow(new InvalidQrCodeFormatException("Dimensione QR Code non supportata: huge"));
+
+        // When & Then
+        mockMvc.perform(get("/qrcode/{ticketId}", ticketId).param("size", "huge"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void reception_shouldReturnReceptionPage() throws Exception {
         mockMvc.perform(get("/reception"))
@@ -203,7 +260,8 @@ class TicketControllerTest {
                 "CFLM 2025 Party",
                 "Mario Rossi"
         );
-        when(ticketService.validateTicket(ticketId)).thenReturn(validationResponse);
+        when(ticketService.checkIn(eq(ticketId), any(ScanContext.class)))
+                .thenReturn(new CheckInOutcome.Admitted(validationResponse));
 
         // When & Then
         mockMvc.perform(post("/reception/verify/{ticketId}", ticketId))
@@ -213,33 +271,57 @@ class TicketControllerTest {
                 .andExpect(jsonPath("$.userName").value("Mario Rossi"))
                 .andExpect(jsonPath("$.eventName").value("CFLM 2025 Party"));
 
-        verify(ticketService, times(1)).validateTicket(ticketId);
+        verify(ticketService, times(1)).checkIn(eq(ticketId), any(ScanContext.class));
     }
 
     @Test
     void verifyTicket_shouldReturnConflict_whenTicketAlreadyUsed() throws Exception {
         // Given
-        when(ticketService.validateTicket(ticketId))
-                .thenThrow(new TicketAlreadyUsedException(ticketId));
+        when(ticketService.checkIn(eq(ticketId), any(ScanContext.class)))
+                .thenReturn(new CheckInOutcome.AlreadyUsed(ticketId));
 
         // When & Then
         mockMvc.perform(post("/reception/verify/{ticketId}", ticketId))
-                .andExpect(status().isConflict());
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.valid").value(false))
+                .andExpect(jsonPath("$.message").value(containsString("già stato utilizzato")));
 
-        verify(ticketService, times(1)).validateTicket(ticketId);
+        verify(ticketService, times(1)).checkIn(eq(ticketId), any(ScanContext.class));
     }
 
     @Test
     void verifyTicket_shouldReturnNotFound_whenTicketDoesNotExist() throws Exception {
         // Given
         UUID nonExistentId = UUID.randomUUID();
-        when(ticketService.validateTicket(nonExistentId))
-                .thenThrow(new TicketNotFoundException("Biglietto non trovato con ID: " + nonExistentId));
+        when(ticketService.checkIn(eq(nonExistentId), any(ScanContext.class)))
+                .thenReturn(new CheckInOutcome.NotFound("Biglietto non trovato con ID: " + nonExistentId));
 
         // When & Then
         mockMvc.perform(post("/reception/verify/{ticketId}", nonExistentId))
-                .andExpect(status().isNotFound());
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.valid").value(false))
+                .andExpect(jsonPath("$.message").value(containsString("non trovato")));
+
+        verify(ticketService, times(1)).checkIn(eq(nonExistentId), any(ScanContext.class));
+    }
+
+    @Test
+    void verifyTicketPayload_shouldValidateRawQrContent() throws Exception {
+        // Given
+        String payload = "AB1 $%*+-./:0123456789XY";
+        TicketValidationResponseDTO validationResponse = new TicketValidationResponseDTO(
+                true, "Biglietto valido e registrato come usato", "CFLM 2025 Party", "Mario Rossi");
+        when(ticketService.checkIn(eq(payload), any(ScanContext.class)))
+                .thenReturn(new CheckInOutcome.Admitted(validationResponse));
+
+        // When & Then
+        mockMvc.perform(post("/reception/verify")
+                        .contentType(MediaType.TEXT_PLAIN)
+                        .content(payload))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.valid").value(true))
+                .andExpect(jsonPath("$.userName").value("Mario Rossi"));
 
-        verify(ticketService, times(1)).validateTicket(nonExistentId);
+        verify(ticketService, times(1)).checkIn(eq(payload), any(ScanContext.class));
     }
 }
@@ -0,0 +1,174 @@
+package it.cflm.qrticketsystem.controller;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultMatcher;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import it.cflm.qrticketsystem.model.QrCodeStatus;
+import it.cflm.qrticketsystem.model.Ticket;
+import it.cflm.qrticketsystem.repository.TicketRepository;
+import it.cflm.qrticketsystem.support.JdbcTrafficConfig;
+import it.cflm.qrticketsystem.support.RequestCost;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Limiti di costo degli endpoint della reception: istruzioni SQL, byte letti dal database
+ * e memoria allocata per richiesta. Un aumento (una SELECT in più, l'immagine del QR Code
+ * letta durante il check-in) fa fallire il test: se è voluto, aggiornare il limite.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@Import(JdbcTrafficConfig.class)
+@WithMockUser(roles = "RECEPTION")
+class TicketEndpointCostTest {
+
+    private static final int WARM_UP = 20;
+    private static final int QR_IMAGE_BYTES = 4096;
+    private static final long MAX_CHECK_IN_ALLOCATION = 2 * 1024 * 1024;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TicketRepository ticketRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void verify_shouldOnlyUpdateCachedTicket() throws Exception {
+        // Given
+        warmUpVerify();
+        UUID ticketId = saveTicket().getId();
+
+        // When
+        RequestCost cost = RequestCost.measure(statistics, () -> verify(ticketId, status().isOk()));
+
+        // Then - biglietto dalla cache di secondo livello: UPDATE condizionato alla versione, outbox e
+        // contatore dell'evento. Nessuna lettura finché la copia in cache è aggiornata; se un'altra
+        // istanza ha già modificato il biglietto l'UPDATE fallisce e il check-in rilegge la riga
+        cost.assertStatements(3)
+                .assertBytesFetchedAtMost(0)
+                .assertEntityLoads(0)
+                .assertAllocatedAtMost(MAX_CHECK_IN_ALLOCATION);
+    }
+
+    @Test
+    void verify_alreadyUsed_shouldNotTouchDatabase() throws Exception {
+        // Given
+        warmUpVerify();
+        UUID ticketId = saveTicket().getId();
+        verify(ticketId, status().isOk());
+
+        // When
+        RequestCost cost = RequestCost.measure(statistics, () -> verify(ticketId, status().isConflict()));
+
+        // Then
+        cost.assertStatements(0)
+                .assertEntityLoads(0)
+                .assertAllocatedAtMost(MAX_CHECK_IN_ALLOCATION);
+    }
+
+    @Test
+    void verifyPayload_shouldOnlyUpdateCachedTicket() throws Exception {
+        // Given
+        warmUpVerify();
+        UUID ticketId = saveTicket().getId();
+
+        // When
+        RequestCost cost = RequestCost.measure(statistics, () -> mockMvc.perform(post("/reception/verify")
+                        .with(csrf())
+                        .contentType(MediaType.TEXT_PLAIN)
+                        .content(ticketId.toString()))
+                .andExpect(status().isOk()));
+
+        // Then
+        cost.assertStatements(3)
+                .assertBytesFetchedAtMost(0)
+                .assertEntityLoads(0)
+                .assertAllocatedAtMost(MAX_CHECK_IN_ALLOCATION);
+    }
+
+    @Test
+    void verify_unknownTicket_shouldRunTwoLookupsWithoutRows() throws Exception {
+        // Given
+        for (int i = 0; i < WARM_UP; i++) {
+            verify(UUID.randomUUID(), status().isNotFound());
+        }
+
+        // When
+        RequestCost cost = RequestCost.measure(statistics,
+                () -> verify(UUID.randomUUID(), status().isNotFound()));
+
+        // Then - ricerca per ID e per contenuto del QR Code
+        cost.assertStatements(2)
+                .assertBytesFetchedAtMost(0)
+                .assertAllocatedAtMost(MAX_CHECK_IN_ALLOCATION);
+    }
+
+    @Test
+    void qrCodeImage_shouldBeServedFromCache() throws Exception {
+        // Given
+        UUID ticketId = saveTicket().getId();
+        for (int i = 0; i < WARM_UP; i++) {
+            mockMvc.perform(get("/qrcode/{ticketId}", ticketId)).andExpect(status().isOk());
+        }
+
+        // When
+        RequestCost cost = RequestCost.measure(statistics,
+                () -> mockMvc.perform(get("/qrcode/{ticketId}", ticketId)).andExpect(status().isOk()));
+
+        // Then
+        cost.assertStatements(0)
+                .assertBytesFetchedAtMost(0)
+                .assertAllocatedAtMost(MAX_CHECK_IN_ALLOCATION + QR_IMAGE_BYTES);
+    }
+
+    private void warmUpVerify() throws Exception {
+        for (int i = 0; i < WARM_UP; i++) {
+            verify(saveTicket().getId(), status().isOk());
+        }
+    }
+
+    private void verify(UUID ticketId, ResultMatcher expectedStatus) throws Exception {
+        mockMvc.perform(post("/reception/verify/{ticketId}", ticketId).with(csrf()))
+                .andExpect(expectedStatus);
+    }
+
+    private Ticket saveTicket() {
+        Ticket ticket = new Ticket();
+        ticket.setEventName("Limiti di costo");
+        ticket.setUserName("Mario Rossi");
+        ticket.setUserEmail("mario.rossi@example.com");
+        ticket.setPurchaseDate(LocalDateTime.now());
+        ticket.setValid(true);
+        ticket.setQrStatus(QrCodeStatus.READY);
+        ticket.setQrCodeImage(new byte[QR_IMAGE_BYTES]);
+        ticket = ticketRepository.save(ticket);
+        ticket.setQrCodeData(ticket.getId().toString());
+        return ticketRepository.save(ticket);
+    }
+}
@@ -0,0 +1,147 @@
+package it.cflm.qrticketsystem.datasource;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import it.cflm.qrticketsystem.exception.TicketNotFoundException;
+import it.cflm.qrticketsystem.model.QrCodeStatus;
+import it.cflm.qrticketsystem.model.Ticket;
+import it.cflm.qrticketsystem.repository.TicketRepository;
+import it.cflm.qrticketsystem.service.CheckInOutcome;
+import it.cflm.qrticketsystem.service.ScanContext;
+import it.cflm.qrticketsystem.service.TicketService;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Test di integrazione dell'instradamento sulle repliche con due database H2: il primario
+ * dell'applicazione e una replica "manuale", allineata copiando le righe dal test.
+ */
+@SpringBootTest(properties = {
+        "qrticket.datasource.replicas.nodes[0].url=jdbc:h2:mem:replica-it;DB_CLOSE_DELAY=-1",
+        "qrticket.datasource.replicas.nodes[0].username=sa",
+        "qrticket.datasource.replicas.lag-query=SELECT lag_seconds FROM replica_status",
+        "qrticket.datasource.replicas.max-lag-ms=1000",
+        "qrticket.datasource.replicas.check-interval-ms=60000"
+})
+class ReadReplicaRoutingTest {
+
+    @Autowired
+    private TicketService ticketService;
+
+    @Autowired
+    private TicketRepository ticketRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private HikariDataSource primaryDataSource;
+
+    @Autowired
+    private ReplicaRoutingDataSource replicaDataSource;
+
+    private JdbcTemplate primary;
+    private JdbcTemplate replica;
+
+    @BeforeEach
+    void setUp() {
+        primary = new JdbcTemplate(primaryDataSource);
+        JdbcDataSource replicaDatabase = new JdbcDataSource();
+        replicaDatabase.setURL("jdbc:h2:mem:replica-it;DB_CLOSE_DELAY=-1");
+        replicaDatabase.setUser("sa");
+        replica = new JdbcTemplate(replicaDatabase);
+
+        replica.execute("DROP ALL OBJECTS");
+        for (String ddl : primary.queryForList("SCRIPT NODATA TABLE tickets", String.class)) {
+            replica.execute(ddl);
+        }
+        replica.execute("CREATE TABLE replica_status (lag_seconds DOUBLE)");
+        replica.update("INSERT INTO replica_status VALUES (0)");
+        replicaDataSource.checkReplicas();
+    }
+
+    @Test
+    void readOnlyService_shouldReadFromReplica() {
+        // Given - biglietto scritto sul primario, non ancora replicato né in cache
+        UUID ticketId = saveTicket().getId();
+        evictCaches();
+
+        // When & Then
+        assertThatThrownBy(() -> ticketService.getTicketById(ticketId))
+                .isInstanceOf(TicketNotFoundException.class);
+
+        replicate(ticketId);
+        assertThat(ticketService.getTicketById(ticketId).getId()).isEqualTo(ticketId);
+    }
+
+    @Test
+    void checkIn_shouldIgnoreStaleReplica() {
+        // Given - la replica ha il biglietto ancora valido
+        UUID ticketId = saveTicket().getId();
+        replicate(ticketId);
+        assertThat(ticketService.checkIn(ticketId, ScanContext.UNKNOWN)).isInstanceOf(CheckInOutcome.Admitted.class);
+        evictCaches();
+
+        // When - lettura dalla replica in ritardo, poi nuova scansione
+        boolean validOnReplica = ticketService.getTicketById(ticketId).isValid();
+        CheckInOutcome second = ticketService.checkIn(ticketId, ScanContext.UNKNOWN);
+
+        // Then - la lettura dalla replica non è finita in cache
+        assertThat(validOnReplica).isTrue();
+        assertThat(second).isInstanceOf(CheckInOutcome.AlreadyUsed.class);
+    }
+
+    @Test
+    void laggingReplica_shouldFallBackToPrimary() {
+        // Given
+        UUID ticketId = saveTicket().getId();
+        evictCaches();
+        replica.update("UPDATE replica_status SET lag_seconds = 30");
+
+        // When
+        replicaDataSource.checkReplicas();
+
+        // Then
+        assertThat(replicaDataSource.healthyReplicas()).isZero();
+        assertThat(ticketService.getTicketById(ticketId).getId()).isEqualTo(ticketId);
+    }
+
+    private Ticket saveTicket() {
+        Ticket ticket = new Ticket();
+        ticket.setEventName("Repliche");
+        ticket.setUserName("Mario Rossi");
+        ticket.setUserEmail("mario.rossi@example.com");
+        ticket.setPurchaseDate(LocalDateTime.now());
+        ticket.setValid(true);
+        ticket.setQrStatus(QrCodeStatus.READY);
+        ticket = ticketRepository.save(ticket);
+        ticket.setQrCodeData(ticket.getId().toString());
+        return ticketRepository.save(ticket);
+    }
+
+    /**
+     * Copia la riga del biglietto dal primario alla replica.
+     */
+    private void replicate(UUID ticketId) {
+        Map<String, Object> row = primary.queryForMap("SELECT * FROM tickets WHERE id = ?", ticketId);
+        String columns = String.join(", ", row.keySet());
+        String placeholders = String.join(", ", row.keySet().stream().map(column -> "?").toList());
+        replica.update("INSERT INTO tickets (" + columns + ") VALUES (" + placeholders + ")", row.values().toArray());
+    }
+
+    private void evictCaches() {
+        entityManagerFactory.getCache().evictAll();
+    }
+}
@@ -0,0 +1,160 @@
+package it.cflm.qrticketsystem.datasource;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import it.cflm.qrticketsystem.config.DatabaseNode;
+import it.cflm.qrticketsystem.config.ReadReplicaProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Test per ReplicaRoutingDataSource con tre database H2 in memoria (primario e due repliche).
+ */
+class ReplicaRoutingDataSourceTest {
+
+    private static final String LAG_QUERY = "SELECT lag_seconds FROM replica_status";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<JdbcTemplate> replicaDatabases = new ArrayList<>();
+    private JdbcDataSource primary;
+    private ReadReplicaProperties settings;
+    private ReplicaRoutingDataSource routing;
+
+    @BeforeEach
+    void setUp() {
+        String prefix = "routing-" + System.nanoTime() + "-";
+        primary = database(prefix + "primary", "primary");
+        settings = new ReadReplicaProperties();
+        settings.setLagQuery(LAG_QUERY);
+        settings.setMaxLagMs(1000);
+        settings.setCheckIntervalMs(60_000);
+        for (String name : List.of("replica-a", "replica-b")) {
+            JdbcTemplate replica = new JdbcTemplate(database(prefix + name, name));
+            replica.execute("CREATE TABLE replica_status (lag_seconds DOUBLE)");
+            replica.update("INSERT INTO replica_status VALUES (0)");
+            replicaDatabases.add(replica);
+            settings.getNodes().add(node(prefix + name));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (routing != null) {
+            routing.close();
+        }
+    }
+
+    @Test
+    void getConnection_shouldAlternateBetweenHealthyReplicas() {
+        // Given
+        routing = start();
+
+        // When
+        List<String> served = List.of(nodeName(routing), nodeName(routing), nodeName(routing), nodeName(routing));
+
+        // Then
+        assertThat(served).containsOnly("replica-a", "replica-b");
+        assertThat(served).containsSubsequence("replica-a", "replica-b");
+    }
+
+    @Test
+    void getConnection_shouldSkipLaggingReplica_andFallBackToPrimaryWhenAllLag() {
+        // Given
+        routing = start();
+        replicaDatabases.get(0).update("UPDATE replica_status SET lag_seconds = 5");
+
+        // When
+        routing.checkReplicas();
+
+        // Then
+        assertThat(routing.healthyReplicas()).isEqualTo(1);
+        assertThat(List.of(nodeName(routing), nodeName(routing))).containsOnly("replica-b");
+
+        // When - anche la seconda replica è in ritardo
+        replicaDatabases.get(1).update("UPDATE replica_status SET lag_seconds = 2.5");
+        routing.checkReplicas();
+
+        // Then
+        assertThat(nodeName(routing)).isEqualTo("primary");
+        assertThat(meterRegistry.counter("qrticket.datasource.replica.fallback").count()).isEqualTo(1);
+
+        // When - la prima replica si riallinea
+        replicaDatabases.get(0).update("UPDATE replica_status SET lag_seconds = 0.2");
+        routing.checkReplicas();
+
+        // Then
+        assertThat(nodeName(routing)).isEqualTo("replica-a");
+    }
+
+    @Test
+    void getConnection_shouldFallBackToPrimary_whenReplicaIsUnreachable() {
+        // Given - database inesistente: H2 rifiuta la connessione
+        settings.getNodes().clear();
+        settings.getNodes().add(node("routing-missing-" + System.nanoTime() + ";IFEXISTS=TRUE"));
+        routing = start();
+
+        // When & Then
+        assertThat(routing.healthyReplicas()).isZero();
+        assertThat(nodeName(routing)).isEqualTo("primary");
+    }
+
+    @Test
+    void lazyProxy_shouldRouteReadOnlyTransactionsToReplicas_andWritesToPrimary() {
+        // Given
+        routing = start();
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primary);
+        dataSource.setReadOnlyDataSource(routing);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        TransactionTemplate write = new TransactionTemplate(transactionManager);
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        // When
+        String writeNode = write.execute(status -> jdbcTemplate.queryForObject("SELECT name FROM node", String.class));
+        String readNode = readOnly.execute(status -> jdbcTemplate.queryForObject("SELECT name FROM node", String.class));
+        String autoCommitNode = jdbcTemplate.queryForObject("SELECT name FROM node", String.class);
+
+        // Then
+        assertThat(writeNode).isEqualTo("primary");
+        assertThat(readNode).startsWith("replica-");
+        assertThat(autoCommitNode).isEqualTo("primary");
+    }
+
+    private ReplicaRoutingDataSource start() {
+        ReplicaRoutingDataSource dataSource = new ReplicaRoutingDataSource(primary, settings, meterRegistry);
+        dataSource.checkReplicas();
+        return dataSource;
+    }
+
+    private static String nodeName(ReplicaRoutingDataSource dataSource) {
+        return new JdbcTemplate(dataSource).queryForObject("SELECT name FROM node", String.class);
+    }
+
+    private static JdbcDataSource database(String database, String nodeName) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1");
+        dataSource.setUser("sa");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE node (name VARCHAR(20))");
+        jdbcTemplate.update("INSERT INTO node VALUES (?)", nodeName);
+        return dataSource;
+    }
+
+    private static DatabaseNode node(String database) {
+        DatabaseNode node = new DatabaseNode();
+        node.setUrl("jdbc:h2:mem:" + database + (database.contains(";") ? "" : ";DB_CLOSE_DELAY=-1"));
+        node.setUsername("sa");
+        return node;
+    }
+}
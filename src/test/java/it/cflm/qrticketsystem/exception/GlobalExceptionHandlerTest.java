@@ -3,8 +3,10 @@ package it.cflm.qrticketsystem.exception;
 import java.util.UUID;
 
 import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
 import org.junit.jupiter.api.Test;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -20,6 +22,8 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import it.cflm.qrticketsystem.controller.TicketController;
+import it.cflm.qrticketsystem.service.ScanContext;
+import it.cflm.qrticketsystem.service.EventService;
 import it.cflm.qrticketsystem.service.TicketService;
 
 /**
@@ -36,6 +40,10 @@ class GlobalExceptionHandlerTest {
     @SuppressWarnings("removal")
     private TicketService ticketService;
 
+    @MockBean
+    @SuppressWarnings("removal")
+    private EventService eventService;
+
     @Test
     void handleTicketNotFoundException_shouldReturnNotFoundStatus() throws Exception {
         // Given
@@ -56,7 +64,7 @@ class GlobalExceptionHandlerTest {
     void handleTicketAlreadyUsedException_shouldReturnConflictStatus() throws Exception {
         // Given
         UUID ticketId = UUID.randomUUID();
-        when(ticketService.validateTicket(ticketId))
+        when(ticketService.checkIn(eq(ticketId), any(ScanContext.class)))
                 .thenThrow(new TicketAlreadyUsedException(ticketId));
 
         // When & Then
@@ -113,6 +121,27 @@ class GlobalExceptionHandlerTest {
                 .andExpect(jsonPath("$.status").value(500));
     }
 
+    @Test
+    void handleInvalidQrCodeFormatException_shouldReturnBadRequest() throws Exception {
+        // When & Then
+        mockMvc.perform(get("/qrcode/{ticketId}", UUID.randomUUID()).param("format", "gif"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value(containsString("gif")))
+                .andExpect(jsonPath("$.status").value(400));
+    }
+
+    @Test
+    void handleIllegalArgumentException_shouldNotEchoMessage() throws Exception {
+        // Given - eccezione di una libreria, non un parametro non valido del client
+        when(ticketService.getTicketById(any()))
+                .thenThrow(new IllegalArgumentException("dettaglio interno"));
+
+        // When & Then
+        mockMvc.perform(get("/ticket/{ticketId}", UUID.randomUUID()))
+                .andExpect(status().isInternalServerError())
+                .andExpect(jsonPath("$.message").value(not(containsString("dettaglio"))));
+    }
+
     @Test
     void handleMethodArgumentNotValid_shouldIncludeFieldErrors() throws Exception {
         // When & Then
@@ -0,0 +1,68 @@
+package it.cflm.qrticketsystem.jfr;
+
+import java.io.InputStream;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.core.io.Resource;
+
+/**
+ * Test unitari dell'endpoint Actuator per le registrazioni JFR.
+ */
+class JfrRecordingEndpointTest {
+
+    private final JfrRecordingEndpoint endpoint = new JfrRecordingEndpoint();
+
+    @AfterEach
+    void tearDown() {
+        endpoint.shutdown();
+    }
+
+    @Test
+    void start_shouldRunRecordingUntilStopped() {
+        // When
+        WebEndpointResponse<Map<String, Object>> started = endpoint.start(null, 60L);
+
+        // Then
+        assertThat(started.getStatus()).isEqualTo(WebEndpointResponse.STATUS_OK);
+        assertThat(started.getBody())
+                .containsEntry("state", "RUNNING")
+                .containsEntry("maxAgeSeconds", 60L);
+
+        // When
+        WebEndpointResponse<Map<String, Object>> stopped = endpoint.stop();
+
+        // Then
+        assertThat(stopped.getStatus()).isEqualTo(WebEndpointResponse.STATUS_OK);
+        assertThat(endpoint.stop().getStatus()).isEqualTo(WebEndpointResponse.STATUS_NOT_FOUND);
+    }
+
+    @Test
+    void dump_shouldReturnRecordedDataAndDeleteFile() throws Exception {
+        // Given
+        endpoint.start("default", null);
+
+        // When
+        WebEndpointResponse<Resource> response = endpoint.dump();
+
+        // Then
+        assertThat(response.getStatus()).isEqualTo(WebEndpointResponse.STATUS_OK);
+        Resource resource = response.getBody();
+        try (InputStream in = resource.getInputStream()) {
+            assertThat(in.readNBytes(4)).isEqualTo("FLR\0".getBytes());
+        }
+        assertThat(resource.exists()).isFalse();
+    }
+
+    @Test
+    void start_withUnknownSettings_shouldReturnBadRequest() {
+        // When
+        WebEndpointResponse<Map<String, Object>> response = endpoint.start("inesistente", null);
+
+        // Then
+        assertThat(response.getStatus()).isEqualTo(WebEndpointResponse.STATUS_BAD_REQUEST);
+    }
+}
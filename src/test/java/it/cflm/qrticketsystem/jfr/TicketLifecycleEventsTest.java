@@ -0,0 +1,116 @@
+package it.cflm.qrticketsystem.jfr;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import it.cflm.qrticketsystem.dto.TicketRequestDTO;
+import it.cflm.qrticketsystem.dto.TicketResponseDTO;
+import it.cflm.qrticketsystem.model.QrCodeStatus;
+import it.cflm.qrticketsystem.repository.TicketRepository;
+import it.cflm.qrticketsystem.service.ScanContext;
+import it.cflm.qrticketsystem.service.TicketService;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * Verifica che il ciclo di vita di un biglietto produca gli eventi JFR attesi.
+ */
+@SpringBootTest
+class TicketLifecycleEventsTest {
+
+    @Autowired
+    private TicketService ticketService;
+
+    @Autowired
+    private TicketRepository ticketRepository;
+
+    @Test
+    void ticketLifecycle_shouldEmitJfrEvents() throws Exception {
+        // Given
+        List<RecordedEvent> events;
+        Path file = Files.createTempFile("lifecycle-", ".jfr");
+        String ticketId;
+        try (Recording recording = new Recording()) {
+            recording.enable(TicketCreationEvent.class).withoutThreshold();
+            recording.enable(TicketPersistEvent.class).withoutThreshold();
+            recording.enable(QrRenderEvent.class).withoutThreshold();
+            recording.enable(CheckInEvent.class).withoutThreshold();
+            recording.start();
+
+            // When
+            TicketResponseDTO ticket = ticketService.createTicket(
+                    new TicketRequestDTO("Concerto JFR", "Mario Rossi", "mario.rossi@example.com"));
+            ticketId = ticket.getId().toString();
+            awaitQrCode(ticket.getId());
+            ScanContext context = new ScanContext(3, "operatore");
+            ticketService.checkIn(ticket.getId(), context);
+            ticketService.checkIn(ticket.getId(), context);
+
+            recording.stop();
+            recording.dump(file);
+            events = RecordingFile.readAllEvents(file);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+
+        // Then
+        assertThat(events)
+                .filteredOn(e -> e.getEventType().getName().equals("it.cflm.qrticketsystem.TicketCreation"))
+                .anySatisfy(e -> {
+                    assertThat(e.getString("ticketId")).isEqualTo(ticketId);
+                    assertThat(e.getBoolean("committed")).isTrue();
+                });
+        assertThat(events)
+                .filteredOn(e -> e.getEventType().getName().equals("it.cflm.qrticketsystem.Persist"))
+                .extracting(e -> e.getString("operation"))
+                .contains(TicketPersistEvent.TICKET, TicketPersistEvent.QR_IMAGE);
+        assertThat(events)
+                .filteredOn(e -> e.getEventType().getName().equals("it.cflm.qrticketsystem.QrRender"))
+                .anySatisfy(e -> {
+                    assertThat(e.getInt("width")).isPositive();
+                    assertThat(e.getLong("bytes")).isPositive();
+                });
+        assertThat(events)
+                .filteredOn(e -> e.getEventType().getName().equals("it.cflm.qrticketsystem.CheckIn")
+                        && ticketId.equals(e.getString("ticketId")))
+                .extracting(e -> e.getString("outcome"), e -> e.getInt("gate"))
+                .containsExactly(
+                        tuple("ADMITTED", 3),
+                        tuple("ALREADY_USED", 3));
+    }
+
+    /**
+     * Attende il rendering asincrono del QR Code, così il check-in non si sovrappone
+     * alla scrittura dell'immagine.
+     */
+    private void awaitQrCode(UUID ticketId) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (ticketRepository.findById(ticketId).orElseThrow().getQrStatus() != QrCodeStatus.READY) {
+            assertThat(System.nanoTime()).as("QR Code non renderizzato entro 10 s").isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    void eventsWithoutRecording_shouldNotBeCommitted() {
+        // Given
+        CheckInEvent event = new CheckInEvent();
+
+        // When
+        event.begin();
+        event.end();
+
+        // Then
+        assertThat(event.shouldCommit()).isFalse();
+    }
+}
@@ -0,0 +1,82 @@
+package it.cflm.qrticketsystem.journal;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+import it.cflm.qrticketsystem.model.ScanOutcome;
+
+/**
+ * Benchmark del journal dei check-in: append al secondo e tempo di recupero per milione di record.
+ * Eseguire con {@code mvn test -Dtest=CheckInJournalBenchmarkTest -Dbenchmarks=true}.
+ */
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+class CheckInJournalBenchmarkTest {
+
+    private static final int RECORDS = 1_000_000;
+    private static final int SCANNERS = 16;
+    private static final int DURABLE_APPENDS_PER_SCANNER = 2_000;
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void appendAndRecoverOneMillionRecords() throws Exception {
+        try (CheckInJournal journal = new CheckInJournal(directory, 1 << 18)) {
+            // Append senza attesa della sincronizzazione (throughput della scrittura mappata)
+            long start = System.nanoTime();
+            long last = 0;
+            for (int i = 0; i < RECORDS; i++) {
+                last = journal.append(UUID.randomUUID(), i & 0xFF, ScanOutcome.ADMITTED, i);
+            }
+            journal.awaitDurable(last);
+            long appendNanos = System.nanoTime() - start;
+            System.out.printf("Append: %,d record in %d ms (%,.0f append/s)%n",
+                    RECORDS, TimeUnit.NANOSECONDS.toMillis(appendNanos), RECORDS / (appendNanos / 1e9));
+
+            // Append durevoli concorrenti (group commit): ogni scanner attende il proprio fsync
+            ExecutorService pool = Executors.newFixedThreadPool(SCANNERS);
+            start = System.nanoTime();
+            List<Future<?>> scanners = new ArrayList<>();
+            for (int s = 0; s < SCANNERS; s++) {
+                int gate = s;
+                scanners.add(pool.submit(() -> {
+                    for (int i = 0; i < DURABLE_APPENDS_PER_SCANNER; i++) {
+                        journal.awaitDurable(journal.append(UUID.randomUUID(), gate, ScanOutcome.ADMITTED, i));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> scanner : scanners) {
+                scanner.get();
+            }
+            pool.shutdown();
+            long durableNanos = System.nanoTime() - start;
+            int durableAppends = SCANNERS * DURABLE_APPENDS_PER_SCANNER;
+            System.out.printf("Append durevoli (%d thread): %,d in %d ms (%,.0f append/s)%n",
+                    SCANNERS, durableAppends, TimeUnit.NANOSECONDS.toMillis(durableNanos),
+                    durableAppends / (durableNanos / 1e9));
+        }
+
+        // Recupero all'avvio
+        try (CheckInJournal reopened = new CheckInJournal(directory, 1 << 18)) {
+            long start = System.nanoTime();
+            CheckInJournal.Recovery recovery = reopened.recover();
+            long recoveryNanos = System.nanoTime() - start;
+            System.out.printf("Recupero: %,d record in %d ms (%d ms per milione)%n",
+                    recovery.records(), TimeUnit.NANOSECONDS.toMillis(recoveryNanos),
+                    TimeUnit.NANOSECONDS.toMillis(recoveryNanos) * 1_000_000 / recovery.records());
+            assertThat(recovery.records()).isEqualTo(RECORDS + SCANNERS * DURABLE_APPENDS_PER_SCANNER);
+        }
+    }
+}
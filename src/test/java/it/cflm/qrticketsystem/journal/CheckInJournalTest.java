@@ -0,0 +1,124 @@
+package it.cflm.qrticketsystem.journal;
+
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import it.cflm.qrticketsystem.model.ScanOutcome;
+
+/**
+ * Test unitari per CheckInJournal.
+ */
+class CheckInJournalTest {
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void recover_shouldReturnAdmittedCheckInsAfterCheckpoint() throws Exception {
+        // Given
+        UUID applied = UUID.randomUUID();
+        UUID admitted = UUID.randomUUID();
+        UUID rejected = UUID.randomUUID();
+        try (CheckInJournal journal = new CheckInJournal(directory, 16)) {
+            journal.checkpoint(journal.append(applied, 1, ScanOutcome.ADMITTED, 1L));
+            journal.append(rejected, 2, ScanOutcome.ALREADY_USED, 2L);
+            journal.awaitDurable(journal.append(admitted, 2, ScanOutcome.ADMITTED, 3L));
+        }
+
+        // When
+        try (CheckInJournal reopened = new CheckInJournal(directory, 16)) {
+            CheckInJournal.Recovery recovery = reopened.recover();
+
+            // Then
+            assertThat(recovery.admitted()).containsExactly(admitted);
+            assertThat(recovery.records()).isEqualTo(2);
+        }
+    }
+
+    @Test
+    void recover_shouldSkipRevokedCheckIns() throws Exception {
+        // Given - ingresso annullato perché il record non era diventato durevole
+        UUID revoked = UUID.randomUUID();
+        UUID admitted = UUID.randomUUID();
+        try (CheckInJournal journal = new CheckInJournal(directory, 16)) {
+            journal.append(revoked, 1, ScanOutcome.ADMITTED, 1L);
+            journal.append(admitted, 1, ScanOutcome.ADMITTED, 2L);
+            journal.awaitDurable(journal.revoke(revoked, 1, 3L));
+        }
+
+        // When
+        try (CheckInJournal reopened = new CheckInJournal(directory, 16)) {
+            CheckInJournal.Recovery recovery = reopened.recover();
+
+            // Then
+            assertThat(recovery.admitted()).containsExactly(admitted);
+            assertThat(recovery.records()).isEqualTo(3);
+        }
+    }
+
+    @Test
+    void append_shouldRollSegments_andCheckpointShouldCompactThem() throws Exception {
+        // Given
+        List<UUID> ids = new ArrayList<>();
+        try (CheckInJournal journal = new CheckInJournal(directory, 4)) {
+            long last = 0;
+            for (int i = 0; i < 10; i++) {
+                UUID id = UUID.randomUUID();
+                ids.add(id);
+                last = journal.append(id, 1, ScanOutcome.ADMITTED, i);
+            }
+            journal.awaitDurable(last);
+            assertThat(segmentCount()).isEqualTo(3);
+
+            // When
+            journal.checkpoint(last);
+
+            // Then - restano solo il segmento del checkpoint
+            assertThat(segmentCount()).isEqualTo(1);
+        }
+        try (CheckInJournal reopened = new CheckInJournal(directory, 4)) {
+            assertThat(reopened.recover().admitted()).isEmpty();
+        }
+    }
+
+    @Test
+    void recover_shouldStopAtTornRecord() throws Exception {
+        // Given
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        try (CheckInJournal journal = new CheckInJournal(directory, 16)) {
+            journal.append(first, 1, ScanOutcome.ADMITTED, 1L);
+            journal.awaitDurable(journal.append(second, 1, ScanOutcome.ADMITTED, 2L));
+        }
+        // Crash durante la scrittura del secondo record: il CRC non corrisponde più
+        Path segment;
+        try (Stream<Path> files = Files.list(directory)) {
+            segment = files.filter(file -> file.toString().endsWith(".seg")).sorted().findFirst().orElseThrow();
+        }
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(java.nio.ByteBuffer.wrap(new byte[]{0x7F}), CheckInJournal.RECORD_BYTES + 3);
+        }
+
+        // When
+        try (CheckInJournal reopened = new CheckInJournal(directory, 16)) {
+            // Then
+            assertThat(reopened.recover().admitted()).containsExactly(first);
+        }
+    }
+
+    private long segmentCount() throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.toString().endsWith(".seg")).count();
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package it.cflm.qrticketsystem.logging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Test di integrazione delle metriche dell'appender asincrono configurato in logback-spring.xml.
+ */
+@SpringBootTest
+class LoggingMetricsTest {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void asyncConsoleAppender_shouldExposeQueueAndLossMetrics() {
+        assertThat(meterRegistry.find("qrticket.logging.queue.size").tag("appender", "ASYNC_CONSOLE").gauge())
+                .isNotNull();
+        assertThat(meterRegistry.find("qrticket.logging.events.lost").tag("reason", "queue-full").functionCounter())
+                .isNotNull();
+    }
+}
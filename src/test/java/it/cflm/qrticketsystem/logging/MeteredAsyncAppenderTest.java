@@ -0,0 +1,99 @@
+package it.cflm.qrticketsystem.logging;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.Test;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.util.LogbackMDCAdapter;
+import ch.qos.logback.core.AppenderBase;
+
+/**
+ * Test unitari per MeteredAsyncAppender.
+ */
+class MeteredAsyncAppenderTest {
+
+    @Test
+    void append_shouldCountEventsLost_whenQueueIsFull() throws Exception {
+        // Given - appender di destinazione bloccato, coda da un solo evento
+        LoggerContext context = newContext();
+        CountDownLatch consuming = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AppenderBase<ILoggingEvent> slowConsole = new AppenderBase<>() {
+            @Override
+            protected void append(ILoggingEvent event) {
+                consuming.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        slowConsole.setContext(context);
+        slowConsole.start();
+
+        MeteredAsyncAppender appender = new MeteredAsyncAppender();
+        appender.setContext(context);
+        appender.setName("ASYNC_TEST");
+        appender.setQueueSize(1);
+        appender.setDiscardingThreshold(0);
+        appender.setNeverBlock(true);
+        appender.addAppender(slowConsole);
+        appender.start();
+
+        Logger logger = context.getLogger("test");
+        logger.setLevel(Level.INFO);
+        logger.addAppender(appender);
+
+        // When
+        logger.info("preso dal thread di scrittura");
+        assertThat(consuming.await(5, TimeUnit.SECONDS)).isTrue();
+        logger.info("in coda");
+        logger.info("perso");
+        logger.info("perso");
+
+        // Then
+        assertThat(appender.getDroppedCount()).isEqualTo(2);
+        assertThat(appender.getDiscardedCount()).isZero();
+        release.countDown();
+        appender.stop();
+    }
+
+    @Test
+    void append_shouldDiscardInfoEvents_belowDiscardingThreshold() {
+        // Given
+        LoggerContext context = newContext();
+        MeteredAsyncAppender appender = new MeteredAsyncAppender();
+        appender.setContext(context);
+        appender.setQueueSize(4);
+        appender.setDiscardingThreshold(5); // sempre sotto soglia
+        appender.addAppender(new AppenderBase<>() {
+            @Override
+            protected void append(ILoggingEvent event) {
+            }
+        });
+        appender.start();
+        Logger logger = context.getLogger("test");
+        logger.addAppender(appender);
+
+        // When
+        logger.info("scartato");
+        logger.warn("mantenuto");
+
+        // Then
+        assertThat(appender.getDiscardedCount()).isEqualTo(1);
+        appender.stop();
+    }
+
+    private static LoggerContext newContext() {
+        LoggerContext context = new LoggerContext();
+        context.setMDCAdapter(new LogbackMDCAdapter());
+        return context;
+    }
+}
@@ -0,0 +1,272 @@
+package it.cflm.qrticketsystem.mail;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.GreenMailUtil;
+import com.icegreen.greenmail.util.ServerSetupTest;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import it.cflm.qrticketsystem.config.TicketMailProperties;
+import it.cflm.qrticketsystem.dto.TicketRequestDTO;
+import it.cflm.qrticketsystem.dto.TicketResponseDTO;
+import it.cflm.qrticketsystem.model.OutboxMessage;
+import it.cflm.qrticketsystem.model.TicketEmail;
+import it.cflm.qrticketsystem.model.TicketEmailDeadLetter;
+import it.cflm.qrticketsystem.model.TicketEmailStatus;
+import it.cflm.qrticketsystem.outbox.OutboxRelay;
+import it.cflm.qrticketsystem.repository.OutboxMessageRepository;
+import it.cflm.qrticketsystem.repository.TicketEmailDeadLetterRepository;
+import it.cflm.qrticketsystem.repository.TicketEmailRepository;
+import it.cflm.qrticketsystem.service.TicketService;
+import jakarta.mail.internet.MimeMessage;
+
+/**
+ * Test di integrazione dell'invio dei biglietti per email, contro un server SMTP in-process.
+ * L'invio in background è rallentato a un giro all'ora: i test chiamano {@link TicketMailer#sendDue()}.
+ */
+@SpringBootTest(properties = {
+        "spring.mail.host=localhost",
+        "spring.mail.port=3025",
+        "qrticket.mail.poll-interval-ms=3600000",
+        "qrticket.mail.batch-size=2"
+})
+class TicketMailerTest {
+
+    @RegisterExtension
+    static final GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    @Autowired
+    private TicketService ticketService;
+
+    @Autowired
+    private TicketMailer ticketMailer;
+
+    @Autowired
+    private TicketEmailComposer composer;
+
+    @Autowired
+    private OutboxRelay outboxRelay;
+
+    @Autowired
+    private OutboxMessageRepository outboxMessageRepository;
+
+    @Autowired
+    private TicketEmailRepository ticketEmailRepository;
+
+    @Autowired
+    private TicketEmailDeadLetterRepository deadLetterRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        outboxRelay.relay(); // acquisti lasciati nell'outbox dagli altri test
+        jdbcTemplate.update("DELETE FROM ticket_emails WHERE status = 'PENDING'");
+    }
+
+    @Test
+    void purchase_shouldSendTicketEmail_withInlineQrCode() throws Exception {
+        // Given
+        TicketResponseDTO ticket = ticketService.createTicket(request("anna.bianchi@example.com"));
+
+        // When
+        outboxRelay.relay();
+        ticketMailer.sendDue();
+
+        // Then
+        MimeMessage[] received = greenMail.getReceivedMessagesForDomain("anna.bianchi@example.com");
+        assertThat(received).hasSize(1);
+        assertThat(received[0].getSubject()).isEqualTo("Il tuo biglietto per " + ticket.getEventName());
+        assertThat(GreenMailUtil.getWholeMessage(received[0]))
+                .contains("/ticket/" + ticket.getId())
+                .contains("Content-ID: <qrcode>")
+                .contains("image/png");
+        assertThat(ticketEmailRepository.findByTicketId(ticket.getId()))
+                .get()
+                .satisfies(email -> {
+                    assertThat(email.getStatus()).isEqualTo(TicketEmailStatus.SENT);
+                    assertThat(email.getAttempts()).isEqualTo(1);
+                });
+    }
+
+    @Test
+    void sendDue_shouldSendEveryBatch() {
+        // Given
+        for (int i = 0; i < 5; i++) {
+            ticketService.createTicket(request("batch" + i + "@example.com"));
+        }
+        outboxRelay.relay();
+
+        // When
+        int sent = ticketMailer.sendDue();
+
+        // Then
+        assertThat(sent).isEqualTo(5);
+        assertThat(greenMail.getReceivedMessages()).hasSize(5);
+    }
+
+    @Test
+    void onOutboxMessage_shouldIgnoreRepeatedDelivery() {
+        // Given
+        TicketResponseDTO ticket = ticketService.createTicket(request("mario.rossi@example.com"));
+        OutboxMessage issued = outboxMessageRepository.findByTicketIdOrderById(ticket.getId()).get(0);
+
+        // When
+        ticketMailer.onOutboxMessage(issued);
+        ticketMailer.onOutboxMessage(issued);
+        ticketMailer.sendDue();
+
+        // Then
+        assertThat(ticketEmailRepository.findByTicketId(ticket.getId())).isPresent();
+        assertThat(greenMail.getReceivedMessagesForDomain("mario.rossi@example.com")).hasSize(1);
+    }
+
+    @Test
+    void sendDue_shouldBackOffExponentially_thenDeadLetter() {
+        // Given: SMTP irraggiungibile e orologio nel passato (le righe degli altri test non scadono)
+        MutableClock clock = new MutableClock(Instant.parse("2020-01-01T10:00:00Z"));
+        TicketMailProperties settings = new TicketMailProperties();
+        settings.setMaxAttempts(3);
+        settings.setInitialBackoffMs(1000);
+        JavaMailSenderImpl unreachable = new JavaMailSenderImpl();
+        unreachable.setHost("localhost");
+        unreachable.setPort(1);
+        TicketMailer failing = new TicketMailer(unreachable, composer, ticketEmailRepository, deadLetterRepository,
+                transactionManager, objectMapper, settings, new SimpleMeterRegistry(), clock);
+        TicketResponseDTO ticket = ticketService.createTicket(request("luca.verdi@example.com"));
+        failing.enqueue(ticket.getId(), "luca.verdi@example.com", "Luca Verdi", ticket.getEventName());
+
+        // When
+        failing.sendDue();
+        int notYetDue = failing.sendDue();
+        TicketEmail afterFirstFailure = ticketEmailRepository.findByTicketId(ticket.getId()).orElseThrow();
+        clock.advance(Duration.ofSeconds(1));
+        failing.sendDue();
+        TicketEmail afterSecondFailure = ticketEmailRepository.findByTicketId(ticket.getId()).orElseThrow();
+        clock.advance(Duration.ofSeconds(2));
+        failing.sendDue();
+
+        // Then
+        assertThat(notYetDue).isZero();
+        assertThat(afterFirstFailure.getAttempts()).isEqualTo(1);
+        assertThat(afterFirstFailure.getNextAttemptAt()).isEqualTo("2020-01-01T10:00:01");
+        assertThat(afterSecondFailure.getAttempts()).isEqualTo(2);
+        assertThat(afterSecondFailure.getNextAttemptAt()).isEqualTo("2020-01-01T10:00:03");
+        assertThat(ticketEmailRepository.findByTicketId(ticket.getId()))
+                .get()
+                .extracting(TicketEmail::getStatus)
+                .isEqualTo(TicketEmailStatus.FAILED);
+        TicketEmailDeadLetter deadLetter = deadLetterOf(ticket.getId());
+        assertThat(deadLetter.getAttempts()).isEqualTo(3);
+        assertThat(deadLetter.getLastError()).isNotBlank();
+        failing.shutdown();
+    }
+
+    @Test
+    void retry_shouldRequeueDeadLetter() {
+        // Given
+        TicketResponseDTO ticket = ticketService.createTicket(request("giulia.neri@example.com"));
+        outboxRelay.relay();
+        TicketEmail email = ticketEmailRepository.findByTicketId(ticket.getId()).orElseThrow();
+        email.setStatus(TicketEmailStatus.FAILED);
+        ticketEmailRepository.save(email);
+        TicketEmailDeadLetter deadLetter = new TicketEmailDeadLetter();
+        deadLetter.setEmailId(email.getId());
+        deadLetter.setTicketId(ticket.getId());
+        deadLetter.setRecipient(email.getRecipient());
+        deadLetter.setAttempts(6);
+        deadLetter.setFailedAt(email.getCreatedAt());
+        deadLetter = deadLetterRepository.save(deadLetter);
+
+        // When
+        boolean requeued = ticketMailer.retry(deadLetter.getId());
+        ticketMailer.sendDue();
+
+        // Then
+        assertThat(requeued).isTrue();
+        assertThat(deadLetterRepository.findById(deadLetter.getId())).isEmpty();
+        assertThat(greenMail.getReceivedMessagesForDomain("giulia.neri@example.com")).hasSize(1);
+        assertThat(ticketMailer.retry(deadLetter.getId())).isFalse();
+    }
+
+    @Test
+    void backoffMs_shouldDouble_upToMax() {
+        // Given
+        TicketMailProperties settings = new TicketMailProperties();
+        settings.setInitialBackoffMs(30_000);
+        settings.setMaxBackoffMs(200_000);
+        TicketMailer mailer = new TicketMailer(null, composer, ticketEmailRepository, deadLetterRepository,
+                transactionManager, objectMapper, settings, new SimpleMeterRegistry(), Clock.systemUTC());
+
+        // Then
+        assertThat(mailer.backoffMs(1)).isEqualTo(30_000);
+        assertThat(mailer.backoffMs(2)).isEqualTo(60_000);
+        assertThat(mailer.backoffMs(3)).isEqualTo(120_000);
+        assertThat(mailer.backoffMs(4)).isEqualTo(200_000);
+        assertThat(mailer.backoffMs(100)).isEqualTo(200_000);
+        mailer.shutdown();
+    }
+
+    private TicketEmailDeadLetter deadLetterOf(UUID ticketId) {
+        return deadLetterRepository.findAllByOrderById().stream()
+                .filter(deadLetter -> deadLetter.getTicketId().equals(ticketId))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private static TicketRequestDTO request(String userEmail) {
+        return new TicketRequestDTO("Email " + UUID.randomUUID(), "Mario Rossi", userEmail);
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant now;
+
+        private MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package it.cflm.qrticketsystem.outbox;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import it.cflm.qrticketsystem.config.OutboxProperties;
+import it.cflm.qrticketsystem.dto.TicketRequestDTO;
+import it.cflm.qrticketsystem.dto.TicketResponseDTO;
+import it.cflm.qrticketsystem.model.OutboxMessage;
+import it.cflm.qrticketsystem.model.OutboxMessageType;
+import it.cflm.qrticketsystem.repository.OutboxMessageRepository;
+import it.cflm.qrticketsystem.service.ScanContext;
+import it.cflm.qrticketsystem.service.TicketService;
+import it.cflm.qrticketsystem.sharding.ShardRoutingDataSource;
+
+/**
+ * Test di integrazione dell'outbox: scrittura nella transazione del biglietto e relay.
+ * Il relay di background è disabilitato nei test: il test ne usa uno proprio con un sink in memoria.
+ */
+@SpringBootTest
+class OutboxRelayTest {
+
+    private static final ScanContext RECEPTION = new ScanContext(1, "operatore");
+
+    @Autowired
+    private TicketService ticketService;
+
+    @Autowired
+    private OutboxMessageRepository outboxMessageRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private ObjectProvider<ShardRoutingDataSource> shardRoutingDataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private RecordingSink sink;
+    private SimpleMeterRegistry meterRegistry;
+    private OutboxRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        sink = new RecordingSink();
+        meterRegistry = new SimpleMeterRegistry();
+        OutboxProperties settings = new OutboxProperties();
+        settings.setBatchSize(2);
+        settings.setMaxAttempts(3);
+        settings.setInitialBackoffMs(0); // nuovo tentativo al giro successivo
+        relay = new OutboxRelay(dataSource, shardRoutingDataSource, sink, settings, meterRegistry);
+        relay.relay(); // messaggi lasciati da altri test
+        sink.received.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        relay.shutdown();
+    }
+
+    @Test
+    void relay_shouldPublishPurchaseAndCheckIn_inOrder() {
+        // Given
+        TicketResponseDTO ticket = ticketService.createTicket(request());
+        ticketService.checkIn(ticket.getId(), RECEPTION);
+
+        // When
+        relay.relay();
+
+        // Then
+        assertThat(messagesOf(ticket.getId()))
+                .extracting(OutboxMessage::getType)
+                .containsExactly(OutboxMessageType.TICKET_ISSUED, OutboxMessageType.TICKET_USED);
+        assertThat(messagesOf(ticket.getId()).get(0).getPayload())
+                .contains("\"userEmail\":\"mario.rossi@example.com\"");
+        assertThat(outboxMessageRepository.findByTicketIdOrderById(ticket.getId()))
+                .allSatisfy(message -> assertThat(message.getPublishedAt()).isNotNull());
+    }
+
+    @Test
+    void relay_shouldRetryFailedBatch_atLeastOnce() {
+        // Given
+        TicketResponseDTO ticket = ticketService.createTicket(request());
+        sink.failures = 1;
+
+        // When
+        int firstRound = relay.relay();
+        double pendingAfterFailure = meterRegistry.get("qrticket.outbox.pending").gauge().value();
+        relay.relay();
+
+        // Then
+        assertThat(firstRound).isZero();
+        assertThat(pendingAfterFailure).isGreaterThanOrEqualTo(1); // database condiviso con gli altri test
+        assertThat(outboxMessageRepository.findByTicketIdOrderById(ticket.getId()))
+                .singleElement()
+                .satisfies(message -> {
+                    assertThat(message.getAttempts()).isEqualTo(1);
+                    assertThat(message.getPublishedAt()).isNotNull();
+                });
+        assertThat(messagesOf(ticket.getId())).hasSize(1);
+        assertThat(meterRegistry.get("qrticket.outbox.failed").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void relay_shouldParkMessage_afterMaxAttempts_andPublishTheRest() {
+        // Given - un messaggio che il sink rifiuta sempre, seguito da un altro
+        TicketResponseDTO poison = ticketService.createTicket(request());
+        TicketResponseDTO next = ticketService.createTicket(request());
+        sink.poison = poison.getId();
+
+        // When - batch fallito, poi il primo messaggio riproposto da solo fino all'ultimo tentativo
+        for (int round = 0; round < 3; round++) {
+            relay.relay();
+        }
+
+        // Then
+        assertThat(outboxMessageRepository.findByTicketIdOrderById(poison.getId()))
+                .singleElement()
+                .satisfies(message -> {
+                    assertThat(message.getAttempts()).isEqualTo(3);
+                    assertThat(message.getParkedAt()).isNotNull();
+                    assertThat(message.getPublishedAt()).isNull();
+                });
+        assertThat(messagesOf(poison.getId())).isEmpty();
+        assertThat(messagesOf(next.getId())).hasSize(1);
+        assertThat(meterRegistry.get("qrticket.outbox.parked").counter().count()).isEqualTo(1);
+        assertThat(relay.relay()).isZero(); // il messaggio messo da parte non viene più riproposto
+    }
+
+    @Test
+    void createTicket_shouldNotWriteOutbox_whenTransactionRollsBack() {
+        // Given
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        // When
+        UUID ticketId = transaction.execute(status -> {
+            UUID id = ticketService.createTicket(request()).getId();
+            status.setRollbackOnly();
+            return id;
+        });
+
+        // Then
+        assertThat(outboxMessageRepository.findByTicketIdOrderById(ticketId)).isEmpty();
+    }
+
+    private List<OutboxMessage> messagesOf(UUID ticketId) {
+        return sink.received.stream()
+                .filter(message -> message.getTicketId().equals(ticketId))
+                .toList();
+    }
+
+    private static TicketRequestDTO request() {
+        return new TicketRequestDTO("Outbox " + UUID.randomUUID(), "Mario Rossi", "mario.rossi@example.com");
+    }
+
+    /**
+     * Sink in memoria che può fallire un numero dato di volte, o sempre per i messaggi di un biglietto.
+     */
+    private static final class RecordingSink implements OutboxSink {
+
+        private final List<OutboxMessage> received = new ArrayList<>();
+        private int failures;
+        private UUID poison;
+
+        @Override
+        public void publish(List<OutboxMessage> messages) {
+            if (failures > 0) {
+                failures--;
+                throw new IllegalStateException("Sink non raggiungibile");
+            }
+            if (messages.stream().anyMatch(message -> message.getTicketId().equals(poison))) {
+                throw new IllegalStateException("Messaggio non leggibile");
+            }
+            received.addAll(messages);
+        }
+    }
+}
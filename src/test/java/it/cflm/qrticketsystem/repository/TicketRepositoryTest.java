@@ -1,6 +1,7 @@
 package it.cflm.qrticketsystem.repository;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -10,6 +11,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
 
 import it.cflm.qrticketsystem.model.Ticket;
 
@@ -192,4 +194,40 @@ class TicketRepositoryTest {
         assertThat(savedTicket.getId()).isNotNull();
         assertThat(savedTicket.getQrCodeImage()).isNull();
     }
+
+    @Test
+    void findByEventName_shouldPageByIdWithKeyset() {
+        // Given
+        for (int i = 0; i < 3; i++) {
+            Ticket other = new Ticket();
+            other.setEventName("Export Party");
+            other.setUserName("Utente " + i);
+            other.setPurchaseDate(LocalDateTime.now());
+            other.setValid(true);
+            other.setQrCodeData("qr-" + i);
+            entityManager.persist(other);
+        }
+        Ticket unsold = new Ticket(); // pre-generato, escluso dall'export
+        unsold.setEventName("Export Party");
+        unsold.setValid(true);
+        unsold.setQrCodeData("qr-unsold");
+        entityManager.persist(unsold);
+        entityManager.persistAndFlush(ticket);
+
+        // When
+        List<TicketQrCodeView> firstPage = ticketRepository.findByEventNameAndPurchaseDateIsNotNullOrderByIdAsc(
+                "Export Party", Limit.of(2));
+        List<TicketQrCodeView> secondPage = ticketRepository
+                .findByEventNameAndPurchaseDateIsNotNullAndIdGreaterThanOrderByIdAsc(
+                        "Export Party", firstPage.get(1).getId(), Limit.of(2));
+
+        // Then
+        assertThat(firstPage).hasSize(2);
+        assertThat(secondPage).hasSize(1);
+        assertThat(secondPage.get(0).getId())
+                .isNotIn(firstPage.get(0).getId(), firstPage.get(1).getId());
+        assertThat(List.of(firstPage.get(0).getQrCodeData(), firstPage.get(1).getQrCodeData(),
+                secondPage.get(0).getQrCodeData()))
+                .containsExactlyInAnyOrder("qr-0", "qr-1", "qr-2");
+    }
 }
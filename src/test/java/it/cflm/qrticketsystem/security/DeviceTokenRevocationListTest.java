@@ -0,0 +1,97 @@
+package it.cflm.qrticketsystem.security;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import it.cflm.qrticketsystem.config.DeviceTokenProperties;
+
+/**
+ * Test per DeviceTokenRevocationList: revoche condivise tra istanze tramite la tabella.
+ */
+class DeviceTokenRevocationListTest {
+
+    private static final Instant NOW = Instant.parse("2026-06-01T18:00:00Z");
+
+    private JdbcTemplate jdbcTemplate;
+    private DeviceTokenProperties settings;
+    private DeviceTokenRevocationList first;
+    private DeviceTokenRevocationList second;
+
+    @BeforeEach
+    void setUp() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:revocations-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        settings = new DeviceTokenProperties();
+        settings.setRevocationRefreshMs(60_000);
+        first = new DeviceTokenRevocationList(jdbcTemplate, settings);
+        second = new DeviceTokenRevocationList(jdbcTemplate, settings);
+    }
+
+    @AfterEach
+    void tearDown() {
+        first.close();
+        second.close();
+    }
+
+    @Test
+    void revokeToken_shouldReachOtherInstances_onReload() {
+        // Given
+        DeviceToken token = token("scanner-7", NOW);
+
+        // When
+        first.revokeToken(token.tokenId(), token.expiresAt());
+
+        // Then
+        assertThat(first.isRevoked(token)).isTrue();
+        assertThat(second.isRevoked(token)).isFalse();
+        second.reload();
+        assertThat(second.isRevoked(token)).isTrue();
+    }
+
+    @Test
+    void revokeDevice_shouldSurviveRestart() {
+        // Given
+        DeviceToken before = token("scanner-7", NOW.minusSeconds(60));
+        DeviceToken after = token("scanner-7", NOW.plusSeconds(60));
+        first.revokeDevice("scanner-7", NOW);
+
+        // When: nuova istanza (o riavvio) sulla stessa tabella
+        try (DeviceTokenRevocationList restarted = new DeviceTokenRevocationList(jdbcTemplate, settings)) {
+
+            // Then
+            assertThat(restarted.isRevoked(before)).isTrue();
+            assertThat(restarted.isRevoked(after)).isFalse();
+        }
+    }
+
+    @Test
+    void purge_shouldDeleteExpiredRevocations_fromTable() {
+        // Given
+        DeviceToken token = token("scanner-7", NOW);
+        first.revokeToken(token.tokenId(), token.expiresAt());
+        first.revokeDevice("scanner-8", NOW);
+
+        // When
+        first.purge(NOW.plus(Duration.ofDays(1)), settings.getMaxTtlSeconds());
+
+        // Then
+        Integer rows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + DeviceTokenRevocationList.TABLE,
+                Integer.class);
+        assertThat(rows).isZero();
+        second.reload();
+        assertThat(second.isRevoked(token)).isFalse();
+    }
+
+    private static DeviceToken token(String deviceId, Instant issuedAt) {
+        return new DeviceToken(UUID.randomUUID(), deviceId, "Concerto", 3, issuedAt, issuedAt.plusSeconds(3600));
+    }
+}
@@ -0,0 +1,155 @@
+package it.cflm.qrticketsystem.security;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.CredentialsExpiredException;
+
+import it.cflm.qrticketsystem.config.DeviceTokenProperties;
+import it.cflm.qrticketsystem.exception.InvalidRequestParameterException;
+import it.cflm.qrticketsystem.service.ScanContext;
+
+/**
+ * Test unitari per DeviceTokenService.
+ */
+class DeviceTokenServiceTest {
+
+    private MutableClock clock;
+    private DeviceTokenService service;
+
+    @BeforeEach
+    void setUp() {
+        DeviceTokenProperties config = new DeviceTokenProperties();
+        config.setSecret(Base64.getEncoder().encodeToString(new byte[32]));
+        clock = new MutableClock(Instant.parse("2026-06-01T18:00:00Z"));
+        service = new DeviceTokenService(config, new DeviceTokenRevocationList(), clock);
+    }
+
+    @Test
+    void verify_shouldReturnTokenContent_andScanContextBoundToEventAndGate() {
+        // Given
+        String value = service.issue("scanner-7", "Concerto", 3, Duration.ofMinutes(30)).value();
+
+        // When
+        DeviceToken token = service.verify(value);
+
+        // Then
+        assertThat(token.deviceId()).isEqualTo("scanner-7");
+        assertThat(token.expiresAt()).isEqualTo(clock.instant().plus(Duration.ofMinutes(30)));
+        ScanContext context = token.scanContext();
+        assertThat(context.gate()).isEqualTo(3);
+        assertThat(context.admits("Concerto")).isTrue();
+        assertThat(context.admits("Teatro")).isFalse();
+    }
+
+    @Test
+    void verify_shouldRejectTamperedToken() {
+        // Given
+        String value = service.issue("scanner-7", "Concerto", 3, null).value();
+        String forged = service.issue("scanner-7", "Teatro", 3, null).value();
+        String tampered = forged.substring(0, forged.indexOf('.')) + value.substring(value.indexOf('.'));
+
+        // When & Then
+        assertThatThrownBy(() -> service.verify(tampered)).isInstanceOf(BadCredentialsException.class);
+        assertThatThrownBy(() -> service.verify("not-a-token")).isInstanceOf(BadCredentialsException.class);
+    }
+
+    @Test
+    void verify_shouldRejectTokenSignedWithAnotherSecret() {
+        // Given
+        DeviceTokenProperties other = new DeviceTokenProperties();
+        String value = new DeviceTokenService(other, new DeviceTokenRevocationList(), clock)
+                .issue("scanner-7", "Concerto", 3, null).value();
+
+        // When & Then
+        assertThatThrownBy(() -> service.verify(value)).isInstanceOf(BadCredentialsException.class);
+    }
+
+    @Test
+    void verify_shouldRejectExpiredToken() {
+        // Given
+        String value = service.issue("scanner-7", "Concerto", 3, Duration.ofMinutes(5)).value();
+
+        // When
+        clock.advance(Duration.ofMinutes(5));
+
+        // Then
+        assertThatThrownBy(() -> service.verify(value)).isInstanceOf(CredentialsExpiredException.class);
+    }
+
+    @Test
+    void revoke_shouldRejectOnlyTheRevokedToken() {
+        // Given
+        String revoked = service.issue("scanner-7", "Concerto", 3, null).value();
+        String other = service.issue("scanner-8", "Concerto", 4, null).value();
+
+        // When
+        service.revoke(revoked);
+
+        // Then
+        assertThatThrownBy(() -> service.verify(revoked)).isInstanceOf(BadCredentialsException.class);
+        assertThat(service.verify(other).deviceId()).isEqualTo("scanner-8");
+    }
+
+    @Test
+    void revokeDevice_shouldRejectTokensIssuedBefore_butNotAfter() {
+        // Given
+        String before = service.issue("scanner-7", "Concerto", 3, null).value();
+        clock.advance(Duration.ofSeconds(1));
+
+        // When
+        service.revokeDevice("scanner-7");
+        clock.advance(Duration.ofSeconds(1));
+        String after = service.issue("scanner-7", "Concerto", 3, null).value();
+
+        // Then
+        assertThatThrownBy(() -> service.verify(before)).isInstanceOf(BadCredentialsException.class);
+        assertThat(service.verify(after).deviceId()).isEqualTo("scanner-7");
+    }
+
+    @Test
+    void issue_shouldRejectValidityBeyondMaximum_andInvalidGate() {
+        // When & Then
+        assertThatThrownBy(() -> service.issue("scanner-7", "Concerto", 3, Duration.ofDays(2)))
+                .isInstanceOf(InvalidRequestParameterException.class);
+        assertThatThrownBy(() -> service.issue("scanner-7", "Concerto", 0, null))
+                .isInstanceOf(InvalidRequestParameterException.class);
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant now;
+
+        private MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package it.cflm.qrticketsystem.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import it.cflm.qrticketsystem.config.GateProperties;
+import it.cflm.qrticketsystem.config.ResilienceProperties;
+import it.cflm.qrticketsystem.dto.TicketRequestDTO;
+import it.cflm.qrticketsystem.dto.TicketResponseDTO;
+import it.cflm.qrticketsystem.exception.DatabaseUnavailableException;
+import it.cflm.qrticketsystem.exception.InvalidRequestParameterException;
+import it.cflm.qrticketsystem.journal.CheckInJournal;
+import it.cflm.qrticketsystem.outbox.OutboxService;
+import it.cflm.qrticketsystem.repository.TicketRepository;
+import it.cflm.qrticketsystem.util.CircuitBreaker;
+
+/**
+ * Test di integrazione del check-in degradato, con i guasti del database simulati da {@link DatabaseGuard}.
+ * Il circuito si apre dopo due chiamate fallite consecutive; i check-in in attesa sono scritti
+ * sul database solo dalle chiamate esplicite a {@link GateCheckInService#flush()}.
+ */
+@SpringBootTest(properties = {
+        "qrticket.resilience.degraded-check-in=true",
+        "qrticket.resilience.fault-injection-enabled=true",
+        "qrticket.resilience.circuit-breaker.window-size=2",
+        "qrticket.resilience.circuit-breaker.minimum-calls=2",
+        "qrticket.resilience.circuit-breaker.open-ms=500",
+        "qrticket.resilience.circuit-breaker.half-open-calls=1",
+        "qrticket.gate.flush-interval-ms=3600000",
+        "qrticket.gate.journal-dir=target/degraded-checkin-journal"
+})
+class DegradedCheckInTest {
+
+    private static final ScanContext RECEPTION = new ScanContext(1, "operatore");
+
+    @Autowired
+    private TicketService ticketService;
+
+    @Autowired
+    private GateCheckInService gateCheckInService;
+
+    @Autowired
+    private DatabaseGuard databaseGuard;
+
+    @Autowired
+    private TicketRepository ticketRepository;
+
+    @Autowired
+    private EventService eventService;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private GateProperties gateProperties;
+
+    @Autowired
+    private ResilienceProperties resilienceProperties;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @TempDir
+    private Path journalDir;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        databaseGuard.clearFaults();
+        if (databaseGuard.circuitState() == CircuitBreaker.State.OPEN) {
+            // Il circuito si richiude con la prima chiamata riuscita dopo open-ms
+            Thread.sleep(600);
+            databaseGuard.read(() -> true);
+        }
+    }
+
+    @Test
+    void checkIn_shouldUseAllowList_andReconcile_whenDatabaseIsDown() throws Exception {
+        // Given - il primo check-in sul database carica la lista dei biglietti validi dell'evento
+        String eventName = "Degradato " + UUID.randomUUID();
+        TicketResponseDTO used = ticketService.createTicket(request(eventName));
+        TicketResponseDTO valid = ticketService.createTicket(request(eventName));
+        assertThat(ticketService.checkIn(used.getId(), RECEPTION)).isInstanceOf(CheckInOutcome.Admitted.class);
+        awaitAllowList(gateCheckInService, 2);
+
+        // When
+        databaseGuard.injectFaults(1, 0);
+        CheckInOutcome admitted = ticketService.checkIn(valid.getId(), RECEPTION);
+        CheckInOutcome alreadyUsed = ticketService.checkIn(used.getId(), RECEPTION);
+
+        // Then - decisioni prese in memoria, acquisti rifiutati a circuito aperto
+        assertThat(admitted).isInstanceOf(CheckInOutcome.Admitted.class);
+        assertThat(admitted.toResponse().getMessage()).contains("database non disponibile");
+        assertThat(alreadyUsed).isInstanceOf(CheckInOutcome.AlreadyUsed.class);
+        assertThat(databaseGuard.circuitState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThatThrownBy(() -> ticketService.checkIn(UUID.randomUUID(), RECEPTION))
+                .isInstanceOf(DatabaseUnavailableException.class);
+        assertThatThrownBy(() -> ticketService.createTicket(request(eventName)))
+                .isInstanceOf(DatabaseUnavailableException.class);
+
+        // Then - il database viene riallineato quando torna disponibile
+        databaseGuard.clearFaults();
+        gateCheckInService.flush();
+        assertThat(ticketRepository.findById(valid.getId()).orElseThrow().isValid()).isFalse();
+        assertThat(gateCheckInService.pendingWrites()).isZero();
+    }
+
+    @Test
+    void checkIn_shouldRejectDegradedAdmission_afterCircuitCloses_beforeReconcile() throws Exception {
+        // Given - biglietto ammesso in modalità degradata
+        String eventName = "Degradato " + UUID.randomUUID();
+        TicketResponseDTO first = ticketService.createTicket(request(eventName));
+        TicketResponseDTO degraded = ticketService.createTicket(request(eventName));
+        TicketResponseDTO other = ticketService.createTicket(request(eventName));
+        int loaded = gateCheckInService.allowListTickets();
+        assertThat(ticketService.checkIn(first.getId(), RECEPTION)).isInstanceOf(CheckInOutcome.Admitted.class);
+        awaitAllowList(gateCheckInService, loaded + 3);
+        databaseGuard.injectFaults(1, 0);
+        assertThat(ticketService.checkIn(degraded.getId(), RECEPTION)).isInstanceOf(CheckInOutcome.Admitted.class);
+        assertThat(databaseGuard.circuitState()).isEqualTo(CircuitBreaker.State.OPEN);
+
+        // When - il database torna disponibile e il circuito si richiude prima del riallineamento
+        databaseGuard.clearFaults();
+        Thread.sleep(600);
+        assertThat(ticketService.checkIn(other.getId(), RECEPTION)).isInstanceOf(CheckInOutcome.Admitted.class);
+        assertThat(databaseGuard.circuitState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(ticketRepository.findById(degraded.getId()).orElseThrow().isValid()).isTrue();
+        CheckInOutcome rescan = ticketService.checkIn(degraded.getId(), RECEPTION);
+
+        // Then
+        assertThat(rescan).isInstanceOf(CheckInOutcome.AlreadyUsed.class);
+        gateCheckInService.flush();
+        assertThat(ticketRepository.findById(degraded.getId()).orElseThrow().isValid()).isFalse();
+    }
+
+    @Test
+    void checkInDegraded_shouldNotAdmit_norPersist_whenJournalSyncFails() throws Exception {
+        // Given - lista dei biglietti validi caricata, il journal non riesce a sincronizzare su disco
+        String eventName = "Degradato " + UUID.randomUUID();
+        TicketResponseDTO first = ticketService.createTicket(request(eventName));
+        TicketResponseDTO ticket = ticketService.createTicket(request(eventName));
+        GateCheckInService failingJournal = newGateWithFailingJournal();
+        try {
+            failingJournal.admittedOnDatabase(eventName, first.getId());
+            awaitAllowList(failingJournal, 2);
+
+            // When
+            Optional<CheckInOutcome> outcome = failingJournal.checkInDegraded(ticket.getId(), RECEPTION);
+
+            // Then - ingresso non confermato, nessun check-in lasciato in coda per la scrittura in batch
+            assertThat(outcome).isEmpty();
+            assertThat(failingJournal.pendingWrites()).isZero();
+            failingJournal.flush();
+            assertThat(ticketRepository.findById(ticket.getId()).orElseThrow().isValid()).isTrue();
+        } finally {
+            failingJournal.shutdown();
+        }
+    }
+
+    @Test
+    void injectFaults_shouldRejectInvalidValues() {
+        assertThatThrownBy(() -> databaseGuard.injectFaults(1.5, 0))
+                .isInstanceOf(InvalidRequestParameterException.class);
+        assertThatThrownBy(() -> databaseGuard.injectFaults(0.5, -1))
+                .isInstanceOf(InvalidRequestParameterException.class);
+    }
+
+    private static void awaitAllowList(GateCheckInService gate, int tickets) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (gate.allowListTickets() < tickets && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(gate.allowListTickets()).isGreaterThanOrEqualTo(tickets);
+    }
+
+    private GateCheckInService newGateWithFailingJournal() {
+        return new GateCheckInService(ticketRepository, eventService, outboxService, gateProperties,
+                resilienceProperties, transactionManager, new SimpleMeterRegistry()) {
+            @Override
+            CheckInJournal openJournal(Path directory, int segmentRecords) throws IOException {
+                return new CheckInJournal(journalDir, segmentRecords) {
+                    @Override
+                    protected void sync(MappedByteBuffer segment, int from, int length) {
+                        throw new UncheckedIOException(new IOException("Disco non disponibile"));
+                    }
+                };
+            }
+        };
+    }
+
+    private static TicketRequestDTO request(String eventName) {
+        return new TicketRequestDTO(eventName, "Mario Rossi", "mario.rossi@example.com");
+    }
+}
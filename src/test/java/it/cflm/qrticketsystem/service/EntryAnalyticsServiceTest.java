@@ -0,0 +1,135 @@
+package it.cflm.qrticketsystem.service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import it.cflm.qrticketsystem.config.AnalyticsProperties;
+import it.cflm.qrticketsystem.dto.EntryAnalyticsDTO;
+import it.cflm.qrticketsystem.dto.GateRateDTO;
+import it.cflm.qrticketsystem.dto.TicketValidationResponseDTO;
+
+/**
+ * Test unitari per EntryAnalyticsService.
+ */
+class EntryAnalyticsServiceTest {
+
+    private static final ScanContext GATE_1 = new ScanContext(1, "operatore");
+    private static final ScanContext GATE_2 = new ScanContext(2, "operatore");
+
+    private MutableClock clock;
+    private SimpleMeterRegistry meterRegistry;
+    private EntryAnalyticsService analytics;
+
+    @BeforeEach
+    void setUp() {
+        AnalyticsProperties config = new AnalyticsProperties();
+        config.setWindowSeconds(60);
+        meterRegistry = new SimpleMeterRegistry();
+        clock = new MutableClock(Instant.parse("2025-06-21T21:00:00Z"));
+        analytics = new EntryAnalyticsService(config, meterRegistry, clock);
+    }
+
+    @Test
+    void snapshot_shouldReportOccupancyAndRatePerGate() {
+        // Given - 3 ingressi al varco 1 nello stesso secondo, 1 al varco 2 un secondo dopo
+        admit(GATE_1, "Festa");
+        admit(GATE_1, "Festa");
+        admit(GATE_1, "Festa");
+        analytics.record(GATE_1, new CheckInOutcome.AlreadyUsed(UUID.randomUUID()));
+        clock.advance(Duration.ofSeconds(1));
+        admit(GATE_2, "Festa");
+
+        // When
+        EntryAnalyticsDTO snapshot = analytics.snapshot();
+
+        // Then
+        assertThat(snapshot.getEvents()).singleElement().satisfies(event -> {
+            assertThat(event.getEventName()).isEqualTo("Festa");
+            assertThat(event.getInside()).isEqualTo(4);
+            assertThat(event.getEntriesPerMinute()).isEqualTo(4.0);
+            assertThat(event.getPeakEntriesPerSecond()).isEqualTo(3);
+        });
+        assertThat(snapshot.getGates()).extracting(GateRateDTO::getGate).containsExactly(1, 2);
+        GateRateDTO gate1 = snapshot.getGates().get(0);
+        assertThat(gate1.getEntriesPerMinute()).isEqualTo(3.0);
+        assertThat(gate1.getRejectionsPerMinute()).isEqualTo(1.0);
+        assertThat(gate1.getPeakEntriesPerSecond()).isEqualTo(3);
+        assertThat(gate1.getP50EntriesPerSecond()).isZero();
+        assertThat(meterRegistry.get("qrticket.analytics.occupancy").tag("event", "Festa").gauge().value())
+                .isEqualTo(4.0);
+        assertThat(meterRegistry.get("qrticket.analytics.gate.entry.rate").tag("gate", "1").gauge().value())
+                .isEqualTo(3.0);
+    }
+
+    @Test
+    void snapshot_shouldKeepOccupancy_afterTheWindowExpires() {
+        // Given
+        admit(GATE_1, "Festa");
+        analytics.record(GATE_1, new CheckInOutcome.NotFound("QR Code non riconosciuto"));
+
+        // When
+        clock.advance(Duration.ofMinutes(2));
+        EntryAnalyticsDTO snapshot = analytics.snapshot();
+
+        // Then
+        assertThat(snapshot.getEvents().get(0).getInside()).isEqualTo(1);
+        assertThat(snapshot.getEvents().get(0).getEntriesPerMinute()).isZero();
+        GateRateDTO gate = snapshot.getGates().get(0);
+        assertThat(gate.getEntriesPerMinute()).isZero();
+        assertThat(gate.getTotalEntries()).isEqualTo(1);
+        assertThat(gate.getTotalRejections()).isEqualTo(1);
+    }
+
+    @Test
+    void percentile_shouldUseNearestRank() {
+        long[] sorted = {0, 0, 1, 2, 3, 4, 5, 6, 7, 10};
+
+        assertThat(EntryAnalyticsService.percentile(sorted, 50)).isEqualTo(3);
+        assertThat(EntryAnalyticsService.percentile(sorted, 95)).isEqualTo(10);
+        assertThat(EntryAnalyticsService.percentile(sorted, 0)).isZero();
+    }
+
+    private void admit(ScanContext gate, String eventName) {
+        analytics.record(gate, new CheckInOutcome.Admitted(TicketValidationResponseDTO.builder()
+                .valid(true)
+                .eventName(eventName)
+                .build()));
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant now;
+
+        private MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package it.cflm.qrticketsystem.service;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+
+import it.cflm.qrticketsystem.config.QRCodeConfig.PayloadEncoding;
+import it.cflm.qrticketsystem.dto.EventDTO;
+import it.cflm.qrticketsystem.dto.TicketRequestDTO;
+import it.cflm.qrticketsystem.dto.TicketResponseDTO;
+import it.cflm.qrticketsystem.exception.EventNotFoundException;
+import it.cflm.qrticketsystem.model.Ticket;
+import it.cflm.qrticketsystem.repository.TicketRepository;
+
+/**
+ * Test di integrazione dell'anagrafica degli eventi e dei suoi contatori.
+ */
+@SpringBootTest
+class EventServiceTest {
+
+    private static final ScanContext RECEPTION = new ScanContext(1, "operatore");
+
+    @Autowired
+    private EventService eventService;
+
+    @Autowired
+    private TicketService ticketService;
+
+    @Autowired
+    private TicketRepository ticketRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private String eventName;
+
+    @BeforeEach
+    void setUp() {
+        eventName = "Evento " + UUID.randomUUID();
+    }
+
+    @Test
+    void createTicket_shouldCreateEvent_andLinkTicket() {
+        // When
+        TicketResponseDTO response = ticketService.createTicket(request());
+
+        // Then
+        EventDTO event = eventService.get(eventName);
+        assertThat(event.getTitle()).isEqualTo(eventName);
+        assertThat(event.getTicketsSold()).isEqualTo(1);
+        assertThat(ticketRepository.findById(response.getId()))
+                .get()
+                .extracting(Ticket::getEventId)
+                .isEqualTo(event.getId());
+    }
+
+    @Test
+    void counters_shouldFollowSalesAndCheckIns() {
+        // Given
+        TicketResponseDTO first = ticketService.createTicket(request());
+        ticketService.createTicket(request());
+        ticketService.createTicket(request());
+
+        // When
+        ticketService.checkIn(first.getId(), RECEPTION);
+        ticketService.checkIn(first.getId(), RECEPTION); // riscansione: non conta
+
+        // Then
+        EventDTO event = eventService.get(eventName);
+        assertThat(event.getTicketsSold()).isEqualTo(3);
+        assertThat(event.getTicketsEntered()).isEqualTo(1);
+    }
+
+    @Test
+    void update_shouldOverrideQrCodeSettings() {
+        // Given
+        eventService.register(eventName);
+        EventDTO changes = EventDTO.builder()
+                .title("Serata di prova")
+                .payloadEncoding(PayloadEncoding.COMPACT)
+                .errorCorrection(ErrorCorrectionLevel.H)
+                .build();
+
+        // When
+        eventService.update(eventName, changes);
+        TicketResponseDTO response = ticketService.createTicket(request());
+
+        // Then
+        EventSettings settings = eventService.find(eventName);
+        assertThat(settings.title()).isEqualTo("Serata di prova");
+        assertThat(settings.errorCorrection()).isEqualTo(ErrorCorrectionLevel.H);
+        assertThat(response.getQrCodeData()).hasSize(24);
+    }
+
+    @Test
+    void recount_shouldRealignCounters_andLinkOlderTickets() {
+        // Given
+        TicketResponseDTO response = ticketService.createTicket(request());
+        int eventId = eventService.find(eventName).id();
+        jdbcTemplate.update("UPDATE tickets SET event_id = NULL WHERE event_name = ?", eventName);
+        jdbcTemplate.update("UPDATE events SET tickets_sold = 42, tickets_entered = 7 WHERE id = ?", eventId);
+
+        // When
+        EventDTO event = eventService.recount(eventName);
+
+        // Then
+        assertThat(event.getTicketsSold()).isEqualTo(1);
+        assertThat(event.getTicketsEntered()).isZero();
+        assertThat(ticketRepository.findById(response.getId()))
+                .get()
+                .extracting(Ticket::getEventId)
+                .isEqualTo(eventId);
+    }
+
+    @Test
+    void find_shouldReturnDefaults_withoutCreatingEvent() {
+        // When
+        EventSettings settings = eventService.find(eventName);
+
+        // Then
+        assertThat(settings.id()).isNull();
+        assertThat(settings.title()).isEqualTo(eventName);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM events WHERE name = ?", Integer.class,
+                eventName)).isZero();
+    }
+
+    @Test
+    void register_shouldCreateEvent_afterFind() {
+        // Given
+        eventService.find(eventName);
+
+        // When
+        EventSettings settings = eventService.register(eventName);
+
+        // Then
+        assertThat(settings.id()).isNotNull();
+        assertThat(eventService.find(eventName).id()).isEqualTo(settings.id());
+        assertThat(eventService.get(eventName).getId()).isEqualTo(settings.id());
+    }
+
+    @Test
+    void get_shouldThrow_whenEventIsUnknown() {
+        assertThatThrownBy(() -> eventService.get(eventName))
+                .isInstanceOf(EventNotFoundException.class)
+                .hasMessageContaining(eventName);
+    }
+
+    private TicketRequestDTO request() {
+        return new TicketRequestDTO(eventName, "Mario Rossi", "mario.rossi@example.com");
+    }
+}
@@ -0,0 +1,103 @@
+package it.cflm.qrticketsystem.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.Test;
+
+import it.cflm.qrticketsystem.repository.TicketCheckInView;
+
+/**
+ * Test unitari per GateCheckInIndex.
+ */
+class GateCheckInIndexTest {
+
+    @Test
+    void find_shouldLocateEveryTicket_andRejectUnknownIds() {
+        // Given
+        List<TicketCheckInView> tickets = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            tickets.add(view(UUID.randomUUID(), "Utente " + i, true));
+        }
+
+        // When
+        GateCheckInIndex index = GateCheckInIndex.build("CFLM 2025 Party", tickets);
+
+        // Then
+        assertThat(index.size()).isEqualTo(10_000);
+        for (TicketCheckInView ticket : tickets) {
+            int slot = index.find(ticket.getId());
+            assertThat(slot).isNotNegative();
+            assertThat(index.userName(slot)).isEqualTo(ticket.getUserName());
+        }
+        assertThat(index.find(UUID.randomUUID())).isEqualTo(-1);
+    }
+
+    @Test
+    void tryCheckIn_shouldAdmitOnce_andRespectUsedTickets() {
+        // Given
+        UUID valid = UUID.randomUUID();
+        UUID used = UUID.randomUUID();
+        GateCheckInIndex index = GateCheckInIndex.build("CFLM 2025 Party",
+                List.of(view(valid, "Mario Rossi", true), view(used, "Luigi Verdi", false)));
+
+        // When & Then
+        assertThat(index.tryCheckIn(index.find(valid))).isTrue();
+        assertThat(index.tryCheckIn(index.find(valid))).isFalse();
+        assertThat(index.tryCheckIn(index.find(used))).isFalse();
+        assertThat(index.checkedInCount()).isEqualTo(2);
+    }
+
+    @Test
+    void tryCheckIn_shouldAdmitExactlyOnce_underConcurrentScans() throws Exception {
+        // Given
+        UUID id = UUID.randomUUID();
+        GateCheckInIndex index = GateCheckInIndex.build("CFLM 2025 Party", List.of(view(id, "Mario Rossi", true)));
+        int scanners = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(scanners);
+
+        // When
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < scanners; i++) {
+            results.add(pool.submit(() -> {
+                start.await();
+                return index.tryCheckIn(index.find(id));
+            }));
+        }
+        start.countDown();
+        int admitted = 0;
+        for (Future<Boolean> result : results) {
+            admitted += result.get() ? 1 : 0;
+        }
+        pool.shutdown();
+
+        // Then
+        assertThat(admitted).isEqualTo(1);
+    }
+
+    static TicketCheckInView view(UUID id, String userName, boolean valid) {
+        return new TicketCheckInView() {
+            @Override
+            public UUID getId() {
+                return id;
+            }
+
+            @Override
+            public String getUserName() {
+                return userName;
+            }
+
+            @Override
+            public boolean isValid() {
+                return valid;
+            }
+        };
+    }
+}
@@ -0,0 +1,252 @@
+package it.cflm.qrticketsystem.service;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import it.cflm.qrticketsystem.config.GateProperties;
+import it.cflm.qrticketsystem.config.ResilienceProperties;
+import it.cflm.qrticketsystem.dto.GateStatusDTO;
+import it.cflm.qrticketsystem.dto.TicketValidationResponseDTO;
+import it.cflm.qrticketsystem.exception.GateAlreadyOpenException;
+import it.cflm.qrticketsystem.journal.CheckInJournal;
+import it.cflm.qrticketsystem.model.Ticket;
+import it.cflm.qrticketsystem.outbox.OutboxService;
+import it.cflm.qrticketsystem.repository.TicketRepository;
+
+/**
+ * Test di integrazione della modalità varco: check-in in memoria, journal e write-behind.
+ */
+@SpringBootTest
+class GateCheckInServiceTest {
+
+    private static final ScanContext GATE = new ScanContext(3, "varco-test");
+
+    @Autowired
+    private TicketRepository ticketRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EventService eventService;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @TempDir
+    private Path journalDir;
+
+    private String eventName;
+    private GateCheckInService gate;
+
+    @BeforeEach
+    void setUp() {
+        eventName = "Varco " + UUID.randomUUID();
+        gate = newGate();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        gate.shutdown();
+    }
+
+    @Test
+    void checkIn_shouldAdmitOnce_andPersistInBatch() {
+        // Given
+        Ticket ticket = saveTicket();
+        gate.openGate(eventName);
+
+        // When
+        TicketValidationResponseDTO response = gate.checkIn(ticket.getId(), GATE).orElseThrow().toResponse();
+
+        // Then - ingresso confermato prima della scrittura sul database
+        assertThat(response.isValid()).isTrue();
+        assertThat(response.getUserName()).isEqualTo("Mario Rossi");
+        assertThat(ticketRepository.findById(ticket.getId()).orElseThrow().isValid()).isTrue();
+        assertThat(gate.checkIn(ticket.getId(), GATE))
+                .containsInstanceOf(CheckInOutcome.AlreadyUsed.class);
+
+        gate.flush();
+        assertThat(ticketRepository.findById(ticket.getId()).orElseThrow().isValid()).isFalse();
+        assertThat(gate.status()).singleElement()
+                .satisfies(status -> {
+                    assertThat(status.getCheckedIn()).isEqualTo(1);
+                    assertThat(status.getPendingWrites()).isZero();
+                });
+    }
+
+    @Test
+    void checkIn_shouldIgnoreTicketsOutsideOpenGates() {
+        // Given
+        gate.openGate(saveTicket().getEventName());
+
+        // When & Then
+        assertThat(gate.checkIn(UUID.randomUUID(), GATE)).isEmpty();
+    }
+
+    @Test
+    void openGate_shouldRejectReopen_andKeepPendingCheckIns() {
+        // Given - check-in non ancora scritto sul database
+        Ticket ticket = saveTicket();
+        gate.openGate(eventName);
+        gate.checkIn(ticket.getId(), GATE).orElseThrow();
+
+        // When
+        assertThatThrownBy(() -> gate.openGate(eventName)).isInstanceOf(GateAlreadyOpenException.class);
+
+        // Then - l'indice non è stato ricaricato dal database
+        assertThat(gate.checkIn(ticket.getId(), GATE)).containsInstanceOf(CheckInOutcome.AlreadyUsed.class);
+        assertThat(gate.pendingWrites()).isEqualTo(1);
+    }
+
+    @Test
+    void closeGate_shouldRejectPendingCheckIns_untilWrittenToDatabase() throws Exception {
+        // Given - una scansione arriva mentre la chiusura sta scrivendo il check-in sul database
+        Ticket ticket = saveTicket();
+        OutboxService outbox = mock(OutboxService.class);
+        List<Optional<CheckInOutcome>> duringFlush = new ArrayList<>();
+        doAnswer(invocation -> duringFlush.add(gate.rejectPending(ticket.getId(), GATE)))
+                .when(outbox).ticketUsed(any());
+        gate.shutdown();
+        gate = newGate(outbox);
+        gate.openGate(eventName);
+        gate.checkIn(ticket.getId(), GATE).orElseThrow();
+
+        // When
+        gate.closeGate(eventName);
+
+        // Then
+        assertThat(duringFlush).singleElement()
+                .satisfies(outcome -> assertThat(outcome).containsInstanceOf(CheckInOutcome.AlreadyUsed.class));
+        assertThat(ticketRepository.findById(ticket.getId()).orElseThrow().isValid()).isFalse();
+        assertThat(gate.rejectPending(ticket.getId(), GATE)).isEmpty(); // ora decide il database
+    }
+
+    @Test
+    void closeGate_shouldKeepGateOpen_whenFlushFails() throws Exception {
+        // Given - la prima scrittura sul database fallisce
+        Ticket ticket = saveTicket();
+        OutboxService outbox = mock(OutboxService.class);
+        doThrow(new IllegalStateException("Database non disponibile")).doNothing().when(outbox).ticketUsed(any());
+        gate.shutdown();
+        gate = newGate(outbox);
+        gate.openGate(eventName);
+        gate.checkIn(ticket.getId(), GATE).orElseThrow();
+
+        // When
+        assertThatThrownBy(() -> gate.closeGate(eventName)).isInstanceOf(IllegalStateException.class);
+
+        // Then - il varco è ancora aperto e rifiuta la riscansione, la chiusura si può ripetere
+        assertThat(gate.status()).extracting(GateStatusDTO::getEventName).contains(eventName);
+        assertThat(gate.checkIn(ticket.getId(), GATE)).containsInstanceOf(CheckInOutcome.AlreadyUsed.class);
+        gate.closeGate(eventName);
+        assertThat(gate.status()).extracting(GateStatusDTO::getEventName).doesNotContain(eventName);
+        assertThat(ticketRepository.findById(ticket.getId()).orElseThrow().isValid()).isFalse();
+    }
+
+    @Test
+    void closeGate_shouldNotQueueCheckIn_fromScanThatReadGatesBeforeClosing() throws Exception {
+        // Given - la scansione legge i varchi aperti e si ferma prima di registrare l'ingresso
+        Ticket ticket = saveTicket();
+        CountDownLatch gatesRead = new CountDownLatch(1);
+        CountDownLatch resume = new CountDownLatch(1);
+        gate.shutdown();
+        gate = new GateCheckInService(ticketRepository, eventService, outboxService, gateConfig(),
+                new ResilienceProperties(), transactionManager, new SimpleMeterRegistry()) {
+            @Override
+            GateCheckInIndex[] currentGates() {
+                GateCheckInIndex[] current = super.currentGates();
+                gatesRead.countDown();
+                try {
+                    resume.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return current;
+            }
+        };
+        gate.openGate(eventName);
+        CompletableFuture<Optional<CheckInOutcome>> scan =
+                CompletableFuture.supplyAsync(() -> gate.checkIn(ticket.getId(), GATE));
+        assertThat(gatesRead.await(10, TimeUnit.SECONDS)).isTrue();
+
+        // When - il varco si chiude, poi la scansione riprende
+        gate.closeGate(eventName);
+        resume.countDown();
+
+        // Then - nessun ingresso accodato dopo la chiusura: decide il database
+        assertThat(scan.get(10, TimeUnit.SECONDS)).isEmpty();
+        assertThat(gate.pendingWrites()).isZero();
+        gate.flush();
+        assertThat(ticketRepository.findById(ticket.getId()).orElseThrow().isValid()).isTrue();
+    }
+
+    @Test
+    void replayJournal_shouldRecoverCheckInsNotYetPersisted() throws Exception {
+        // Given - check-in confermato e poi crash prima della scrittura sul database
+        Ticket ticket = saveTicket();
+        GateCheckInService crashed = newGate();
+        crashed.openGate(eventName);
+        crashed.checkIn(ticket.getId(), GATE).orElseThrow();
+        assertThat(CheckInJournal.hasSegments(journalDir)).isTrue();
+
+        // When - riavvio
+        GateCheckInService restarted = newGate();
+        restarted.replayJournal();
+
+        // Then
+        assertThat(ticketRepository.findById(ticket.getId()).orElseThrow().isValid()).isFalse();
+        restarted.shutdown();
+        try (CheckInJournal journal = new CheckInJournal(journalDir, 16)) {
+            assertThat(journal.recover().admitted()).isEmpty(); // checkpoint avanzato
+        }
+    }
+
+    private GateCheckInService newGate() {
+        return newGate(outboxService);
+    }
+
+    private GateCheckInService newGate(OutboxService outboxService) {
+        return new GateCheckInService(ticketRepository, eventService, outboxService, gateConfig(),
+                new ResilienceProperties(), transactionManager, new SimpleMeterRegistry());
+    }
+
+    private GateProperties gateConfig() {
+        GateProperties config = new GateProperties();
+        config.setJournalDir(journalDir.toString());
+        config.setFlushIntervalMs(3_600_000); // flush solo esplicito
+        return config;
+    }
+
+    private Ticket saveTicket() {
+        Ticket ticket = new Ticket();
+        ticket.setEventName(eventName);
+        ticket.setUserName("Mario Rossi");
+        ticket.setUserEmail("mario.rossi@example.com");
+        ticket.setPurchaseDate(LocalDateTime.now());
+        ticket.setValid(true);
+        return ticketRepository.save(ticket);
+    }
+}
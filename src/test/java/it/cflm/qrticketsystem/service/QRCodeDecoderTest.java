@@ -0,0 +1,118 @@
+package it.cflm.qrticketsystem.service;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.UUID;
+
+import javax.imageio.ImageIO;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import it.cflm.qrticketsystem.config.QRCodeConfig;
+import it.cflm.qrticketsystem.config.QRCodeConfig.PayloadEncoding;
+import it.cflm.qrticketsystem.exception.QRCodeDecodingException;
+import it.cflm.qrticketsystem.service.QRCodeDecoder.DecodedFrame;
+import it.cflm.qrticketsystem.util.TicketPayloadCodec;
+
+/**
+ * Test unitari per QRCodeDecoder.
+ */
+class QRCodeDecoderTest {
+
+    private QRCodeConfig config;
+    private SimpleMeterRegistry meterRegistry;
+    private QRCodeDecoder decoder;
+
+    @BeforeEach
+    void setUp() {
+        config = new QRCodeConfig();
+        config.getDecoder().setMaxDimension(800);
+        meterRegistry = new SimpleMeterRegistry();
+        decoder = new QRCodeDecoder(config, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        decoder.shutdown();
+    }
+
+    @Test
+    void decode_shouldReadQrCodeFromLargeJpegFrame() throws Exception {
+        // Given - QR Code al centro di un frame 1920x1080 (verrà ridotto)
+        UUID id = UUID.randomUUID();
+        String payload = TicketPayloadCodec.encode(id, PayloadEncoding.COMPACT);
+        byte[] frame = cameraFrame(new QRCodeGenerator(config).generate(payload), "jpg");
+
+        // When
+        DecodedFrame decoded = decoder.decode(frame);
+
+        // Then
+        assertThat(TicketPayloadCodec.decode(decoded.text())).isEqualTo(id);
+        assertThat(decoded.decodeNanos()).isPositive();
+        assertThat(decoded.serverTiming()).matches("queue;dur=\\d+\\.\\d{2}, decode;dur=\\d+\\.\\d{2}");
+        assertThat(meterRegistry.get("qrticket.decode.latency").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void decode_shouldReadQrCodeFromPngFrame() throws Exception {
+        // Given
+        UUID id = UUID.randomUUID();
+        byte[] frame = cameraFrame(new QRCodeGenerator(config).generate(id.toString()), "png");
+
+        // When
+        DecodedFrame decoded = decoder.decode(frame);
+
+        // Then
+        assertThat(decoded.text()).isEqualTo(id.toString());
+    }
+
+    @Test
+    void decode_shouldThrowException_whenFrameHasNoQrCode() throws Exception {
+        // Given
+        BufferedImage blank = new BufferedImage(640, 480, BufferedImage.TYPE_3BYTE_BGR);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(blank, "jpg", out);
+
+        // When & Then
+        assertThatThrownBy(() -> decoder.decode(out.toByteArray()))
+                .isInstanceOf(QRCodeDecodingException.class)
+                .hasMessageContaining("Nessun QR Code");
+    }
+
+    @Test
+    void decode_shouldThrowException_whenBodyIsNotAnImage() {
+        assertThatThrownBy(() -> decoder.decode("not an image".getBytes()))
+                .isInstanceOf(QRCodeDecodingException.class);
+    }
+
+    @Test
+    void toLuminance_shouldReuseGrayBufferWithoutCopy() {
+        // Given
+        BufferedImage gray = new BufferedImage(4, 2, BufferedImage.TYPE_BYTE_GRAY);
+        gray.getRaster().setSample(1, 0, 0, 200);
+
+        // When & Then
+        assertThat(QRCodeDecoder.toLuminance(gray).getRow(0, null)[1] & 0xFF).isEqualTo(200);
+    }
+
+    private static byte[] cameraFrame(byte[] qrPng, String format) throws Exception {
+        BufferedImage qr = ImageIO.read(new ByteArrayInputStream(qrPng));
+        BufferedImage frame = new BufferedImage(1920, 1080, BufferedImage.TYPE_3BYTE_BGR);
+        Graphics2D graphics = frame.createGraphics();
+        graphics.setColor(Color.LIGHT_GRAY);
+        graphics.fillRect(0, 0, 1920, 1080);
+        graphics.drawImage(qr, 660, 240, 600, 600, null);
+        graphics.dispose();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(frame, format, out);
+        return out.toByteArray();
+    }
+}
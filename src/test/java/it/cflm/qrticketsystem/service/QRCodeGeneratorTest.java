@@ -0,0 +1,70 @@
+package it.cflm.qrticketsystem.service;
+
+import java.io.ByteArrayInputStream;
+import java.util.Map;
+import java.util.UUID;
+
+import javax.imageio.ImageIO;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.Test;
+
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.client.j2se.BufferedImageLuminanceSource;
+import com.google.zxing.common.HybridBinarizer;
+import com.google.zxing.qrcode.QRCodeReader;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+
+import it.cflm.qrticketsystem.config.QRCodeConfig;
+import it.cflm.qrticketsystem.config.QRCodeConfig.PayloadEncoding;
+import it.cflm.qrticketsystem.dto.QrCodeEncodingReportDTO;
+import it.cflm.qrticketsystem.util.TicketPayloadCodec;
+
+/**
+ * Test unitari per QRCodeGenerator.
+ */
+class QRCodeGeneratorTest {
+
+    @Test
+    void generate_shouldProduceScannableCompactPayload() throws Exception {
+        // Given
+        QRCodeConfig config = new QRCodeConfig();
+        config.setErrorCorrection(ErrorCorrectionLevel.M);
+        UUID id = UUID.randomUUID();
+        String payload = TicketPayloadCodec.encode(id, PayloadEncoding.COMPACT);
+
+        // When
+        byte[] png = new QRCodeGenerator(config).generate(payload);
+
+        // Then: immagine generata, senza distorsioni (con la ricerca dei pattern di posizione
+        // circa un payload casuale su 250 non veniva decodificato)
+        String decoded = new QRCodeReader().decode(new BinaryBitmap(new HybridBinarizer(
+                new BufferedImageLuminanceSource(ImageIO.read(new ByteArrayInputStream(png))))),
+                Map.of(DecodeHintType.PURE_BARCODE, Boolean.TRUE)).getText();
+        assertThat(TicketPayloadCodec.decode(decoded)).isEqualTo(id);
+    }
+
+    @Test
+    void describe_shouldReportSmallerVersion_forCompactPayload() {
+        // Given
+        QRCodeConfig config = new QRCodeConfig();
+        config.setErrorCorrection(ErrorCorrectionLevel.M);
+        config.setPayloadEncoding(PayloadEncoding.COMPACT);
+        QRCodeGenerator generator = new QRCodeGenerator(config);
+
+        // When
+        QrCodeEncodingReportDTO uuid = generator.describe(PayloadEncoding.UUID, ErrorCorrectionLevel.M);
+        QrCodeEncodingReportDTO compact = generator.describe(PayloadEncoding.COMPACT, ErrorCorrectionLevel.M);
+
+        // Then
+        assertThat(uuid.getMode()).isEqualTo("BYTE");
+        assertThat(uuid.getVersion()).isEqualTo(3);
+        assertThat(uuid.isActive()).isFalse();
+        assertThat(compact.getMode()).isEqualTo("ALPHANUMERIC");
+        assertThat(compact.getVersion()).isEqualTo(2);
+        assertThat(compact.getModules()).isEqualTo(25);
+        assertThat(compact.getModuleSizePx()).isEqualTo(300 / (25 + 8));
+        assertThat(compact.isActive()).isTrue();
+    }
+}
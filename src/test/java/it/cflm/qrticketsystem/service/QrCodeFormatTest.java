@@ -0,0 +1,41 @@
+package it.cflm.qrticketsystem.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import org.junit.jupiter.api.Test;
+
+import it.cflm.qrticketsystem.exception.InvalidQrCodeFormatException;
+
+/**
+ * Test unitari per la scelta del formato dei QR Code.
+ */
+class QrCodeFormatTest {
+
+    @Test
+    void fromAcceptHeader_shouldKeepPng_forBrowserImageHeaders() {
+        // Chrome, Firefox e Safari per <img>: SVG elencato accanto a image/* o a image/png
+        assertThat(QrCodeFormat.fromAcceptHeader("image/avif,image/webp,image/apng,image/svg+xml,image/*,*/*;q=0.8"))
+                .isEqualTo(QrCodeFormat.PNG);
+        assertThat(QrCodeFormat.fromAcceptHeader("image/avif,image/webp,image/png,image/svg+xml,image/*;q=0.8,*/*;q=0.5"))
+                .isEqualTo(QrCodeFormat.PNG);
+        assertThat(QrCodeFormat.fromAcceptHeader("*/*")).isEqualTo(QrCodeFormat.PNG);
+        assertThat(QrCodeFormat.fromAcceptHeader(null)).isEqualTo(QrCodeFormat.PNG);
+    }
+
+    @Test
+    void fromAcceptHeader_shouldChooseSvg_whenPreferredOverPng() {
+        assertThat(QrCodeFormat.fromAcceptHeader("image/svg+xml")).isEqualTo(QrCodeFormat.SVG);
+        assertThat(QrCodeFormat.fromAcceptHeader("image/svg+xml, image/*;q=0.8")).isEqualTo(QrCodeFormat.SVG);
+        assertThat(QrCodeFormat.fromAcceptHeader("image/svg+xml;q=0.9, image/*, image/png;q=0.5"))
+                .isEqualTo(QrCodeFormat.SVG);
+        assertThat(QrCodeFormat.fromAcceptHeader("image/svg+xml;q=0.5, image/png")).isEqualTo(QrCodeFormat.PNG);
+    }
+
+    @Test
+    void fromName_shouldRejectUnsupportedFormat() {
+        assertThat(QrCodeFormat.fromName(" Svg ")).isEqualTo(QrCodeFormat.SVG);
+        assertThatThrownBy(() -> QrCodeFormat.fromName("gif"))
+                .isInstanceOf(InvalidQrCodeFormatException.class)
+                .hasMessageContaining("gif");
+    }
+}
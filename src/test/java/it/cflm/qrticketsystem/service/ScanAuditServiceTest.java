@@ -0,0 +1,130 @@
+package it.cflm.qrticketsystem.service;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import it.cflm.qrticketsystem.config.AuditProperties;
+import it.cflm.qrticketsystem.model.ScanEvent;
+import it.cflm.qrticketsystem.model.ScanOutcome;
+import it.cflm.qrticketsystem.repository.ScanEventRepository;
+
+/**
+ * Test di integrazione della traccia di audit delle scansioni.
+ */
+@SpringBootTest
+class ScanAuditServiceTest {
+
+    private static final ScanContext GATE_1 = new ScanContext(1, "operatore");
+    private static final ScanContext GATE_2 = new ScanContext(2, "operatore");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ScanEventRepository scanEventRepository;
+
+    private AuditProperties config;
+    private SimpleMeterRegistry meterRegistry;
+    private ScanAuditService audit;
+
+    @BeforeEach
+    void setUp() {
+        config = new AuditProperties();
+        config.setFlushIntervalMs(3_600_000); // flush solo esplicito
+        meterRegistry = new SimpleMeterRegistry();
+        audit = new ScanAuditService(jdbcTemplate, scanEventRepository, config, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        audit.shutdown();
+    }
+
+    @Test
+    void flush_shouldWriteScansInOrder() {
+        // Given
+        UUID ticketId = UUID.randomUUID();
+        audit.record(ticketId, null, GATE_1, ScanOutcome.ADMITTED);
+        audit.record(ticketId, null, GATE_2, ScanOutcome.ALREADY_USED);
+
+        // When
+        audit.flush();
+
+        // Then
+        assertThat(audit.history(ticketId))
+                .extracting(ScanEvent::getOutcome, ScanEvent::getGate, ScanEvent::getScannedBy)
+                .containsExactly(
+                        tuple(ScanOutcome.ADMITTED, 1, "operatore"),
+                        tuple(ScanOutcome.ALREADY_USED, 2, "operatore"));
+        assertThat(meterRegistry.counter("qrticket.audit.written").count()).isEqualTo(2);
+    }
+
+    @Test
+    void record_shouldStoreSanitizedPayload_whenQrCodeIsNotRecognized() {
+        // Given
+        String payload = "<script>\r\n" + "x".repeat(200);
+
+        // When
+        audit.record(null, payload, GATE_1, ScanOutcome.NOT_FOUND);
+        audit.flush();
+
+        // Then
+        String stored = jdbcTemplate.queryForObject(
+                "SELECT payload FROM scan_events WHERE payload LIKE '<script>%'",
+                String.class);
+        assertThat(stored).hasSize(64).startsWith("<script>??x").doesNotContain("\r", "\n");
+    }
+
+    @Test
+    void repeatedRejections_shouldReportTicketsRejectedAtSeveralGates() {
+        // Given
+        LocalDateTime since = LocalDateTime.now().minusMinutes(1);
+        UUID suspicious = UUID.randomUUID();
+        UUID admitted = UUID.randomUUID();
+        audit.record(suspicious, null, GATE_1, ScanOutcome.ADMITTED);
+        for (int i = 0; i < 3; i++) {
+            audit.record(suspicious, null, i % 2 == 0 ? GATE_1 : GATE_2, ScanOutcome.ALREADY_USED);
+        }
+        audit.record(admitted, null, GATE_1, ScanOutcome.ADMITTED);
+        audit.record(null, "not-a-ticket", GATE_1, ScanOutcome.NOT_FOUND);
+        audit.flush();
+
+        // When & Then
+        assertThat(audit.repeatedRejections(since, 3, 10))
+                .filteredOn(summary -> summary.getTicketId().equals(suspicious))
+                .singleElement()
+                .satisfies(summary -> {
+                    assertThat(summary.getRejections()).isEqualTo(3);
+                    assertThat(summary.getGates()).isEqualTo(2);
+                });
+        assertThat(audit.repeatedRejections(since, 1, 10))
+                .noneMatch(summary -> summary.getTicketId().equals(admitted));
+    }
+
+    @Test
+    void record_shouldDropScans_whenQueueIsFull() {
+        // Given
+        config.setCapacity(2);
+        UUID ticketId = UUID.randomUUID();
+
+        // When
+        for (int i = 0; i < 5; i++) {
+            audit.record(ticketId, null, GATE_1, ScanOutcome.ALREADY_USED);
+        }
+        audit.flush();
+
+        // Then
+        assertThat(audit.history(ticketId)).hasSize(2);
+        assertThat(meterRegistry.counter("qrticket.audit.dropped").count()).isEqualTo(3);
+    }
+}
@@ -0,0 +1,158 @@
+package it.cflm.qrticketsystem.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import javax.imageio.ImageIO;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import org.mockito.Mock;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+
+import it.cflm.qrticketsystem.config.QRCodeConfig;
+import it.cflm.qrticketsystem.exception.TicketNotFoundException;
+import it.cflm.qrticketsystem.repository.TicketQrCodeView;
+import it.cflm.qrticketsystem.repository.TicketRepository;
+
+/**
+ * Test unitari per TicketExportService.
+ */
+@ExtendWith(MockitoExtension.class)
+class TicketExportServiceTest {
+
+    private static final String EVENT = "CFLM 2025 Party";
+
+    @Mock
+    private TicketRepository ticketRepository;
+
+    @Mock
+    private EventService eventService;
+
+    private QRCodeGenerator qrCodeGenerator;
+    private TicketExportService exportService;
+
+    @BeforeEach
+    void setUp() {
+        QRCodeConfig config = new QRCodeConfig();
+        config.setWidth(100);
+        config.setHeight(100);
+        config.getExport().setParallelism(3);
+        config.getExport().setWindow(2);
+        config.getExport().setPageSize(2);
+        qrCodeGenerator = spy(new QRCodeGenerator(config));
+        exportService = new TicketExportService(ticketRepository, qrCodeGenerator, eventService, config,
+                mock(PlatformTransactionManager.class));
+    }
+
+    @AfterEach
+    void tearDown() {
+        exportService.shutdown();
+    }
+
+    @Test
+    void exportEventQrCodes_shouldWriteOneEntryPerTicketInOrder() throws Exception {
+        // Given - 5 biglietti su 3 pagine
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ids.add(UUID.randomUUID());
+        }
+        when(ticketRepository.findByEventNameAndPurchaseDateIsNotNullOrderByIdAsc(EVENT, Limit.of(2)))
+                .thenReturn(List.of(view(ids.get(0)), view(ids.get(1))));
+        when(ticketRepository.findByEventNameAndPurchaseDateIsNotNullAndIdGreaterThanOrderByIdAsc(
+                EVENT, ids.get(1), Limit.of(2)))
+                .thenReturn(List.of(view(ids.get(2)), view(ids.get(3))));
+        when(ticketRepository.findByEventNameAndPurchaseDateIsNotNullAndIdGreaterThanOrderByIdAsc(
+                EVENT, ids.get(3), Limit.of(2)))
+                .thenReturn(List.of(view(ids.get(4))));
+        when(eventService.find(EVENT)).thenReturn(event(ErrorCorrectionLevel.L));
+
+        // When
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int exported = exportService.exportEventQrCodes(EVENT, QrCodeFormat.PNG, out);
+
+        // Then
+        assertThat(exported).isEqualTo(5);
+        List<String> names = new ArrayList<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                names.add(entry.getName());
+                assertThat(entry.getMethod()).isEqualTo(ZipEntry.STORED);
+                assertThat(ImageIO.read(new ByteArrayInputStream(zip.readAllBytes()))).isNotNull();
+            }
+        }
+        assertThat(names).containsExactly(
+                "00000001-" + ids.get(0) + ".png",
+                "00000002-" + ids.get(1) + ".png",
+                "00000003-" + ids.get(2) + ".png",
+                "00000004-" + ids.get(3) + ".png",
+                "00000005-" + ids.get(4) + ".png");
+    }
+
+    @Test
+    void exportEventQrCodes_shouldUseEventErrorCorrection() throws Exception {
+        // Given - evento con correzione errori H, diversa da quella globale
+        UUID id = UUID.randomUUID();
+        when(ticketRepository.findByEventNameAndPurchaseDateIsNotNullOrderByIdAsc(EVENT, Limit.of(2)))
+                .thenReturn(List.of(view(id)));
+        when(eventService.find(EVENT)).thenReturn(event(ErrorCorrectionLevel.H));
+
+        // When
+        exportService.exportEventQrCodes(EVENT, QrCodeFormat.SVG, new ByteArrayOutputStream());
+
+        // Then
+        verify(qrCodeGenerator, times(1)).generate(eq(id.toString()), any(QrCodeVariant.class),
+                eq(ErrorCorrectionLevel.H));
+    }
+
+    @Test
+    void checkEventHasTickets_shouldThrowException_whenEventIsEmpty() {
+        // Given
+        when(ticketRepository.findByEventNameAndPurchaseDateIsNotNullOrderByIdAsc(eq("Evento vuoto"), any(Limit.class)))
+                .thenReturn(List.of());
+
+        // When & Then
+        assertThatThrownBy(() -> exportService.checkEventHasTickets("Evento vuoto"))
+                .isInstanceOf(TicketNotFoundException.class)
+                .hasMessageContaining("Evento vuoto");
+    }
+
+    private static EventSettings event(ErrorCorrectionLevel errorCorrection) {
+        return new EventSettings(1, EVENT, EVENT, null, QRCodeConfig.PayloadEncoding.UUID, errorCorrection);
+    }
+
+    private static TicketQrCodeView view(UUID id) {
+        return new TicketQrCodeView() {
+            @Override
+            public UUID getId() {
+                return id;
+            }
+
+            @Override
+            public String getQrCodeData() {
+                return id.toString();
+            }
+        };
+    }
+}
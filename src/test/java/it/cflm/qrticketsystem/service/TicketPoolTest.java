@@ -0,0 +1,217 @@
+package it.cflm.qrticketsystem.service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+
+import it.cflm.qrticketsystem.dto.TicketRequestDTO;
+import it.cflm.qrticketsystem.dto.TicketResponseDTO;
+import it.cflm.qrticketsystem.exception.TicketNotFoundException;
+import it.cflm.qrticketsystem.model.QrCodeStatus;
+import it.cflm.qrticketsystem.model.Ticket;
+import it.cflm.qrticketsystem.repository.OutboxMessageRepository;
+import it.cflm.qrticketsystem.repository.TicketRepository;
+import it.cflm.qrticketsystem.util.TicketPayloadCodec;
+
+/**
+ * Test di integrazione dei biglietti pre-generati. Il minter in background è rallentato a un
+ * giro all'ora: ogni test riempie il pool chiamando {@link TicketPool#mint()}.
+ */
+@SpringBootTest(properties = {
+        "qrticket.ticket-pool.events[0]=" + TicketPoolTest.EVENT,
+        "qrticket.ticket-pool.target-size=3",
+        "qrticket.ticket-pool.batch-size=2",
+        "qrticket.ticket-pool.poll-interval-ms=3600000",
+        "qrticket.ticket-pool.idle-ms=0"
+})
+class TicketPoolTest {
+
+    static final String EVENT = "Vendita lampo";
+
+    private static final ScanContext RECEPTION = new ScanContext(1, "operatore");
+
+    @Autowired
+    private TicketPool ticketPool;
+
+    @Autowired
+    private TicketService ticketService;
+
+    @Autowired
+    private EventService eventService;
+
+    @Autowired
+    private TicketRepository ticketRepository;
+
+    @Autowired
+    private OutboxMessageRepository outboxMessageRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockitoSpyBean
+    private QRCodeGenerator qrCodeGenerator;
+
+    @BeforeEach
+    void setUp() {
+        ticketPool.mint();
+    }
+
+    @Test
+    void mint_shouldFillPoolUpToTarget_withRenderedQrCodes() {
+        // When
+        int minted = ticketPool.mint();
+
+        // Then
+        assertThat(minted).isZero();
+        assertThat(ticketPool.available(EVENT)).isEqualTo(3);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM tickets WHERE event_name = ? "
+                + "AND purchase_date IS NULL AND qr_status = 'READY' AND qr_code_image IS NOT NULL",
+                Long.class, EVENT)).isEqualTo(3);
+        assertThat(ticketPool.available("Evento senza pool")).isEqualTo(-1);
+    }
+
+    @Test
+    void mint_shouldRenderQrCodes_outsideTransaction() {
+        // Given
+        ticketService.createTicket(request());
+        List<Boolean> inTransaction = new ArrayList<>();
+        doAnswer(invocation -> {
+            inTransaction.add(TransactionSynchronizationManager.isActualTransactionActive());
+            return invocation.callRealMethod();
+        }).when(qrCodeGenerator).generate(anyString(), any(ErrorCorrectionLevel.class));
+
+        // When
+        int minted = ticketPool.mint();
+
+        // Then
+        assertThat(minted).isOne();
+        assertThat(inTransaction).containsExactly(false);
+        for (UUID id : unsoldIds()) {
+            Ticket ticket = ticketRepository.findById(id).orElseThrow();
+            assertThat(TicketPayloadCodec.tryDecode(ticket.getQrCodeData())).isEqualTo(id);
+            assertThat(ticket.getQrCodeImage()).isNotEmpty();
+        }
+    }
+
+    @Test
+    void createTicket_shouldClaimPreMintedTicket() {
+        // Given
+        List<UUID> pool = unsoldIds();
+        long soldBefore = eventService.get(EVENT).getTicketsSold();
+
+        // When
+        TicketResponseDTO response = ticketService.createTicket(request());
+
+        // Then
+        assertThat(pool).contains(response.getId());
+        assertThat(response.getUserName()).isEqualTo("Mario Rossi");
+        assertThat(response.getPurchaseDate()).isNotNull();
+        assertThat(TicketPayloadCodec.tryDecode(response.getQrCodeData())).isEqualTo(response.getId());
+        Ticket sold = ticketRepository.findById(response.getId()).orElseThrow();
+        assertThat(sold.getQrStatus()).isEqualTo(QrCodeStatus.READY);
+        assertThat(sold.getUserEmail()).isEqualTo("mario.rossi@example.com");
+        assertThat(outboxMessageRepository.findByTicketIdOrderById(response.getId())).hasSize(1);
+        assertThat(unsoldIds()).hasSize(2).doesNotContain(response.getId());
+        assertThat(eventService.get(EVENT).getTicketsSold()).isEqualTo(soldBefore + 1);
+    }
+
+    @Test
+    void createTicket_shouldCreateTicket_whenPoolIsEmpty() {
+        // Given
+        List<UUID> pool = unsoldIds();
+
+        // When
+        List<UUID> bought = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            bought.add(ticketService.createTicket(request()).getId());
+        }
+
+        // Then
+        assertThat(bought.subList(0, 3)).containsExactlyInAnyOrderElementsOf(pool);
+        assertThat(bought.get(3)).isNotIn(pool);
+        assertThat(unsoldIds()).isEmpty();
+        assertThat(ticketPool.available(EVENT)).isZero();
+    }
+
+    @Test
+    void createTicket_shouldClaimDistinctTickets_whenConcurrent() throws Exception {
+        // Given
+        List<UUID> pool = unsoldIds();
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        List<Callable<UUID>> purchases = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            purchases.add(() -> ticketService.createTicket(request()).getId());
+        }
+
+        // When
+        Set<UUID> bought = new HashSet<>();
+        try {
+            for (Future<UUID> purchase : executor.invokeAll(purchases)) {
+                bought.add(purchase.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        // Then
+        assertThat(bought).hasSize(3);
+        assertThat(pool).containsAll(bought);
+    }
+
+    @Test
+    void checkIn_shouldRejectUnsoldTicket() {
+        // Given
+        UUID unsold = unsoldIds().get(0);
+
+        // When
+        CheckInOutcome outcome = ticketService.checkIn(unsold, RECEPTION);
+
+        // Then
+        assertThat(outcome).isInstanceOf(CheckInOutcome.NotFound.class);
+        assertThat(ticketRepository.findById(unsold).orElseThrow().isValid()).isTrue();
+    }
+
+    @Test
+    void getTicketById_shouldNotExposeUnsoldTicket() {
+        // Given
+        UUID unsold = unsoldIds().get(0);
+
+        // When & Then
+        assertThatThrownBy(() -> ticketService.getTicketById(unsold))
+                .isInstanceOf(TicketNotFoundException.class);
+        assertThatThrownBy(() -> ticketService.getQrCodeImage(unsold))
+                .isInstanceOf(TicketNotFoundException.class);
+        assertThatThrownBy(() -> ticketService.getQrCodeImage(unsold, "small", QrCodeFormat.SVG))
+                .isInstanceOf(TicketNotFoundException.class);
+    }
+
+    private List<UUID> unsoldIds() {
+        return jdbcTemplate.queryForList("SELECT id FROM tickets WHERE event_name = ? AND purchase_date IS NULL",
+                UUID.class, EVENT);
+    }
+
+    private static TicketRequestDTO request() {
+        return new TicketRequestDTO(EVENT, "Mario Rossi", "mario.rossi@example.com");
+    }
+}
@@ -0,0 +1,129 @@
+package it.cflm.qrticketsystem.service;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import it.cflm.qrticketsystem.config.TicketCacheConfig;
+import it.cflm.qrticketsystem.exception.TicketAlreadyUsedException;
+import it.cflm.qrticketsystem.model.QrCodeStatus;
+import it.cflm.qrticketsystem.model.Ticket;
+import it.cflm.qrticketsystem.repository.TicketRepository;
+import it.cflm.qrticketsystem.support.JdbcTrafficConfig;
+import it.cflm.qrticketsystem.support.RequestCost;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Test di integrazione della cache di secondo livello dei biglietti.
+ */
+@SpringBootTest
+@Import(JdbcTrafficConfig.class)
+class TicketSecondLevelCacheTest {
+
+    @Autowired
+    private TicketService ticketService;
+
+    @Autowired
+    private TicketRepository ticketRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Ticket ticket;
+
+    @BeforeEach
+    void setUp() {
+        Ticket newTicket = new Ticket();
+        newTicket.setEventName("CFLM 2025 Party");
+        newTicket.setUserName("Mario Rossi");
+        newTicket.setUserEmail("mario.rossi@example.com");
+        newTicket.setPurchaseDate(LocalDateTime.now());
+        newTicket.setValid(true);
+        newTicket.setQrStatus(QrCodeStatus.READY);
+        newTicket.setQrCodeImage(new byte[]{1, 2, 3});
+        ticket = ticketRepository.save(newTicket);
+        ticket.setQrCodeData(ticket.getId().toString());
+        ticket = ticketRepository.save(ticket);
+    }
+
+    @Test
+    void getTicketById_shouldBeServedFromSecondLevelCache() throws Exception {
+        // Given
+        CacheRegionStatistics region = ticketRegion();
+        long hitsBefore = region.getHitCount();
+
+        // When
+        RequestCost cost = RequestCost.measure(statistics(), () -> {
+            ticketService.getTicketById(ticket.getId());
+            ticketService.getQrCodeImage(ticket.getId());
+        });
+
+        // Then
+        assertThat(region.getHitCount()).isEqualTo(hitsBefore + 2);
+        cost.assertStatements(0).assertBytesFetchedAtMost(0).assertEntityLoads(0);
+        assertThat(meterRegistry.find("hibernate.second.level.cache.requests")
+                .tag("region", TicketCacheConfig.TICKET_REGION)
+                .tag("result", "hit")
+                .functionCounter()).isNotNull();
+    }
+
+    @Test
+    void validateTicket_shouldNotLeaveStaleValidStateInCache() {
+        // Given - l'entry è in cache con isValid = true
+        assertThat(ticketService.getTicketById(ticket.getId()).isValid()).isTrue();
+        assertThat(ticketRepository.findByQrCodeData(ticket.getQrCodeData()))
+                .hasValueSatisfying(cached -> assertThat(cached.isValid()).isTrue());
+        CacheRegionStatistics region = ticketRegion();
+        long hitsBefore = region.getHitCount();
+
+        // When
+        ticketService.validateTicket(ticket.getId(), ScanContext.UNKNOWN);
+
+        // Then - letture successive (dalla cache) vedono il check-in
+        assertThat(ticketService.getTicketById(ticket.getId()).isValid()).isFalse();
+        assertThat(ticketRepository.findByQrCodeData(ticket.getQrCodeData()))
+                .hasValueSatisfying(cached -> assertThat(cached.isValid()).isFalse());
+        assertThat(region.getHitCount()).isGreaterThan(hitsBefore);
+        assertThatThrownBy(() -> ticketService.validateTicket(ticket.getId(), ScanContext.UNKNOWN))
+                .isInstanceOf(TicketAlreadyUsedException.class);
+    }
+
+    @Test
+    void checkIn_shouldRejectTicket_usedOnAnotherInstance_whileCachedAsValid() {
+        // Given - la copia in cache è valida, un'altra istanza ha già registrato l'ingresso
+        assertThat(ticketService.getTicketById(ticket.getId()).isValid()).isTrue();
+        jdbcTemplate.update("update tickets set is_valid = false, version = version + 1 where id = ?", ticket.getId());
+
+        // When
+        CheckInOutcome outcome = ticketService.checkIn(ticket.getId(), ScanContext.UNKNOWN);
+
+        // Then
+        assertThat(outcome).isEqualTo(new CheckInOutcome.AlreadyUsed(ticket.getId()));
+        assertThat(ticketService.getTicketById(ticket.getId()).isValid()).isFalse();
+    }
+
+    private CacheRegionStatistics ticketRegion() {
+        return statistics().getDomainDataRegionStatistics(TicketCacheConfig.TICKET_REGION);
+    }
+
+    private Statistics statistics() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+}
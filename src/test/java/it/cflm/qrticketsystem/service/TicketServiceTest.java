@@ -1,5 +1,6 @@
 package it.cflm.qrticketsystem.service;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -11,21 +12,41 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import static org.mockito.ArgumentMatchers.any;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.stubbing.Answer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
 import it.cflm.qrticketsystem.config.QRCodeConfig;
+import it.cflm.qrticketsystem.config.ResilienceProperties;
+import it.cflm.qrticketsystem.config.SingleFlightProperties;
+import it.cflm.qrticketsystem.config.QRCodeConfig.PayloadEncoding;
 import it.cflm.qrticketsystem.dto.TicketRequestDTO;
 import it.cflm.qrticketsystem.dto.TicketResponseDTO;
 import it.cflm.qrticketsystem.dto.TicketValidationResponseDTO;
+import it.cflm.qrticketsystem.exception.InvalidQrCodeFormatException;
+import it.cflm.qrticketsystem.exception.LookupBusyException;
 import it.cflm.qrticketsystem.exception.TicketAlreadyUsedException;
 import it.cflm.qrticketsystem.exception.TicketNotFoundException;
+import it.cflm.qrticketsystem.model.QrCodeStatus;
+import it.cflm.qrticketsystem.model.ScanOutcome;
 import it.cflm.qrticketsystem.model.Ticket;
+import it.cflm.qrticketsystem.outbox.OutboxService;
 import it.cflm.qrticketsystem.repository.TicketRepository;
+import it.cflm.qrticketsystem.util.TicketPayloadCodec;
 
 /**
  * Test unitari per il servizio TicketService.
@@ -37,8 +58,49 @@ class TicketServiceTest {
     @Mock
     private TicketRepository ticketRepository;
 
+    @Spy
+    private QRCodeConfig qrCodeConfig = new QRCodeConfig();
+
+    @Spy
+    private QRCodeGenerator qrCodeGenerator = new QRCodeGenerator(qrCodeConfig);
+
+    @Spy
+    private QrCodeVariantCache qrCodeVariantCache = new QrCodeVariantCache(qrCodeConfig);
+
+    @Mock
+    private QrCodeRenderPipeline qrCodeRenderPipeline;
+
     @Mock
-    private QRCodeConfig qrCodeConfig;
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private GateCheckInService gateCheckInService;
+
+    @Mock
+    private ScanAuditService scanAuditService;
+
+    @Mock
+    private EventService eventService;
+
+    @Mock
+    private EntryAnalyticsService entryAnalyticsService;
+
+    @Mock
+    private OutboxService outboxService;
+
+    @Spy
+    private TicketLookupCoalescer ticketLookupCoalescer = new TicketLookupCoalescer(new SingleFlightProperties(),
+            new SimpleMeterRegistry());
+
+    @Mock
+    private TicketPool ticketPool;
+
+    @Spy
+    private ResilienceProperties resilienceProperties = new ResilienceProperties();
+
+    @Spy
+    private DatabaseGuard databaseGuard = new DatabaseGuard(mock(PlatformTransactionManager.class),
+            resilienceProperties, new SimpleMeterRegistry());
 
     @InjectMocks
     private TicketService ticketService;
@@ -59,12 +121,14 @@ class TicketServiceTest {
         ticket.setEventName("CFLM 2025 Party");
         ticket.setUserName("Mario Rossi");
         ticket.setUserEmail("mario.rossi@example.com");
+        ticket.setPurchaseDate(LocalDateTime.now());
         ticket.setValid(true);
         ticket.setQrCodeData(ticket.getId().toString());
 
-        when(qrCodeConfig.getWidth()).thenReturn(300);
-        when(qrCodeConfig.getHeight()).thenReturn(300);
-        when(qrCodeConfig.getFormat()).thenReturn("PNG");
+        Answer<EventSettings> event = invocation -> new EventSettings(1, invocation.getArgument(0),
+                invocation.getArgument(0), null, PayloadEncoding.UUID, ErrorCorrectionLevel.L);
+        when(eventService.register(any())).thenAnswer(event);
+        when(eventService.find(any())).thenAnswer(event);
     }
 
     @Test
@@ -85,6 +149,36 @@ class TicketServiceTest {
         verify(ticketRepository, times(2)).save(any(Ticket.class)); // 2-step save strategy
     }
 
+    @Test
+    void createTicket_shouldPublishEvent_withoutRenderingInTransaction() {
+        // Given
+        when(ticketRepository.save(any(Ticket.class))).thenReturn(ticket);
+
+        // When
+        ticketService.createTicket(validRequest);
+
+        // Then
+        assertThat(ticket.getQrStatus()).isEqualTo(QrCodeStatus.PENDING);
+        verify(eventPublisher).publishEvent(new TicketIssuedEvent(ticket.getId(), ticket.getQrCodeData(),
+                ErrorCorrectionLevel.L));
+        verify(qrCodeGenerator, never()).generate(any(String.class));
+    }
+
+    @Test
+    void getQrCodeImage_shouldRenderNow_whenImageIsPending() {
+        // Given
+        byte[] rendered = new byte[]{4, 5, 6};
+        ticket.setQrStatus(QrCodeStatus.PENDING);
+        when(ticketRepository.findById(ticket.getId())).thenReturn(Optional.of(ticket));
+        when(qrCodeRenderPipeline.renderNow(ticket.getId(), ticket.getQrCodeData(), ErrorCorrectionLevel.L)).thenReturn(rendered);
+
+        // When
+        byte[] result = ticketService.getQrCodeImage(ticket.getId());
+
+        // Then
+        assertThat(result).isEqualTo(rendered);
+    }
+
     @Test
     void getTicketById_shouldReturnTicket_whenExists() {
         // Given
@@ -117,15 +211,16 @@ class TicketServiceTest {
         // Given
         UUID ticketId = ticket.getId();
         when(ticketRepository.findById(ticketId)).thenReturn(Optional.of(ticket));
-        when(ticketRepository.save(any(Ticket.class))).thenReturn(ticket);
+        when(ticketRepository.saveAndFlush(any(Ticket.class))).thenReturn(ticket);
 
         // When
-        TicketValidationResponseDTO result = ticketService.validateTicket(ticketId);
+        TicketValidationResponseDTO result = ticketService.validateTicket(ticketId, ScanContext.UNKNOWN);
 
         // Then
         assertThat(result.isValid()).isTrue();
         assertThat(result.getMessage()).contains("valido");
-        verify(ticketRepository, times(1)).save(any(Ticket.class));
+        verify(ticketRepository, times(1)).saveAndFlush(any(Ticket.class));
+        verify(scanAuditService).record(ticketId, null, ScanContext.UNKNOWN, ScanOutcome.ADMITTED);
     }
 
     @Test
@@ -136,9 +231,10 @@ class TicketServiceTest {
         when(ticketRepository.findById(ticketId)).thenReturn(Optional.of(ticket));
 
         // When & Then
-        assertThatThrownBy(() -> ticketService.validateTicket(ticketId))
+        assertThatThrownBy(() -> ticketService.validateTicket(ticketId, ScanContext.UNKNOWN))
                 .isInstanceOf(TicketAlreadyUsedException.class)
                 .hasMessageContaining("già stato utilizzato");
+        verify(scanAuditService).record(ticketId, null, ScanContext.UNKNOWN, ScanOutcome.ALREADY_USED);
     }
 
     @Test
@@ -149,7 +245,151 @@ class TicketServiceTest {
         when(ticketRepository.findByQrCodeData(ticketId.toString())).thenReturn(Optional.empty());
 
         // When & Then
-        assertThatThrownBy(() -> ticketService.validateTicket(ticketId))
+        assertThatThrownBy(() -> ticketService.validateTicket(ticketId, ScanContext.UNKNOWN))
                 .isInstanceOf(TicketNotFoundException.class);
+        verify(scanAuditService).record(ticketId, null, ScanContext.UNKNOWN, ScanOutcome.NOT_FOUND);
+    }
+
+    @Test
+    void getQrCodeImage_shouldReturnStoredImage_forDefaultVariant() {
+        // Given
+        byte[] storedImage = new byte[]{1, 2, 3};
+        ticket.setQrCodeImage(storedImage);
+        when(ticketRepository.findById(ticket.getId())).thenReturn(Optional.of(ticket));
+
+        // When
+        byte[] result = ticketService.getQrCodeImage(ticket.getId(), null, QrCodeFormat.PNG);
+
+        // Then
+        assertThat(result).isEqualTo(storedImage);
+        verify(qrCodeGenerator, never()).generate(any(String.class), any(QrCodeVariant.class));
+    }
+
+    @Test
+    void getQrCodeImage_shouldRenderSvgOnce_andServeFromCache() {
+        // Given
+        when(ticketRepository.findById(ticket.getId())).thenReturn(Optional.of(ticket));
+
+        // When
+        byte[] first = ticketService.getQrCodeImage(ticket.getId(), "large", QrCodeFormat.SVG);
+        byte[] second = ticketService.getQrCodeImage(ticket.getId(), "large", QrCodeFormat.SVG);
+
+        // Then
+        assertThat(new String(first, java.nio.charset.StandardCharsets.UTF_8))
+                .startsWith("<svg")
+                .contains("width=\"600\"");
+        assertThat(second).isSameAs(first);
+        verify(ticketRepository, times(1)).findById(ticket.getId());
+    }
+
+    @Test
+    void getQrCodeImage_shouldRejectUnknownSize() {
+        assertThatThrownBy(() -> ticketService.getQrCodeImage(ticket.getId(), "huge", QrCodeFormat.PNG))
+                .isInstanceOf(InvalidQrCodeFormatException.class)
+                .hasMessageContaining("huge");
+    }
+
+    @Test
+    void validateTicket_shouldDecodeCompactPayload() {
+        // Given
+        UUID ticketId = ticket.getId();
+        String payload = TicketPayloadCodec.encode(ticketId, QRCodeConfig.PayloadEncoding.COMPACT);
+        when(ticketRepository.findById(ticketId)).thenReturn(Optional.of(ticket));
+
+        // When
+        TicketValidationResponseDTO result = ticketService.validateTicket(payload, ScanContext.UNKNOWN);
+
+        // Then
+        assertThat(result.isValid()).isTrue();
+        verify(ticketRepository, times(1)).findById(ticketId);
+    }
+
+    @Test
+    void validateTicket_shouldThrowNotFound_whenPayloadIsNotRecognized() {
+        assertThatThrownBy(() -> ticketService.validateTicket("not-a-ticket", ScanContext.UNKNOWN))
+                .isInstanceOf(TicketNotFoundException.class)
+                .hasMessageContaining("non riconosciuto");
+        verify(scanAuditService).record(null, "not-a-ticket", ScanContext.UNKNOWN, ScanOutcome.NOT_FOUND);
+    }
+
+    @Test
+    void checkIn_shouldReturnAlreadyUsed_withoutThrowing() {
+        // Given
+        UUID ticketId = ticket.getId();
+        ticket.setValid(false);
+        when(ticketRepository.findById(ticketId)).thenReturn(Optional.of(ticket));
+
+        // When
+        CheckInOutcome outcome = ticketService.checkIn(ticketId, ScanContext.UNKNOWN);
+
+        // Then
+        assertThat(outcome).isEqualTo(new CheckInOutcome.AlreadyUsed(ticketId));
+        assertThat(outcome.toResponse().isValid()).isFalse();
+        verify(ticketRepository, never()).saveAndFlush(any(Ticket.class));
+        verify(scanAuditService).record(ticketId, null, ScanContext.UNKNOWN, ScanOutcome.ALREADY_USED);
+    }
+
+    @Test
+    void checkIn_shouldReturnNotFound_whenPayloadIsNotRecognized() {
+        // When
+        CheckInOutcome outcome = ticketService.checkIn("not-a-ticket", ScanContext.UNKNOWN);
+
+        // Then
+        assertThat(outcome).isInstanceOf(CheckInOutcome.NotFound.class);
+        assertThat(outcome.toResponse().getMessage()).contains("non riconosciuto");
+        assertThat(outcome.toResponse().getMessage()).doesNotContain("not-a-ticket");
+        verify(ticketRepository, never()).findById(any(UUID.class));
+    }
+
+    @Test
+    void checkIn_shouldReturnAlreadyUsed_whenBothAttemptsConflict() {
+        // Given: ogni tentativo legge una riga valida e l'UPDATE perde contro un'altra istanza
+        UUID ticketId = ticket.getId();
+        when(ticketRepository.findById(ticketId))
+                .thenReturn(Optional.of(copyOf(ticket, true)))
+                .thenReturn(Optional.of(copyOf(ticket, true)))
+                .thenReturn(Optional.of(copyOf(ticket, false)));
+        when(ticketRepository.saveAndFlush(any(Ticket.class)))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Ticket.class, ticketId));
+
+        // When
+        CheckInOutcome outcome = ticketService.checkIn(ticketId, ScanContext.UNKNOWN);
+
+        // Then
+        assertThat(outcome).isEqualTo(new CheckInOutcome.AlreadyUsed(ticketId));
+        verify(ticketRepository, times(2)).saveAndFlush(any(Ticket.class));
+        verify(ticketRepository, times(3)).findById(ticketId);
+        verify(outboxService, never()).ticketUsed(any(Ticket.class));
+        verify(gateCheckInService, never()).admittedOnDatabase(any(), any());
+    }
+
+    @Test
+    void checkIn_shouldAskToRetry_whenBothAttemptsConflict_andTicketIsStillValid() {
+        // Given
+        UUID ticketId = ticket.getId();
+        when(ticketRepository.findById(ticketId)).thenAnswer(invocation -> Optional.of(copyOf(ticket, true)));
+        when(ticketRepository.saveAndFlush(any(Ticket.class)))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Ticket.class, ticketId));
+
+        // When & Then
+        assertThatThrownBy(() -> ticketService.checkIn(ticketId, ScanContext.UNKNOWN))
+                .isInstanceOf(LookupBusyException.class)
+                .hasMessageContaining("riprovare");
+        verify(ticketRepository, times(2)).saveAndFlush(any(Ticket.class));
+    }
+
+    /**
+     * Copia della riga come la restituirebbe una nuova lettura dal database.
+     */
+    private static Ticket copyOf(Ticket source, boolean valid) {
+        Ticket copy = new Ticket();
+        copy.setId(source.getId());
+        copy.setEventName(source.getEventName());
+        copy.setUserName(source.getUserName());
+        copy.setUserEmail(source.getUserEmail());
+        copy.setPurchaseDate(source.getPurchaseDate());
+        copy.setQrCodeData(source.getQrCodeData());
+        copy.setValid(valid);
+        return copy;
     }
 }
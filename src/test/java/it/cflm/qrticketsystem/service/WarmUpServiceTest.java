@@ -0,0 +1,115 @@
+package it.cflm.qrticketsystem.service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import it.cflm.qrticketsystem.config.QRCodeConfig;
+import it.cflm.qrticketsystem.config.WarmUpProperties;
+import it.cflm.qrticketsystem.model.QrCodeStatus;
+import it.cflm.qrticketsystem.model.Ticket;
+import it.cflm.qrticketsystem.repository.TicketRepository;
+
+/**
+ * Test di integrazione del riscaldamento all'avvio e del relativo probe di readiness.
+ */
+@SpringBootTest
+class WarmUpServiceTest {
+
+    @Autowired
+    private TicketRepository ticketRepository;
+
+    @Autowired
+    private QRCodeGenerator qrCodeGenerator;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private WarmUpProperties config;
+    private String eventName;
+
+    @BeforeEach
+    void setUp() {
+        config = new WarmUpProperties();
+        config.setIterations(20);
+        eventName = "Riscaldamento " + UUID.randomUUID();
+        config.setEvents(List.of(eventName));
+    }
+
+    @Test
+    void warmUp_shouldGateReadinessUntilCompleted() {
+        // Given
+        for (int i = 0; i < 3; i++) {
+            saveTicket();
+        }
+        WarmUpService warmUp = newWarmUp();
+        WarmUpHealthIndicator readiness = new WarmUpHealthIndicator(warmUp);
+        assertThat(readiness.health().getStatus()).isEqualTo(Status.OUT_OF_SERVICE);
+
+        // When
+        WarmUpService.WarmUpReport report = warmUp.warmUp();
+
+        // Then
+        assertThat(report.iterations()).isEqualTo(20);
+        assertThat(report.preloadedTickets()).isEqualTo(3);
+        assertThat(report.poolConnections()).isPositive();
+        assertThat(report.budgetExceeded()).isFalse();
+        assertThat(readiness.health().getStatus()).isEqualTo(Status.UP);
+    }
+
+    @Test
+    void warmUp_shouldNotWriteTickets() {
+        // Given
+        long before = ticketRepository.count();
+
+        // When
+        newWarmUp().warmUp();
+
+        // Then
+        assertThat(ticketRepository.count()).isEqualTo(before);
+    }
+
+    @Test
+    void warmUp_withExhaustedBudget_shouldStillBecomeReady() {
+        // Given
+        config.setBudgetMs(0);
+        WarmUpService warmUp = newWarmUp();
+
+        // When
+        WarmUpService.WarmUpReport report = warmUp.warmUp();
+
+        // Then
+        assertThat(report.budgetExceeded()).isTrue();
+        assertThat(report.iterations()).isZero();
+        assertThat(new WarmUpHealthIndicator(warmUp).health().getStatus()).isEqualTo(Status.UP);
+    }
+
+    private WarmUpService newWarmUp() {
+        return new WarmUpService(ticketRepository, qrCodeGenerator, dataSource, new QRCodeConfig(), config,
+                transactionManager);
+    }
+
+    private void saveTicket() {
+        Ticket ticket = new Ticket();
+        ticket.setEventName(eventName);
+        ticket.setUserName("Mario Rossi");
+        ticket.setUserEmail("mario.rossi@example.com");
+        ticket.setPurchaseDate(LocalDateTime.now());
+        ticket.setValid(true);
+        ticket.setQrStatus(QrCodeStatus.READY);
+        ticketRepository.save(ticket);
+    }
+}
@@ -0,0 +1,62 @@
+package it.cflm.qrticketsystem.sharding;
+
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import org.junit.jupiter.api.Test;
+
+import it.cflm.qrticketsystem.model.Ticket;
+import it.cflm.qrticketsystem.repository.TicketRepository;
+
+/**
+ * Test della verifica all'avvio dell'instradamento dei metodi del repository dei biglietti.
+ */
+class ShardRouteTest {
+
+    @Test
+    void routes_shouldCoverEveryTicketRepositoryMethod() {
+        // When & Then
+        assertThat(ShardedTicketRepositoryInterceptor.routes(TicketRepository.class))
+                .hasSize(TicketRepository.class.getMethods().length);
+    }
+
+    @Test
+    void routes_shouldRejectMethodWithoutRoute() {
+        assertThatThrownBy(() -> ShardedTicketRepositoryInterceptor.routes(Unrouted.class))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("findByUserName");
+    }
+
+    @Test
+    void routes_shouldRejectStreamOverAllShards() {
+        assertThatThrownBy(() -> ShardedTicketRepositoryInterceptor.routes(ScatteredStream.class))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("streamAll");
+    }
+
+    @Test
+    void routes_shouldRejectParameterNotMatchingKey() {
+        assertThatThrownBy(() -> ShardedTicketRepositoryInterceptor.routes(WrongKey.class))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("findByUserName");
+    }
+
+    interface Unrouted {
+        @ShardRoute(ShardRoute.Key.EVENT_NAME)
+        long countByEventName(String eventName);
+
+        Optional<Ticket> findByUserName(String userName);
+    }
+
+    interface ScatteredStream {
+        @ShardRoute(ShardRoute.Key.ALL_SHARDS)
+        Stream<Ticket> streamAll();
+    }
+
+    interface WrongKey {
+        @ShardRoute(ShardRoute.Key.TICKET_ID)
+        Optional<Ticket> findByUserName(String userName);
+    }
+}
@@ -0,0 +1,204 @@
+package it.cflm.qrticketsystem.sharding;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import it.cflm.qrticketsystem.dto.ShardMoveDTO;
+import it.cflm.qrticketsystem.exception.ShardMovingException;
+import it.cflm.qrticketsystem.model.QrCodeStatus;
+import it.cflm.qrticketsystem.model.Ticket;
+import it.cflm.qrticketsystem.repository.TicketRepository;
+import it.cflm.qrticketsystem.service.CheckInOutcome;
+import it.cflm.qrticketsystem.service.ScanContext;
+import it.cflm.qrticketsystem.service.TicketService;
+import it.cflm.qrticketsystem.util.TicketIds;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Test di integrazione della suddivisione dei biglietti su tre database H2: lo shard 0
+ * dell'applicazione e due shard aggiuntivi.
+ */
+@SpringBootTest(properties = {
+        "qrticket.sharding.nodes[0].url=jdbc:h2:mem:shard1-it;DB_CLOSE_DELAY=-1",
+        "qrticket.sharding.nodes[0].username=sa",
+        "qrticket.sharding.nodes[1].url=jdbc:h2:mem:shard2-it;DB_CLOSE_DELAY=-1",
+        "qrticket.sharding.nodes[1].username=sa",
+        "qrticket.sharding.refresh-interval-ms=50"
+})
+class ShardedTicketRepositoryTest {
+
+    @Autowired
+    private TicketService ticketService;
+
+    @Autowired
+    private TicketRepository ticketRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ShardRoutingDataSource shardRoutingDataSource;
+
+    @Autowired
+    private TicketShardDirectory directory;
+
+    @Autowired
+    private TicketShardRebalancer rebalancer;
+
+    @BeforeEach
+    void setUp() {
+        // Mappa bilanciata all'inizio di ogni test
+        for (int bucket = 0; bucket < TicketIds.BUCKETS; bucket++) {
+            if (directory.shardOf(bucket) != directory.targetShard(bucket) || directory.isMoving(bucket)) {
+                directory.assign(bucket, directory.targetShard(bucket));
+            }
+        }
+    }
+
+    @Test
+    void save_shouldStoreTicketOnEventShard() {
+        for (int shard = 0; shard < 3; shard++) {
+            // Given
+            String eventName = eventOn(shard, "Salvataggio");
+
+            // When
+            UUID ticketId = saveTicket(eventName).getId();
+
+            // Then
+            assertThat(TicketIds.bucketOf(ticketId)).isEqualTo(TicketIds.bucketOf(eventName));
+            for (int other = 0; other < 3; other++) {
+                assertThat(rowsOn(other, ticketId)).isEqualTo(other == shard ? 1 : 0);
+            }
+        }
+    }
+
+    @Test
+    void checkIn_shouldUseTicketShard() {
+        // Given
+        UUID ticketId = saveTicket(eventOn(2, "Check-in")).getId();
+        evictCaches();
+
+        // When
+        CheckInOutcome first = ticketService.checkIn(ticketId, ScanContext.UNKNOWN);
+        evictCaches();
+        CheckInOutcome second = ticketService.checkIn(ticketId, ScanContext.UNKNOWN);
+
+        // Then
+        assertThat(first).isInstanceOf(CheckInOutcome.Admitted.class);
+        assertThat(second).isInstanceOf(CheckInOutcome.AlreadyUsed.class);
+        assertThat(jdbc(2).queryForObject("SELECT is_valid FROM tickets WHERE id = ?", Boolean.class, ticketId))
+                .isFalse();
+    }
+
+    @Test
+    void crossEventQueries_shouldScatterOverAllShards() {
+        // Given
+        saveTicket(eventOn(1, "Conteggio"));
+        saveTicket(eventOn(2, "Conteggio"));
+        long expected = 0;
+        for (int shard = 0; shard < 3; shard++) {
+            expected += jdbc(shard).queryForObject("SELECT COUNT(*) FROM tickets", Long.class);
+        }
+
+        // When & Then
+        assertThat(ticketRepository.count()).isEqualTo(expected);
+        assertThat(ticketRepository.findAll()).hasSize((int) expected);
+    }
+
+    @Test
+    void findById_shouldLocateTicketsWithRandomIds() {
+        // Given - biglietto con ID casuale (creato prima della suddivisione) sullo shard 2
+        Ticket ticket = saveTicket(eventOn(2, "Legacy"));
+        UUID legacyId = UUID.randomUUID();
+        Map<String, Object> row = jdbc(2).queryForMap("SELECT * FROM tickets WHERE id = ?", ticket.getId());
+        row.put("id", legacyId);
+        row.put("qr_code_data", legacyId.toString());
+        String columns = String.join(", ", row.keySet());
+        String placeholders = String.join(", ", row.keySet().stream().map(column -> "?").toList());
+        jdbc(2).update("INSERT INTO tickets (" + columns + ") VALUES (" + placeholders + ")", row.values().toArray());
+
+        // When & Then
+        assertThat(ticketRepository.findById(legacyId)).isPresent();
+        assertThat(ticketRepository.findByQrCodeData(legacyId.toString())).isPresent();
+        assertThat(ticketService.checkIn(legacyId, ScanContext.UNKNOWN)).isInstanceOf(CheckInOutcome.Admitted.class);
+        assertThat(ticketRepository.findById(UUID.randomUUID())).isEmpty();
+    }
+
+    @Test
+    void rebalance_shouldMoveMisplacedBucket() {
+        // Given - bucket dell'evento lasciato sullo shard 0 invece che sullo shard 1
+        String eventName = eventOn(1, "Ribilanciamento");
+        int bucket = TicketIds.bucketOf(eventName);
+        directory.assign(bucket, 0);
+        UUID ticketId = saveTicket(eventName).getId();
+        assertThat(rowsOn(0, ticketId)).isOne();
+
+        // When
+        assertThat(rebalancer.plan()).extracting(ShardMoveDTO::getBucket).containsExactly(bucket);
+        rebalancer.rebalance();
+        evictCaches();
+
+        // Then
+        assertThat(directory.shardOf(bucket)).isEqualTo(1);
+        assertThat(rowsOn(0, ticketId)).isZero();
+        assertThat(rowsOn(1, ticketId)).isOne();
+        assertThat(ticketRepository.findById(ticketId)).isPresent();
+        assertThat(rebalancer.plan()).isEmpty();
+    }
+
+    @Test
+    void save_shouldBeRejected_whileBucketIsMoving() {
+        // Given
+        String eventName = eventOn(1, "Spostamento");
+        directory.markMoving(TicketIds.bucketOf(eventName), true);
+
+        // When & Then
+        assertThatThrownBy(() -> saveTicket(eventName)).isInstanceOf(ShardMovingException.class);
+    }
+
+    /**
+     * Primo nome di evento, con il prefisso indicato, il cui bucket sta sullo shard richiesto.
+     */
+    private String eventOn(int shard, String prefix) {
+        for (int i = 0; ; i++) {
+            String eventName = prefix + " " + i;
+            if (directory.shardOfEvent(eventName) == shard) {
+                return eventName;
+            }
+        }
+    }
+
+    private Ticket saveTicket(String eventName) {
+        Ticket ticket = new Ticket();
+        ticket.setEventName(eventName);
+        ticket.setUserName("Mario Rossi");
+        ticket.setUserEmail("mario.rossi@example.com");
+        ticket.setPurchaseDate(LocalDateTime.now());
+        ticket.setValid(true);
+        ticket.setQrStatus(QrCodeStatus.READY);
+        ticket = ticketRepository.save(ticket);
+        ticket.setQrCodeData(ticket.getId().toString());
+        return ticketRepository.save(ticket);
+    }
+
+    private int rowsOn(int shard, UUID ticketId) {
+        return jdbc(shard).queryForObject("SELECT COUNT(*) FROM tickets WHERE id = ?", Integer.class, ticketId);
+    }
+
+    private JdbcTemplate jdbc(int shard) {
+        return new JdbcTemplate(shardRoutingDataSource.shard(shard));
+    }
+
+    private void evictCaches() {
+        entityManagerFactory.getCache().evictAll();
+    }
+}
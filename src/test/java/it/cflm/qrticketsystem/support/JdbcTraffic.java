@@ -0,0 +1,151 @@
+package it.cflm.qrticketsystem.support;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Blob;
+import java.sql.CallableStatement;
+import java.sql.Clob;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+/**
+ * Proxy JDBC per i test: conta le istruzioni eseguite e i byte letti dai result set
+ * dal thread corrente, solo mentre è attiva una misura ({@link #start()}).
+ *
+ * I byte letti sono quelli delle colonne a lunghezza variabile (stringhe, byte[], LOB):
+ * bastano a distinguere una lettura dei soli campi di un biglietto da una che carica
+ * anche l'immagine del QR Code.
+ */
+public final class JdbcTraffic {
+
+    private static final ThreadLocal<Counters> CURRENT = new ThreadLocal<>();
+
+    private JdbcTraffic() {
+    }
+
+    /**
+     * Contatori di una misura in corso.
+     */
+    public static final class Counters implements AutoCloseable {
+        private final List<String> statements = new ArrayList<>();
+        private long bytesFetched;
+        private long rowsFetched;
+
+        /** Le istruzioni SQL eseguite, nell'ordine (un batch conta come una sola esecuzione). */
+        public List<String> statements() {
+            return List.copyOf(statements);
+        }
+
+        public long bytesFetched() {
+            return bytesFetched;
+        }
+
+        public long rowsFetched() {
+            return rowsFetched;
+        }
+
+        @Override
+        public void close() {
+            if (CURRENT.get() == this) {
+                CURRENT.remove();
+            }
+        }
+    }
+
+    /**
+     * Inizia una misura sul thread corrente.
+     */
+    public static Counters start() {
+        Counters counters = new Counters();
+        CURRENT.set(counters);
+        return counters;
+    }
+
+    /**
+     * Avvolge un {@link DataSource} nel proxy di misura.
+     */
+    public static DataSource wrap(DataSource dataSource) {
+        return proxy(DataSource.class, dataSource, (target, method, args) -> {
+            Object result = invoke(target, method, args);
+            return result instanceof Connection connection ? wrapConnection(connection) : result;
+        });
+    }
+
+    private static Connection wrapConnection(Connection connection) {
+        return proxy(Connection.class, connection, (target, method, args) -> {
+            Object result = invoke(target, method, args);
+            String sql = args != null && args.length > 0 && args[0] instanceof String s ? s : null;
+            return switch (result) {
+                case CallableStatement statement -> wrapStatement(CallableStatement.class, statement, sql);
+                case PreparedStatement statement -> wrapStatement(PreparedStatement.class, statement, sql);
+                case Statement statement -> wrapStatement(Statement.class, statement, null);
+                case null, default -> result;
+            };
+        });
+    }
+
+    private static <S extends Statement> S wrapStatement(Class<S> type, S statement, String preparedSql) {
+        return proxy(type, statement, (target, method, args) -> {
+            String name = method.getName();
+            if (name.startsWith("execute")) {
+                Counters counters = CURRENT.get();
+                if (counters != null) {
+                    String sql = args != null && args.length > 0 && args[0] instanceof String s ? s : preparedSql;
+                    counters.statements.add(name.equals("executeBatch") ? "[batch] " + sql : sql);
+                }
+            }
+            Object result = invoke(target, method, args);
+            return result instanceof ResultSet resultSet ? wrapResultSet(resultSet) : result;
+        });
+    }
+
+    private static ResultSet wrapResultSet(ResultSet resultSet) {
+        return proxy(ResultSet.class, resultSet, (target, method, args) -> {
+            Object result = invoke(target, method, args);
+            Counters counters = CURRENT.get();
+            if (counters != null) {
+                switch (result) {
+                    case Boolean hasRow when method.getName().equals("next") -> {
+                        if (hasRow) {
+                            counters.rowsFetched++;
+                        }
+                    }
+                    case byte[] bytes -> counters.bytesFetched += bytes.length;
+                    case String string -> counters.bytesFetched += string.length();
+                    case Blob blob -> counters.bytesFetched += blob.length();
+                    case Clob clob -> counters.bytesFetched += clob.length();
+                    case null, default -> {
+                    }
+                }
+            }
+            return result;
+        });
+    }
+
+    @FunctionalInterface
+    private interface Handler<T> {
+        Object handle(T target, Method method, Object[] args) throws Throwable;
+    }
+
+    private static <T> T proxy(Class<T> type, T target, Handler<T> handler) {
+        InvocationHandler invocationHandler = (proxy, method, args) -> handler.handle(target, method, args);
+        return type.cast(Proxy.newProxyInstance(JdbcTraffic.class.getClassLoader(),
+                new Class<?>[] {type}, invocationHandler));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package it.cflm.qrticketsystem.support;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * Avvolge il {@link DataSource} dell'applicazione in {@link JdbcTraffic}.
+ * Da importare nei test che misurano il costo delle richieste ({@link RequestCost}).
+ */
+@TestConfiguration(proxyBeanMethods = false)
+public class JdbcTrafficConfig {
+
+    @Bean
+    static BeanPostProcessor jdbcTrafficDataSourceWrapper() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof DataSource dataSource ? JdbcTraffic.wrap(dataSource) : bean;
+            }
+        };
+    }
+}
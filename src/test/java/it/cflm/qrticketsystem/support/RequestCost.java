@@ -0,0 +1,77 @@
+package it.cflm.qrticketsystem.support;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.hibernate.stat.Statistics;
+
+import com.sun.management.ThreadMXBean;
+
+/**
+ * Costo di una chiamata misurato sul thread corrente: istruzioni SQL e byte letti
+ * (tramite {@link JdbcTraffic}), entità caricate da Hibernate e memoria allocata.
+ * Il lavoro svolto da altri thread (es. la scrittura dell'audit) non è conteggiato.
+ *
+ * <pre>
+ * RequestCost cost = RequestCost.measure(statistics, () -&gt; mockMvc.perform(...));
+ * cost.assertStatements(1).assertBytesFetchedAtMost(0).assertAllocatedAtMost(256 * 1024);
+ * </pre>
+ *
+ * @param statements Le istruzioni SQL eseguite
+ * @param bytesFetched I byte letti dalle colonne a lunghezza variabile
+ * @param entityLoads Le entità caricate dal database (contatore globale di Hibernate)
+ * @param allocatedBytes La memoria allocata dal thread corrente
+ */
+public record RequestCost(List<String> statements, long bytesFetched, long entityLoads, long allocatedBytes) {
+
+    private static final ThreadMXBean THREADS = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    /**
+     * Chiamata da misurare.
+     */
+    @FunctionalInterface
+    public interface Call {
+        void run() throws Exception;
+    }
+
+    /**
+     * Esegue la chiamata e ne misura il costo.
+     *
+     * @param statistics Le statistiche di Hibernate (con {@code generate_statistics} attivo)
+     * @param call La chiamata
+     * @return Il costo misurato
+     */
+    public static RequestCost measure(Statistics statistics, Call call) throws Exception {
+        long threadId = Thread.currentThread().threadId();
+        long loadsBefore = statistics.getEntityLoadCount();
+        long allocatedBefore = THREADS.getThreadAllocatedBytes(threadId);
+        try (JdbcTraffic.Counters counters = JdbcTraffic.start()) {
+            call.run();
+            long allocated = THREADS.getThreadAllocatedBytes(threadId) - allocatedBefore;
+            return new RequestCost(counters.statements(), counters.bytesFetched(),
+                    statistics.getEntityLoadCount() - loadsBefore, allocated);
+        }
+    }
+
+    public RequestCost assertStatements(int expected) {
+        assertThat(statements).as("istruzioni SQL eseguite").hasSize(expected);
+        return this;
+    }
+
+    public RequestCost assertBytesFetchedAtMost(long maxBytes) {
+        assertThat(bytesFetched).as("byte letti dal database (istruzioni: %s)", statements)
+                .isLessThanOrEqualTo(maxBytes);
+        return this;
+    }
+
+    public RequestCost assertEntityLoads(long expected) {
+        assertThat(entityLoads).as("entità caricate dal database").isEqualTo(expected);
+        return this;
+    }
+
+    public RequestCost assertAllocatedAtMost(long maxBytes) {
+        assertThat(allocatedBytes).as("memoria allocata dalla chiamata").isLessThanOrEqualTo(maxBytes);
+        return this;
+    }
+}
@@ -0,0 +1,148 @@
+package it.cflm.qrticketsystem.util;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test unitari per CircuitBreaker, con un orologio controllato dal test.
+ */
+class CircuitBreakerTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(5);
+
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    void shouldOpen_whenFailureRateIsReached() {
+        // Given
+        CircuitBreaker breaker = breaker();
+        call(breaker, true);
+        call(breaker, true);
+        call(breaker, false);
+
+        // When - 2 fallite su 4: 50%
+        call(breaker, false);
+
+        // Then
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(breaker.tryAcquire()).isFalse();
+    }
+
+    @Test
+    void shouldStayClosed_belowMinimumCalls() {
+        // Given
+        CircuitBreaker breaker = breaker();
+
+        // When
+        call(breaker, false);
+        call(breaker, false);
+        call(breaker, false);
+
+        // Then
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(breaker.tryAcquire()).isTrue();
+    }
+
+    @Test
+    void shouldCountSlowCallsAsFailures() {
+        // Given
+        CircuitBreaker breaker = breaker();
+        long slow = TimeUnit.MILLISECONDS.toNanos(100);
+
+        // When
+        for (int i = 0; i < 4; i++) {
+            assertThat(breaker.tryAcquire()).isTrue();
+            breaker.onSuccess(slow);
+        }
+
+        // Then
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void shouldOnlyCountTheLastWindowSizeCalls() {
+        // Given - il primo fallimento esce dalla finestra di 6 chiamate
+        CircuitBreaker breaker = breaker();
+        call(breaker, false);
+        for (int i = 0; i < 6; i++) {
+            call(breaker, true);
+        }
+
+        // When
+        call(breaker, false);
+        call(breaker, false);
+        CircuitBreaker.State afterTwoFailures = breaker.state();
+        call(breaker, false);
+
+        // Then - 2 su 6 e poi 3 su 6
+        assertThat(afterTwoFailures).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void shouldClose_afterSuccessfulTrialCalls() {
+        // Given
+        CircuitBreaker breaker = openBreaker();
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(10));
+
+        // When - due chiamate di prova, la terza attende il loro esito
+        boolean first = breaker.tryAcquire();
+        boolean second = breaker.tryAcquire();
+        boolean third = breaker.tryAcquire();
+        breaker.onSuccess(FAST);
+        CircuitBreaker.State afterFirstTrial = breaker.state();
+        breaker.onSuccess(FAST);
+
+        // Then
+        assertThat(first).isTrue();
+        assertThat(second).isTrue();
+        assertThat(third).isFalse();
+        assertThat(afterFirstTrial).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(breaker.tryAcquire()).isTrue();
+    }
+
+    @Test
+    void shouldReopen_whenTrialCallFails() {
+        // Given
+        CircuitBreaker breaker = openBreaker();
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(10));
+
+        // When
+        assertThat(breaker.tryAcquire()).isTrue();
+        breaker.onFailure();
+
+        // Then - l'attesa riparte dalla nuova apertura
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.OPEN);
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(9));
+        assertThat(breaker.tryAcquire()).isFalse();
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertThat(breaker.tryAcquire()).isTrue();
+    }
+
+    private CircuitBreaker breaker() {
+        return new CircuitBreaker(6, 4, 50, Duration.ofMillis(50), Duration.ofSeconds(10), 2, clock::get);
+    }
+
+    private CircuitBreaker openBreaker() {
+        CircuitBreaker breaker = breaker();
+        for (int i = 0; i < 4; i++) {
+            call(breaker, false);
+        }
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.OPEN);
+        return breaker;
+    }
+
+    private static void call(CircuitBreaker breaker, boolean success) {
+        assertThat(breaker.tryAcquire()).isTrue();
+        if (success) {
+            breaker.onSuccess(FAST);
+        } else {
+            breaker.onFailure();
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package it.cflm.qrticketsystem.util;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test unitari per LogRateLimiter.
+ */
+class LogRateLimiterTest {
+
+    @Test
+    void tryAcquire_shouldSuppressBeyondPermits_andReportThemInNextInterval() {
+        // Given
+        AtomicLong clock = new AtomicLong();
+        LogRateLimiter limiter = new LogRateLimiter(2, Duration.ofSeconds(1), clock::get);
+
+        // When & Then
+        assertThat(limiter.tryAcquire()).isZero();
+        assertThat(limiter.tryAcquire()).isZero();
+        assertThat(limiter.tryAcquire()).isEqualTo(LogRateLimiter.SUPPRESSED);
+        assertThat(limiter.tryAcquire()).isEqualTo(LogRateLimiter.SUPPRESSED);
+
+        clock.addAndGet(Duration.ofSeconds(1).toNanos());
+        assertThat(limiter.tryAcquire()).isEqualTo(2);
+        assertThat(limiter.tryAcquire()).isZero();
+    }
+}
@@ -0,0 +1,83 @@
+package it.cflm.qrticketsystem.util;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test unitari per RollingWindowCounter.
+ */
+class RollingWindowCounterTest {
+
+    @Test
+    void perSecond_shouldReturnCountsOldestFirst() {
+        // Given
+        AtomicLong clock = new AtomicLong(1_700_000_000L);
+        RollingWindowCounter counter = new RollingWindowCounter(3, clock::get);
+
+        // When
+        counter.increment();
+        clock.incrementAndGet();
+        counter.increment();
+        counter.increment();
+
+        // Then
+        assertThat(counter.perSecond()).containsExactly(0, 1, 2);
+        assertThat(counter.total()).isEqualTo(3);
+    }
+
+    @Test
+    void increment_shouldDropSecondsOutsideTheWindow() {
+        // Given
+        AtomicLong clock = new AtomicLong(1_700_000_000L);
+        RollingWindowCounter counter = new RollingWindowCounter(3, clock::get);
+        counter.increment();
+        counter.increment();
+
+        // When - la cella viene riusata tre secondi dopo
+        clock.addAndGet(3);
+        counter.increment();
+
+        // Then
+        assertThat(counter.perSecond()).containsExactly(0, 0, 1);
+    }
+
+    @Test
+    void perSecond_shouldBeEmpty_afterAnIdleWindow() {
+        // Given
+        AtomicLong clock = new AtomicLong(1_700_000_000L);
+        RollingWindowCounter counter = new RollingWindowCounter(5, clock::get);
+        counter.increment();
+
+        // When
+        clock.addAndGet(10);
+
+        // Then
+        assertThat(counter.total()).isZero();
+    }
+
+    @Test
+    void increment_shouldNotLoseConcurrentUpdates() throws Exception {
+        // Given
+        RollingWindowCounter counter = new RollingWindowCounter(60, () -> 1_700_000_000L);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        // When
+        for (int thread = 0; thread < 8; thread++) {
+            executor.submit(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    counter.increment();
+                }
+            });
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        // Then
+        assertThat(counter.total()).isEqualTo(80_000);
+    }
+}
@@ -0,0 +1,153 @@
+package it.cflm.qrticketsystem.util;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import it.cflm.qrticketsystem.exception.LookupBusyException;
+
+/**
+ * Test unitari per SingleFlight.
+ */
+class SingleFlightTest {
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void execute_shouldShareOneComputation_betweenConcurrentCallers() throws Exception {
+        // Given
+        SingleFlight<String, String> flight = new SingleFlight<>("biglietto", 100, Duration.ofSeconds(10));
+        Future<String> leader = executor.submit(() -> flight.execute("a", this::slowLoad));
+        started.await(5, TimeUnit.SECONDS);
+        List<Future<String>> followers = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            followers.add(executor.submit(() -> flight.execute("a", this::slowLoad)));
+        }
+        awaitWaiting(flight, "a", 8);
+
+        // When
+        release.countDown();
+
+        // Then
+        assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("valore");
+        for (Future<String> follower : followers) {
+            assertThat(follower.get(5, TimeUnit.SECONDS)).isEqualTo("valore");
+        }
+        assertThat(loads).hasValue(1);
+        assertThat(flight.leaders()).isEqualTo(1);
+        assertThat(flight.coalesced()).isEqualTo(8);
+        assertThat(flight.inFlight()).isZero();
+    }
+
+    @Test
+    void execute_shouldShareTheLeadersException() throws Exception {
+        // Given
+        SingleFlight<String, String> flight = new SingleFlight<>("biglietto", 100, Duration.ofSeconds(10));
+        IllegalStateException failure = new IllegalStateException("database non raggiungibile");
+        Future<String> leader = executor.submit(() -> flight.execute("a", () -> {
+            slowLoad();
+            throw failure;
+        }));
+        started.await(5, TimeUnit.SECONDS);
+        Future<String> follower = executor.submit(() -> flight.execute("a", this::slowLoad));
+        awaitWaiting(flight, "a", 1);
+
+        // When
+        release.countDown();
+
+        // Then
+        assertThatThrownBy(() -> leader.get(5, TimeUnit.SECONDS)).hasCause(failure);
+        assertThatThrownBy(() -> follower.get(5, TimeUnit.SECONDS)).hasCause(failure);
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void execute_shouldRejectCallers_beyondMaxWaiters() throws Exception {
+        // Given
+        SingleFlight<String, String> flight = new SingleFlight<>("biglietto", 1, Duration.ofSeconds(10));
+        executor.submit(() -> flight.execute("a", this::slowLoad));
+        started.await(5, TimeUnit.SECONDS);
+        Future<String> waiting = executor.submit(() -> flight.execute("a", this::slowLoad));
+        awaitWaiting(flight, "a", 1);
+
+        // When / Then
+        assertThatThrownBy(() -> flight.execute("a", this::slowLoad))
+                .isInstanceOf(LookupBusyException.class)
+                .hasMessageContaining("Troppe richieste");
+        assertThat(flight.rejected()).isEqualTo(1);
+        assertThat(flight.execute("b", () -> "altro")).isEqualTo("altro");
+        release.countDown();
+        assertThat(waiting.get(5, TimeUnit.SECONDS)).isEqualTo("valore");
+    }
+
+    @Test
+    void execute_shouldTimeOut_withoutCancellingTheLeader() throws Exception {
+        // Given
+        SingleFlight<String, String> flight = new SingleFlight<>("biglietto", 100, Duration.ofMillis(50));
+        Future<String> leader = executor.submit(() -> flight.execute("a", this::slowLoad));
+        started.await(5, TimeUnit.SECONDS);
+
+        // When / Then
+        assertThatThrownBy(() -> flight.execute("a", this::slowLoad))
+                .isInstanceOf(LookupBusyException.class)
+                .hasMessageContaining("non terminata in tempo");
+        assertThat(flight.timedOut()).isEqualTo(1);
+        release.countDown();
+        assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("valore");
+    }
+
+    @Test
+    void execute_shouldNotCacheResults_afterCompletion() {
+        // Given
+        SingleFlight<String, Integer> flight = new SingleFlight<>("biglietto", 100, Duration.ofSeconds(1));
+
+        // When
+        int first = flight.execute("a", loads::incrementAndGet);
+        int second = flight.execute("a", loads::incrementAndGet);
+
+        // Then
+        assertThat(first).isEqualTo(1);
+        assertThat(second).isEqualTo(2);
+        assertThat(flight.leaders()).isEqualTo(2);
+        assertThat(flight.coalesced()).isZero();
+    }
+
+    private String slowLoad() {
+        loads.incrementAndGet();
+        started.countDown();
+        try {
+            release.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return "valore";
+    }
+
+    private static void awaitWaiting(SingleFlight<String, ?> flight, String key, int waiters) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (flight.waiting(key) < waiters && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertThat(flight.waiting(key)).isEqualTo(waiters);
+    }
+}
@@ -0,0 +1,44 @@
+package it.cflm.qrticketsystem.util;
+
+import java.io.StringWriter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.Test;
+
+import com.google.zxing.common.BitMatrix;
+
+/**
+ * Test unitari per SvgQrCodeWriter.
+ */
+class SvgQrCodeWriterTest {
+
+    @Test
+    void write_shouldEmitOneSegmentPerHorizontalRun() throws Exception {
+        // Given - riga 0: XX.X ; riga 1: .... ; riga 2: .XXX
+        BitMatrix matrix = new BitMatrix(4, 3);
+        matrix.set(0, 0);
+        matrix.set(1, 0);
+        matrix.set(3, 0);
+        matrix.setRegion(1, 2, 3, 1);
+
+        // When
+        StringWriter out = new StringWriter();
+        SvgQrCodeWriter.write(matrix, 200, out);
+
+        // Then
+        assertThat(out.toString())
+                .startsWith("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"200\" height=\"200\" viewBox=\"0 0 4 3\"")
+                .contains("d=\"M0 0.5h2M3 0.5h1M1 2.5h3\"")
+                .endsWith("</svg>");
+    }
+
+    @Test
+    void write_shouldEmitEmptyPath_forBlankMatrix() throws Exception {
+        // When
+        StringWriter out = new StringWriter();
+        SvgQrCodeWriter.write(new BitMatrix(5, 5), 50, out);
+
+        // Then
+        assertThat(out.toString()).contains("d=\"\"");
+    }
+}
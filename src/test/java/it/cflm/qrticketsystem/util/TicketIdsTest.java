@@ -0,0 +1,59 @@
+package it.cflm.qrticketsystem.util;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test unitari per TicketIds.
+ */
+class TicketIdsTest {
+
+    @Test
+    void newId_shouldBeVersion7WithEmbeddedBucket() {
+        for (int bucket = 0; bucket < TicketIds.BUCKETS; bucket++) {
+            UUID id = TicketIds.newId(bucket);
+
+            assertThat(id.version()).isEqualTo(7);
+            assertThat(id.variant()).isEqualTo(2);
+            assertThat(TicketIds.bucketOf(id)).isEqualTo(bucket);
+        }
+    }
+
+    @Test
+    void newId_shouldBeOrderedByCreationTime() throws InterruptedException {
+        // Given
+        UUID first = TicketIds.newId(255);
+        Thread.sleep(2);
+
+        // When
+        UUID second = TicketIds.newId(0);
+
+        // Then
+        assertThat(second).isGreaterThan(first);
+        assertThat(first.getMostSignificantBits() >>> 16).isLessThanOrEqualTo(System.currentTimeMillis());
+    }
+
+    @Test
+    void newId_shouldBeUnique() {
+        UUID first = TicketIds.newId(42);
+        UUID second = TicketIds.newId(42);
+
+        assertThat(first).isNotEqualTo(second);
+    }
+
+    @Test
+    void bucketOf_shouldReturnMinusOne_forRandomIds() {
+        assertThat(TicketIds.bucketOf(UUID.randomUUID())).isEqualTo(-1);
+    }
+
+    @Test
+    void bucketOfEvent_shouldBeStableAndInRange() {
+        int bucket = TicketIds.bucketOf("Concerto Rock 2025");
+
+        assertThat(bucket).isBetween(0, TicketIds.BUCKETS - 1);
+        assertThat(TicketIds.bucketOf("Concerto Rock 2025")).isEqualTo(bucket);
+        assertThat(TicketIds.bucketOf((String) null)).isZero();
+    }
+}
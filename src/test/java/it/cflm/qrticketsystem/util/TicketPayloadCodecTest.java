@@ -0,0 +1,71 @@
+package it.cflm.qrticketsystem.util;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import org.junit.jupiter.api.Test;
+
+import it.cflm.qrticketsystem.config.QRCodeConfig.PayloadEncoding;
+
+/**
+ * Test unitari per TicketPayloadCodec.
+ */
+class TicketPayloadCodecTest {
+
+    @Test
+    void encode_shouldReturnCanonicalUuid_forUuidEncoding() {
+        UUID id = UUID.randomUUID();
+
+        assertThat(TicketPayloadCodec.encode(id, PayloadEncoding.UUID)).isEqualTo(id.toString());
+    }
+
+    @Test
+    void encode_shouldReturn24AlphanumericChars_forCompactEncoding() {
+        UUID id = UUID.randomUUID();
+
+        String payload = TicketPayloadCodec.encode(id, PayloadEncoding.COMPACT);
+
+        assertThat(payload).hasSize(24).matches("[0-9A-Z $%*+\\-./:]{24}");
+    }
+
+    @Test
+    void decode_shouldRoundTripBothEncodings() {
+        for (int i = 0; i < 1000; i++) {
+            UUID id = UUID.randomUUID();
+            assertThat(TicketPayloadCodec.decode(TicketPayloadCodec.encode(id, PayloadEncoding.UUID))).isEqualTo(id);
+            assertThat(TicketPayloadCodec.decode(TicketPayloadCodec.encode(id, PayloadEncoding.COMPACT))).isEqualTo(id);
+        }
+    }
+
+    @Test
+    void decode_shouldHandleExtremeValues() {
+        UUID zero = new UUID(0, 0);
+        UUID max = new UUID(-1L, -1L);
+
+        assertThat(TicketPayloadCodec.decode(TicketPayloadCodec.encode(zero, PayloadEncoding.COMPACT))).isEqualTo(zero);
+        assertThat(TicketPayloadCodec.decode(TicketPayloadCodec.encode(max, PayloadEncoding.COMPACT))).isEqualTo(max);
+    }
+
+    @Test
+    void decode_shouldRejectUnknownPayload() {
+        assertThatThrownBy(() -> TicketPayloadCodec.decode("https://example.com"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> TicketPayloadCodec.decode("abcdefghijklmnopqrstuvwx"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> TicketPayloadCodec.decode(":::::::::::::::::::::::: "))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void tryDecode_shouldReturnNull_insteadOfThrowing() {
+        UUID id = UUID.randomUUID();
+
+        assertThat(TicketPayloadCodec.tryDecode(id.toString().toUpperCase())).isEqualTo(id);
+        assertThat(TicketPayloadCodec.tryDecode(null)).isNull();
+        assertThat(TicketPayloadCodec.tryDecode("not-a-ticket")).isNull();
+        assertThat(TicketPayloadCodec.tryDecode("zzzzzzzz-zzzz-zzzz-zzzz-zzzzzzzzzzzz")).isNull();
+        assertThat(TicketPayloadCodec.tryDecode(id.toString().replace('-', '+'))).isNull();
+        assertThat(TicketPayloadCodec.tryDecode("abcdefghijklmnopqrstuvwx")).isNull();
+    }
+}